@@ -0,0 +1,176 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.profiling;
+
+import static java.util.Objects.nonNull;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import org.trellisldp.app.profiling.Profiling.Kind;
+import org.trellisldp.app.profiling.Profiling.Recorder;
+import org.trellisldp.app.profiling.Profiling.RequestContext;
+import org.trellisldp.app.profiling.Profiling.Span;
+
+/**
+ * The Java Flight Recorder event types.
+ *
+ * <p>This is the only class that refers to the {@code jdk.jfr} API. It is kept in its own source set, which is
+ * only compiled on a JDK that provides that API, and {@link Profiling} loads it reflectively, so the application
+ * builds and runs on a JVM without JFR.
+ *
+ * @author acoburn
+ */
+final class JfrEvents implements Recorder {
+
+    @Override
+    public Span start(final Kind kind, final String operation, final Object target,
+            final RequestContext context) {
+        final TrellisEvent event = create(kind);
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.operation = operation;
+        event.target = nonNull(target) ? target.toString() : null;
+        if (nonNull(context)) {
+            event.requestId = context.getId();
+            event.partition = context.getPartition();
+        }
+        event.begin();
+        return event;
+    }
+
+    private static TrellisEvent create(final Kind kind) {
+        switch (kind) {
+            case AUTHENTICATION:
+                return new AuthenticationEvent();
+            case AUTHORIZATION:
+                return new AuthorizationEvent();
+            case RESOURCE_READ:
+                return new ResourceReadEvent();
+            case RESOURCE_WRITE:
+                return new ResourceWriteEvent();
+            case SERIALIZATION:
+                return new SerializationEvent();
+            case BINARY_READ:
+                return new BinaryReadEvent();
+            case BINARY_WRITE:
+                return new BinaryWriteEvent();
+            default:
+                return new KafkaPublishEvent();
+        }
+    }
+
+    /**
+     * The fields shared by all Trellis events.
+     */
+    @Category("Trellis")
+    public abstract static class TrellisEvent extends Event implements Span {
+
+        @Label("Request Id")
+        String requestId;
+
+        @Label("Partition")
+        String partition;
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Target")
+        String target;
+
+        @Override
+        public void finish() {
+            end();
+            if (shouldCommit()) {
+                commit();
+            }
+        }
+    }
+
+    /**
+     * An authentication event.
+     */
+    @Name("org.trellisldp.Authentication")
+    @Label("Authentication")
+    @Description("Authenticating the credentials of a request")
+    public static class AuthenticationEvent extends TrellisEvent {
+    }
+
+    /**
+     * A WebAC authorization event.
+     */
+    @Name("org.trellisldp.Authorization")
+    @Label("WebAC Authorization")
+    @Description("Evaluating the access modes of an agent for a resource")
+    public static class AuthorizationEvent extends TrellisEvent {
+    }
+
+    /**
+     * A resource read event.
+     */
+    @Name("org.trellisldp.ResourceRead")
+    @Label("Resource Read")
+    @Description("Reading a resource from the resource service")
+    public static class ResourceReadEvent extends TrellisEvent {
+    }
+
+    /**
+     * A resource write event.
+     */
+    @Name("org.trellisldp.ResourceWrite")
+    @Label("Resource Write")
+    @Description("Writing or purging a resource through the resource service")
+    public static class ResourceWriteEvent extends TrellisEvent {
+    }
+
+    /**
+     * An RDF serialization event.
+     */
+    @Name("org.trellisldp.Serialization")
+    @Label("RDF Serialization")
+    @Description("Reading, writing or updating RDF through the I/O service")
+    public static class SerializationEvent extends TrellisEvent {
+    }
+
+    /**
+     * A binary read event.
+     */
+    @Name("org.trellisldp.BinaryRead")
+    @Label("Binary Read")
+    @Description("Reading binary content, from opening the stream until it is closed")
+    public static class BinaryReadEvent extends TrellisEvent {
+    }
+
+    /**
+     * A binary write event.
+     */
+    @Name("org.trellisldp.BinaryWrite")
+    @Label("Binary Write")
+    @Description("Writing or purging binary content")
+    public static class BinaryWriteEvent extends TrellisEvent {
+    }
+
+    /**
+     * A Kafka publish event.
+     */
+    @Name("org.trellisldp.KafkaPublish")
+    @Label("Kafka Publish")
+    @Description("Publishing a message to Kafka, from the send until it is acknowledged")
+    public static class KafkaPublishEvent extends TrellisEvent {
+    }
+}
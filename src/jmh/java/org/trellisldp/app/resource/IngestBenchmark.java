@@ -0,0 +1,227 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.resource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.curator.framework.CuratorFrameworkFactory.newClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.api.VersionRange;
+import org.trellisldp.audit.DefaultAuditService;
+import org.trellisldp.vocabulary.LDP;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * Measure bulk ingest throughput, in resources per second.
+ *
+ * <p>Each operation ingests a streamed N-Quads document of {@value #RESOURCES} resources, each with a handful of
+ * triples, into an in-memory resource service. Run with {@code ./gradlew jmh -PjmhInclude=IngestBenchmark}.
+ *
+ * @author acoburn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class IngestBenchmark {
+
+    private static final int RESOURCES = 10000;
+    private static final String BASE_URL = "http://localhost:8080/";
+
+    @Param({"1", "4", "8"})
+    private int threads;
+
+    @Param({"10", "100"})
+    private int batchSize;
+
+    private byte[] input;
+    private TestingServer zk;
+    private CuratorFramework curator;
+    private ExecutorService executor;
+    private BulkIngester ingester;
+    private InMemoryResourceService resourceService;
+
+    @Setup
+    public void setUp() throws Exception {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < RESOURCES; ++i) {
+            final String resource = "<" + BASE_URL + "repository/resource" + i + ">";
+            builder.append(resource).append(" <http://purl.org/dc/terms/title> \"Resource ").append(i).append("\" ")
+                .append(resource).append(" .\n");
+            builder.append(resource).append(" <http://purl.org/dc/terms/description> \"A resource\"@en ")
+                .append(resource).append(" .\n");
+            builder.append(resource).append(" <http://purl.org/dc/terms/subject> <http://example.org/subject> ")
+                .append(resource).append(" .\n");
+        }
+        input = builder.toString().getBytes(UTF_8);
+        zk = new TestingServer(true);
+        curator = newClient(zk.getConnectString(), new RetryOneTime(100));
+        curator.start();
+        executor = newFixedThreadPool(threads);
+        resourceService = new InMemoryResourceService();
+        ingester = new BulkIngester(resourceService, new DefaultAuditService(), curator,
+                new MockProducer<>(true, new StringSerializer(), new StringSerializer()), executor, batchSize,
+                batchSize * threads * 2);
+    }
+
+    @Setup(Level.Invocation)
+    public void clear() {
+        resourceService.data.clear();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        curator.close();
+        zk.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESOURCES)
+    public int ingest() {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ingester.ingest("repository", BASE_URL, new AgentSession(Trellis.AnonymousUser),
+                new ByteArrayInputStream(input), output);
+        return output.size();
+    }
+
+    private static final class InMemoryResourceService implements ResourceService {
+        private final Map<IRI, Dataset> data = new ConcurrentHashMap<>();
+
+        @Override
+        public Optional<Resource> get(final IRI identifier) {
+            // Every ingested resource is new, and is created in the partition's root container
+            return identifier.getIRIString().equals("trellis:repository") ? of(new RootContainer(identifier))
+                : empty();
+        }
+
+        @Override
+        public Optional<Resource> get(final IRI identifier, final Instant time) {
+            return get(identifier);
+        }
+
+        @Override
+        public Boolean put(final IRI identifier, final Dataset dataset) {
+            data.put(identifier, dataset);
+            return true;
+        }
+
+        @Override
+        public Stream<IRI> compact(final IRI identifier, final Instant from, final Instant until) {
+            return Stream.empty();
+        }
+
+        @Override
+        public Stream<IRI> purge(final IRI identifier) {
+            return Stream.empty();
+        }
+
+        @Override
+        public Stream<? extends Triple> scan(final String partition) {
+            return Stream.empty();
+        }
+
+        @Override
+        public Supplier<String> getIdentifierSupplier() {
+            return () -> randomUUID().toString();
+        }
+    }
+
+    private static final class RootContainer implements Resource {
+        private final IRI identifier;
+
+        RootContainer(final IRI identifier) {
+            this.identifier = identifier;
+        }
+
+        @Override
+        public IRI getIdentifier() {
+            return identifier;
+        }
+
+        @Override
+        public IRI getInteractionModel() {
+            return LDP.BasicContainer;
+        }
+
+        @Override
+        public List<VersionRange> getMementos() {
+            return emptyList();
+        }
+
+        @Override
+        public Stream<? extends Quad> stream() {
+            return Stream.empty();
+        }
+
+        @Override
+        public Collection<IRI> getTypes() {
+            return emptyList();
+        }
+
+        @Override
+        public Instant getModified() {
+            return Instant.EPOCH;
+        }
+
+        @Override
+        public Boolean hasAcl() {
+            return false;
+        }
+    }
+}
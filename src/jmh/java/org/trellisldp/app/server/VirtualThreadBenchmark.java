@@ -0,0 +1,268 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.server;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.walk;
+import static java.util.Collections.singletonMap;
+import static java.util.Comparator.reverseOrder;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
+import static org.apache.curator.framework.CuratorFrameworkFactory.newClient;
+import static org.trellisldp.api.RDFUtils.TRELLIS_PREFIX;
+import static org.trellisldp.api.RDFUtils.getInstance;
+import static org.trellisldp.rosid.common.RosidConstants.TOPIC_EVENT;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.dropwizard.server.DefaultServerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.kafka.KafkaPublisher;
+import org.trellisldp.rosid.file.FileResourceService;
+import org.trellisldp.vocabulary.DC;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * Compare Dropwizard's platform thread pool with virtual threads when serving many concurrent, slow clients.
+ *
+ * <p>An embedded Jetty server, using the thread pool that each server factory creates with {@value #MAX_THREADS}
+ * {@code maxThreads} (and the default {@code maxVirtualThreads}; the platform pool queues up to {@code clients}
+ * requests, rather than rejecting any), serves POST requests by reading the request body and then a resource from
+ * the file-based resource store in {@code java.io.tmpdir}. Each operation opens {@code clients} concurrent
+ * connections, each of which sends its {@value #BODY_LENGTH} byte body one byte at a time, {@code pause}
+ * milliseconds apart, as a client on a slow link would; the server blocks a thread on each such request until its
+ * body has arrived. The operation completes when every response has been read. Run with {@code ./gradlew jmh} on a
+ * JDK 21+ runtime to include the virtual thread results.
+ *
+ * @author acoburn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class VirtualThreadBenchmark {
+
+    private static final int MAX_THREADS = 1024;
+    private static final int BODY_LENGTH = 4;
+    private static final int RESOURCES = 1000;
+    private static final String PARTITION = "repository";
+    private static final RDF rdf = getInstance();
+
+    @Param({"500", "2000"})
+    private int clients;
+
+    @Param({"0", "50"})
+    private int pause;
+
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    private Path volume;
+    private TestingServer zk;
+    private CuratorFramework curator;
+    private Server server;
+    private int port;
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() throws Exception {
+        volume = createTempDirectory("trellis-virtual");
+        zk = new TestingServer(true);
+        curator = newClient(zk.getConnectString(), new RetryOneTime(100));
+        curator.start();
+        final Producer<String, String> producer = new MockProducer<>(true, new StringSerializer(),
+                new StringSerializer());
+        final ResourceService resourceService = new FileResourceService(singletonMap(PARTITION, volume.toString()),
+                singletonMap(PARTITION, "http://localhost:8080/"), curator, producer,
+                new KafkaPublisher(producer, TOPIC_EVENT), () -> randomUUID().toString(), false);
+        for (int i = 0; i < RESOURCES; ++i) {
+            final IRI identifier = rdf.createIRI(TRELLIS_PREFIX + PARTITION + "/resource" + i);
+            final Dataset dataset = rdf.createDataset();
+            dataset.add(Trellis.PreferUserManaged, identifier, DC.title, rdf.createLiteral("Resource " + i));
+            resourceService.put(identifier, dataset);
+        }
+
+        final ThreadPool pool;
+        if ("virtual".equals(mode)) {
+            if (!VirtualThreadServerFactory.newVirtualThreadExecutor().isPresent()) {
+                throw new IllegalStateException("Virtual threads require a JDK 21+ runtime");
+            }
+            final VirtualThreadServerFactory factory = new VirtualThreadServerFactory();
+            factory.setMaxThreads(MAX_THREADS);
+            pool = factory.createThreadPool(new MetricRegistry());
+        } else {
+            final PlatformServerFactory factory = new PlatformServerFactory();
+            factory.setMaxThreads(MAX_THREADS);
+            factory.setMaxQueuedRequests(clients);
+            pool = factory.getThreadPool();
+        }
+        server = new Server(pool);
+        final ServerConnector connector = new ServerConnector(server);
+        connector.setPort(0);
+        connector.setAcceptQueueSize(clients);
+        server.addConnector(connector);
+        final ServletContextHandler handler = new ServletContextHandler();
+        handler.addServlet(new ServletHolder(new ResourceServlet(resourceService)), "/*");
+        server.setHandler(handler);
+        server.start();
+        port = connector.getLocalPort();
+
+        executor = VirtualThreadServerFactory.newVirtualThreadExecutor().orElseGet(() -> newFixedThreadPool(clients));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        server.stop();
+        curator.close();
+        zk.close();
+        try (final Stream<Path> paths = walk(volume)) {
+            paths.sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public int concurrentClients() throws Exception {
+        final List<Future<Integer>> requests = new ArrayList<>(clients);
+        for (int i = 0; i < clients; ++i) {
+            requests.add(executor.submit(() -> post(ThreadLocalRandom.current().nextInt(RESOURCES))));
+        }
+        int completed = 0;
+        for (final Future<Integer> request : requests) {
+            if (request.get() == SC_OK) {
+                completed += 1;
+            }
+        }
+        return completed;
+    }
+
+    private int post(final int resource) throws IOException, InterruptedException {
+        try (final Socket socket = new Socket("localhost", port)) {
+            final OutputStream output = socket.getOutputStream();
+            output.write(("POST /" + PARTITION + "/resource" + resource + " HTTP/1.1\r\nHost: localhost\r\n"
+                        + "Content-Type: text/plain\r\nContent-Length: " + BODY_LENGTH + "\r\n"
+                        + "Connection: close\r\n\r\n").getBytes(UTF_8));
+            output.flush();
+            for (int i = 0; i < BODY_LENGTH; ++i) {
+                MILLISECONDS.sleep(pause);
+                output.write('x');
+                output.flush();
+            }
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+            final String status = reader.readLine();
+            while (reader.readLine() != null) {
+                // Read the whole response before the connection is closed
+            }
+            return Integer.parseInt(status.split(" ")[1]);
+        }
+    }
+
+    /**
+     * Exposes the thread pool that Dropwizard creates by default.
+     */
+    private static final class PlatformServerFactory extends DefaultServerFactory {
+        private ThreadPool getThreadPool() {
+            return createThreadPool(new MetricRegistry());
+        }
+    }
+
+    /**
+     * Reads the request body, then writes the quads of a resource as plain text.
+     */
+    private static final class ResourceServlet extends HttpServlet {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ResourceService resourceService;
+
+        private ResourceServlet(final ResourceService resourceService) {
+            this.resourceService = resourceService;
+        }
+
+        @Override
+        protected void doPost(final HttpServletRequest req, final HttpServletResponse res) throws IOException {
+            final byte[] buffer = new byte[BODY_LENGTH];
+            try (final InputStream input = req.getInputStream()) {
+                while (input.read(buffer) >= 0) {
+                    // Block until the slow client has sent the whole body
+                }
+            }
+            final Optional<? extends Resource> resource = resourceService.get(rdf.createIRI(TRELLIS_PREFIX
+                        + req.getPathInfo().substring(1)));
+            if (!resource.isPresent()) {
+                res.sendError(SC_NOT_FOUND);
+                return;
+            }
+            res.setContentType("text/plain");
+            res.setCharacterEncoding(UTF_8.name());
+            final PrintWriter writer = res.getWriter();
+            resource.get().stream().forEach(quad -> writer.println(quad));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.size;
+import static java.nio.file.Files.walk;
+import static java.nio.file.Files.write;
+import static java.util.Comparator.reverseOrder;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure the time taken to read a resource journal, for each compression codec.
+ *
+ * <p>Each journal records {@value #EDITS} edits of a resource as N-Quads. The {@code deflate-dictionary} codec
+ * uses a dictionary trained on the journals of other resources. The compression ratio of each codec is printed
+ * when the benchmark is set up. Run with {@code ./gradlew jmh -PjmhInclude=CompressionBenchmark}.
+ *
+ * @author acoburn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class CompressionBenchmark {
+
+    private static final int EDITS = 100;
+    private static final int SAMPLES = 50;
+    private static final int BUFFER_SIZE = 8192;
+
+    @Param({"none", "lz4", "deflate", "deflate-dictionary"})
+    private String codec;
+
+    private Path directory;
+    private Path journal;
+    private Compression compression;
+    private byte[] dictionary;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = createTempDirectory("trellis-compression");
+        final String[] parts = codec.split("-");
+        compression = Compression.fromName(parts[0]);
+        if (parts.length > 1) {
+            final List<Path> sample = new ArrayList<>();
+            for (int i = 0; i < SAMPLES; ++i) {
+                final Path path = directory.resolve("sample" + i);
+                write(path, journal("sample" + i));
+                sample.add(path);
+            }
+            dictionary = JournalCompressor.train(sample, 32768);
+        }
+
+        final Path resource = directory.resolve("resource");
+        resource.toFile().mkdirs();
+        final byte[] data = journal("resource");
+        write(resource.resolve(JournalCompressor.JOURNAL), data);
+        new JournalCompressor(compression, dictionary).compress(resource);
+        journal = resource.resolve(JournalCompressor.JOURNAL + compression.getExtension());
+        System.out.printf("%n%s: %d bytes compressed to %d (ratio %.2f)%n", codec, data.length, size(journal),
+                (double) data.length / size(journal));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (final Stream<Path> paths = walk(directory)) {
+            paths.sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0L;
+        try (final InputStream input = compression.decompress(newInputStream(journal), dictionary)) {
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    private static byte[] journal(final String name) {
+        final String subject = "<trellis:repository/" + name + ">";
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < EDITS; ++i) {
+            builder.append("# ").append(1500000000000L + i * 60000L).append("\n");
+            builder.append(subject).append(" <http://purl.org/dc/terms/title> \"Version ").append(i).append(" of ")
+                .append(name).append("\" <http://www.trellisldp.org/ns/trellis#PreferUserManaged> .\n");
+            builder.append(subject).append(" <http://purl.org/dc/terms/modified> \"").append(i)
+                .append("\"^^<http://www.w3.org/2001/XMLSchema#integer> ")
+                .append("<http://www.trellisldp.org/ns/trellis#PreferServerManaged> .\n");
+            builder.append(subject).append(" <http://www.w3.org/ns/prov#wasGeneratedBy> _:b").append(i)
+                .append(" <http://www.trellisldp.org/ns/trellis#PreferAudit> .\n");
+            builder.append("_:b").append(i).append(" <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> ")
+                .append("<http://www.w3.org/ns/prov#Activity> <http://www.trellisldp.org/ns/trellis#PreferAudit> .\n");
+        }
+        return builder.toString().getBytes(UTF_8);
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.file.Files.copy;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.walk;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+import static java.util.Comparator.reverseOrder;
+import static java.util.Optional.empty;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trellisldp.api.BinaryService;
+
+/**
+ * Measure the cost of computing binary digests on upload, compared with computing them on read.
+ *
+ * <p>{@code upload} writes a binary to a file-based stand-in for the binary store, and {@code uploadWithDigests}
+ * writes it through a {@link DigestingBinaryService} that computes SHA-256 and MD5 digests in the same pass; the
+ * difference between the two is the one-time cost of digest-on-upload. {@code digestOnRead} answers a
+ * {@code Want-Digest: SHA-256} request by reading the stored binary again, as happens on every such request
+ * without stored digests, while {@code storedDigest} answers it from the stored metadata. Run with
+ * {@code ./gradlew jmh -PjmhInclude=DigestBenchmark}.
+ *
+ * @author acoburn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class DigestBenchmark {
+
+    private static final String PARTITION = "repository";
+    private static final String ALGORITHM = "SHA-256";
+    private static final IRI BINARY = getInstance().createIRI("file:repository/binary");
+    private static final IRI UPLOAD = getInstance().createIRI("file:repository/upload");
+    private static final Map<String, String> METADATA = singletonMap("mimeType", "application/octet-stream");
+
+    @Param({"1", "32"})
+    private int megabytes;
+
+    private Path directory;
+    private byte[] content;
+    private BinaryService store;
+    private BinaryService digesting;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = createTempDirectory("trellis-digests");
+        content = new byte[megabytes * 1024 * 1024];
+        new Random(megabytes).nextBytes(content);
+        store = new FileStore(directory);
+        digesting = new DigestingBinaryService(store, singletonMap(PARTITION, directory.toString()),
+                asList(ALGORITHM, "MD5"));
+        digesting.setContent(PARTITION, BINARY, new ByteArrayInputStream(content), METADATA);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (final Stream<Path> paths = walk(directory)) {
+            paths.sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public void upload() {
+        store.setContent(PARTITION, UPLOAD, new ByteArrayInputStream(content), METADATA);
+    }
+
+    @Benchmark
+    public void uploadWithDigests() {
+        digesting.setContent(PARTITION, UPLOAD, new ByteArrayInputStream(content), METADATA);
+    }
+
+    @Benchmark
+    public Optional<String> digestOnRead() {
+        return store.calculateDigest(PARTITION, BINARY, ALGORITHM);
+    }
+
+    @Benchmark
+    public Optional<String> storedDigest() {
+        return digesting.calculateDigest(PARTITION, BINARY, ALGORITHM);
+    }
+
+    /**
+     * A stand-in for the file-based binary store, which keeps each binary in a single file.
+     */
+    private static final class FileStore implements BinaryService {
+
+        private static final int BUFFER_SIZE = 8192;
+
+        private final Path directory;
+
+        private FileStore(final Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public Optional<InputStream> getContent(final String partition, final IRI identifier) {
+            try {
+                return Optional.of(newInputStream(getFile(identifier)));
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public Boolean exists(final String partition, final IRI identifier) {
+            return getFile(identifier).toFile().exists();
+        }
+
+        @Override
+        public void setContent(final String partition, final IRI identifier, final InputStream stream,
+                final Map<String, String> metadata) {
+            try {
+                copy(stream, getFile(identifier), REPLACE_EXISTING);
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void purgeContent(final String partition, final IRI identifier) {
+            try {
+                deleteIfExists(getFile(identifier));
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public Optional<String> calculateDigest(final String partition, final IRI identifier,
+                final String algorithm) {
+            return getContent(partition, identifier).flatMap(stream -> digest(algorithm, stream));
+        }
+
+        @Override
+        public Set<String> supportedAlgorithms() {
+            return singleton(ALGORITHM);
+        }
+
+        @Override
+        public Optional<Resolver> getResolver(final IRI identifier) {
+            return empty();
+        }
+
+        @Override
+        public Optional<Resolver> getResolverForPartition(final String partition) {
+            return empty();
+        }
+
+        @Override
+        public Optional<String> digest(final String algorithm, final InputStream stream) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            try (final InputStream input = stream) {
+                final MessageDigest digest = MessageDigest.getInstance(algorithm);
+                int read;
+                while ((read = input.read(buffer)) >= 0) {
+                    digest.update(buffer, 0, read);
+                }
+                return Optional.of(Base64.getEncoder().encodeToString(digest.digest()));
+            } catch (final NoSuchAlgorithmException ex) {
+                return empty();
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public Supplier<String> getIdentifierSupplier(final String partition) {
+            return () -> "file:" + partition + "/binary";
+        }
+
+        private Path getFile(final IRI identifier) {
+            return directory.resolve(identifier.getIRIString().substring(identifier.getIRIString().indexOf('/') + 1));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.walk;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static java.util.Comparator.reverseOrder;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.curator.framework.CuratorFrameworkFactory.newClient;
+import static org.trellisldp.api.RDFUtils.TRELLIS_PREFIX;
+import static org.trellisldp.api.RDFUtils.getInstance;
+import static org.trellisldp.rosid.common.RosidConstants.TOPIC_EVENT;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trellisldp.kafka.KafkaPublisher;
+import org.trellisldp.rosid.file.FileResourceService;
+import org.trellisldp.vocabulary.DC;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * Measure durable PATCH throughput, in writes per second, with group commit on and off.
+ *
+ * <p>Concurrent clients append a small change to one of {@value #RESOURCES} resources in the file-based resource
+ * store, coordinated through an embedded ZooKeeper server; events go to a mock Kafka producer. With group commit
+ * off, every write syncs its own resource directory; with it on, the syncs of the writes made within
+ * {@value #WINDOW_MILLIS} ms are made together, and each event is sent once its write has been synced. The
+ * results depend heavily on the cost of a sync on the disk that holds {@code java.io.tmpdir}. Run with
+ * {@code ./gradlew jmh -PjmhInclude=GroupCommitBenchmark}.
+ *
+ * @author acoburn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Threads(16)
+public class GroupCommitBenchmark {
+
+    private static final int RESOURCES = 1000;
+    private static final long WINDOW_MILLIS = 2L;
+    private static final String PARTITION = "repository";
+    private static final RDF rdf = getInstance();
+
+    @Param({"false", "true"})
+    private boolean groupCommit;
+
+    private Path volume;
+    private TestingServer zk;
+    private CuratorFramework curator;
+    private GroupCommitResourceService resourceService;
+
+    @Setup
+    public void setUp() throws Exception {
+        volume = createTempDirectory("trellis-group-commit");
+        zk = new TestingServer(true);
+        curator = newClient(zk.getConnectString(), new RetryOneTime(100));
+        curator.start();
+        final Producer<String, String> mock = new MockProducer<>(true, new StringSerializer(),
+                new StringSerializer());
+        final Producer<String, String> producer = groupCommit ? new GroupCommitProducer<>(mock) : mock;
+        final ResourceLayout layout = new ResourceLayout(singletonMap(PARTITION, volume.toString()));
+        resourceService = new GroupCommitResourceService(new FileResourceService(
+                    singletonMap(PARTITION, volume.toString()), singletonMap(PARTITION, "http://localhost:8080/"),
+                    curator, producer, new KafkaPublisher(producer, TOPIC_EVENT), () -> randomUUID().toString(),
+                    false), layout, groupCommit ? singletonList(PARTITION) : emptyList(), WINDOW_MILLIS, 256);
+        resourceService.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        resourceService.stop();
+        curator.close();
+        zk.close();
+        try (final Stream<Path> paths = walk(volume)) {
+            paths.sorted(reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public Boolean patch() {
+        final int i = ThreadLocalRandom.current().nextInt(RESOURCES);
+        final IRI identifier = rdf.createIRI(TRELLIS_PREFIX + PARTITION + "/resource" + i);
+        final Dataset dataset = rdf.createDataset();
+        dataset.add(Trellis.PreferUserManaged, identifier, DC.title, rdf.createLiteral("Title " + randomUUID()));
+        return resourceService.put(identifier, dataset);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Collections.emptyList;
+import static java.util.Comparator.comparing;
+import static java.util.Map.Entry.comparingByValue;
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toList;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * A record of the resources that are accessed most often.
+ *
+ * <p>Access counts are kept for a bounded number of candidate resources, several times the size of the profile,
+ * with the least recently accessed candidates evicted first. Each time the profile is saved, every count is
+ * halved, so that the profile follows shifts in traffic rather than accumulating forever.
+ *
+ * <p>The saved profile is a gzip-compressed list of identifiers, one per line, most accessed first.
+ *
+ * @author acoburn
+ */
+public class AccessProfile {
+
+    private static final int CANDIDATES_PER_ENTRY = 4;
+
+    private final Cache<String, LongAdder> counts;
+    private final Integer size;
+
+    /**
+     * Create an access profile
+     * @param size the number of most-accessed resources to keep in the profile
+     */
+    public AccessProfile(final Integer size) {
+        this.size = size;
+        this.counts = CacheBuilder.newBuilder().maximumSize((long) size * CANDIDATES_PER_ENTRY).build();
+    }
+
+    /**
+     * Record an access to a resource
+     * @param identifier the resource identifier
+     */
+    public void record(final IRI identifier) {
+        counts.asMap().computeIfAbsent(identifier.getIRIString(), k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Get the most-accessed resources
+     * @return the resource identifiers, most accessed first
+     */
+    public List<IRI> getIdentifiers() {
+        final List<Map.Entry<String, Long>> entries = new ArrayList<>();
+        counts.asMap().forEach((key, count) -> entries.add(new SimpleImmutableEntry<>(key, count.sum())));
+        return entries.stream().sorted(comparingByValue(comparing(Long::longValue).reversed())).limit(size)
+            .map(entry -> getInstance().createIRI(entry.getKey())).collect(toList());
+    }
+
+    /**
+     * Save the profile and decay the access counts
+     * @param file the profile file, which is replaced atomically
+     * @throws IOException if the profile could not be written
+     */
+    public void save(final Path file) throws IOException {
+        final List<IRI> identifiers = getIdentifiers();
+        final Path parent = file.toAbsolutePath().getParent();
+        createDirectories(parent);
+        final Path tmp = createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (final Writer writer = new OutputStreamWriter(new GZIPOutputStream(newOutputStream(tmp)), UTF_8)) {
+                for (final IRI identifier : identifiers) {
+                    writer.write(identifier.getIRIString());
+                    writer.write('\n');
+                }
+            }
+            move(tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            deleteIfExists(tmp);
+        }
+        decay();
+    }
+
+    /**
+     * Load a saved profile
+     * @param file the profile file
+     * @return the resource identifiers, most accessed first, or an empty list if no profile has been saved
+     * @throws IOException if the profile could not be read
+     */
+    public static List<IRI> load(final Path file) throws IOException {
+        if (!exists(file)) {
+            return emptyList();
+        }
+        final List<IRI> identifiers = new ArrayList<>();
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        new GZIPInputStream(newInputStream(file)), UTF_8))) {
+            String line;
+            while (nonNull(line = reader.readLine())) {
+                if (!line.isEmpty()) {
+                    identifiers.add(getInstance().createIRI(line));
+                }
+            }
+        }
+        return identifiers;
+    }
+
+    private void decay() {
+        counts.asMap().entrySet().removeIf(entry -> {
+            final long count = entry.getValue().sumThenReset();
+            entry.getValue().add(count / 2);
+            return count < 2;
+        });
+    }
+}
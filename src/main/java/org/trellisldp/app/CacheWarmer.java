@@ -0,0 +1,211 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.api.RDFUtils.TRELLIS_BNODE_PREFIX;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+import io.dropwizard.lifecycle.Managed;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.rdf.api.IRI;
+import org.slf4j.Logger;
+import org.trellisldp.api.AccessControlService;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.api.Session;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * A component that warms caches after a restart, using a saved profile of the most-accessed resources.
+ *
+ * <p>On start, the saved profile is loaded and each resource in it is read, most accessed first, along with
+ * its effective ACL (by resolving the access modes of the anonymous user). This pulls the underlying files into
+ * the OS page cache and fills the authorization caches before they are needed by requests. Prefetching runs
+ * in the background and is rate-limited, so that it does not compete with live traffic.
+ *
+ * <p>The profile is saved periodically and on stop. The node is reported as ready once warm-up has finished,
+ * or once the maximum wait has elapsed, whichever comes first.
+ *
+ * @author acoburn
+ */
+public class CacheWarmer implements Managed {
+
+    private static final Logger LOGGER = getLogger(CacheWarmer.class);
+
+    private final ResourceService resourceService;
+    private final AccessControlService accessService;
+    private final AccessProfile profile;
+    private final Path file;
+    private final Integer rate;
+    private final Long saveIntervalSeconds;
+    private final Long maxWaitNanos;
+    private final ScheduledExecutorService executor;
+    private final Session session = new WarmupSession();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger warmed = new AtomicInteger();
+
+    private volatile Boolean running = false;
+    private volatile Boolean complete = false;
+    private volatile long started;
+
+    /**
+     * Create a cache warmer
+     * @param resourceService the resource service
+     * @param accessService the access control service
+     * @param profile the access profile
+     * @param file the profile file
+     * @param rate the maximum number of resources to prefetch per second
+     * @param saveIntervalSeconds the number of seconds between saves of the profile
+     * @param maxWaitSeconds the maximum number of seconds that readiness waits for warm-up to finish
+     * @param executor the executor on which to prefetch resources and save the profile
+     */
+    public CacheWarmer(final ResourceService resourceService, final AccessControlService accessService,
+            final AccessProfile profile, final Path file, final Integer rate, final Long saveIntervalSeconds,
+            final Long maxWaitSeconds, final ScheduledExecutorService executor) {
+        this.resourceService = resourceService;
+        this.accessService = accessService;
+        this.profile = profile;
+        this.file = file;
+        this.rate = rate;
+        this.saveIntervalSeconds = saveIntervalSeconds;
+        this.maxWaitNanos = NANOSECONDS.convert(maxWaitSeconds, SECONDS);
+        this.executor = executor;
+    }
+
+    @Override
+    public void start() {
+        started = System.nanoTime();
+        running = true;
+        executor.execute(this::warm);
+        executor.scheduleWithFixedDelay(this::save, saveIntervalSeconds, saveIntervalSeconds, SECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        save();
+    }
+
+    /**
+     * Determine whether the node is ready to serve traffic
+     * @return true if warm-up has finished or the maximum wait has elapsed; false otherwise
+     */
+    public Boolean isReady() {
+        return complete || (running && System.nanoTime() - started >= maxWaitNanos);
+    }
+
+    /**
+     * Determine whether warm-up has finished
+     * @return true if warm-up has finished; false otherwise
+     */
+    public Boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Get the number of resources that have been prefetched
+     * @return the number of prefetched resources
+     */
+    public Integer getWarmed() {
+        return warmed.get();
+    }
+
+    /**
+     * Get the number of resources in the loaded profile
+     * @return the number of resources to prefetch
+     */
+    public Integer getTotal() {
+        return total.get();
+    }
+
+    private void warm() {
+        try {
+            final List<IRI> identifiers = AccessProfile.load(file);
+            total.set(identifiers.size());
+            LOGGER.info("Warming caches with {} resources from {}", identifiers.size(), file);
+            final RateLimiter limiter = RateLimiter.create(rate);
+            for (final IRI identifier : identifiers) {
+                if (!running) {
+                    break;
+                }
+                limiter.acquire();
+                // Carry the saved profile forward until live traffic replaces it
+                profile.record(identifier);
+                prefetch(identifier);
+                warmed.incrementAndGet();
+            }
+            LOGGER.info("Warmed caches with {} resources", warmed.get());
+        } catch (final IOException ex) {
+            LOGGER.warn("Unable to load access profile {}: {}", file, ex.getMessage());
+        } finally {
+            complete = true;
+        }
+    }
+
+    private void prefetch(final IRI identifier) {
+        try {
+            if (resourceService.get(identifier).isPresent()) {
+                accessService.getAccessModes(identifier, session);
+            }
+        } catch (final RuntimeException ex) {
+            LOGGER.warn("Unable to prefetch {}: {}", identifier, ex.getMessage());
+        }
+    }
+
+    private synchronized void save() {
+        try {
+            profile.save(file);
+        } catch (final IOException ex) {
+            LOGGER.warn("Unable to save access profile {}: {}", file, ex.getMessage());
+        }
+    }
+
+    private static final class WarmupSession implements Session {
+
+        private final IRI identifier = getInstance().createIRI(TRELLIS_BNODE_PREFIX + "warmup");
+        private final Instant created = Instant.now();
+
+        @Override
+        public IRI getIdentifier() {
+            return identifier;
+        }
+
+        @Override
+        public IRI getAgent() {
+            return Trellis.AnonymousUser;
+        }
+
+        @Override
+        public Optional<IRI> getDelegatedBy() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Instant getCreated() {
+            return created;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app;
+
+import static java.lang.Math.floorMod;
+import static java.lang.Math.min;
+import static java.lang.String.join;
+import static java.util.Arrays.copyOf;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.rdf.api.IRI;
+import org.trellisldp.api.AccessControlService;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.api.Session;
+
+/**
+ * An access control service that caches authorization decisions.
+ *
+ * <p>Resolving the effective ACL for a resource means walking up the container hierarchy until a resource
+ * with an ACL is found. The result of that walk is cached for each resource, so a lookup for a newly seen
+ * resource stops at the first ancestor that has already been resolved. Authorization decisions are then
+ * cached by effective ACL and agent: every resource that inherits its authorizations from the same container
+ * shares a single decision.
+ *
+ * <p>Each resource has a generation (resources share a fixed number of generation counters), which
+ * {@link #invalidate} advances whenever the resource changes. A cached value records the generation of every
+ * resource on the path from the resource it describes up to its effective ACL, read before those resources were,
+ * and is only used while none of them has changed. A change therefore affects only the values that depend on the
+ * changed resource, and a value computed while an unrelated resource changes is still kept. Any remaining
+ * staleness (e.g. a change to an agent group document) is bounded by the cache expiry.
+ *
+ * @author acoburn
+ */
+class CachedAccessControlService implements AccessControlService {
+
+    private static final String SEPARATOR = " ";
+    private static final String INHERITED = "inherited";
+    private static final String DIRECT = "direct";
+    private static final int GENERATIONS = 4096;
+
+    private final AccessControlService service;
+    private final ResourceService resourceService;
+    private final Cache<String, Stamped<String>> acls;
+    private final Cache<String, Stamped<Set<IRI>>> decisions;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATIONS);
+    private final AtomicLong epoch = new AtomicLong();
+
+    /**
+     * Create a cached access control service
+     * @param service the underlying access control service
+     * @param resourceService the resource service
+     * @param size the maximum number of cached values
+     * @param expireSeconds the number of seconds after which a cached value expires
+     */
+    public CachedAccessControlService(final AccessControlService service, final ResourceService resourceService,
+            final Long size, final Long expireSeconds) {
+        this.service = service;
+        this.resourceService = resourceService;
+        this.acls = CacheBuilder.newBuilder().maximumSize(size).expireAfterWrite(expireSeconds, SECONDS).build();
+        this.decisions = CacheBuilder.newBuilder().maximumSize(size).expireAfterWrite(expireSeconds, SECONDS)
+            .build();
+    }
+
+    @Override
+    public Set<IRI> getAccessModes(final IRI identifier, final Session session) {
+        final long current = epoch.get();
+        final Stamped<String> acl = getEffectiveAcl(identifier, current);
+        final String key = join(SEPARATOR, acl.value, acl.value.equals(identifier.getIRIString()) ? DIRECT
+                : INHERITED, session.getAgent().getIRIString(),
+                session.getDelegatedBy().map(IRI::getIRIString).orElse(""));
+        final Stamped<Set<IRI>> cached = decisions.getIfPresent(key);
+        if (nonNull(cached) && isCurrent(cached)) {
+            return cached.value;
+        }
+        // The decision depends on the same resources as the effective ACL, whose generations were read first
+        final Set<IRI> modes = service.getAccessModes(identifier, session);
+        decisions.put(key, new Stamped<>(modes, acl));
+        return modes;
+    }
+
+    /**
+     * Discard any cached values that depend on a resource
+     * @param identifier the identifier of the resource that changed
+     */
+    public void invalidate(final IRI identifier) {
+        generations.incrementAndGet(slot(identifier.getIRIString()));
+    }
+
+    /**
+     * Discard every cached value
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        acls.invalidateAll();
+        decisions.invalidateAll();
+    }
+
+    private Stamped<String> getEffectiveAcl(final IRI identifier, final long current) {
+        final String key = identifier.getIRIString();
+        final Stamped<String> cached = acls.getIfPresent(key);
+        if (nonNull(cached) && isCurrent(cached)) {
+            return cached;
+        }
+        final int slot = slot(key);
+        final long generation = generations.get(slot);
+        final Stamped<String> acl = resourceService.get(identifier).filter(Resource::hasAcl).isPresent()
+            ? new Stamped<>(key, current, slot, generation)
+            : resourceService.getContainer(identifier).map(parent -> getEffectiveAcl(parent, current))
+                .map(inherited -> inherited.extend(current, slot, generation))
+                .orElseGet(() -> new Stamped<>(key, current, slot, generation));
+        acls.put(key, acl);
+        return acl;
+    }
+
+    private boolean isCurrent(final Stamped<?> stamped) {
+        if (stamped.epoch != epoch.get()) {
+            return false;
+        }
+        for (int i = 0; i < stamped.slots.length; ++i) {
+            if (generations.get(stamped.slots[i]) != stamped.generations[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int slot(final String identifier) {
+        return floorMod(identifier.hashCode(), GENERATIONS);
+    }
+
+    /**
+     * A cached value, with the generations of the resources that it depends on
+     */
+    private static final class Stamped<T> {
+        private final T value;
+        private final long epoch;
+        private final int[] slots;
+        private final long[] generations;
+
+        private Stamped(final T value, final long epoch, final int slot, final long generation) {
+            this(value, epoch, new int[] {slot}, new long[] {generation});
+        }
+
+        private Stamped(final T value, final Stamped<?> dependencies) {
+            this(value, dependencies.epoch, dependencies.slots, dependencies.generations);
+        }
+
+        private Stamped(final T value, final long epoch, final int[] slots, final long[] generations) {
+            this.value = value;
+            this.epoch = epoch;
+            this.slots = slots;
+            this.generations = generations;
+        }
+
+        private Stamped<T> extend(final long epoch, final int slot, final long generation) {
+            final int[] extendedSlots = copyOf(slots, slots.length + 1);
+            final long[] extendedGenerations = copyOf(generations, generations.length + 1);
+            extendedSlots[slots.length] = slot;
+            extendedGenerations[generations.length] = generation;
+            return new Stamped<>(value, min(epoch, this.epoch), extendedSlots, extendedGenerations);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Optional.ofNullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.trellisldp.api.NamespaceService;
+
+/**
+ * A namespace service that answers lookups from a precomputed prefix table.
+ *
+ * <p>The HTML serializer looks up a prefix for every predicate and object IRI that it renders, so
+ * these lookups need to be cheap. The table is rebuilt from the underlying service whenever a prefix
+ * is set through this service or {@link #refresh} is called.
+ *
+ * @author acoburn
+ */
+class CachedNamespaceService implements NamespaceService {
+
+    private final NamespaceService service;
+
+    private volatile Map<String, String> namespaces;
+    private volatile Map<String, String> prefixes;
+
+    /**
+     * Create a cached namespace service
+     * @param service the underlying namespace service
+     */
+    public CachedNamespaceService(final NamespaceService service) {
+        this.service = service;
+        refresh();
+    }
+
+    /**
+     * Rebuild the prefix table from the underlying namespace service
+     */
+    public void refresh() {
+        final Map<String, String> ns = new HashMap<>(service.getNamespaces());
+        final Map<String, String> pre = new HashMap<>();
+        ns.forEach((prefix, namespace) -> pre.putIfAbsent(namespace, prefix));
+        namespaces = unmodifiableMap(ns);
+        prefixes = pre;
+    }
+
+    @Override
+    public Map<String, String> getNamespaces() {
+        return namespaces;
+    }
+
+    @Override
+    public Optional<String> getNamespace(final String prefix) {
+        return ofNullable(namespaces.get(prefix));
+    }
+
+    @Override
+    public Optional<String> getPrefix(final String namespace) {
+        return ofNullable(prefixes.get(namespace));
+    }
+
+    @Override
+    public Boolean setPrefix(final String prefix, final String namespace) {
+        final Boolean result = service.setPrefix(prefix, namespace);
+        refresh();
+        return result;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app;
+
+import static java.time.Instant.now;
+import static java.time.temporal.ChronoUnit.DAYS;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.app.TrellisUtils.getKafkaProperties;
+
+import io.dropwizard.cli.ConfiguredCommand;
+import io.dropwizard.setup.Bootstrap;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.slf4j.Logger;
+import org.trellisldp.api.IdentifierService;
+import org.trellisldp.app.config.TrellisConfiguration;
+import org.trellisldp.app.storage.HistoryCompactor;
+import org.trellisldp.app.storage.VolumeLock;
+import org.trellisldp.id.UUIDGenerator;
+
+/**
+ * A command that compacts the history of every resource into a checkpoint and a tail of recent changes.
+ *
+ * <p>Only the partitions with {@code compaction} enabled are compacted. Resources are compacted through the resource
+ * store. The external event processor also writes to the resource journals, and does not coordinate with the
+ * resource store, so the command refuses to run while any node holds the resource volumes, and the processor must be
+ * stopped first.
+ *
+ * @author acoburn
+ */
+class CompactCommand extends ConfiguredCommand<TrellisConfiguration> {
+
+    private static final Logger LOGGER = getLogger(CompactCommand.class);
+
+    private static final String RETAIN_DAYS = "retainDays";
+    private static final String THREADS = "threads";
+
+    /**
+     * Create a compact command
+     */
+    public CompactCommand() {
+        super("compact", "Compact the history of each resource into a checkpoint and a tail of recent changes");
+    }
+
+    @Override
+    public void configure(final Subparser subparser) {
+        super.configure(subparser);
+        subparser.addArgument("--retain-days").dest(RETAIN_DAYS).type(Integer.class).setDefault(0)
+            .help("The number of days of recent changes to keep after each checkpoint");
+        subparser.addArgument("--threads").dest(THREADS).type(Integer.class)
+            .setDefault(Runtime.getRuntime().availableProcessors())
+            .help("The number of resources to compact in parallel");
+    }
+
+    @Override
+    protected void run(final Bootstrap<TrellisConfiguration> bootstrap, final Namespace namespace,
+            final TrellisConfiguration config) throws Exception {
+        final Instant until = now().minus(namespace.getInt(RETAIN_DAYS), DAYS);
+        final Map<String, Properties> partitions = TrellisUtils.getPartitionConfigurations(config);
+        final Map<String, Properties> compacted = TrellisUtils.getCompactedPartitions(partitions);
+        if (compacted.isEmpty()) {
+            LOGGER.warn("No partition has compaction enabled");
+            return;
+        }
+        final IdentifierService idService = new UUIDGenerator();
+        final ForkJoinPool pool = new ForkJoinPool(namespace.getInt(THREADS));
+        final CuratorFramework curator = TrellisUtils.getCuratorClient(config);
+        try (final VolumeLock lock = TrellisUtils.getVolumeLock(compacted, false);
+                final Producer<String, String> producer = new KafkaProducer<>(getKafkaProperties(config))) {
+            lock.acquire();
+            final HistoryCompactor compactor = new HistoryCompactor(
+                    TrellisApplication.getResourceStore(partitions, curator, producer, idService),
+                    TrellisApplication.getBinaryStore(config, partitions, idService), pool);
+            compactor.compact(compacted.keySet(), until).forEach((partition, count) ->
+                    LOGGER.info("Compacted {} resources in partition {} up to {}", count, partition, until));
+        } finally {
+            pool.shutdown();
+            curator.close();
+        }
+    }
+}
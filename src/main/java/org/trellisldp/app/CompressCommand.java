@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app;
+
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.write;
+import static java.util.Collections.emptySet;
+import static net.sourceforge.argparse4j.impl.Arguments.storeTrue;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import io.dropwizard.cli.ConfiguredCommand;
+import io.dropwizard.setup.Bootstrap;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+
+import org.apache.commons.rdf.api.RDF;
+import org.slf4j.Logger;
+import org.trellisldp.app.config.TrellisConfiguration;
+import org.trellisldp.app.storage.JournalCompressor;
+import org.trellisldp.app.storage.ResourceLayout;
+import org.trellisldp.app.storage.VolumeLock;
+
+/**
+ * A command that compresses (or expands) the resource journals in each partition, using the partition's
+ * configured codec.
+ *
+ * <p>The command refuses to run while any node holds the resource volumes. The external event processor, which
+ * also writes to the journals, must be stopped (and its topic drained) before the command runs. Since the processor
+ * appends to the journals of containers and membership resources once the cluster is running again, without any
+ * lock, those journals are left uncompressed.
+ *
+ * @author acoburn
+ */
+class CompressCommand extends ConfiguredCommand<TrellisConfiguration> {
+
+    private static final Logger LOGGER = getLogger(CompressCommand.class);
+    private static final RDF rdf = getInstance();
+
+    private static final String DECOMPRESS = "decompress";
+    private static final String TRAIN = "train";
+    private static final int SAMPLE_SIZE = 1000;
+    private static final int DICTIONARY_SIZE = 32768;
+
+    /**
+     * Create a compress command
+     */
+    public CompressCommand() {
+        super("compress", "Compress the resource journals in each partition (the cluster must be stopped)");
+    }
+
+    @Override
+    public void configure(final Subparser subparser) {
+        super.configure(subparser);
+        subparser.addArgument("--decompress").dest(DECOMPRESS).action(storeTrue())
+            .help("Expand every compressed journal, e.g. before compression is disabled");
+        subparser.addArgument("--train-dictionary").dest(TRAIN).action(storeTrue())
+            .help("Build each partition's compression dictionary from a sample of its journals, if it does not exist");
+    }
+
+    @Override
+    protected void run(final Bootstrap<TrellisConfiguration> bootstrap, final Namespace namespace,
+            final TrellisConfiguration config) throws Exception {
+        final Map<String, Properties> partitions = TrellisUtils.getPartitionConfigurations(config);
+        final Map<String, String> volumes = TrellisUtils.getResourceDataPaths(partitions);
+        if (namespace.getBoolean(TRAIN)) {
+            for (final Map.Entry<String, String> dictionary :
+                    TrellisUtils.getResourceCompressionDictionaries(partitions).entrySet()) {
+                train(dictionary.getKey(), Paths.get(dictionary.getValue()), volumes.get(dictionary.getKey()));
+            }
+        }
+
+        final Boolean decompress = namespace.getBoolean(DECOMPRESS);
+        final ResourceLayout layout = new ResourceLayout(volumes);
+        final Map<String, Properties> compressed = TrellisUtils.getCompressedPartitions(partitions);
+        try (final VolumeLock lock = TrellisUtils.getVolumeLock(compressed, false)) {
+            lock.acquire();
+            for (final Map.Entry<String, JournalCompressor> partition :
+                    TrellisUtils.getResourceCompressors(compressed).entrySet()) {
+                final JournalCompressor compressor = partition.getValue();
+                final List<Path> directories = new ArrayList<>();
+                try (final Stream<Path> paths = ResourceLayout.list(Paths.get(volumes.get(partition.getKey())))) {
+                    paths.forEach(directories::add);
+                }
+                final Set<Path> appended = decompress ? emptySet() : getAppendedByProcessor(directories, layout);
+                long count = 0L;
+                for (final Path directory : directories) {
+                    if (decompress ? compressor.expand(directory)
+                            : !appended.contains(directory) && compressor.compress(directory)) {
+                        count += 1;
+                    }
+                }
+                LOGGER.info("{} {} journals in partition {}", decompress ? "Expanded" : "Compressed", count,
+                        partition.getKey());
+            }
+        }
+    }
+
+    /**
+     * Find the resource directories whose journals the event processor appends to, without any lock: those of
+     * containers, and of the membership resources that any container names.
+     */
+    static Set<Path> getAppendedByProcessor(final List<Path> directories, final ResourceLayout layout)
+            throws IOException {
+        final Set<Path> appended = new HashSet<>();
+        for (final Path directory : directories) {
+            if (JournalCompressor.isContainer(directory)) {
+                appended.add(directory);
+            }
+            for (final String member : JournalCompressor.getMembershipResources(directory)) {
+                layout.getDirectory(rdf.createIRI(member)).ifPresent(appended::add);
+            }
+        }
+        return appended;
+    }
+
+    private static void train(final String partition, final Path dictionary, final String volume)
+            throws IOException {
+        if (exists(dictionary)) {
+            // Journals that were compressed with the existing dictionary could no longer be read
+            LOGGER.warn("Not replacing the existing compression dictionary for partition {}", partition);
+            return;
+        }
+        final List<Path> sample = new ArrayList<>();
+        try (final Stream<Path> paths = ResourceLayout.list(Paths.get(volume))) {
+            paths.map(directory -> directory.resolve(JournalCompressor.JOURNAL)).filter(path -> exists(path))
+                .limit(SAMPLE_SIZE).forEach(sample::add);
+        }
+        write(dictionary, JournalCompressor.train(sample, DICTIONARY_SIZE));
+        LOGGER.info("Built the compression dictionary for partition {} from {} journals", partition, sample.size());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+/**
+ * A servlet filter that opens a {@link RequestScopedResourceService} scope for the duration of each request.
+ *
+ * @author acoburn
+ */
+class RequestScopeFilter implements Filter {
+
+    private final RequestScopedResourceService service;
+
+    /**
+     * Create a request scope filter
+     * @param service the request-scoped resource service
+     */
+    public RequestScopeFilter(final RequestScopedResourceService service) {
+        this.service = service;
+    }
+
+    @Override
+    public void init(final FilterConfig config) {
+        // Nothing to initialize
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to destroy
+    }
+
+    @Override
+    public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain)
+            throws IOException, ServletException {
+        service.open();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            service.close();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.trellisldp.app.logging.AccessLogEntry.Phase.BACKEND;
+import static org.trellisldp.app.logging.AccessLogEntry.time;
+import static org.trellisldp.app.profiling.Profiling.Kind.RESOURCE_READ;
+import static org.trellisldp.app.profiling.Profiling.Kind.RESOURCE_WRITE;
+import static org.trellisldp.app.profiling.Profiling.record;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+
+/**
+ * A resource service that fetches each resource from the underlying service at most once per request.
+ *
+ * <p>With WebAC enabled, the authorization filter loads the target resource (and its ACL chain) before the
+ * LDP resource handler loads the same resource again. While a request scope is open on the current thread,
+ * {@link #get(IRI)} results are remembered, so both components share a single backend read. Writes and purges
+ * discard any remembered value for the affected resource. Outside of a request scope (e.g. on background
+ * threads), every call goes straight to the underlying service.
+ *
+ * <p>Reads from the underlying service are timed as the backend phase of the current access log entry, and
+ * reads and writes are recorded as profiling events.
+ *
+ * <p>Components that hold state derived from resources may register a listener to be notified of every
+ * write or purge that passes through this service, and of every read made within a request scope.
+ *
+ * @author acoburn
+ */
+class RequestScopedResourceService implements ResourceService {
+
+    private final ThreadLocal<Map<IRI, Optional<Resource>>> scope = new ThreadLocal<>();
+
+    private final List<Consumer<IRI>> listeners = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<IRI>> readListeners = new CopyOnWriteArrayList<>();
+
+    private final ResourceService service;
+
+    /**
+     * Create a request-scoped resource service
+     * @param service the underlying resource service
+     */
+    public RequestScopedResourceService(final ResourceService service) {
+        this.service = service;
+    }
+
+    /**
+     * Register a listener that is notified with the identifier of each resource that is written or purged
+     * @param listener the listener
+     */
+    public void addListener(final Consumer<IRI> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Register a listener that is notified with the identifier of each resource that is read by a request
+     * @param listener the listener
+     */
+    public void addReadListener(final Consumer<IRI> listener) {
+        readListeners.add(listener);
+    }
+
+    /**
+     * Open a request scope on the current thread
+     */
+    public void open() {
+        scope.set(new HashMap<>());
+    }
+
+    /**
+     * Close the request scope on the current thread, discarding any remembered resources
+     */
+    public void close() {
+        scope.remove();
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier) {
+        final Map<IRI, Optional<Resource>> memo = scope.get();
+        if (isNull(memo)) {
+            return read(identifier);
+        }
+        readListeners.forEach(listener -> listener.accept(identifier));
+        return memo.computeIfAbsent(identifier, this::read);
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier, final Instant time) {
+        return time(BACKEND, () -> record(RESOURCE_READ, "get", identifier, () -> service.get(identifier, time)));
+    }
+
+    @Override
+    public Boolean put(final IRI identifier, final Dataset dataset) {
+        forget(identifier);
+        final Boolean result = record(RESOURCE_WRITE, "put", identifier, () -> service.put(identifier, dataset));
+        listeners.forEach(listener -> listener.accept(identifier));
+        return result;
+    }
+
+    @Override
+    public Optional<IRI> getContainer(final IRI identifier) {
+        return service.getContainer(identifier);
+    }
+
+    @Override
+    public Stream<IRI> compact(final IRI identifier, final Instant from, final Instant until) {
+        forget(identifier);
+        return record(RESOURCE_WRITE, "compact", identifier, () -> service.compact(identifier, from, until));
+    }
+
+    @Override
+    public Stream<IRI> purge(final IRI identifier) {
+        forget(identifier);
+        final Stream<IRI> result = record(RESOURCE_WRITE, "purge", identifier, () -> service.purge(identifier));
+        listeners.forEach(listener -> listener.accept(identifier));
+        return result;
+    }
+
+    @Override
+    public Stream<? extends Triple> scan(final String partition) {
+        return service.scan(partition);
+    }
+
+    @Override
+    public RDFTerm skolemize(final RDFTerm term) {
+        return service.skolemize(term);
+    }
+
+    @Override
+    public RDFTerm unskolemize(final RDFTerm term) {
+        return service.unskolemize(term);
+    }
+
+    @Override
+    public <T extends RDFTerm> T toInternal(final T term, final String baseUrl) {
+        return service.toInternal(term, baseUrl);
+    }
+
+    @Override
+    public <T extends RDFTerm> T toExternal(final T term, final String baseUrl) {
+        return service.toExternal(term, baseUrl);
+    }
+
+    @Override
+    public Stream<? extends Quad> export(final String partition, final Collection<IRI> graphNames) {
+        return service.export(partition, graphNames);
+    }
+
+    @Override
+    public Supplier<String> getIdentifierSupplier() {
+        return service.getIdentifierSupplier();
+    }
+
+    private Optional<Resource> read(final IRI identifier) {
+        return time(BACKEND, () -> record(RESOURCE_READ, "get", identifier, () -> service.get(identifier)));
+    }
+
+    private void forget(final IRI identifier) {
+        final Map<IRI, Optional<Resource>> memo = scope.get();
+        if (nonNull(memo)) {
+            memo.remove(identifier);
+        }
+    }
+}
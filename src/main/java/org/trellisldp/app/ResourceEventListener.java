@@ -0,0 +1,228 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app;
+
+import static java.util.Collections.singletonList;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.api.RDFUtils.TRELLIS_PREFIX;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.dropwizard.lifecycle.Managed;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.trellisldp.vocabulary.AS;
+
+/**
+ * A listener that follows the Kafka event stream and reports the resources that have changed.
+ *
+ * <p>Every node in a cluster consumes the full event stream (with its own consumer group), so that state
+ * derived from resources can be discarded when a resource is changed through any node. Event targets are
+ * converted from their external (partition base URL) form to internal {@code trellis:} identifiers. A new consumer
+ * group starts at the end of the stream, so any writes made before the listener has been assigned its partitions
+ * are not reported; see {@link #getFollowing}. Resources that were created are also reported separately.
+ *
+ * @author acoburn
+ */
+class ResourceEventListener implements Managed, Runnable {
+
+    private static final Logger LOGGER = getLogger(ResourceEventListener.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final RDF rdf = getInstance();
+    private static final long POLL_TIMEOUT = 1000L;
+    private static final String CREATE = "Create";
+
+    private final org.apache.kafka.clients.consumer.Consumer<String, String> consumer;
+    private final String topic;
+    private final Map<String, String> partitionUrls;
+    private final Consumer<IRI> listener;
+    private final Consumer<IRI> creations;
+    private final CompletableFuture<Void> following = new CompletableFuture<>();
+
+    private volatile Boolean running = true;
+    private Thread thread;
+
+    /**
+     * Create an event listener
+     * @param consumer the kafka consumer
+     * @param topic the event topic
+     * @param partitionUrls the base URLs for each partition
+     * @param listener the listener to notify with the identifier of each changed resource
+     */
+    public ResourceEventListener(final org.apache.kafka.clients.consumer.Consumer<String, String> consumer,
+            final String topic, final Map<String, String> partitionUrls, final Consumer<IRI> listener) {
+        this(consumer, topic, partitionUrls, listener, identifier -> { });
+    }
+
+    /**
+     * Create an event listener that also reports created resources
+     * @param consumer the kafka consumer
+     * @param topic the event topic
+     * @param partitionUrls the base URLs for each partition
+     * @param listener the listener to notify with the identifier of each changed resource
+     * @param creations the listener to notify with the identifier of each created resource, before the
+     *                  identifier is reported as changed
+     */
+    public ResourceEventListener(final org.apache.kafka.clients.consumer.Consumer<String, String> consumer,
+            final String topic, final Map<String, String> partitionUrls, final Consumer<IRI> listener,
+            final Consumer<IRI> creations) {
+        this.consumer = consumer;
+        this.topic = topic;
+        this.partitionUrls = partitionUrls;
+        this.listener = listener;
+        this.creations = creations;
+    }
+
+    /**
+     * Get a stage that completes once the listener is following the event stream, after which every change is
+     * reported
+     * @return the stage
+     */
+    public CompletionStage<Void> getFollowing() {
+        return following;
+    }
+
+    @Override
+    public void start() {
+        thread = new Thread(this, "trellis-events");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        running = false;
+        consumer.wakeup();
+        thread.join();
+    }
+
+    @Override
+    public void run() {
+        try {
+            consumer.subscribe(singletonList(topic), new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(final Collection<TopicPartition> partitions) {
+                    // Nothing to do
+                }
+
+                @Override
+                public void onPartitionsAssigned(final Collection<TopicPartition> partitions) {
+                    // Resolve the starting offsets now, so that every later event is seen
+                    partitions.forEach(consumer::position);
+                    following.complete(null);
+                }
+            });
+            while (running) {
+                for (final ConsumerRecord<String, String> record : consumer.poll(POLL_TIMEOUT)) {
+                    try {
+                        handle(record.value());
+                    } catch (final RuntimeException ex) {
+                        // One failing listener must not stop the others from seeing later events
+                        LOGGER.error("Error handling the event at offset {} of {}-{}: {}", record.offset(),
+                                record.topic(), record.partition(), ex.getMessage());
+                    }
+                }
+            }
+        } catch (final WakeupException ex) {
+            if (running) {
+                LOGGER.error("Stopped following the event stream: {}", ex.getMessage());
+                throw ex;
+            }
+        } catch (final RuntimeException ex) {
+            LOGGER.error("Stopped following the event stream: {}", ex.getMessage());
+            throw ex;
+        } finally {
+            consumer.close();
+        }
+    }
+
+    /**
+     * Get the internal identifier of the resource targeted by an event
+     * @param message the serialized event
+     * @return the internal identifier, if the event targets a resource in a known partition
+     */
+    public Optional<IRI> getTarget(final String message) {
+        return parse(message).flatMap(this::getTarget);
+    }
+
+    /**
+     * Determine whether an event reports the creation of a resource
+     * @param message the serialized event
+     * @return true if the event is an ActivityStreams {@code Create} activity; false otherwise
+     */
+    public static Boolean isCreation(final String message) {
+        return parse(message).map(ResourceEventListener::isCreation).orElse(false);
+    }
+
+    private void handle(final String message) {
+        parse(message).ifPresent(event -> getTarget(event).ifPresent(identifier -> {
+            if (isCreation(event)) {
+                creations.accept(identifier);
+            }
+            listener.accept(identifier);
+        }));
+    }
+
+    private Optional<IRI> getTarget(final JsonNode event) {
+        final String url = event.path("object").path("id").asText("");
+        for (final Map.Entry<String, String> partition : partitionUrls.entrySet()) {
+            if (url.startsWith(partition.getValue())) {
+                final String path = url.substring(partition.getValue().length());
+                if (path.equals(partition.getKey()) || path.startsWith(partition.getKey() + "/")) {
+                    return of(rdf.createIRI(TRELLIS_PREFIX + (path.endsWith("/")
+                                    ? path.substring(0, path.length() - 1) : path)));
+                }
+            }
+        }
+        return empty();
+    }
+
+    private static boolean isCreation(final JsonNode event) {
+        final JsonNode types = event.path("type");
+        for (final JsonNode type : types.isArray() ? types : singletonList(types)) {
+            final String name = type.asText("");
+            if (name.equals(CREATE) || name.equals(AS.Create.getIRIString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Optional<JsonNode> parse(final String message) {
+        try {
+            return of(MAPPER.readTree(message));
+        } catch (final IOException ex) {
+            LOGGER.warn("Could not parse event: {}", ex.getMessage());
+        }
+        return empty();
+    }
+}
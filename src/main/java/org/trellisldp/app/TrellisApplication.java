@@ -15,10 +15,21 @@ package org.trellisldp.app;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toMap;
+import static org.trellisldp.app.TrellisUtils.getAccessLogConfiguration;
+import static org.trellisldp.app.TrellisUtils.getAdmissionConfiguration;
 import static org.trellisldp.app.TrellisUtils.getAuthFilters;
+import static org.trellisldp.app.TrellisUtils.getBatchConfiguration;
+import static org.trellisldp.app.TrellisUtils.getCoalescingConfiguration;
 import static org.trellisldp.app.TrellisUtils.getCorsConfiguration;
+import static org.trellisldp.app.TrellisUtils.getDigestConfiguration;
+import static org.trellisldp.app.TrellisUtils.getIngestConfiguration;
+import static org.trellisldp.app.TrellisUtils.getKafkaConsumerProperties;
 import static org.trellisldp.app.TrellisUtils.getKafkaProperties;
 import static org.trellisldp.app.TrellisUtils.getServerProperties;
+import static org.trellisldp.app.TrellisUtils.getWarmupConfiguration;
 import static org.trellisldp.app.TrellisUtils.getWebacConfiguration;
 import static org.trellisldp.rosid.common.RosidConstants.TOPIC_EVENT;
 import static org.trellisldp.rosid.common.RosidConstants.ZNODE_NAMESPACES;
@@ -29,28 +40,74 @@ import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
+import javax.servlet.DispatcherType;
+
+import org.apache.commons.rdf.api.IRI;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 
 import org.trellisldp.agent.SimpleAgent;
+import org.trellisldp.api.AccessControlService;
 import org.trellisldp.api.BinaryService;
+import org.trellisldp.api.BinaryService.Resolver;
 import org.trellisldp.api.IOService;
 import org.trellisldp.api.IdentifierService;
-import org.trellisldp.api.NamespaceService;
 import org.trellisldp.api.ResourceService;
+import org.trellisldp.app.assets.AssetServlet;
+import org.trellisldp.app.assets.BundledAssets;
+import org.trellisldp.app.auth.GroupIndex;
+import org.trellisldp.app.auth.IndexedAccessControlService;
+import org.trellisldp.app.config.GroupCommitConfiguration;
 import org.trellisldp.app.config.TrellisConfiguration;
+import org.trellisldp.app.config.WebacConfiguration;
+import org.trellisldp.app.filter.AccessLogFilter;
+import org.trellisldp.app.filter.CacheRuleFilter;
+import org.trellisldp.app.filter.CoalescingFilter;
+import org.trellisldp.app.filter.CrossOriginFilter;
+import org.trellisldp.app.filter.PartitionAdmissionFilter;
+import org.trellisldp.app.filter.RequestMetricsFilter;
 import org.trellisldp.app.health.KafkaHealthCheck;
+import org.trellisldp.app.health.WarmupHealthCheck;
 import org.trellisldp.app.health.ZookeeperHealthCheck;
+import org.trellisldp.app.logging.AccessLog;
+import org.trellisldp.app.profiling.ProfilingAccessControlService;
+import org.trellisldp.app.profiling.ProfilingBinaryService;
+import org.trellisldp.app.profiling.ProfilingFilter;
+import org.trellisldp.app.profiling.ProfilingIOService;
+import org.trellisldp.app.profiling.ProfilingProducer;
+import org.trellisldp.app.resource.BatchResource;
+import org.trellisldp.app.resource.BulkIngester;
+import org.trellisldp.app.resource.IngestResource;
+import org.trellisldp.app.storage.AsyncResourceService;
+import org.trellisldp.app.storage.CompressedResourceService;
+import org.trellisldp.app.storage.Compression;
+import org.trellisldp.app.storage.ContentAddressedResolver;
+import org.trellisldp.app.storage.DigestingBinaryService;
+import org.trellisldp.app.storage.FilteredResourceService;
+import org.trellisldp.app.storage.GroupCommitProducer;
+import org.trellisldp.app.storage.GroupCommitResourceService;
+import org.trellisldp.app.storage.IndexedResourceService;
+import org.trellisldp.app.storage.JournalCompressor;
+import org.trellisldp.app.storage.ResourceLayout;
+import org.trellisldp.audit.DefaultAuditService;
 import org.trellisldp.binary.DefaultBinaryService;
 import org.trellisldp.binary.FileResolver;
 import org.trellisldp.http.AgentAuthorizationFilter;
 import org.trellisldp.http.CacheControlFilter;
-import org.trellisldp.http.CrossOriginResourceSharingFilter;
 import org.trellisldp.http.LdpResource;
 import org.trellisldp.http.RootResource;
 import org.trellisldp.http.WebAcFilter;
@@ -83,7 +140,8 @@ public class TrellisApplication extends Application<TrellisConfiguration> {
 
     @Override
     public void initialize(final Bootstrap<TrellisConfiguration> bootstrap) {
-        // Not currently used
+        bootstrap.addCommand(new CompressCommand());
+        bootstrap.addCommand(new CompactCommand());
     }
 
     @Override
@@ -93,28 +151,40 @@ public class TrellisApplication extends Application<TrellisConfiguration> {
         // Other configurations
         final Map<String, Properties> partitions = TrellisUtils.getPartitionConfigurations(config);
 
-        // Partition data configuration
-        final Map<String, String> partitionData = TrellisUtils.getResourceDataPaths(partitions);
-
         // Partition BaseURL configuration
         final Map<String, String> partitionUrls = TrellisUtils.getPartitionBaseUrls(partitions);
 
         final CuratorFramework curator = TrellisUtils.getCuratorClient(config);
 
-        final Producer<String, String> producer = new KafkaProducer<>(getKafkaProperties(config));
+        final Producer<String, String> producer = new ProfilingProducer<>(
+                new KafkaProducer<>(getKafkaProperties(config)));
 
         final IdentifierService idService = new UUIDGenerator();
 
-        final ResourceService resourceService = new FileResourceService(partitionData, partitionUrls, curator,
-                producer, new KafkaPublisher(producer, TOPIC_EVENT), idService.getSupplier(), config.getAsync());
+        // Keep offline maintenance commands from running against the live store
+        final Map<String, Properties> maintained = new HashMap<>(TrellisUtils.getCompressedPartitions(partitions));
+        maintained.putAll(TrellisUtils.getCompactedPartitions(partitions));
+        if (!maintained.isEmpty()) {
+            environment.lifecycle().manage(TrellisUtils.getVolumeLock(maintained, true));
+        }
+
+        // With group commit, the store may only announce a write once it is durable
+        final Producer<String, String> storeProducer = TrellisUtils.getGroupCommitConfiguration(config).isPresent()
+            ? new GroupCommitProducer<>(producer) : producer;
+
+        final RequestScopedResourceService resourceService = new RequestScopedResourceService(
+                getStorageService(config, partitions, partitionUrls, environment,
+                    getResourceStore(partitions, curator, storeProducer, idService)));
 
-        final NamespaceService namespaceService = new Namespaces(curator, new TreeCache(curator, ZNODE_NAMESPACES),
-                config.getNamespaces().getFile());
+        final TreeCache namespaceCache = new TreeCache(curator, ZNODE_NAMESPACES);
+        final CachedNamespaceService namespaceService = new CachedNamespaceService(new Namespaces(curator,
+                    namespaceCache, config.getNamespaces().getFile()));
+        namespaceCache.getListenable().addListener((client, event) -> namespaceService.refresh());
 
-        final IOService ioService = new JenaIOService(namespaceService, TrellisUtils.getAssetConfiguration(config));
+        final IOService ioService = new ProfilingIOService(new JenaIOService(namespaceService,
+                    TrellisUtils.getAssetConfiguration(config)));
 
-        final BinaryService binaryService = new DefaultBinaryService(idService, partitions,
-                asList(new FileResolver(TrellisUtils.getBinaryDataPaths(partitions))));
+        final BinaryService binaryService = new ProfilingBinaryService(getBinaryStore(config, partitions, idService));
 
         // Health checks
         environment.healthChecks().register("zookeeper", new ZookeeperHealthCheck(curator));
@@ -122,21 +192,235 @@ public class TrellisApplication extends Application<TrellisConfiguration> {
 
         getAuthFilters(config).ifPresent(filters -> environment.jersey().register(new ChainedAuthFilter<>(filters)));
 
+        // Static assets
+        environment.servlets().addServlet("assets", new AssetServlet(BundledAssets.getAssets().values()))
+            .addMapping(BundledAssets.ASSET_PATH + "*");
+
+        final AccessControlService accessService = new ProfilingAccessControlService(getWebacConfiguration(config)
+            .map(webac -> getAccessControlService(config, webac, resourceService, partitionUrls, environment))
+            .orElseGet(() -> new WebACService(resourceService)));
+
+        // Cache warm-up from the profile of the most-accessed resources
+        getWarmupConfiguration(config).ifPresent(warmup -> {
+            final AccessProfile profile = new AccessProfile(warmup.getSize());
+            resourceService.addReadListener(profile::record);
+            final CacheWarmer warmer = new CacheWarmer(resourceService, accessService, profile,
+                    Paths.get(warmup.getFile()), warmup.getRate(), warmup.getSaveIntervalSeconds(),
+                    warmup.getMaxWaitSeconds(),
+                    environment.lifecycle().scheduledExecutorService("trellis-warmup-%d").build());
+            environment.lifecycle().manage(warmer);
+            environment.healthChecks().register("warmup", new WarmupHealthCheck(warmer));
+        });
+
+        // Associate profiling events with the current request
+        environment.servlets().addFilter("profiling", new ProfilingFilter())
+            .addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, "/*");
+
+        // Share resource lookups between the authorization filter and the resource handler
+        environment.servlets().addFilter("request-scope", new RequestScopeFilter(resourceService))
+            .addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, "/*");
+
+        // Requests answered by the coalescing filter bypass the JAX-RS filters, so they are recorded separately
+        final RequestMetricsFilter requestMetrics = new RequestMetricsFilter(partitionUrls.keySet(),
+                environment.metrics());
+        final List<CoalescingFilter.Listener> coalesced = new ArrayList<>();
+        coalesced.add(requestMetrics);
+
+        // Structured access log
+        getAccessLogConfiguration(config).ifPresent(accessLog -> {
+            final AccessLog log = new AccessLog(accessLog.getFile(), accessLog.getBufferSize(),
+                    accessLog.getMaxFileSize(), accessLog.getArchivedFileCount(), environment.metrics());
+            environment.lifecycle().manage(log);
+            final AccessLogFilter accessLogFilter = new AccessLogFilter(log);
+            coalesced.add(accessLogFilter);
+            environment.jersey().register(accessLogFilter);
+            environment.jersey().register(new AccessLogFilter.AuthenticationStart());
+            environment.jersey().register(new AccessLogFilter.AuthorizationStart());
+            environment.jersey().register(new AccessLogFilter.AuthorizationEnd());
+        });
+
+        // Request coalescing
+        getCoalescingConfiguration(config).ifPresent(coalescing -> environment.servlets().addFilter("coalescing",
+                    new CoalescingFilter(coalescing, environment.metrics(), coalesced))
+                .addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, "/*"));
+
         // Resource matchers
         environment.jersey().register(new RootResource(ioService, partitionUrls, getServerProperties(config)));
         environment.jersey().register(new LdpResource(resourceService, ioService, binaryService, partitionUrls));
+        getBatchConfiguration(config).ifPresent(batch -> {
+            final ExecutorService executor = environment.lifecycle().executorService("trellis-batch-%d")
+                .minThreads(batch.getThreads()).maxThreads(batch.getThreads()).build();
+            environment.jersey().register(getWebacConfiguration(config).isPresent()
+                    ? new BatchResource(resourceService, ioService, new SimpleAgent(), accessService, partitionUrls,
+                        executor, batch.getMaxSize())
+                    : new BatchResource(resourceService, ioService, new SimpleAgent(), partitionUrls, executor,
+                        batch.getMaxSize()));
+        });
+        getIngestConfiguration(config).ifPresent(ingest -> {
+            final ExecutorService executor = environment.lifecycle().executorService("trellis-ingest-%d")
+                .minThreads(ingest.getThreads()).maxThreads(ingest.getThreads()).build();
+            environment.jersey().register(new IngestResource(getWebacConfiguration(config).isPresent()
+                        ? new BulkIngester(resourceService, accessService, new DefaultAuditService(), curator,
+                            producer, executor, ingest.getBatchSize(), ingest.getMaxPending())
+                        : new BulkIngester(resourceService, new DefaultAuditService(), curator, producer, executor,
+                            ingest.getBatchSize(), ingest.getMaxPending()), new SimpleAgent(), partitionUrls));
+        });
 
         // Filters
+        environment.jersey().register(requestMetrics);
+        getAdmissionConfiguration(config).ifPresent(admission -> environment.jersey().register(
+                    new PartitionAdmissionFilter(partitionUrls.keySet(), admission, environment.metrics())));
         environment.jersey().register(new AgentAuthorizationFilter(new SimpleAgent(), emptyList()));
-        environment.jersey().register(new CacheControlFilter(config.getCacheMaxAge()));
+        if (config.getCacheRules().isEmpty()) {
+            environment.jersey().register(new CacheControlFilter(config.getCacheMaxAge()));
+        } else {
+            environment.jersey().register(new CacheRuleFilter(config.getCacheRules(), config.getCacheMaxAge()));
+        }
 
         // Authorization
         getWebacConfiguration(config).ifPresent(webac -> environment.jersey().register(new WebAcFilter(
-                        partitionUrls, asList("Authorization"), new WebACService(resourceService))));
+                        partitionUrls, asList("Authorization"), accessService)));
 
         // CORS
-        getCorsConfiguration(config).ifPresent(cors -> environment.jersey().register(
-                new CrossOriginResourceSharingFilter(cors.getAllowOrigin(), cors.getAllowMethods(),
-                    cors.getAllowHeaders(), cors.getExposeHeaders(), cors.getAllowCredentials(), cors.getMaxAge())));
+        getCorsConfiguration(config).ifPresent(cors -> environment.jersey().register(new CrossOriginFilter(cors)));
+    }
+
+    /**
+     * Create the file-based resource store
+     * @param partitions the partition configurations
+     * @param curator the zookeeper client
+     * @param producer the kafka producer
+     * @param idService the identifier service
+     * @return the resource store
+     */
+    static ResourceService getResourceStore(final Map<String, Properties> partitions, final CuratorFramework curator,
+            final Producer<String, String> producer, final IdentifierService idService) {
+        final Map<String, String> partitionUrls = TrellisUtils.getPartitionBaseUrls(partitions);
+        final Map<String, String> partitionData = TrellisUtils.getResourceDataPaths(partitions);
+
+        final ResourceService store = new FileResourceService(partitionData, partitionUrls, curator, producer,
+                new KafkaPublisher(producer, TOPIC_EVENT), idService.getSupplier(), false);
+
+        final Map<String, JournalCompressor> compressors = TrellisUtils.getResourceCompressors(partitions)
+            .entrySet().stream().filter(e -> e.getValue().getCompression() != Compression.NONE)
+            .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+        if (!compressors.isEmpty()) {
+            return new CompressedResourceService(store, new ResourceLayout(partitionData), compressors);
+        }
+        return store;
+    }
+
+    /**
+     * Create the file-based binary store, content-addressed in the partitions that are so configured
+     * @param config the trellis configuration
+     * @param partitions the partition configurations
+     * @param idService the identifier service
+     * @return the binary store
+     */
+    static BinaryService getBinaryStore(final TrellisConfiguration config, final Map<String, Properties> partitions,
+            final IdentifierService idService) {
+        final Resolver resolver = new FileResolver(TrellisUtils.getBinaryDataPaths(partitions));
+        final Map<String, String> contentAddressed = TrellisUtils.getContentAddressedBinaryPaths(partitions);
+        final BinaryService store = new DefaultBinaryService(idService, partitions, asList(contentAddressed.isEmpty()
+                    ? resolver : new ContentAddressedResolver(resolver, contentAddressed)));
+        return getDigestConfiguration(config).<BinaryService>map(digests -> new DigestingBinaryService(store,
+                    TrellisUtils.getBinaryDataPaths(partitions), digests.getAlgorithms())).orElse(store);
+    }
+
+    private static ResourceService getStorageService(final TrellisConfiguration config,
+            final Map<String, Properties> partitions, final Map<String, String> partitionUrls,
+            final Environment environment, final ResourceService service) {
+        final List<Consumer<IRI>> listeners = new ArrayList<>();
+        ResourceService storage = service;
+
+        final Optional<GroupCommitConfiguration> groupCommit = TrellisUtils.getGroupCommitConfiguration(config);
+        if (groupCommit.isPresent()) {
+            final GroupCommitResourceService groupCommitService = new GroupCommitResourceService(storage,
+                    new ResourceLayout(TrellisUtils.getResourceDataPaths(partitions)), partitions.keySet(),
+                    groupCommit.get().getWindowMillis(), groupCommit.get().getMaxBatchSize());
+            environment.lifecycle().manage(groupCommitService);
+            storage = groupCommitService;
+        }
+
+        if (config.getAsync()) {
+            // Writes are queued here, rather than in the resource store, so that the queue is bounded and observable
+            final AsyncResourceService asyncService = new AsyncResourceService(storage, partitions.keySet(),
+                    config.getAsyncWrites(), environment.metrics());
+            environment.lifecycle().manage(asyncService);
+            storage = asyncService;
+        }
+
+        final Map<String, String> indexFiles = TrellisUtils.getResourceIndexFiles(partitions);
+        final Map<String, Integer> filterCapacities = TrellisUtils.getResourceFilterCapacities(partitions);
+        if (indexFiles.isEmpty() && filterCapacities.isEmpty()) {
+            return storage;
+        }
+
+        // Resources written by other nodes may have been created since they were last read here
+        final List<Consumer<IRI>> creations = new ArrayList<>();
+        final ResourceEventListener events = new ResourceEventListener(new KafkaConsumer<>(
+                    getKafkaConsumerProperties(config, "trellis-storage-" + randomUUID())), TOPIC_EVENT,
+                partitionUrls, identifier -> listeners.forEach(l -> l.accept(identifier)),
+                identifier -> creations.forEach(l -> l.accept(identifier)));
+
+        if (!indexFiles.isEmpty()) {
+            final IndexedResourceService indexedService = new IndexedResourceService(storage, indexFiles,
+                    events.getFollowing());
+            environment.lifecycle().manage(indexedService);
+            listeners.add(indexedService::invalidate);
+            storage = indexedService;
+        }
+
+        if (!filterCapacities.isEmpty()) {
+            final FilteredResourceService filteredService = new FilteredResourceService(storage, filterCapacities,
+                    events.getFollowing(), environment.metrics());
+            environment.lifecycle().manage(filteredService);
+            listeners.add(filteredService::invalidate);
+            creations.add(filteredService::created);
+            storage = filteredService;
+        }
+
+        environment.lifecycle().manage(events);
+        return storage;
+    }
+
+    private static AccessControlService getAccessControlService(final TrellisConfiguration config,
+            final WebacConfiguration webac, final RequestScopedResourceService resourceService,
+            final Map<String, String> partitionUrls, final Environment environment) {
+        final List<Consumer<IRI>> listeners = new ArrayList<>();
+        final List<Runnable> resets = new ArrayList<>();
+        AccessControlService service;
+        if (webac.getIndexed()) {
+            final GroupIndex groups = new GroupIndex(resourceService);
+            final IndexedAccessControlService indexedService = new IndexedAccessControlService(resourceService,
+                    groups, webac.getCacheSize(), webac.getCacheExpireSeconds());
+            environment.lifecycle().scheduledExecutorService("trellis-webac-groups-%d").build()
+                .scheduleWithFixedDelay(groups::refresh, webac.getGroupRefreshSeconds(),
+                        webac.getGroupRefreshSeconds(), SECONDS);
+            listeners.add(indexedService::invalidate);
+            service = indexedService;
+        } else {
+            service = new WebACService(resourceService);
+        }
+        if (webac.getCacheSize() > 0) {
+            final CachedAccessControlService cachedService = new CachedAccessControlService(service,
+                    resourceService, webac.getCacheSize(), webac.getCacheExpireSeconds());
+            listeners.add(cachedService::invalidate);
+            resets.add(cachedService::invalidateAll);
+            service = cachedService;
+        }
+        if (!listeners.isEmpty()) {
+            // Invalidate derived authorization state on local writes and on events from other nodes
+            final Consumer<IRI> invalidate = identifier -> listeners.forEach(l -> l.accept(identifier));
+            resourceService.addListener(invalidate);
+            final ResourceEventListener events = new ResourceEventListener(new KafkaConsumer<>(
+                        getKafkaConsumerProperties(config, "trellis-webac-" + randomUUID())), TOPIC_EVENT,
+                    partitionUrls, invalidate);
+            // Changes made elsewhere before the listener follows the event stream are never seen, so anything
+            // cached until then is discarded
+            events.getFollowing().thenRun(() -> resets.forEach(Runnable::run));
+            environment.lifecycle().manage(events);
+        }
+        return service;
     }
 }
@@ -13,16 +13,28 @@
  */
 package org.trellisldp.app;
 
+import static java.nio.file.Files.readAllBytes;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
 import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static org.apache.curator.framework.CuratorFrameworkFactory.newClient;
+import static org.trellisldp.app.assets.BundledAssets.ASSET_PATH;
 
 import io.dropwizard.auth.AuthFilter;
 import io.dropwizard.auth.basic.BasicCredentialAuthFilter;
 import io.dropwizard.auth.oauth.OAuthCredentialAuthFilter;
+import io.dropwizard.server.DefaultServerFactory;
+import io.dropwizard.server.ServerFactory;
+import io.dropwizard.server.SimpleServerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -33,15 +45,27 @@ import java.util.Properties;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.retry.BoundedExponentialBackoffRetry;
+import org.trellisldp.app.assets.BundledAssets;
 import org.trellisldp.app.auth.AnonymousAuthFilter;
 import org.trellisldp.app.auth.AnonymousAuthenticator;
 import org.trellisldp.app.auth.BasicAuthenticator;
 import org.trellisldp.app.auth.JwtAuthenticator;
+import org.trellisldp.app.config.AccessLogConfiguration;
+import org.trellisldp.app.config.AdmissionConfiguration;
 import org.trellisldp.app.config.AuthConfiguration;
+import org.trellisldp.app.config.BatchConfiguration;
 import org.trellisldp.app.config.CORSConfiguration;
+import org.trellisldp.app.config.CoalescingConfiguration;
+import org.trellisldp.app.config.DigestConfiguration;
+import org.trellisldp.app.config.GroupCommitConfiguration;
+import org.trellisldp.app.config.IngestConfiguration;
 import org.trellisldp.app.config.PartitionConfiguration;
 import org.trellisldp.app.config.TrellisConfiguration;
+import org.trellisldp.app.config.WarmupConfiguration;
 import org.trellisldp.app.config.WebacConfiguration;
+import org.trellisldp.app.storage.Compression;
+import org.trellisldp.app.storage.JournalCompressor;
+import org.trellisldp.app.storage.VolumeLock;
 
 /**
  * @author acoburn
@@ -49,12 +73,20 @@ import org.trellisldp.app.config.WebacConfiguration;
 class TrellisUtils {
 
     public static final String RESOURCE_PATH = "resourcePath";
+    public static final String RESOURCE_INDEX = "resourceIndex";
+    public static final String RESOURCE_INDEX_FILE = "trellis.index";
+    public static final String RESOURCE_FILTER = "resourceFilter";
+    public static final String RESOURCE_FILTER_CAPACITY = "resourceFilterCapacity";
+    public static final String RESOURCE_COMPRESSION = "resourceCompression";
+    public static final String RESOURCE_COMPRESSION_DICTIONARY = "resourceCompressionDictionary";
+    public static final String RESOURCE_COMPACTION = "resourceCompaction";
     public static final String BASE_URL = "baseUrl";
     public static final String BINARY_PATH = "path";
     public static final String FILE_PREFIX = "file:";
     public static final String PREFIX = "prefix";
     public static final String BINARY_LEVELS = "levels";
     public static final String BINARY_LENGTH = "length";
+    public static final String BINARY_CONTENT_ADDRESSED = "contentAddressed";
 
     public static Map<String, Properties> getPartitionConfigurations(final TrellisConfiguration config) {
         return config.getPartitions().stream().collect(toMap(PartitionConfiguration::getId, p -> {
@@ -62,9 +94,18 @@ class TrellisUtils {
                 props.setProperty(PREFIX, FILE_PREFIX + p.getId());
                 props.setProperty(BASE_URL, p.getBaseUrl());
                 props.setProperty(RESOURCE_PATH, p.getResources().getPath());
+                props.setProperty(RESOURCE_INDEX, p.getResources().getIndex().toString());
+                props.setProperty(RESOURCE_FILTER, p.getResources().getFilter().toString());
+                props.setProperty(RESOURCE_FILTER_CAPACITY, p.getResources().getFilterCapacity().toString());
+                props.setProperty(RESOURCE_COMPRESSION, p.getResources().getCompression());
+                if (nonNull(p.getResources().getCompressionDictionary())) {
+                    props.setProperty(RESOURCE_COMPRESSION_DICTIONARY, p.getResources().getCompressionDictionary());
+                }
+                props.setProperty(RESOURCE_COMPACTION, p.getResources().getCompaction().toString());
                 props.setProperty(BINARY_PATH, p.getBinaries().getPath());
                 props.setProperty(BINARY_LEVELS, p.getBinaries().getLevels().toString());
                 props.setProperty(BINARY_LENGTH, p.getBinaries().getLength().toString());
+                props.setProperty(BINARY_CONTENT_ADDRESSED, p.getBinaries().getContentAddressed().toString());
                 return props;
             }));
     }
@@ -74,6 +115,51 @@ class TrellisUtils {
                     e -> e.getValue().getProperty(RESOURCE_PATH)));
     }
 
+    public static Map<String, String> getResourceIndexFiles(final Map<String, Properties> partitions) {
+        return partitions.entrySet().stream()
+            .filter(e -> Boolean.parseBoolean(e.getValue().getProperty(RESOURCE_INDEX)))
+            .collect(toMap(Map.Entry::getKey, e -> new File(e.getValue().getProperty(RESOURCE_PATH),
+                            RESOURCE_INDEX_FILE).getPath()));
+    }
+
+    public static Map<String, Integer> getResourceFilterCapacities(final Map<String, Properties> partitions) {
+        return partitions.entrySet().stream()
+            .filter(e -> Boolean.parseBoolean(e.getValue().getProperty(RESOURCE_FILTER)))
+            .collect(toMap(Map.Entry::getKey,
+                        e -> Integer.parseInt(e.getValue().getProperty(RESOURCE_FILTER_CAPACITY))));
+    }
+
+    public static Map<String, String> getResourceCompressionDictionaries(final Map<String, Properties> partitions) {
+        return partitions.entrySet().stream()
+            .filter(e -> nonNull(e.getValue().getProperty(RESOURCE_COMPRESSION_DICTIONARY)))
+            .collect(toMap(Map.Entry::getKey, e -> e.getValue().getProperty(RESOURCE_COMPRESSION_DICTIONARY)));
+    }
+
+    public static Map<String, JournalCompressor> getResourceCompressors(final Map<String, Properties> partitions) {
+        final Map<String, String> dictionaries = getResourceCompressionDictionaries(partitions);
+        return partitions.entrySet().stream().collect(toMap(Map.Entry::getKey, e -> new JournalCompressor(
+                        Compression.fromName(e.getValue().getProperty(RESOURCE_COMPRESSION, "none")),
+                        readDictionary(dictionaries.get(e.getKey())))));
+    }
+
+    public static Map<String, Properties> getCompressedPartitions(final Map<String, Properties> partitions) {
+        return partitions.entrySet().stream()
+            .filter(e -> Compression.fromName(e.getValue().getProperty(RESOURCE_COMPRESSION, "none"))
+                    != Compression.NONE)
+            .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    public static Map<String, Properties> getCompactedPartitions(final Map<String, Properties> partitions) {
+        return partitions.entrySet().stream()
+            .filter(e -> Boolean.parseBoolean(e.getValue().getProperty(RESOURCE_COMPACTION)))
+            .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    public static VolumeLock getVolumeLock(final Map<String, Properties> partitions, final boolean shared) {
+        return new VolumeLock(getResourceDataPaths(partitions).values().stream().distinct().map(Paths::get)
+                .collect(toList()), shared);
+    }
+
     public static Map<String, String> getPartitionBaseUrls(final Map<String, Properties> partitions) {
         return partitions.entrySet().stream().collect(toMap(Map.Entry::getKey,
                     e -> e.getValue().getProperty(BASE_URL)));
@@ -85,6 +171,12 @@ class TrellisUtils {
             .collect(toMap(Map.Entry::getKey, e -> e.getValue().getProperty(BINARY_PATH)));
     }
 
+    public static Map<String, String> getContentAddressedBinaryPaths(final Map<String, Properties> partitions) {
+        return getBinaryDataPaths(partitions).entrySet().stream()
+            .filter(e -> Boolean.parseBoolean(partitions.get(e.getKey()).getProperty(BINARY_CONTENT_ADDRESSED)))
+            .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
     public static Properties getKafkaProperties(final TrellisConfiguration config) {
         final Properties props = config.getKafka().asProperties();
         props.setProperty("key.serializer", "org.apache.kafka.common.serialization.StringSerializer");
@@ -92,15 +184,43 @@ class TrellisUtils {
         return props;
     }
 
+    public static Properties getKafkaConsumerProperties(final TrellisConfiguration config, final String groupId) {
+        final Properties props = config.getKafka().asProperties();
+        props.setProperty("group.id", groupId);
+        props.setProperty("enable.auto.commit", "false");
+        props.setProperty("auto.offset.reset", "latest");
+        props.setProperty("key.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
+        props.setProperty("value.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
+        return props;
+    }
+
     public static Map<String, String> getAssetConfiguration(final TrellisConfiguration config) {
+        final String assetPath = getAssetPath(config);
         final Map<String, String> assetMap = new HashMap<>();
-        assetMap.put("icon", config.getAssets().getIcon());
-        assetMap.put("css", config.getAssets().getCss().stream().map(String::trim).collect(joining(",")));
-        assetMap.put("js", config.getAssets().getJs().stream().map(String::trim).collect(joining(",")));
+        assetMap.put("icon", resolveAsset(config.getAssets().getIcon(), assetPath));
+        assetMap.put("css", config.getAssets().getCss().stream().map(String::trim)
+                .map(css -> resolveAsset(css, assetPath)).collect(joining(",")));
+        assetMap.put("js", config.getAssets().getJs().stream().map(String::trim)
+                .map(js -> resolveAsset(js, assetPath)).collect(joining(",")));
 
         return assetMap;
     }
 
+    public static String getAssetPath(final TrellisConfiguration config) {
+        final ServerFactory server = config.getServerFactory();
+        String context = "/";
+        if (server instanceof DefaultServerFactory) {
+            context = ((DefaultServerFactory) server).getApplicationContextPath();
+        } else if (server instanceof SimpleServerFactory) {
+            context = ((SimpleServerFactory) server).getApplicationContextPath();
+        }
+        return (context.endsWith("/") ? context.substring(0, context.length() - 1) : context) + ASSET_PATH;
+    }
+
+    private static String resolveAsset(final String asset, final String assetPath) {
+        return BundledAssets.getAsset(asset).map(a -> assetPath + a.getPath()).orElse(asset);
+    }
+
     public static Optional<List<AuthFilter>> getAuthFilters(final TrellisConfiguration config) {
         // Authentication
         final List<AuthFilter> filters = new ArrayList<>();
@@ -160,6 +280,73 @@ class TrellisUtils {
         return empty();
     }
 
+    public static Optional<AdmissionConfiguration> getAdmissionConfiguration(final TrellisConfiguration config) {
+        if (config.getAdmission().getEnabled()) {
+            return of(config.getAdmission());
+        }
+        return empty();
+    }
+
+    public static Optional<BatchConfiguration> getBatchConfiguration(final TrellisConfiguration config) {
+        if (config.getBatch().getEnabled()) {
+            return of(config.getBatch());
+        }
+        return empty();
+    }
+
+    public static Optional<IngestConfiguration> getIngestConfiguration(final TrellisConfiguration config) {
+        if (config.getIngest().getEnabled()) {
+            return of(config.getIngest());
+        }
+        return empty();
+    }
+
+    public static Optional<CoalescingConfiguration> getCoalescingConfiguration(final TrellisConfiguration config) {
+        if (config.getCoalescing().getEnabled()) {
+            return of(config.getCoalescing());
+        }
+        return empty();
+    }
+
+    public static Optional<AccessLogConfiguration> getAccessLogConfiguration(final TrellisConfiguration config) {
+        if (config.getAccessLog().getEnabled()) {
+            return of(config.getAccessLog());
+        }
+        return empty();
+    }
+
+    public static Optional<GroupCommitConfiguration> getGroupCommitConfiguration(final TrellisConfiguration config) {
+        if (config.getGroupCommit().getEnabled()) {
+            return of(config.getGroupCommit());
+        }
+        return empty();
+    }
+
+    public static Optional<WarmupConfiguration> getWarmupConfiguration(final TrellisConfiguration config) {
+        if (config.getWarmup().getEnabled()) {
+            return of(config.getWarmup());
+        }
+        return empty();
+    }
+
+    public static Optional<DigestConfiguration> getDigestConfiguration(final TrellisConfiguration config) {
+        if (config.getDigests().getEnabled()) {
+            return of(config.getDigests());
+        }
+        return empty();
+    }
+
+    private static byte[] readDictionary(final String path) {
+        if (isNull(path) || !new File(path).exists()) {
+            return null;
+        }
+        try {
+            return readAllBytes(Paths.get(path));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
     private TrellisUtils() {
         // prevent instantiation
     }
@@ -0,0 +1,142 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.assets;
+
+import static java.util.Objects.isNull;
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A static asset, held in memory along with a pre-compressed copy.
+ *
+ * <p>The asset is published under a fingerprinted name (e.g. {@code trellis.0123456789ab.css}) so that it can
+ * be cached indefinitely: any change to the content results in a new name.
+ *
+ * @author acoburn
+ */
+public class Asset {
+
+    private static final int FINGERPRINT_LENGTH = 12;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String name;
+    private final String path;
+    private final String mediaType;
+    private final String etag;
+    private final byte[] content;
+    private final byte[] gzipped;
+
+    /**
+     * Create an asset
+     * @param name the name of the asset
+     * @param mediaType the media type of the asset
+     * @param content the asset content
+     */
+    public Asset(final String name, final String mediaType, final byte[] content) {
+        final String digest = sha256Hex(content).substring(0, FINGERPRINT_LENGTH);
+        final int idx = name.lastIndexOf('.');
+        this.name = name;
+        this.path = idx < 0 ? name + "." + digest : name.substring(0, idx) + "." + digest + name.substring(idx);
+        this.mediaType = mediaType;
+        this.etag = "\"" + digest + "\"";
+        this.content = content;
+        this.gzipped = gzip(content);
+    }
+
+    /**
+     * Load an asset from the classpath
+     * @param resource the classpath resource
+     * @param mediaType the media type of the asset
+     * @return the asset
+     */
+    public static Asset load(final String resource, final String mediaType) {
+        try (final InputStream input = Asset.class.getResourceAsStream(resource)) {
+            if (isNull(input)) {
+                throw new IllegalArgumentException("Asset not found: " + resource);
+            }
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                output.write(buffer, 0, read);
+            }
+            return new Asset(resource.substring(resource.lastIndexOf('/') + 1), mediaType, output.toByteArray());
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Get the name of the asset
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the fingerprinted name of the asset
+     * @return the fingerprinted name
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Get the media type of the asset
+     * @return the media type
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Get the entity tag of the asset
+     * @return the entity tag
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Get the asset content
+     * @return the content
+     */
+    public byte[] getContent() {
+        return content;
+    }
+
+    /**
+     * Get the gzip-compressed asset content
+     * @return the compressed content
+     */
+    public byte[] getGzipped() {
+        return gzipped;
+    }
+
+    private static byte[] gzip(final byte[] content) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (final GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(content);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.assets;
+
+import static java.util.Locale.ROOT;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A servlet that serves fingerprinted static assets.
+ *
+ * <p>Because an asset's name changes whenever its content changes, responses are marked as immutable and
+ * may be cached for a year. A pre-compressed copy is sent to clients that accept gzip encoding.
+ *
+ * @author acoburn
+ */
+public class AssetServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private final Map<String, Asset> assets;
+
+    /**
+     * Create a servlet for static assets
+     * @param assets the assets
+     */
+    public AssetServlet(final Collection<Asset> assets) {
+        super();
+        this.assets = assets.stream().collect(toMap(Asset::getPath, identity()));
+    }
+
+    @Override
+    protected void doGet(final HttpServletRequest req, final HttpServletResponse res) throws IOException {
+        final String path = req.getPathInfo();
+        final Asset asset = isNull(path) ? null : assets.get(path.substring(1));
+        if (isNull(asset)) {
+            res.sendError(SC_NOT_FOUND);
+            return;
+        }
+
+        res.setHeader("Cache-Control", CACHE_CONTROL);
+        res.setHeader("ETag", asset.getEtag());
+        res.setHeader("Vary", "Accept-Encoding");
+        if (asset.getEtag().equals(req.getHeader("If-None-Match"))) {
+            res.setStatus(SC_NOT_MODIFIED);
+            return;
+        }
+
+        final byte[] content;
+        if (acceptsGzip(req.getHeader("Accept-Encoding")) && asset.getGzipped().length < asset.getContent().length) {
+            res.setHeader("Content-Encoding", "gzip");
+            content = asset.getGzipped();
+        } else {
+            content = asset.getContent();
+        }
+        res.setContentType(asset.getMediaType());
+        res.setContentLength(content.length);
+        res.getOutputStream().write(content);
+    }
+
+    /**
+     * Determine whether an Accept-Encoding header allows a gzip-encoded response
+     * @param acceptEncoding the header value, which may be null
+     * @return true if gzip, or any coding, is accepted with a non-zero quality; false otherwise
+     */
+    static Boolean acceptsGzip(final String acceptEncoding) {
+        if (isNull(acceptEncoding)) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (final String coding : acceptEncoding.split(",")) {
+            final String[] parts = coding.split(";");
+            final String name = parts[0].trim().toLowerCase(ROOT);
+            if ("gzip".equals(name) || "x-gzip".equals(name)) {
+                gzip = getQuality(parts);
+            } else if ("*".equals(name)) {
+                any = getQuality(parts);
+            }
+        }
+        // An explicit quality for gzip takes precedence over the wildcard
+        return nonNull(gzip) ? gzip > 0 : nonNull(any) && any > 0;
+    }
+
+    private static Double getQuality(final String[] parts) {
+        for (int i = 1; i < parts.length; ++i) {
+            final String[] param = parts[i].split("=", 2);
+            if (param.length == 2 && "q".equalsIgnoreCase(param[0].trim())) {
+                try {
+                    return Double.parseDouble(param[1].trim());
+                } catch (final NumberFormatException ex) {
+                    return 0.0;
+                }
+            }
+        }
+        return 1.0;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.assets;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Optional.ofNullable;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * The static assets that are bundled with the application.
+ *
+ * @author acoburn
+ */
+public final class BundledAssets {
+
+    /** The URL path at which bundled assets are served, relative to the application context */
+    public static final String ASSET_PATH = "/assets/";
+
+    private static final String PREFIX = "/org/trellisldp/app/assets/";
+
+    private static final Map<String, Asset> ASSETS = unmodifiableMap(Stream.of(
+                Asset.load(PREFIX + "trellis.css", "text/css;charset=utf-8"),
+                Asset.load(PREFIX + "trellis.png", "image/png"))
+            .collect(toMap(Asset::getName, identity())));
+
+    /**
+     * Get all of the bundled assets, keyed by name
+     * @return the bundled assets
+     */
+    public static Map<String, Asset> getAssets() {
+        return ASSETS;
+    }
+
+    /**
+     * Get a bundled asset by name
+     * @param name the asset name (e.g. {@code trellis.css})
+     * @return the asset, if one exists
+     */
+    public static Optional<Asset> getAsset(final String name) {
+        return ofNullable(ASSETS.get(name));
+    }
+
+    private BundledAssets() {
+        // prevent instantiation
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.auth;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.stream.Collectors.groupingBy;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.trellisldp.vocabulary.ACL;
+import org.trellisldp.vocabulary.FOAF;
+
+/**
+ * The authorizations of a single ACL, compiled into lookup tables.
+ *
+ * <p>Each {@code acl:Authorization} is folded into tables keyed by agent IRI and by group IRI, whose values are
+ * the granted access modes. Authorizations for {@code foaf:Agent} are folded into a single set of public modes.
+ * Separate tables are kept for authorizations that apply to the resource itself ({@code acl:accessTo}) and for
+ * those that are inherited by its descendants ({@code acl:default}). Evaluating an agent's access is then a
+ * constant number of lookups (plus one per group the agent belongs to), regardless of how many
+ * authorizations the ACL contains.
+ *
+ * @author acoburn
+ */
+public final class AuthorizationIndex {
+
+    private final Rules direct = new Rules();
+    private final Rules inherited = new Rules();
+
+    private AuthorizationIndex() {
+        // use compile
+    }
+
+    /**
+     * Compile the ACL of a resource
+     * @param identifier the identifier of the resource to which the ACL belongs
+     * @param acl the triples of the ACL graph
+     * @return the compiled index
+     */
+    public static AuthorizationIndex compile(final IRI identifier, final Stream<? extends Triple> acl) {
+        final AuthorizationIndex index = new AuthorizationIndex();
+        final Map<BlankNodeOrIRI, List<Triple>> authorizations = acl.collect(groupingBy(Triple::getSubject));
+        authorizations.values().forEach(triples -> {
+            final Set<IRI> modes = objects(triples, ACL.mode);
+            if (modes.contains(ACL.Write)) {
+                modes.add(ACL.Append);
+            }
+            if (objects(triples, ACL.accessTo).contains(identifier)) {
+                index.direct.add(triples, modes);
+            }
+            if (objects(triples, ACL.default_).contains(identifier)) {
+                index.inherited.add(triples, modes);
+            }
+        });
+        return index;
+    }
+
+    /**
+     * Get the access modes granted to an agent
+     * @param agent the agent
+     * @param groups the groups to which the agent belongs
+     * @param inherited whether the ACL is being applied to a descendant of the resource
+     * @return the access modes
+     */
+    public Set<IRI> getModes(final IRI agent, final Set<IRI> groups, final Boolean inherited) {
+        final Rules rules = inherited ? this.inherited : direct;
+        final Set<IRI> modes = new HashSet<>(rules.publicModes);
+        modes.addAll(rules.agents.getOrDefault(agent, emptySet()));
+        if (!rules.groups.isEmpty()) {
+            groups.forEach(group -> modes.addAll(rules.groups.getOrDefault(group, emptySet())));
+        }
+        return unmodifiableSet(modes);
+    }
+
+    /**
+     * Get the groups that are referenced by this ACL
+     * @return the group IRIs
+     */
+    public Set<IRI> getGroups() {
+        final Set<IRI> groups = new HashSet<>(direct.groups.keySet());
+        groups.addAll(inherited.groups.keySet());
+        return groups;
+    }
+
+    private static Set<IRI> objects(final Collection<Triple> triples, final IRI predicate) {
+        final Set<IRI> objects = new HashSet<>();
+        triples.forEach(triple -> {
+            final RDFTerm object = triple.getObject();
+            if (triple.getPredicate().equals(predicate) && object instanceof IRI) {
+                objects.add((IRI) object);
+            }
+        });
+        return objects;
+    }
+
+    private static final class Rules {
+        private final Set<IRI> publicModes = new HashSet<>();
+        private final Map<IRI, Set<IRI>> agents = new HashMap<>();
+        private final Map<IRI, Set<IRI>> groups = new HashMap<>();
+
+        private void add(final Collection<Triple> triples, final Set<IRI> modes) {
+            if (objects(triples, ACL.agentClass).contains(FOAF.Agent)) {
+                publicModes.addAll(modes);
+            }
+            objects(triples, ACL.agent).forEach(agent ->
+                    agents.computeIfAbsent(agent, k -> new HashSet<>()).addAll(modes));
+            objects(triples, ACL.agentGroup).forEach(group ->
+                    groups.computeIfAbsent(group, k -> new HashSet<>()).addAll(modes));
+        }
+    }
+}
@@ -16,6 +16,8 @@ package org.trellisldp.app.auth;
 import static java.nio.file.Files.lines;
 import static java.util.Optional.empty;
 import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.app.profiling.Profiling.Kind.AUTHENTICATION;
+import static org.trellisldp.app.profiling.Profiling.record;
 
 import java.io.File;
 import java.io.IOException;
@@ -49,7 +51,8 @@ public class BasicAuthenticator implements Authenticator<BasicCredentials, Princ
 
     @Override
     public Optional<Principal> authenticate(final BasicCredentials credentials) throws AuthenticationException {
-        return lookup(credentials).map(PrincipalImpl::new);
+        return record(AUTHENTICATION, "basic", credentials.getUsername(),
+                () -> lookup(credentials).map(PrincipalImpl::new));
     }
 
     private Optional<String> lookup(final BasicCredentials creds) {
@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.auth;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.stream.Collectors.toSet;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.api.Triple;
+import org.slf4j.Logger;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.vocabulary.Trellis;
+import org.trellisldp.vocabulary.VCARD;
+
+/**
+ * An index of group membership, keyed by agent.
+ *
+ * <p>Groups are loaded the first time an ACL that references them is compiled, and all known groups are
+ * reloaded by {@link #refresh}, which is expected to be called periodically. A group is also reloaded as soon
+ * as the resource that describes it changes. Lookups read from an immutable snapshot, so they never block.
+ *
+ * @author acoburn
+ */
+public class GroupIndex {
+
+    private static final Logger LOGGER = getLogger(GroupIndex.class);
+    private static final RDF rdf = getInstance();
+
+    private final ResourceService resourceService;
+    private final Map<IRI, Set<IRI>> members = new ConcurrentHashMap<>();
+
+    private volatile Map<IRI, Set<IRI>> agents = new HashMap<>();
+
+    /**
+     * Create a group membership index
+     * @param resourceService the resource service
+     */
+    public GroupIndex(final ResourceService resourceService) {
+        this.resourceService = resourceService;
+    }
+
+    /**
+     * Get the groups to which an agent belongs
+     * @param agent the agent
+     * @return the groups
+     */
+    public Set<IRI> getGroups(final IRI agent) {
+        return agents.getOrDefault(agent, emptySet());
+    }
+
+    /**
+     * Make sure that the given groups are present in the index
+     * @param groups the groups
+     */
+    public void register(final Collection<IRI> groups) {
+        final Set<IRI> unknown = groups.stream().filter(group -> !members.containsKey(group)).collect(toSet());
+        if (!unknown.isEmpty()) {
+            unknown.forEach(this::load);
+            rebuild();
+        }
+    }
+
+    /**
+     * Reload every group in the index
+     */
+    public void refresh() {
+        members.keySet().forEach(this::load);
+        rebuild();
+    }
+
+    /**
+     * Reload any groups that are described by a resource that has changed
+     * @param identifier the identifier of the changed resource
+     */
+    public void invalidate(final IRI identifier) {
+        final Set<IRI> groups = members.keySet().stream().filter(group -> getDocument(group).equals(identifier))
+            .collect(toSet());
+        if (!groups.isEmpty()) {
+            groups.forEach(this::load);
+            rebuild();
+        }
+    }
+
+    private void load(final IRI group) {
+        try {
+            members.put(group, resourceService.get(getDocument(group)).map(resource ->
+                        resource.stream(Trellis.PreferUserManaged)
+                            .filter(triple -> triple.getSubject().equals(group))
+                            .filter(triple -> triple.getPredicate().equals(VCARD.hasMember))
+                            .map(Triple::getObject).filter(IRI.class::isInstance).map(IRI.class::cast)
+                            .collect(toSet())).orElse(emptySet()));
+        } catch (final RuntimeException ex) {
+            LOGGER.warn("Could not load group {}: {}", group, ex.getMessage());
+        }
+    }
+
+    private synchronized void rebuild() {
+        final Map<IRI, Set<IRI>> index = new HashMap<>();
+        members.forEach((group, agentSet) -> agentSet.forEach(agent ->
+                    index.computeIfAbsent(agent, k -> new HashSet<>()).add(group)));
+        index.replaceAll((agent, groups) -> unmodifiableSet(groups));
+        agents = index;
+    }
+
+    private static IRI getDocument(final IRI group) {
+        final String iri = group.getIRIString();
+        final int idx = iri.indexOf('#');
+        return idx < 0 ? group : rdf.createIRI(iri.substring(0, idx));
+    }
+}
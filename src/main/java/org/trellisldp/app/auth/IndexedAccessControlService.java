@@ -0,0 +1,116 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.auth;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.rdf.api.IRI;
+import org.trellisldp.api.AccessControlService;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.api.Session;
+import org.trellisldp.vocabulary.ACL;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * A WebAC access control service that evaluates authorizations against precompiled ACL indexes.
+ *
+ * <p>The effective ACL of a resource is found by walking up the container hierarchy to the nearest resource
+ * that has an ACL. That ACL is compiled once into an {@link AuthorizationIndex} and kept until the resource
+ * changes (or the compiled ACL expires), and agent group membership is answered from a {@link GroupIndex}.
+ *
+ * <p>Each invalidation advances an epoch, and an ACL compiled while the epoch changed is used but not kept, since
+ * it may have been read before the change.
+ *
+ * @author acoburn
+ */
+public class IndexedAccessControlService implements AccessControlService {
+
+    private static final Set<IRI> ALL_MODES = unmodifiableSet(new HashSet<>(asList(ACL.Read, ACL.Write,
+                    ACL.Append, ACL.Control)));
+
+    private final ResourceService resourceService;
+    private final GroupIndex groups;
+    private final Cache<IRI, AuthorizationIndex> indexes;
+    private final AtomicLong epoch = new AtomicLong();
+
+    /**
+     * Create an indexed access control service
+     * @param resourceService the resource service
+     * @param groups the group membership index
+     * @param size the maximum number of compiled ACLs to keep
+     * @param expireSeconds the number of seconds after which a compiled ACL expires
+     */
+    public IndexedAccessControlService(final ResourceService resourceService, final GroupIndex groups,
+            final Long size, final Long expireSeconds) {
+        this.resourceService = resourceService;
+        this.groups = groups;
+        this.indexes = CacheBuilder.newBuilder().maximumSize(size).expireAfterWrite(expireSeconds, SECONDS).build();
+    }
+
+    @Override
+    public Set<IRI> getAccessModes(final IRI identifier, final Session session) {
+        if (Trellis.RepositoryAdministrator.equals(session.getAgent())) {
+            return ALL_MODES;
+        }
+        final Set<IRI> modes = getModes(identifier, session.getAgent(), false);
+        return session.getDelegatedBy().map(delegate -> {
+            final Set<IRI> delegated = new HashSet<>(modes);
+            delegated.retainAll(getModes(identifier, delegate, false));
+            return unmodifiableSet(delegated);
+        }).orElse(modes);
+    }
+
+    /**
+     * Discard the compiled ACL of a resource that has changed
+     * @param identifier the identifier of the changed resource
+     */
+    public void invalidate(final IRI identifier) {
+        epoch.incrementAndGet();
+        indexes.invalidate(identifier);
+        groups.invalidate(identifier);
+    }
+
+    private Set<IRI> getModes(final IRI identifier, final IRI agent, final Boolean inherited) {
+        final AuthorizationIndex index = indexes.getIfPresent(identifier);
+        if (nonNull(index)) {
+            return index.getModes(agent, groups.getGroups(agent), inherited);
+        }
+        final long current = epoch.get();
+        return resourceService.get(identifier).filter(Resource::hasAcl).map(resource -> {
+            final AuthorizationIndex compiled = AuthorizationIndex.compile(identifier,
+                    resource.stream(Trellis.PreferAccessControl));
+            groups.register(compiled.getGroups());
+            // The epoch is advanced before the compiled ACL is discarded, so an ACL that was stored too late to
+            // be discarded is removed here instead
+            indexes.put(identifier, compiled);
+            if (epoch.get() != current) {
+                indexes.asMap().remove(identifier, compiled);
+            }
+            return compiled.getModes(agent, groups.getGroups(agent), inherited);
+        }).orElseGet(() -> resourceService.getContainer(identifier)
+                .map(container -> getModes(container, agent, true)).orElse(emptySet()));
+    }
+}
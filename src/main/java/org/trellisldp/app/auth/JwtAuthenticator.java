@@ -20,6 +20,8 @@ import static java.util.Optional.empty;
 import static java.util.Optional.of;
 import static java.util.Optional.ofNullable;
 import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.app.profiling.Profiling.Kind.AUTHENTICATION;
+import static org.trellisldp.app.profiling.Profiling.record;
 
 import java.security.Principal;
 import java.util.Optional;
@@ -56,6 +58,10 @@ public class JwtAuthenticator implements Authenticator<String, Principal> {
 
     @Override
     public Optional<Principal> authenticate(final String credentials) throws AuthenticationException {
+        return record(AUTHENTICATION, "jwt", null, () -> parse(credentials));
+    }
+
+    private Optional<Principal> parse(final String credentials) {
         try {
             // Parse the JWT claims
             final Claims claims = Jwts.parser().setSigningKey(key).parseClaimsJws(credentials).getBody();
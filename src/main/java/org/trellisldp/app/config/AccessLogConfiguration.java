@@ -0,0 +1,122 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * @author acoburn
+ */
+public class AccessLogConfiguration {
+
+    private Boolean enabled = false;
+
+    private String file;
+
+    private Integer bufferSize = 8192;
+
+    private Long maxFileSize = 104857600L;
+
+    private Integer archivedFileCount = 5;
+
+    /**
+     * Get whether the structured access log is enabled
+     * @return true if the access log is enabled; false otherwise
+     */
+    @JsonProperty
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable the structured access log
+     * @param enabled true if the access log is enabled; false otherwise
+     */
+    @JsonProperty
+    public void setEnabled(final Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get the path of the access log file
+     * @return the file path
+     */
+    @JsonProperty
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * Set the path of the access log file
+     * @param file the file path
+     */
+    @JsonProperty
+    public void setFile(final String file) {
+        this.file = file;
+    }
+
+    /**
+     * Get the number of entries that may be buffered before entries are dropped
+     * @return the buffer size
+     */
+    @JsonProperty
+    public Integer getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Set the number of entries that may be buffered before entries are dropped
+     * @param bufferSize the buffer size
+     */
+    @JsonProperty
+    public void setBufferSize(final Integer bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Get the size, in bytes, at which the access log file is rolled
+     * @return the maximum file size
+     */
+    @JsonProperty
+    public Long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    /**
+     * Set the size, in bytes, at which the access log file is rolled
+     * @param maxFileSize the maximum file size
+     */
+    @JsonProperty
+    public void setMaxFileSize(final Long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * Get the number of rolled access log files to keep
+     * @return the number of archived files
+     */
+    @JsonProperty
+    public Integer getArchivedFileCount() {
+        return archivedFileCount;
+    }
+
+    /**
+     * Set the number of rolled access log files to keep
+     * @param archivedFileCount the number of archived files
+     */
+    @JsonProperty
+    public void setArchivedFileCount(final Integer archivedFileCount) {
+        this.archivedFileCount = archivedFileCount;
+    }
+}
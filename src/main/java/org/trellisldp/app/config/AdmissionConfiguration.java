@@ -0,0 +1,182 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * @author acoburn
+ */
+public class AdmissionConfiguration {
+
+    private Boolean enabled = false;
+
+    private Boolean adaptive = true;
+
+    private Integer initialLimit = 20;
+
+    private Integer minLimit = 1;
+
+    private Integer maxLimit = 200;
+
+    private Long latencyThreshold = 500L;
+
+    private Double backoffRatio = 0.9;
+
+    private Integer retryAfter = 1;
+
+    /**
+     * Get whether per-partition admission control has been enabled
+     * @return true if admission control is enabled; false otherwise
+     */
+    @JsonProperty
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable per-partition admission control
+     * @param enabled true if admission control is enabled; false otherwise
+     */
+    @JsonProperty
+    public void setEnabled(final Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get whether the concurrency limits adapt to observed latency
+     * @return true if the limits are adaptive; false if they are fixed at the maximum
+     */
+    @JsonProperty
+    public Boolean getAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Set whether the concurrency limits adapt to observed latency
+     * @param adaptive true if the limits are adaptive; false if they are fixed at the maximum
+     */
+    @JsonProperty
+    public void setAdaptive(final Boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Get the initial concurrency limit for each partition
+     * @return the initial limit
+     */
+    @JsonProperty
+    public Integer getInitialLimit() {
+        return initialLimit;
+    }
+
+    /**
+     * Set the initial concurrency limit for each partition
+     * @param initialLimit the initial limit
+     */
+    @JsonProperty
+    public void setInitialLimit(final Integer initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    /**
+     * Get the minimum concurrency limit for each partition
+     * @return the minimum limit
+     */
+    @JsonProperty
+    public Integer getMinLimit() {
+        return minLimit;
+    }
+
+    /**
+     * Set the minimum concurrency limit for each partition
+     * @param minLimit the minimum limit
+     */
+    @JsonProperty
+    public void setMinLimit(final Integer minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    /**
+     * Get the maximum concurrency limit for each partition
+     * @return the maximum limit
+     */
+    @JsonProperty
+    public Integer getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * Set the maximum concurrency limit for each partition
+     * @param maxLimit the maximum limit
+     */
+    @JsonProperty
+    public void setMaxLimit(final Integer maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Get the latency threshold, in milliseconds, above which a partition's limit is reduced
+     * @return the latency threshold
+     */
+    @JsonProperty
+    public Long getLatencyThreshold() {
+        return latencyThreshold;
+    }
+
+    /**
+     * Set the latency threshold, in milliseconds, above which a partition's limit is reduced
+     * @param latencyThreshold the latency threshold
+     */
+    @JsonProperty
+    public void setLatencyThreshold(final Long latencyThreshold) {
+        this.latencyThreshold = latencyThreshold;
+    }
+
+    /**
+     * Get the ratio by which a partition's limit is multiplied when latency exceeds the threshold
+     * @return the backoff ratio
+     */
+    @JsonProperty
+    public Double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    /**
+     * Set the ratio by which a partition's limit is multiplied when latency exceeds the threshold
+     * @param backoffRatio the backoff ratio
+     */
+    @JsonProperty
+    public void setBackoffRatio(final Double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * Get the value, in seconds, of the Retry-After header for rejected requests
+     * @return the Retry-After value
+     */
+    @JsonProperty
+    public Integer getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Set the value, in seconds, of the Retry-After header for rejected requests
+     * @param retryAfter the Retry-After value
+     */
+    @JsonProperty
+    public void setRetryAfter(final Integer retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+}
@@ -21,13 +21,18 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
 
 /**
+ * Asset locations for the HTML view.
+ *
+ * <p>A value may be a URL or the name of an asset that is bundled with the application (e.g.
+ * {@code trellis.css}), in which case it is served locally under a fingerprinted URL.
+ *
  * @author acoburn
  */
 public class AssetConfiguration {
 
-    private String icon = "//s3.amazonaws.com/www.trellisldp.org/assets/img/trellis.png";
+    private String icon = "trellis.png";
 
-    private List<String> css = singletonList("//s3.amazonaws.com/www.trellisldp.org/assets/css/trellis.css");
+    private List<String> css = singletonList("trellis.css");
 
     private List<String> js = emptyList();
 
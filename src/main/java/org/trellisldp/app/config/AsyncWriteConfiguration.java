@@ -0,0 +1,122 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * @author acoburn
+ */
+public class AsyncWriteConfiguration {
+
+    private Integer queueSize = 10000;
+
+    private Integer workers = 4;
+
+    private Long maxWaitMillis = 1000L;
+
+    private Long retryAfter = 1L;
+
+    private Long shutdownTimeoutSeconds = 30L;
+
+    /**
+     * Get the maximum number of writes that may be queued for each partition
+     * @return the queue size
+     */
+    @JsonProperty
+    public Integer getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * Set the maximum number of writes that may be queued for each partition
+     * @param queueSize the queue size
+     */
+    @JsonProperty
+    public void setQueueSize(final Integer queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Get the number of worker threads that apply the writes for each partition
+     * @return the number of workers
+     */
+    @JsonProperty
+    public Integer getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Set the number of worker threads that apply the writes for each partition
+     * @param workers the number of workers
+     */
+    @JsonProperty
+    public void setWorkers(final Integer workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Get the time, in milliseconds, that a write may wait for space in a full queue
+     * @return the maximum wait, in milliseconds
+     */
+    @JsonProperty
+    public Long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * Set the time, in milliseconds, that a write may wait for space in a full queue
+     * @param maxWaitMillis the maximum wait, in milliseconds
+     */
+    @JsonProperty
+    public void setMaxWaitMillis(final Long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Get the value, in seconds, of the Retry-After header when a write is rejected
+     * @return the Retry-After value, in seconds
+     */
+    @JsonProperty
+    public Long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Set the value, in seconds, of the Retry-After header when a write is rejected
+     * @param retryAfter the Retry-After value, in seconds
+     */
+    @JsonProperty
+    public void setRetryAfter(final Long retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Get the time, in seconds, allowed for the queued writes to drain on shutdown
+     * @return the shutdown timeout, in seconds
+     */
+    @JsonProperty
+    public Long getShutdownTimeoutSeconds() {
+        return shutdownTimeoutSeconds;
+    }
+
+    /**
+     * Set the time, in seconds, allowed for the queued writes to drain on shutdown
+     * @param shutdownTimeoutSeconds the shutdown timeout, in seconds
+     */
+    @JsonProperty
+    public void setShutdownTimeoutSeconds(final Long shutdownTimeoutSeconds) {
+        this.shutdownTimeoutSeconds = shutdownTimeoutSeconds;
+    }
+}
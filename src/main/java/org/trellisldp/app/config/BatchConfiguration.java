@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * @author acoburn
+ */
+public class BatchConfiguration {
+
+    private Boolean enabled = false;
+
+    private Integer maxSize = 100;
+
+    private Integer threads = 8;
+
+    /**
+     * Get whether the batch retrieval endpoint has been enabled
+     * @return true if the batch endpoint is enabled; false otherwise
+     */
+    @JsonProperty
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable the batch retrieval endpoint
+     * @param enabled true if the batch endpoint is enabled; false otherwise
+     */
+    @JsonProperty
+    public void setEnabled(final Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get the maximum number of resources in a single batch request
+     * @return the maximum batch size
+     */
+    @JsonProperty
+    public Integer getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Set the maximum number of resources in a single batch request
+     * @param maxSize the maximum batch size
+     */
+    @JsonProperty
+    public void setMaxSize(final Integer maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the number of threads used to fetch resources in parallel
+     * @return the number of threads
+     */
+    @JsonProperty
+    public Integer getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set the number of threads used to fetch resources in parallel
+     * @param threads the number of threads
+     */
+    @JsonProperty
+    public void setThreads(final Integer threads) {
+        this.threads = threads;
+    }
+}
@@ -29,6 +29,8 @@ public class BinaryConfiguration {
 
     private Integer length = 2;
 
+    private Boolean contentAddressed = false;
+
     /**
      * Get a path value for the binary files
      * @return the path
@@ -82,6 +84,22 @@ public class BinaryConfiguration {
     public void setLength(final Integer length) {
         this.length = length;
     }
-}
 
+    /**
+     * Get whether binary files are stored by content digest
+     * @return true if identical binary files share a single stored copy; false otherwise
+     */
+    @JsonProperty
+    public Boolean getContentAddressed() {
+        return contentAddressed;
+    }
 
+    /**
+     * Set whether binary files are stored by content digest
+     * @param contentAddressed true if identical binary files share a single stored copy; false otherwise
+     */
+    @JsonProperty
+    public void setContentAddressed(final Boolean contentAddressed) {
+        this.contentAddressed = contentAddressed;
+    }
+}
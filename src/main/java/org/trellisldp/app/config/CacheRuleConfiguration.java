@@ -0,0 +1,227 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * A Cache-Control rule. Any match criterion that is not set matches every response.
+ *
+ * @author acoburn
+ */
+public class CacheRuleConfiguration {
+
+    private String partition;
+
+    private String interactionModel;
+
+    private String mediaType;
+
+    private String path;
+
+    private String ext;
+
+    private Boolean memento;
+
+    @NotNull
+    private Integer maxAge;
+
+    private Integer sMaxAge;
+
+    private Integer staleWhileRevalidate;
+
+    private Boolean immutable = false;
+
+    /**
+     * Get the partition matched by this rule
+     * @return the partition name
+     */
+    @JsonProperty
+    public String getPartition() {
+        return partition;
+    }
+
+    /**
+     * Set the partition matched by this rule
+     * @param partition the partition name
+     */
+    @JsonProperty
+    public void setPartition(final String partition) {
+        this.partition = partition;
+    }
+
+    /**
+     * Get the LDP interaction model matched by this rule
+     * @return the interaction model, as a full IRI or an LDP local name (e.g. BasicContainer)
+     */
+    @JsonProperty
+    public String getInteractionModel() {
+        return interactionModel;
+    }
+
+    /**
+     * Set the LDP interaction model matched by this rule
+     * @param interactionModel the interaction model, as a full IRI or an LDP local name (e.g. BasicContainer)
+     */
+    @JsonProperty
+    public void setInteractionModel(final String interactionModel) {
+        this.interactionModel = interactionModel;
+    }
+
+    /**
+     * Get the response media type matched by this rule
+     * @return the media type, which may include wildcards (e.g. image/*)
+     */
+    @JsonProperty
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Set the response media type matched by this rule
+     * @param mediaType the media type, which may include wildcards (e.g. image/*)
+     */
+    @JsonProperty
+    public void setMediaType(final String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Get the path pattern matched by this rule
+     * @return a regular expression for the request path, relative to the application root
+     */
+    @JsonProperty
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Set the path pattern matched by this rule
+     * @param path a regular expression for the request path, relative to the application root
+     */
+    @JsonProperty
+    public void setPath(final String path) {
+        this.path = path;
+    }
+
+    /**
+     * Get the extension matched by this rule
+     * @return the value of the {@code ext} query parameter (e.g. acl)
+     */
+    @JsonProperty
+    public String getExt() {
+        return ext;
+    }
+
+    /**
+     * Set the extension matched by this rule
+     * @param ext the value of the {@code ext} query parameter (e.g. acl)
+     */
+    @JsonProperty
+    public void setExt(final String ext) {
+        this.ext = ext;
+    }
+
+    /**
+     * Get whether this rule matches Memento versions
+     * @return true to match only Mementos; false to match only current resources; null to match both
+     */
+    @JsonProperty
+    public Boolean getMemento() {
+        return memento;
+    }
+
+    /**
+     * Set whether this rule matches Memento versions
+     * @param memento true to match only Mementos; false to match only current resources; null to match both
+     */
+    @JsonProperty
+    public void setMemento(final Boolean memento) {
+        this.memento = memento;
+    }
+
+    /**
+     * Get the max-age value
+     * @return the max-age value, in seconds
+     */
+    @JsonProperty
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Set the max-age value
+     * @param maxAge the max-age value, in seconds
+     */
+    @JsonProperty
+    public void setMaxAge(final Integer maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Get the s-maxage value
+     * @return the s-maxage value, in seconds
+     */
+    @JsonProperty("sMaxAge")
+    public Integer getSMaxAge() {
+        return sMaxAge;
+    }
+
+    /**
+     * Set the s-maxage value
+     * @param sMaxAge the s-maxage value, in seconds
+     */
+    @JsonProperty("sMaxAge")
+    public void setSMaxAge(final Integer sMaxAge) {
+        this.sMaxAge = sMaxAge;
+    }
+
+    /**
+     * Get the stale-while-revalidate value
+     * @return the stale-while-revalidate value, in seconds
+     */
+    @JsonProperty
+    public Integer getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    /**
+     * Set the stale-while-revalidate value
+     * @param staleWhileRevalidate the stale-while-revalidate value, in seconds
+     */
+    @JsonProperty
+    public void setStaleWhileRevalidate(final Integer staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    /**
+     * Get whether matching responses are immutable
+     * @return true if matching responses are immutable; false otherwise
+     */
+    @JsonProperty
+    public Boolean getImmutable() {
+        return immutable;
+    }
+
+    /**
+     * Set whether matching responses are immutable
+     * @param immutable true if matching responses are immutable; false otherwise
+     */
+    @JsonProperty
+    public void setImmutable(final Boolean immutable) {
+        this.immutable = immutable;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * @author acoburn
+ */
+public class CoalescingConfiguration {
+
+    private Boolean enabled = false;
+
+    private Integer maxSize = 1048576;
+
+    private Long maxWait = 5000L;
+
+    /**
+     * Get whether concurrent, identical GET requests are coalesced
+     * @return true if request coalescing is enabled; false otherwise
+     */
+    @JsonProperty
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable request coalescing
+     * @param enabled true if request coalescing is enabled; false otherwise
+     */
+    @JsonProperty
+    public void setEnabled(final Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get the maximum size, in bytes, of a response that may be shared
+     * @return the maximum response size
+     */
+    @JsonProperty
+    public Integer getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Set the maximum size, in bytes, of a response that may be shared
+     * @param maxSize the maximum response size
+     */
+    @JsonProperty
+    public void setMaxSize(final Integer maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the maximum time, in milliseconds, that a request waits for an identical in-flight request
+     * @return the maximum wait time
+     */
+    @JsonProperty
+    public Long getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * Set the maximum time, in milliseconds, that a request waits for an identical in-flight request
+     * @param maxWait the maximum wait time
+     */
+    @JsonProperty
+    public void setMaxWait(final Long maxWait) {
+        this.maxWait = maxWait;
+    }
+}
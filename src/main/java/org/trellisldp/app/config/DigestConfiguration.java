@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.config;
+
+import static java.util.Arrays.asList;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * @author acoburn
+ */
+public class DigestConfiguration {
+
+    private Boolean enabled = false;
+
+    private List<String> algorithms = asList("SHA-256", "MD5");
+
+    /**
+     * Get whether digests are computed as binaries are uploaded
+     * @return true if digests are computed on upload; false otherwise
+     */
+    @JsonProperty
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable computing digests as binaries are uploaded
+     * @param enabled true if digests are computed on upload; false otherwise
+     */
+    @JsonProperty
+    public void setEnabled(final Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get the digest algorithms computed as binaries are uploaded
+     * @return the algorithm names
+     */
+    @JsonProperty
+    public List<String> getAlgorithms() {
+        return algorithms;
+    }
+
+    /**
+     * Set the digest algorithms computed as binaries are uploaded
+     * @param algorithms the algorithm names
+     */
+    @JsonProperty
+    public void setAlgorithms(final List<String> algorithms) {
+        this.algorithms = algorithms;
+    }
+}
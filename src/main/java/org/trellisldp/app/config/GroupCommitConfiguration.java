@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * @author acoburn
+ */
+public class GroupCommitConfiguration {
+
+    private Boolean enabled = false;
+
+    private Long windowMillis = 2L;
+
+    private Integer maxBatchSize = 256;
+
+    /**
+     * Get whether group commit has been enabled
+     * @return true if group commit is enabled; false otherwise
+     */
+    @JsonProperty
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set whether group commit is enabled
+     * @param enabled true if group commit is enabled; false otherwise
+     */
+    @JsonProperty
+    public void setEnabled(final Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get the time, in milliseconds, over which concurrent writes to a partition are gathered
+     * @return the window, in milliseconds
+     */
+    @JsonProperty
+    public Long getWindowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * Set the time, in milliseconds, over which concurrent writes to a partition are gathered
+     * @param windowMillis the window, in milliseconds
+     */
+    @JsonProperty
+    public void setWindowMillis(final Long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Get the maximum number of writes committed together
+     * @return the maximum batch size
+     */
+    @JsonProperty
+    public Integer getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Set the maximum number of writes committed together
+     * @param maxBatchSize the maximum batch size
+     */
+    @JsonProperty
+    public void setMaxBatchSize(final Integer maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+}
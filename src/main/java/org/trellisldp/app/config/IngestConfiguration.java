@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * @author acoburn
+ */
+public class IngestConfiguration {
+
+    private Boolean enabled = false;
+
+    private Integer batchSize = 100;
+
+    private Integer maxPending = 1000;
+
+    private Integer threads = 8;
+
+    /**
+     * Get whether the bulk ingest endpoint has been enabled
+     * @return true if the bulk ingest endpoint is enabled; false otherwise
+     */
+    @JsonProperty
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable the bulk ingest endpoint
+     * @param enabled true if the bulk ingest endpoint is enabled; false otherwise
+     */
+    @JsonProperty
+    public void setEnabled(final Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get the number of resources written in each batch
+     * @return the batch size
+     */
+    @JsonProperty
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Set the number of resources written in each batch
+     * @param batchSize the batch size
+     */
+    @JsonProperty
+    public void setBatchSize(final Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Get the maximum number of resources that have been read but not yet written
+     * @return the maximum number of pending resources
+     */
+    @JsonProperty
+    public Integer getMaxPending() {
+        return maxPending;
+    }
+
+    /**
+     * Set the maximum number of resources that have been read but not yet written
+     * @param maxPending the maximum number of pending resources
+     */
+    @JsonProperty
+    public void setMaxPending(final Integer maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Get the number of threads used to write batches in parallel
+     * @return the number of threads
+     */
+    @JsonProperty
+    public Integer getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set the number of threads used to write batches in parallel
+     * @param threads the number of threads
+     */
+    @JsonProperty
+    public void setThreads(final Integer threads) {
+        this.threads = threads;
+    }
+}
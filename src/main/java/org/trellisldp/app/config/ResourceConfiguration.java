@@ -24,6 +24,23 @@ public class ResourceConfiguration {
     @NotNull
     private String path;
 
+    @NotNull
+    private Boolean index = false;
+
+    @NotNull
+    private Boolean filter = false;
+
+    @NotNull
+    private Integer filterCapacity = 1000000;
+
+    @NotNull
+    private String compression = "none";
+
+    private String compressionDictionary;
+
+    @NotNull
+    private Boolean compaction = false;
+
     /**
      * Get the underlying path for file-based resources
      * @return the path
@@ -41,6 +58,112 @@ public class ResourceConfiguration {
     public void setPath(final String path) {
         this.path = path;
     }
-}
 
+    /**
+     * Get whether a memory-mapped index of the resources is maintained
+     * @return true if the index is enabled; false otherwise
+     */
+    @JsonProperty
+    public Boolean getIndex() {
+        return index;
+    }
+
+    /**
+     * Set whether a memory-mapped index of the resources is maintained
+     * @param index true if the index is enabled; false otherwise
+     */
+    @JsonProperty
+    public void setIndex(final Boolean index) {
+        this.index = index;
+    }
+
+    /**
+     * Get whether lookups for missing resources are answered from an in-memory filter
+     * @return true if the filter is enabled; false otherwise
+     */
+    @JsonProperty
+    public Boolean getFilter() {
+        return filter;
+    }
+
+    /**
+     * Set whether lookups for missing resources are answered from an in-memory filter
+     * @param filter true if the filter is enabled; false otherwise
+     */
+    @JsonProperty
+    public void setFilter(final Boolean filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Get the expected number of resources, used to size the filter
+     * @return the expected number of resources
+     */
+    @JsonProperty
+    public Integer getFilterCapacity() {
+        return filterCapacity;
+    }
 
+    /**
+     * Set the expected number of resources, used to size the filter
+     * @param filterCapacity the expected number of resources
+     */
+    @JsonProperty
+    public void setFilterCapacity(final Integer filterCapacity) {
+        this.filterCapacity = filterCapacity;
+    }
+
+    /**
+     * Get the codec used to compress resource journals
+     * @return the codec: none, lz4 or deflate
+     */
+    @JsonProperty
+    public String getCompression() {
+        return compression;
+    }
+
+    /**
+     * Set the codec used to compress resource journals
+     * @param compression the codec: none, lz4 or deflate
+     */
+    @JsonProperty
+    public void setCompression(final String compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Get the location of the preset dictionary used to compress resource journals
+     * @return the dictionary file, or null if no dictionary is used
+     */
+    @JsonProperty
+    public String getCompressionDictionary() {
+        return compressionDictionary;
+    }
+
+    /**
+     * Set the location of the preset dictionary used to compress resource journals
+     * @param compressionDictionary the dictionary file
+     */
+    @JsonProperty
+    public void setCompressionDictionary(final String compressionDictionary) {
+        this.compressionDictionary = compressionDictionary;
+    }
+
+    /**
+     * Get whether the history of resources may be compacted with the compact command
+     * @return true if compaction is enabled; false otherwise
+     */
+    @JsonProperty
+    public Boolean getCompaction() {
+        return compaction;
+    }
+
+    /**
+     * Set whether the history of resources may be compacted with the compact command
+     * @param compaction true if compaction is enabled; false otherwise
+     */
+    @JsonProperty
+    public void setCompaction(final Boolean compaction) {
+        this.compaction = compaction;
+    }
+}
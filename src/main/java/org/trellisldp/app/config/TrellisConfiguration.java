@@ -13,6 +13,8 @@
  */
 package org.trellisldp.app.config;
 
+import static java.util.Collections.emptyList;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import io.dropwizard.Configuration;
@@ -30,6 +32,9 @@ public class TrellisConfiguration extends Configuration {
 
     private Integer cacheMaxAge = 86400;
 
+    @NotNull
+    private List<CacheRuleConfiguration> cacheRules = emptyList();
+
     @NotNull
     private AuthConfiguration auth = new AuthConfiguration();
 
@@ -54,6 +59,33 @@ public class TrellisConfiguration extends Configuration {
     @NotNull
     private NamespaceConfiguration namespaces = new NamespaceConfiguration();
 
+    @NotNull
+    private AdmissionConfiguration admission = new AdmissionConfiguration();
+
+    @NotNull
+    private BatchConfiguration batch = new BatchConfiguration();
+
+    @NotNull
+    private IngestConfiguration ingest = new IngestConfiguration();
+
+    @NotNull
+    private CoalescingConfiguration coalescing = new CoalescingConfiguration();
+
+    @NotNull
+    private AccessLogConfiguration accessLog = new AccessLogConfiguration();
+
+    @NotNull
+    private GroupCommitConfiguration groupCommit = new GroupCommitConfiguration();
+
+    @NotNull
+    private AsyncWriteConfiguration asyncWrites = new AsyncWriteConfiguration();
+
+    @NotNull
+    private WarmupConfiguration warmup = new WarmupConfiguration();
+
+    @NotNull
+    private DigestConfiguration digests = new DigestConfiguration();
+
     /**
      * Set async mode
      * @param async true if async mode is enabled; false otherwise
@@ -180,6 +212,24 @@ public class TrellisConfiguration extends Configuration {
         return cacheMaxAge;
     }
 
+    /**
+     * Set the Cache-Control rules
+     * @param cacheRules the Cache-Control rules, in the order in which they are evaluated
+     */
+    @JsonProperty
+    public void setCacheRules(final List<CacheRuleConfiguration> cacheRules) {
+        this.cacheRules = cacheRules;
+    }
+
+    /**
+     * Get the Cache-Control rules
+     * @return the Cache-Control rules, in the order in which they are evaluated
+     */
+    @JsonProperty
+    public List<CacheRuleConfiguration> getCacheRules() {
+        return cacheRules;
+    }
+
     /**
      * Set the CORS configuration
      * @param cors the CORS configuration
@@ -233,4 +283,166 @@ public class TrellisConfiguration extends Configuration {
     public NamespaceConfiguration getNamespaces() {
         return namespaces;
     }
+
+    /**
+     * Set the admission control configuration
+     * @param admission the admission control configuration
+     */
+    @JsonProperty
+    public void setAdmission(final AdmissionConfiguration admission) {
+        this.admission = admission;
+    }
+
+    /**
+     * Get the admission control configuration
+     * @return the admission control configuration
+     */
+    @JsonProperty
+    public AdmissionConfiguration getAdmission() {
+        return admission;
+    }
+
+    /**
+     * Set the batch retrieval configuration
+     * @param batch the batch retrieval configuration
+     */
+    @JsonProperty
+    public void setBatch(final BatchConfiguration batch) {
+        this.batch = batch;
+    }
+
+    /**
+     * Get the batch retrieval configuration
+     * @return the batch retrieval configuration
+     */
+    @JsonProperty
+    public BatchConfiguration getBatch() {
+        return batch;
+    }
+
+    /**
+     * Set the bulk ingest configuration
+     * @param ingest the bulk ingest configuration
+     */
+    @JsonProperty
+    public void setIngest(final IngestConfiguration ingest) {
+        this.ingest = ingest;
+    }
+
+    /**
+     * Get the bulk ingest configuration
+     * @return the bulk ingest configuration
+     */
+    @JsonProperty
+    public IngestConfiguration getIngest() {
+        return ingest;
+    }
+
+    /**
+     * Set the request coalescing configuration
+     * @param coalescing the request coalescing configuration
+     */
+    @JsonProperty
+    public void setCoalescing(final CoalescingConfiguration coalescing) {
+        this.coalescing = coalescing;
+    }
+
+    /**
+     * Get the request coalescing configuration
+     * @return the request coalescing configuration
+     */
+    @JsonProperty
+    public CoalescingConfiguration getCoalescing() {
+        return coalescing;
+    }
+
+    /**
+     * Set the access log configuration
+     * @param accessLog the access log configuration
+     */
+    @JsonProperty
+    public void setAccessLog(final AccessLogConfiguration accessLog) {
+        this.accessLog = accessLog;
+    }
+
+    /**
+     * Get the access log configuration
+     * @return the access log configuration
+     */
+    @JsonProperty
+    public AccessLogConfiguration getAccessLog() {
+        return accessLog;
+    }
+
+    /**
+     * Set the group commit configuration
+     * @param groupCommit the group commit configuration
+     */
+    @JsonProperty
+    public void setGroupCommit(final GroupCommitConfiguration groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    /**
+     * Get the group commit configuration
+     * @return the group commit configuration
+     */
+    @JsonProperty
+    public GroupCommitConfiguration getGroupCommit() {
+        return groupCommit;
+    }
+
+    /**
+     * Set the async write pipeline configuration
+     * @param asyncWrites the async write pipeline configuration
+     */
+    @JsonProperty
+    public void setAsyncWrites(final AsyncWriteConfiguration asyncWrites) {
+        this.asyncWrites = asyncWrites;
+    }
+
+    /**
+     * Get the async write pipeline configuration
+     * @return the async write pipeline configuration
+     */
+    @JsonProperty
+    public AsyncWriteConfiguration getAsyncWrites() {
+        return asyncWrites;
+    }
+
+    /**
+     * Set the cache warm-up configuration
+     * @param warmup the cache warm-up configuration
+     */
+    @JsonProperty
+    public void setWarmup(final WarmupConfiguration warmup) {
+        this.warmup = warmup;
+    }
+
+    /**
+     * Get the cache warm-up configuration
+     * @return the cache warm-up configuration
+     */
+    @JsonProperty
+    public WarmupConfiguration getWarmup() {
+        return warmup;
+    }
+
+    /**
+     * Set the binary digest configuration
+     * @param digests the binary digest configuration
+     */
+    @JsonProperty
+    public void setDigests(final DigestConfiguration digests) {
+        this.digests = digests;
+    }
+
+    /**
+     * Get the binary digest configuration
+     * @return the binary digest configuration
+     */
+    @JsonProperty
+    public DigestConfiguration getDigests() {
+        return digests;
+    }
 }
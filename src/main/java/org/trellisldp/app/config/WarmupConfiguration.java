@@ -0,0 +1,142 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * @author acoburn
+ */
+public class WarmupConfiguration {
+
+    private Boolean enabled = false;
+
+    private String file;
+
+    private Integer size = 10000;
+
+    private Long saveIntervalSeconds = 300L;
+
+    private Integer rate = 100;
+
+    private Long maxWaitSeconds = 300L;
+
+    /**
+     * Get whether cache warm-up has been enabled
+     * @return true if cache warm-up is enabled; false otherwise
+     */
+    @JsonProperty
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable cache warm-up
+     * @param enabled true if cache warm-up is enabled; false otherwise
+     */
+    @JsonProperty
+    public void setEnabled(final Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get the path of the access profile file
+     * @return the file path
+     */
+    @JsonProperty
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * Set the path of the access profile file
+     * @param file the file path
+     */
+    @JsonProperty
+    public void setFile(final String file) {
+        this.file = file;
+    }
+
+    /**
+     * Get the number of most-accessed resources to keep in the access profile
+     * @return the profile size
+     */
+    @JsonProperty
+    public Integer getSize() {
+        return size;
+    }
+
+    /**
+     * Set the number of most-accessed resources to keep in the access profile
+     * @param size the profile size
+     */
+    @JsonProperty
+    public void setSize(final Integer size) {
+        this.size = size;
+    }
+
+    /**
+     * Get the number of seconds between saves of the access profile
+     * @return the save interval
+     */
+    @JsonProperty
+    public Long getSaveIntervalSeconds() {
+        return saveIntervalSeconds;
+    }
+
+    /**
+     * Set the number of seconds between saves of the access profile
+     * @param saveIntervalSeconds the save interval
+     */
+    @JsonProperty
+    public void setSaveIntervalSeconds(final Long saveIntervalSeconds) {
+        this.saveIntervalSeconds = saveIntervalSeconds;
+    }
+
+    /**
+     * Get the maximum number of resources to prefetch per second
+     * @return the prefetch rate
+     */
+    @JsonProperty
+    public Integer getRate() {
+        return rate;
+    }
+
+    /**
+     * Set the maximum number of resources to prefetch per second
+     * @param rate the prefetch rate
+     */
+    @JsonProperty
+    public void setRate(final Integer rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * Get the maximum number of seconds that readiness waits for warm-up to finish
+     * @return the maximum wait
+     */
+    @JsonProperty
+    public Long getMaxWaitSeconds() {
+        return maxWaitSeconds;
+    }
+
+    /**
+     * Set the maximum number of seconds that readiness waits for warm-up to finish
+     * @param maxWaitSeconds the maximum wait
+     */
+    @JsonProperty
+    public void setMaxWaitSeconds(final Long maxWaitSeconds) {
+        this.maxWaitSeconds = maxWaitSeconds;
+    }
+}
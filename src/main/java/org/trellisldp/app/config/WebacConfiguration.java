@@ -22,6 +22,14 @@ public class WebacConfiguration {
 
     private Boolean enabled = true;
 
+    private Long cacheSize = 10000L;
+
+    private Long cacheExpireSeconds = 600L;
+
+    private Boolean indexed = false;
+
+    private Long groupRefreshSeconds = 300L;
+
     /**
      * Get whether basic authentication has been enabled
      * @return true if basic auth is enabled; false otherwise
@@ -39,6 +47,76 @@ public class WebacConfiguration {
     public void setEnabled(final Boolean enabled) {
         this.enabled = enabled;
     }
-}
 
+    /**
+     * Get the maximum number of cached authorization decisions
+     * @return the cache size, or 0 if authorization decisions are not cached
+     */
+    @JsonProperty
+    public Long getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Set the maximum number of cached authorization decisions
+     * @param cacheSize the cache size, or 0 to disable caching
+     */
+    @JsonProperty
+    public void setCacheSize(final Long cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Get the number of seconds after which a cached authorization decision expires
+     * @return the expiry, in seconds
+     */
+    @JsonProperty
+    public Long getCacheExpireSeconds() {
+        return cacheExpireSeconds;
+    }
+
+    /**
+     * Set the number of seconds after which a cached authorization decision expires
+     * @param cacheExpireSeconds the expiry, in seconds
+     */
+    @JsonProperty
+    public void setCacheExpireSeconds(final Long cacheExpireSeconds) {
+        this.cacheExpireSeconds = cacheExpireSeconds;
+    }
+
+    /**
+     * Get whether authorizations are evaluated against precompiled ACL indexes
+     * @return true if ACL indexes are used; false otherwise
+     */
+    @JsonProperty
+    public Boolean getIndexed() {
+        return indexed;
+    }
+
+    /**
+     * Set whether authorizations are evaluated against precompiled ACL indexes
+     * @param indexed true if ACL indexes are used; false otherwise
+     */
+    @JsonProperty
+    public void setIndexed(final Boolean indexed) {
+        this.indexed = indexed;
+    }
+
+    /**
+     * Get the number of seconds between refreshes of the group membership index
+     * @return the refresh interval, in seconds
+     */
+    @JsonProperty
+    public Long getGroupRefreshSeconds() {
+        return groupRefreshSeconds;
+    }
 
+    /**
+     * Set the number of seconds between refreshes of the group membership index
+     * @param groupRefreshSeconds the refresh interval, in seconds
+     */
+    @JsonProperty
+    public void setGroupRefreshSeconds(final Long groupRefreshSeconds) {
+        this.groupRefreshSeconds = groupRefreshSeconds;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.filter;
+
+import static javax.ws.rs.HttpMethod.HEAD;
+import static javax.ws.rs.Priorities.AUTHENTICATION;
+import static javax.ws.rs.Priorities.AUTHORIZATION;
+import static org.trellisldp.app.filter.FilterUtils.getPartition;
+import static org.trellisldp.app.logging.AccessLogEntry.Phase.AUTH;
+import static org.trellisldp.app.logging.AccessLogEntry.Phase.SERIALIZATION;
+import static org.trellisldp.app.logging.AccessLogEntry.Phase.WEBAC;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import javax.annotation.Priority;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.trellisldp.app.logging.AccessLog;
+import org.trellisldp.app.logging.AccessLogEntry;
+
+/**
+ * A filter that records each request in the structured access log.
+ *
+ * <p>An {@link AccessLogEntry} is started before any other filter runs and is written to the log once the
+ * response has been sent; for responses with a body, that is after the body has been serialized, so that the
+ * serialization time and response size can be included. The authentication and WebAC phases are delimited
+ * by the marker filters in this class, which must be registered alongside it. Backend read time is recorded
+ * by the resource service. Requests answered by the {@link CoalescingFilter} are recorded as a
+ * {@link CoalescingFilter.Listener}.
+ *
+ * @author acoburn
+ */
+@PreMatching
+@Priority(AUTHENTICATION - 300)
+public class AccessLogFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor,
+        CoalescingFilter.Listener {
+
+    private final AccessLog log;
+
+    /**
+     * Create an access log filter
+     * @param log the access log
+     */
+    public AccessLogFilter(final AccessLog log) {
+        this.log = log;
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext ctx) {
+        final String path = ctx.getUriInfo().getPath();
+        AccessLogEntry.begin(ctx.getMethod(), path, getPartition(path));
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext req, final ContainerResponseContext res) {
+        AccessLogEntry.current().ifPresent(entry -> {
+            entry.stop(AUTH);
+            entry.stop(WEBAC);
+            if (!res.hasEntity() || HEAD.equals(req.getMethod())) {
+                entry.complete(res.getStatus(), -1L);
+                finish(entry);
+            } else {
+                entry.complete(res.getStatus(), 0L);
+            }
+        });
+    }
+
+    @Override
+    public void aroundWriteTo(final WriterInterceptorContext ctx) throws IOException {
+        final Optional<AccessLogEntry> current = AccessLogEntry.current();
+        if (!current.isPresent()) {
+            ctx.proceed();
+            return;
+        }
+        final AccessLogEntry entry = current.get();
+        final CountingOutputStream output = new CountingOutputStream(ctx.getOutputStream());
+        ctx.setOutputStream(output);
+        entry.start(SERIALIZATION);
+        try {
+            ctx.proceed();
+        } finally {
+            entry.stop(SERIALIZATION);
+            entry.complete(entry.getStatus(), output.getCount());
+            finish(entry);
+        }
+    }
+
+    @Override
+    public void coalesced(final String method, final String path, final int status, final List<String> links,
+            final long duration, final long bytes) {
+        final AccessLogEntry entry = new AccessLogEntry(method, path, getPartition(path));
+        entry.complete(status, bytes, duration);
+        log.log(entry);
+    }
+
+    private void finish(final AccessLogEntry entry) {
+        AccessLogEntry.clear();
+        log.log(entry);
+    }
+
+    /**
+     * Marks the start of the authentication phase.
+     */
+    @Priority(AUTHENTICATION - 1)
+    public static class AuthenticationStart implements ContainerRequestFilter {
+        @Override
+        public void filter(final ContainerRequestContext ctx) {
+            AccessLogEntry.current().ifPresent(entry -> entry.start(AUTH));
+        }
+    }
+
+    /**
+     * Marks the end of the authentication phase and the start of the WebAC phase.
+     */
+    @Priority(AUTHORIZATION - 10)
+    public static class AuthorizationStart implements ContainerRequestFilter {
+        @Override
+        public void filter(final ContainerRequestContext ctx) {
+            AccessLogEntry.current().ifPresent(entry -> {
+                entry.stop(AUTH);
+                entry.start(WEBAC);
+            });
+        }
+    }
+
+    /**
+     * Marks the end of the WebAC phase.
+     */
+    @Priority(AUTHORIZATION + 10)
+    public static class AuthorizationEnd implements ContainerRequestFilter {
+        @Override
+        public void filter(final ContainerRequestContext ctx) {
+            AccessLogEntry.current().ifPresent(entry -> entry.stop(WEBAC));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.filter;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static javax.ws.rs.HttpMethod.GET;
+import static javax.ws.rs.HttpMethod.HEAD;
+import static javax.ws.rs.core.HttpHeaders.CACHE_CONTROL;
+import static javax.ws.rs.core.Response.Status.Family.SUCCESSFUL;
+import static org.trellisldp.app.filter.FilterUtils.getPartition;
+
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.MediaType;
+
+import org.trellisldp.app.config.CacheRuleConfiguration;
+
+/**
+ * A filter that sets the Cache-Control header of successful GET and HEAD responses from an ordered list of
+ * rules. The first matching rule wins; if no rule matches, a default {@code max-age} is used.
+ *
+ * <p>Rules are compiled once, at construction time, so that each response only requires a few string
+ * comparisons and, where a rule specifies a path, a precompiled regular expression match. Since the path does not
+ * include the query string, a rule targets ACL resources with its {@code ext} criterion instead.
+ *
+ * @author acoburn
+ */
+public class CacheRuleFilter implements ContainerResponseFilter {
+
+    private static final String LDP = "http://www.w3.org/ns/ldp#";
+    private static final String MEMENTO_DATETIME = "Memento-Datetime";
+    private static final String EXT = "ext";
+
+    private final List<Rule> rules;
+    private final Boolean matchExt;
+    private final String defaultValue;
+
+    /**
+     * Create a rule-based Cache-Control filter
+     * @param rules the ordered cache rules
+     * @param defaultMaxAge the max-age value used when no rule matches
+     */
+    public CacheRuleFilter(final List<CacheRuleConfiguration> rules, final Integer defaultMaxAge) {
+        this.rules = rules.stream().map(Rule::new).collect(toList());
+        this.matchExt = this.rules.stream().anyMatch(rule -> nonNull(rule.ext));
+        this.defaultValue = "max-age=" + defaultMaxAge;
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext req, final ContainerResponseContext res) {
+        final String method = req.getMethod();
+        if ((GET.equals(method) || HEAD.equals(method)) && SUCCESSFUL.equals(res.getStatusInfo().getFamily())) {
+            res.getHeaders().putSingle(CACHE_CONTROL, getCacheControl(req, res));
+        }
+    }
+
+    private String getCacheControl(final ContainerRequestContext req, final ContainerResponseContext res) {
+        final String path = req.getUriInfo().getPath();
+        final String partition = getPartition(path);
+        final Boolean memento = res.getHeaders().containsKey(MEMENTO_DATETIME);
+        Set<String> types = null;
+        final String ext = matchExt ? req.getUriInfo().getQueryParameters().getFirst(EXT) : null;
+        for (final Rule rule : rules) {
+            if (nonNull(rule.interactionModel) && isNull(types)) {
+                types = res.getLinks().stream().filter(link -> link.getRels().contains("type"))
+                    .map(link -> link.getUri().toString()).collect(toSet());
+            }
+            if (rule.matches(partition, path, ext, memento, res.getMediaType(), types)) {
+                return rule.value;
+            }
+        }
+        return defaultValue;
+    }
+
+    private static final class Rule {
+        private final String partition;
+        private final String interactionModel;
+        private final MediaType mediaType;
+        private final Pattern path;
+        private final String ext;
+        private final Boolean memento;
+        private final String value;
+
+        Rule(final CacheRuleConfiguration config) {
+            final String model = config.getInteractionModel();
+            this.partition = config.getPartition();
+            this.interactionModel = isNull(model) || model.contains(":") ? model : LDP + model;
+            this.mediaType = isNull(config.getMediaType()) ? null : MediaType.valueOf(config.getMediaType());
+            this.path = isNull(config.getPath()) ? null : Pattern.compile(config.getPath());
+            this.ext = config.getExt();
+            this.memento = config.getMemento();
+            this.value = buildValue(config);
+        }
+
+        boolean matches(final String partition, final String path, final String ext, final Boolean memento,
+                final MediaType mediaType, final Set<String> types) {
+            return (isNull(this.partition) || this.partition.equals(partition))
+                && (isNull(this.ext) || this.ext.equals(ext))
+                && (isNull(this.memento) || this.memento.equals(memento))
+                && (isNull(this.mediaType) || nonNull(mediaType) && this.mediaType.isCompatible(mediaType))
+                && (isNull(this.interactionModel) || types.contains(this.interactionModel))
+                && (isNull(this.path) || this.path.matcher(path).matches());
+        }
+
+        private static String buildValue(final CacheRuleConfiguration config) {
+            final StringBuilder builder = new StringBuilder("max-age=").append(config.getMaxAge());
+            if (nonNull(config.getSMaxAge())) {
+                builder.append(", s-maxage=").append(config.getSMaxAge());
+            }
+            if (nonNull(config.getStaleWhileRevalidate())) {
+                builder.append(", stale-while-revalidate=").append(config.getStaleWhileRevalidate());
+            }
+            if (config.getImmutable()) {
+                builder.append(", immutable");
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.filter;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static javax.ws.rs.core.HttpHeaders.LINK;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.trellisldp.app.config.CoalescingConfiguration;
+
+/**
+ * A servlet filter that coalesces concurrent, identical GET requests.
+ *
+ * <p>The first request for a given key is processed normally, while its response is also captured in memory.
+ * Identical requests that arrive while it is in flight wait for that response and receive a copy of its status,
+ * headers and body, rather than loading and serializing the same resource again. Requests are only coalesced
+ * when they have the same path, query, {@code Accept}, {@code Accept-Datetime}, {@code Prefer},
+ * {@code Want-Digest} and {@code Origin} headers and the same credentials, so that every waiter receives exactly
+ * the representation that it would have been given on its own. Conditional and range requests are never
+ * coalesced, and only successful responses up to a configurable size are shared.
+ *
+ * <p>Since a waiter never reaches the JAX-RS filters, each one is reported to the {@link Listener}s instead, so
+ * that it is still counted in the request metrics and written to the access log.
+ *
+ * @author acoburn
+ */
+public class CoalescingFilter implements Filter {
+
+    private static final List<String> KEY_HEADERS = asList("Accept", "Accept-Datetime", "Prefer", "Want-Digest",
+            "Origin", "Authorization");
+
+    private static final List<String> BYPASS_HEADERS = asList("Range", "If-Match", "If-None-Match",
+            "If-Modified-Since", "If-Unmodified-Since");
+
+    private static final Set<String> EXCLUDED_HEADERS = unmodifiableSet(new HashSet<>(asList("date",
+                    "content-length", "transfer-encoding", "connection", "set-cookie")));
+
+    private final ConcurrentMap<String, CompletableFuture<SharedResponse>> inflight = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Integer maxSize;
+    private final Long maxWait;
+    private final Meter coalesced;
+    private final List<Listener> listeners;
+
+    /**
+     * Create a request coalescing filter
+     * @param config the coalescing configuration
+     * @param metrics the metric registry
+     */
+    public CoalescingFilter(final CoalescingConfiguration config, final MetricRegistry metrics) {
+        this(config, metrics, emptyList());
+    }
+
+    /**
+     * Create a request coalescing filter
+     * @param config the coalescing configuration
+     * @param metrics the metric registry
+     * @param listeners the listeners that record each request answered with a shared response
+     */
+    public CoalescingFilter(final CoalescingConfiguration config, final MetricRegistry metrics,
+            final List<Listener> listeners) {
+        this.listeners = listeners;
+        this.maxSize = config.getMaxSize();
+        this.maxWait = config.getMaxWait();
+        this.coalesced = metrics.meter(name(CoalescingFilter.class, "coalesced"));
+        metrics.register(name(CoalescingFilter.class, "waiting"), (Gauge<Integer>) waiting::get);
+    }
+
+    @Override
+    public void init(final FilterConfig config) {
+        // Nothing to initialize
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to destroy
+    }
+
+    @Override
+    public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain)
+            throws IOException, ServletException {
+        final HttpServletRequest req = (HttpServletRequest) request;
+        final HttpServletResponse res = (HttpServletResponse) response;
+        if (!"GET".equals(req.getMethod()) || BYPASS_HEADERS.stream().anyMatch(h -> nonNull(req.getHeader(h)))) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        final String key = getKey(req);
+        final CompletableFuture<SharedResponse> shared = new CompletableFuture<>();
+        final CompletableFuture<SharedResponse> existing = inflight.putIfAbsent(key, shared);
+        if (nonNull(existing)) {
+            final long start = System.nanoTime();
+            final SharedResponse result = await(existing);
+            if (nonNull(result)) {
+                coalesced.mark();
+                result.replay(res);
+                final String path = getPath(req);
+                final long duration = System.nanoTime() - start;
+                for (final Listener listener : listeners) {
+                    listener.coalesced(req.getMethod(), path, SC_OK, result.getHeaders(LINK), duration,
+                            result.body.length);
+                }
+            } else {
+                chain.doFilter(request, response);
+            }
+            return;
+        }
+
+        final CapturingResponse capture = new CapturingResponse(res, maxSize);
+        try {
+            chain.doFilter(request, capture);
+            capture.flushBuffer();
+            shared.complete(capture.toSharedResponse());
+        } finally {
+            // Waiters that receive null will process the request themselves
+            shared.complete(null);
+            inflight.remove(key, shared);
+        }
+    }
+
+    /**
+     * Get the number of requests currently waiting for an in-flight response
+     * @return the number of waiting requests
+     */
+    public Integer getWaiting() {
+        return waiting.get();
+    }
+
+    private SharedResponse await(final CompletableFuture<SharedResponse> future) {
+        waiting.incrementAndGet();
+        try {
+            return future.get(maxWait, MILLISECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (final ExecutionException | TimeoutException ex) {
+            return null;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private static String getPath(final HttpServletRequest req) {
+        // Relative to the application root, as JAX-RS reports it
+        final String path = isNull(req.getPathInfo()) ? req.getServletPath() : req.getPathInfo();
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    private static String getKey(final HttpServletRequest req) {
+        final StringBuilder key = new StringBuilder(req.getRequestURI()).append('?');
+        if (nonNull(req.getQueryString())) {
+            key.append(req.getQueryString());
+        }
+        for (final String header : KEY_HEADERS) {
+            key.append('\n');
+            final String value = req.getHeader(header);
+            if (nonNull(value)) {
+                key.append(value);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Records a request that was answered with a copy of an in-flight response.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Record a coalesced request
+         * @param method the request method
+         * @param path the request path, relative to the application root
+         * @param status the response status
+         * @param links the values of the {@code Link} response headers
+         * @param duration the time the request took, in nanoseconds
+         * @param bytes the number of bytes in the response body
+         */
+        void coalesced(String method, String path, int status, List<String> links, long duration, long bytes);
+    }
+
+    private static final class SharedResponse {
+        private final List<String[]> headers;
+        private final String contentType;
+        private final byte[] body;
+
+        SharedResponse(final List<String[]> headers, final String contentType, final byte[] body) {
+            this.headers = headers;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        List<String> getHeaders(final String name) {
+            final List<String> values = new ArrayList<>();
+            for (final String[] header : headers) {
+                if (header[0].equalsIgnoreCase(name)) {
+                    values.add(header[1]);
+                }
+            }
+            return values;
+        }
+
+        void replay(final HttpServletResponse res) throws IOException {
+            res.setStatus(SC_OK);
+            for (final String[] header : headers) {
+                res.addHeader(header[0], header[1]);
+            }
+            if (nonNull(contentType)) {
+                res.setContentType(contentType);
+            }
+            res.setContentLength(body.length);
+            res.getOutputStream().write(body);
+        }
+    }
+
+    private static final class CapturingResponse extends HttpServletResponseWrapper {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final int maxSize;
+        private boolean overflow;
+        private ServletOutputStream output;
+        private PrintWriter writer;
+
+        CapturingResponse(final HttpServletResponse res, final int maxSize) {
+            super(res);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (isNull(output)) {
+                output = new TeeOutputStream(super.getOutputStream());
+            }
+            return output;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (isNull(writer)) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (nonNull(writer)) {
+                writer.flush();
+            }
+            super.flushBuffer();
+        }
+
+        SharedResponse toSharedResponse() {
+            if (overflow || getStatus() != SC_OK) {
+                return null;
+            }
+            final List<String[]> headers = new ArrayList<>();
+            for (final String name : new TreeSet<>(getHeaderNames())) {
+                if (!EXCLUDED_HEADERS.contains(name.toLowerCase()) && !"content-type".equalsIgnoreCase(name)) {
+                    getHeaders(name).forEach(value -> headers.add(new String[]{name, value}));
+                }
+            }
+            return new SharedResponse(headers, getContentType(), buffer.toByteArray());
+        }
+
+        private void capture(final byte[] bytes, final int offset, final int length) {
+            if (!overflow) {
+                if (buffer.size() + length > maxSize) {
+                    overflow = true;
+                    buffer.reset();
+                } else {
+                    buffer.write(bytes, offset, length);
+                }
+            }
+        }
+
+        private final class TeeOutputStream extends ServletOutputStream {
+            private final ServletOutputStream delegate;
+
+            TeeOutputStream(final ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void write(final int b) throws IOException {
+                delegate.write(b);
+                capture(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+                delegate.write(bytes, offset, length);
+                capture(bytes, offset, length);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                delegate.flush();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(final WriteListener listener) {
+                delegate.setWriteListener(listener);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.filter;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * A concurrency limit that adapts to observed latency.
+ *
+ * <p>The limit grows additively (by roughly one request per limit's worth of fast completions) and shrinks
+ * multiplicatively whenever a request completes more slowly than the latency threshold (AIMD).
+ *
+ * @author acoburn
+ */
+class ConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThreshold;
+    private final double backoffRatio;
+    private final boolean adaptive;
+
+    private double limit;
+    private int inflight = 0;
+
+    /**
+     * Create a concurrency limit
+     * @param initialLimit the initial limit
+     * @param minLimit the minimum limit
+     * @param maxLimit the maximum limit
+     * @param latencyThreshold the latency threshold, in nanoseconds
+     * @param backoffRatio the ratio applied to the limit when the latency threshold is exceeded
+     * @param adaptive whether the limit adapts to latency; if false, the maximum limit is used
+     */
+    public ConcurrencyLimit(final int initialLimit, final int minLimit, final int maxLimit,
+            final long latencyThreshold, final double backoffRatio, final boolean adaptive) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThreshold = latencyThreshold;
+        this.backoffRatio = backoffRatio;
+        this.adaptive = adaptive;
+        this.limit = adaptive ? min(maxLimit, max(minLimit, initialLimit)) : maxLimit;
+    }
+
+    /**
+     * Try to acquire a slot for a new request
+     * @return true if the request may proceed; false if it should be rejected
+     */
+    public synchronized boolean tryAcquire() {
+        if (inflight < (int) limit) {
+            inflight += 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Release a slot, recording the latency of the completed request
+     * @param latency the request latency, in nanoseconds
+     */
+    public synchronized void release(final long latency) {
+        inflight -= 1;
+        if (adaptive) {
+            if (latency > latencyThreshold) {
+                limit = max(minLimit, limit * backoffRatio);
+            } else {
+                limit = min(maxLimit, limit + 1.0 / limit);
+            }
+        }
+    }
+
+    /**
+     * Get the current limit
+     * @return the limit
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Get the number of requests currently in flight
+     * @return the number of in-flight requests
+     */
+    public synchronized int getInflight() {
+        return inflight;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.filter;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.regex.Pattern.quote;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static javax.ws.rs.HttpMethod.OPTIONS;
+import static javax.ws.rs.Priorities.AUTHENTICATION;
+import static javax.ws.rs.core.HttpHeaders.VARY;
+import static javax.ws.rs.core.Response.noContent;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.annotation.Priority;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+
+import org.trellisldp.app.config.CORSConfiguration;
+
+/**
+ * A filter that implements Cross-Origin Resource Sharing.
+ *
+ * <p>The allowed origins are compiled into a hash set (plus a regular expression for each wildcard origin, such
+ * as {@code https://*.example.org}) and all of the static header values are built once, at startup. Pre-flight
+ * requests are answered directly from the pre-matching phase, so they never reach resource matching,
+ * authentication or authorization.
+ *
+ * @author acoburn
+ */
+@PreMatching
+@Priority(AUTHENTICATION - 200)
+public class CrossOriginFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String ORIGIN = "Origin";
+    private static final String REQUEST_METHOD = "Access-Control-Request-Method";
+    private static final String REQUEST_HEADERS = "Access-Control-Request-Headers";
+    private static final String ALLOW_ORIGIN = "Access-Control-Allow-Origin";
+    private static final String ALLOW_CREDENTIALS = "Access-Control-Allow-Credentials";
+    private static final String ALLOW_METHODS = "Access-Control-Allow-Methods";
+    private static final String ALLOW_HEADERS = "Access-Control-Allow-Headers";
+    private static final String EXPOSE_HEADERS = "Access-Control-Expose-Headers";
+    private static final String MAX_AGE = "Access-Control-Max-Age";
+
+    private final Boolean anyOrigin;
+    private final Set<String> origins = new HashSet<>();
+    private final List<Pattern> originPatterns;
+    private final Set<String> methods;
+    private final Set<String> headers;
+    private final Boolean credentials;
+    private final String allowMethods;
+    private final String allowHeaders;
+    private final String exposeHeaders;
+    private final String maxAge;
+
+    /**
+     * Create a CORS filter
+     * @param config the CORS configuration
+     */
+    public CrossOriginFilter(final CORSConfiguration config) {
+        this.anyOrigin = config.getAllowOrigin().contains("*");
+        config.getAllowOrigin().stream().filter(origin -> !origin.contains("*")).forEach(origins::add);
+        this.originPatterns = config.getAllowOrigin().stream().filter(origin -> origin.contains("*"))
+            .filter(origin -> !origin.equals("*")).map(CrossOriginFilter::compileOrigin).collect(toList());
+        this.methods = new HashSet<>(config.getAllowMethods());
+        this.headers = config.getAllowHeaders().stream().map(String::toLowerCase).collect(toSet());
+        this.credentials = config.getAllowCredentials();
+        this.allowMethods = String.join(",", config.getAllowMethods());
+        this.allowHeaders = String.join(",", config.getAllowHeaders());
+        this.exposeHeaders = String.join(",", config.getExposeHeaders());
+        this.maxAge = config.getMaxAge().toString();
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext req) {
+        if (isPreflight(req)) {
+            final String origin = req.getHeaderString(ORIGIN);
+            if (originAllowed(origin) && methods.contains(req.getHeaderString(REQUEST_METHOD))
+                    && headersAllowed(req.getHeaderString(REQUEST_HEADERS))) {
+                final Response.ResponseBuilder builder = noContent().header(ALLOW_ORIGIN, origin)
+                    .header(ALLOW_METHODS, allowMethods).header(MAX_AGE, maxAge).header(VARY, ORIGIN);
+                if (!allowHeaders.isEmpty()) {
+                    builder.header(ALLOW_HEADERS, allowHeaders);
+                }
+                if (credentials) {
+                    builder.header(ALLOW_CREDENTIALS, "true");
+                }
+                req.abortWith(builder.build());
+            } else {
+                req.abortWith(noContent().build());
+            }
+        }
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext req, final ContainerResponseContext res) {
+        final String origin = req.getHeaderString(ORIGIN);
+        if (nonNull(origin) && !isPreflight(req) && originAllowed(origin)) {
+            final MultivaluedMap<String, Object> responseHeaders = res.getHeaders();
+            responseHeaders.putSingle(ALLOW_ORIGIN, origin);
+            responseHeaders.add(VARY, ORIGIN);
+            if (credentials) {
+                responseHeaders.putSingle(ALLOW_CREDENTIALS, "true");
+            }
+            if (!exposeHeaders.isEmpty()) {
+                responseHeaders.putSingle(EXPOSE_HEADERS, exposeHeaders);
+            }
+        }
+    }
+
+    private static Boolean isPreflight(final ContainerRequestContext req) {
+        return OPTIONS.equals(req.getMethod()) && nonNull(req.getHeaderString(ORIGIN))
+            && nonNull(req.getHeaderString(REQUEST_METHOD));
+    }
+
+    private Boolean originAllowed(final String origin) {
+        return anyOrigin || origins.contains(origin)
+            || originPatterns.stream().anyMatch(pattern -> pattern.matcher(origin).matches());
+    }
+
+    private Boolean headersAllowed(final String requestHeaders) {
+        return isNull(requestHeaders) || Stream.of(requestHeaders.split(",")).map(String::trim)
+            .filter(header -> !header.isEmpty()).map(String::toLowerCase).allMatch(headers::contains);
+    }
+
+    private static Pattern compileOrigin(final String origin) {
+        return Pattern.compile(Stream.of(origin.split("\\*", -1)).map(part -> part.isEmpty() ? "" : quote(part))
+                .collect(joining("[^/]*")));
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.filter;
+
+/**
+ * @author acoburn
+ */
+final class FilterUtils {
+
+    /**
+     * Resolve the partition name from a request path
+     * @param path the request path, relative to the application root
+     * @return the partition name
+     */
+    public static String getPartition(final String path) {
+        final int start = path.startsWith("/") ? 1 : 0;
+        final int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+
+    private FilterUtils() {
+        // prevent instantiation
+    }
+}
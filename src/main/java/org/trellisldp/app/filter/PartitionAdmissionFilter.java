@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.filter;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static javax.ws.rs.Priorities.AUTHENTICATION;
+import static javax.ws.rs.core.HttpHeaders.RETRY_AFTER;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+import static javax.ws.rs.core.Response.status;
+import static org.trellisldp.app.filter.FilterUtils.getPartition;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Priority;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.PreMatching;
+
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.trellisldp.app.config.AdmissionConfiguration;
+
+/**
+ * A filter that limits the number of concurrent requests for each partition.
+ *
+ * <p>Each partition has its own (optionally adaptive) concurrency limit, so that a slow partition cannot
+ * exhaust the request threads used by every other partition. Requests that exceed the limit are rejected
+ * with a {@code 503 Service Unavailable} response and a {@code Retry-After} header. A request holds its slot
+ * until Jersey has finished processing it, including writing the response body, since streaming a large body may
+ * take far longer than the request; the slot is released when the request finishes, however it ends.
+ *
+ * @author acoburn
+ */
+@PreMatching
+@Priority(AUTHENTICATION - 100)
+public class PartitionAdmissionFilter implements ContainerRequestFilter, ApplicationEventListener {
+
+    private static final String PARTITION = "trellis.admission.partition";
+    private static final String START = "trellis.admission.start";
+
+    private final Map<String, ConcurrencyLimit> limits = new HashMap<>();
+    private final Map<String, Meter> rejections = new HashMap<>();
+    private final Map<String, Timer> timers = new HashMap<>();
+    private final String retryAfter;
+
+    /**
+     * Create an admission control filter
+     * @param partitions the partition names
+     * @param config the admission control configuration
+     * @param metrics the metric registry
+     */
+    public PartitionAdmissionFilter(final Collection<String> partitions, final AdmissionConfiguration config,
+            final MetricRegistry metrics) {
+        this.retryAfter = config.getRetryAfter().toString();
+        partitions.forEach(partition -> {
+            final ConcurrencyLimit limit = new ConcurrencyLimit(config.getInitialLimit(), config.getMinLimit(),
+                    config.getMaxLimit(), NANOSECONDS.convert(config.getLatencyThreshold(), MILLISECONDS),
+                    config.getBackoffRatio(), config.getAdaptive());
+            limits.put(partition, limit);
+            rejections.put(partition, metrics.meter(name(PartitionAdmissionFilter.class, partition, "rejected")));
+            timers.put(partition, metrics.timer(name(PartitionAdmissionFilter.class, partition, "requests")));
+            metrics.register(name(PartitionAdmissionFilter.class, partition, "limit"),
+                    (Gauge<Integer>) limit::getLimit);
+            metrics.register(name(PartitionAdmissionFilter.class, partition, "inflight"),
+                    (Gauge<Integer>) limit::getInflight);
+        });
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext ctx) {
+        final String partition = getPartition(ctx.getUriInfo().getPath());
+        final ConcurrencyLimit limit = limits.get(partition);
+        if (nonNull(limit)) {
+            if (limit.tryAcquire()) {
+                ctx.setProperty(PARTITION, partition);
+                ctx.setProperty(START, System.nanoTime());
+            } else {
+                rejections.get(partition).mark();
+                ctx.abortWith(status(SERVICE_UNAVAILABLE).header(RETRY_AFTER, retryAfter).build());
+            }
+        }
+    }
+
+    @Override
+    public void onEvent(final ApplicationEvent event) {
+        // Only request events are of interest
+    }
+
+    @Override
+    public RequestEventListener onRequest(final RequestEvent event) {
+        return this::onRequestEvent;
+    }
+
+    private void onRequestEvent(final RequestEvent event) {
+        if (event.getType() == RequestEvent.Type.FINISHED) {
+            final ContainerRequest req = event.getContainerRequest();
+            final Object partition = req.getProperty(PARTITION);
+            if (nonNull(partition)) {
+                req.removeProperty(PARTITION);
+                release((String) partition, (Long) req.getProperty(START));
+            }
+        }
+    }
+
+    private void release(final String partition, final Long start) {
+        final long latency = System.nanoTime() - start;
+        limits.get(partition).release(latency);
+        timers.get(partition).update(latency, NANOSECONDS);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.filter;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static javax.ws.rs.HttpMethod.DELETE;
+import static javax.ws.rs.HttpMethod.GET;
+import static javax.ws.rs.HttpMethod.HEAD;
+import static javax.ws.rs.HttpMethod.OPTIONS;
+import static javax.ws.rs.HttpMethod.POST;
+import static javax.ws.rs.HttpMethod.PUT;
+import static javax.ws.rs.Priorities.AUTHENTICATION;
+import static javax.ws.rs.core.HttpHeaders.LINK;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Priority;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.Link;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * A filter that records request timers and response size histograms for each kind of request.
+ *
+ * <p>Metrics are keyed by partition, HTTP method, LDP interaction model (taken from the {@code type} links
+ * on the response) and status class, e.g. {@code org.trellisldp.app.filter.RequestMetricsFilter.repository.
+ * GET.BasicContainer.2xx.requests}. Every combination is registered up front and looked up by array index,
+ * so recording a request does not build any metric names. For responses with a body, the timer includes the
+ * time taken to write the body. Requests answered by the {@link CoalescingFilter} are recorded as a
+ * {@link CoalescingFilter.Listener}.
+ *
+ * @author acoburn
+ */
+@PreMatching
+@Priority(AUTHENTICATION - 250)
+public class RequestMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor,
+        CoalescingFilter.Listener {
+
+    private static final String START = "trellis.metrics.start";
+    private static final String ENDPOINT = "trellis.metrics.endpoint";
+    private static final String LDP = "http://www.w3.org/ns/ldp#";
+    private static final String PATCH = "PATCH";
+    private static final String TYPE = "type";
+
+    private static final String[] METHODS = {GET, HEAD, OPTIONS, POST, PUT, PATCH, DELETE, "OTHER"};
+    // Ordered from the most to the least specific interaction model
+    private static final String[] MODELS = {"BasicContainer", "DirectContainer", "IndirectContainer", "Container",
+        "NonRDFSource", "RDFSource", "Unknown"};
+    private static final String[] STATUSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+    private static final Map<URI, Integer> MODEL_INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < MODELS.length - 1; ++i) {
+            MODEL_INDEX.put(URI.create(LDP + MODELS[i]), i);
+        }
+    }
+
+    private final String[] partitions;
+    private final Endpoint[][][][] endpoints;
+
+    /**
+     * Create a request metrics filter
+     * @param partitions the partition names
+     * @param metrics the metric registry
+     */
+    public RequestMetricsFilter(final Collection<String> partitions, final MetricRegistry metrics) {
+        this.partitions = partitions.toArray(new String[0]);
+        this.endpoints = new Endpoint[this.partitions.length][METHODS.length][MODELS.length][STATUSES.length];
+        for (int p = 0; p < this.partitions.length; ++p) {
+            for (int m = 0; m < METHODS.length; ++m) {
+                for (int i = 0; i < MODELS.length; ++i) {
+                    for (int s = 0; s < STATUSES.length; ++s) {
+                        final String prefix = name(RequestMetricsFilter.class, this.partitions[p], METHODS[m],
+                                MODELS[i], STATUSES[s]);
+                        endpoints[p][m][i][s] = new Endpoint(metrics.timer(name(prefix, "requests")),
+                                metrics.histogram(name(prefix, "size")));
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext ctx) {
+        ctx.setProperty(START, System.nanoTime());
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext req, final ContainerResponseContext res) {
+        final Object start = req.getProperty(START);
+        if (isNull(start)) {
+            return;
+        }
+        final int partition = getPartition(req.getUriInfo().getPath());
+        if (partition < 0) {
+            req.removeProperty(START);
+            return;
+        }
+        final Endpoint endpoint = endpoints[partition][getMethod(req.getMethod())][getModel(res.getHeaders()
+            .get(LINK))][getStatus(res.getStatus())];
+        if (res.hasEntity() && !HEAD.equals(req.getMethod())) {
+            // Recorded once the body has been written
+            req.setProperty(ENDPOINT, endpoint);
+        } else {
+            req.removeProperty(START);
+            endpoint.update(System.nanoTime() - (Long) start, 0L);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(final WriterInterceptorContext ctx) throws IOException {
+        final Object endpoint = ctx.getProperty(ENDPOINT);
+        final Object start = ctx.getProperty(START);
+        if (isNull(endpoint) || isNull(start)) {
+            ctx.proceed();
+            return;
+        }
+        ctx.removeProperty(ENDPOINT);
+        ctx.removeProperty(START);
+        final CountingOutputStream output = new CountingOutputStream(ctx.getOutputStream());
+        ctx.setOutputStream(output);
+        try {
+            ctx.proceed();
+        } finally {
+            ((Endpoint) endpoint).update(System.nanoTime() - (Long) start, output.getCount());
+        }
+    }
+
+    @Override
+    public void coalesced(final String method, final String path, final int status, final List<String> links,
+            final long duration, final long bytes) {
+        final int partition = getPartition(path);
+        if (partition >= 0) {
+            endpoints[partition][getMethod(method)][getModel(links)][getStatus(status)].update(duration, bytes);
+        }
+    }
+
+    private int getPartition(final String path) {
+        final int offset = path.startsWith("/") ? 1 : 0;
+        for (int i = 0; i < partitions.length; ++i) {
+            final int end = offset + partitions[i].length();
+            if (path.startsWith(partitions[i], offset) && (path.length() == end || path.charAt(end) == '/')) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int getMethod(final String method) {
+        switch (method) {
+            case GET:
+                return 0;
+            case HEAD:
+                return 1;
+            case OPTIONS:
+                return 2;
+            case POST:
+                return 3;
+            case PUT:
+                return 4;
+            case PATCH:
+                return 5;
+            case DELETE:
+                return 6;
+            default:
+                return METHODS.length - 1;
+        }
+    }
+
+    private static int getModel(final List<?> links) {
+        int model = MODELS.length - 1;
+        if (isNull(links)) {
+            return model;
+        }
+        for (final Object value : links) {
+            final Link link = value instanceof Link ? (Link) value : Link.valueOf(value.toString());
+            if (link.getRels().contains(TYPE)) {
+                final Integer idx = MODEL_INDEX.get(link.getUri());
+                if (nonNull(idx) && idx < model) {
+                    model = idx;
+                }
+            }
+        }
+        return model;
+    }
+
+    private static int getStatus(final int status) {
+        return Math.min(Math.max(status / 100, 1), STATUSES.length) - 1;
+    }
+
+    private static final class Endpoint {
+        private final Timer timer;
+        private final Histogram size;
+
+        private Endpoint(final Timer timer, final Histogram size) {
+            this.timer = timer;
+            this.size = size;
+        }
+
+        private void update(final long duration, final long bytes) {
+            timer.update(duration, NANOSECONDS);
+            size.update(bytes);
+        }
+    }
+}
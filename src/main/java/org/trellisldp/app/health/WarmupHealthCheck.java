@@ -0,0 +1,49 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.health;
+
+import static com.codahale.metrics.health.HealthCheck.Result.healthy;
+import static com.codahale.metrics.health.HealthCheck.Result.unhealthy;
+
+import com.codahale.metrics.health.HealthCheck;
+
+import org.trellisldp.app.CacheWarmer;
+
+/**
+ * @author acoburn
+ */
+public class WarmupHealthCheck extends HealthCheck {
+
+    protected final CacheWarmer warmer;
+
+    /**
+     * Create an object that reports whether cache warm-up has finished
+     * @param warmer the cache warmer
+     */
+    public WarmupHealthCheck(final CacheWarmer warmer) {
+        super();
+        this.warmer = warmer;
+    }
+
+    @Override
+    protected HealthCheck.Result check() {
+        final String progress = warmer.getWarmed() + " of " + warmer.getTotal() + " resources";
+        if (warmer.isComplete()) {
+            return healthy("Cache warm-up finished with " + progress);
+        } else if (warmer.isReady()) {
+            return healthy("Cache warm-up still in progress after the maximum wait: " + progress);
+        }
+        return unhealthy("Cache warm-up in progress: " + progress);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.logging;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import io.dropwizard.lifecycle.Managed;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.slf4j.Logger;
+
+/**
+ * An asynchronous access log that writes one JSON object per line.
+ *
+ * <p>Request threads only place entries in a fixed-size ring buffer; formatting and disk I/O happen on a
+ * single background thread. If the buffer is full, the entry is dropped and counted rather than making the
+ * request wait. The log file is rolled when it reaches a maximum size.
+ *
+ * @author acoburn
+ */
+public class AccessLog implements Managed, Runnable {
+
+    private static final Logger LOGGER = getLogger(AccessLog.class);
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final int BATCH_SIZE = 256;
+    private static final long POLL_TIMEOUT = 100L;
+    private static final int NEWLINE = '\n';
+
+    private final Path file;
+    private final long maxFileSize;
+    private final int archivedFileCount;
+    private final BlockingQueue<AccessLogEntry> buffer;
+    private final Counter dropped;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+    private volatile Boolean running = false;
+    private Thread thread;
+    private OutputStream output;
+    private long size;
+
+    /**
+     * Create an access log
+     * @param file the path of the log file
+     * @param bufferSize the number of entries that may be buffered
+     * @param maxFileSize the size, in bytes, at which the log file is rolled
+     * @param archivedFileCount the number of rolled log files to keep
+     * @param metrics the metric registry
+     */
+    public AccessLog(final String file, final Integer bufferSize, final Long maxFileSize,
+            final Integer archivedFileCount, final MetricRegistry metrics) {
+        this.file = Paths.get(file);
+        this.maxFileSize = maxFileSize;
+        this.archivedFileCount = archivedFileCount;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.dropped = metrics.counter(name(AccessLog.class, "dropped"));
+        metrics.register(name(AccessLog.class, "buffered"), (Gauge<Integer>) buffer::size);
+    }
+
+    /**
+     * Add an entry to the log, dropping it if the buffer is full
+     * @param entry the entry
+     * @return true if the entry was accepted; false if it was dropped
+     */
+    public Boolean log(final AccessLogEntry entry) {
+        if (buffer.offer(entry)) {
+            return true;
+        }
+        dropped.inc();
+        return false;
+    }
+
+    /**
+     * Get the number of entries that have been dropped
+     * @return the number of dropped entries
+     */
+    public long getDropped() {
+        return dropped.getCount();
+    }
+
+    @Override
+    public void start() throws IOException {
+        open();
+        running = true;
+        thread = new Thread(this, "trellis-access-log");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        thread.join();
+        output.close();
+    }
+
+    @Override
+    public void run() {
+        final List<AccessLogEntry> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !buffer.isEmpty()) {
+            try {
+                final AccessLogEntry entry = buffer.poll(POLL_TIMEOUT, MILLISECONDS);
+                if (nonNull(entry)) {
+                    batch.add(entry);
+                    buffer.drainTo(batch, BATCH_SIZE - 1);
+                    write(batch);
+                    batch.clear();
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final IOException ex) {
+                LOGGER.error("Error writing to access log {}: {}", file, ex.getMessage());
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(final List<AccessLogEntry> entries) throws IOException {
+        for (final AccessLogEntry entry : entries) {
+            line.reset();
+            try (final JsonGenerator generator = FACTORY.createGenerator(line)) {
+                entry.write(generator);
+            }
+            line.write(NEWLINE);
+            if (size > 0L && size + line.size() > maxFileSize) {
+                roll();
+            }
+            line.writeTo(output);
+            size += line.size();
+        }
+        output.flush();
+    }
+
+    private void open() throws IOException {
+        if (nonNull(file.getParent())) {
+            Files.createDirectories(file.getParent());
+        }
+        output = new BufferedOutputStream(Files.newOutputStream(file, CREATE, APPEND));
+        size = Files.size(file);
+    }
+
+    private void roll() throws IOException {
+        output.close();
+        Files.deleteIfExists(archive(archivedFileCount));
+        for (int i = archivedFileCount - 1; i > 0; --i) {
+            if (Files.exists(archive(i))) {
+                Files.move(archive(i), archive(i + 1), REPLACE_EXISTING);
+            }
+        }
+        if (archivedFileCount > 0) {
+            Files.move(file, archive(1), REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+        open();
+    }
+
+    private Path archive(final int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.logging;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Optional.ofNullable;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * A single entry in the structured access log, with the time spent in each phase of the request.
+ *
+ * <p>The entry for the request being processed on the current thread is available from {@link #current},
+ * so that components deep in the call stack (e.g. the resource service) can record their timings without
+ * having the entry passed to them.
+ *
+ * @author acoburn
+ */
+public class AccessLogEntry {
+
+    /**
+     * The timed phases of a request
+     */
+    public enum Phase {
+        AUTH("auth"), WEBAC("webac"), BACKEND("backend"), SERIALIZATION("serialization");
+
+        private final String label;
+
+        Phase(final String label) {
+            this.label = label;
+        }
+    }
+
+    private static final ThreadLocal<AccessLogEntry> CURRENT = new ThreadLocal<>();
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final Instant time = Instant.now();
+    private final long start = System.nanoTime();
+    private final long[] started = new long[Phase.values().length];
+    private final long[] elapsed = new long[Phase.values().length];
+    private final String method;
+    private final String path;
+    private final String partition;
+
+    private int status;
+    private long bytes = -1L;
+    private long duration;
+
+    /**
+     * Create an access log entry
+     * @param method the request method
+     * @param path the request path
+     * @param partition the partition
+     */
+    public AccessLogEntry(final String method, final String path, final String partition) {
+        this.method = method;
+        this.path = path;
+        this.partition = partition;
+    }
+
+    /**
+     * Start a new entry for the request being processed on the current thread
+     * @param method the request method
+     * @param path the request path
+     * @param partition the partition
+     * @return the new entry
+     */
+    public static AccessLogEntry begin(final String method, final String path, final String partition) {
+        final AccessLogEntry entry = new AccessLogEntry(method, path, partition);
+        CURRENT.set(entry);
+        return entry;
+    }
+
+    /**
+     * Get the entry for the request being processed on the current thread
+     * @return the entry, if one has been started
+     */
+    public static Optional<AccessLogEntry> current() {
+        return ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Detach the entry from the current thread
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Run an operation, adding its duration to a phase of the current entry (if there is one)
+     * @param phase the phase
+     * @param operation the operation
+     * @param <T> the type of the result
+     * @return the result of the operation
+     */
+    public static <T> T time(final Phase phase, final Supplier<T> operation) {
+        final AccessLogEntry entry = CURRENT.get();
+        if (isNull(entry)) {
+            return operation.get();
+        }
+        final long begin = System.nanoTime();
+        try {
+            return operation.get();
+        } finally {
+            entry.elapsed[phase.ordinal()] += System.nanoTime() - begin;
+        }
+    }
+
+    /**
+     * Mark the start of a phase
+     * @param phase the phase
+     */
+    public void start(final Phase phase) {
+        started[phase.ordinal()] = System.nanoTime();
+    }
+
+    /**
+     * Mark the end of a phase; this has no effect if the phase was not started
+     * @param phase the phase
+     */
+    public void stop(final Phase phase) {
+        final int idx = phase.ordinal();
+        if (started[idx] != 0L) {
+            elapsed[idx] += System.nanoTime() - started[idx];
+            started[idx] = 0L;
+        }
+    }
+
+    /**
+     * Mark the request as complete
+     * @param status the response status
+     * @param bytes the number of bytes in the response body, or -1 if there was no body
+     */
+    public void complete(final int status, final long bytes) {
+        complete(status, bytes, System.nanoTime() - start);
+    }
+
+    /**
+     * Mark the request as complete, with a duration that was measured elsewhere
+     * @param status the response status
+     * @param bytes the number of bytes in the response body, or -1 if there was no body
+     * @param duration the duration of the request, in nanoseconds
+     */
+    public void complete(final int status, final long bytes, final long duration) {
+        this.status = status;
+        this.bytes = bytes;
+        this.duration = duration;
+    }
+
+    /**
+     * Get the time spent in a phase
+     * @param phase the phase
+     * @return the elapsed time, in nanoseconds
+     */
+    public long getElapsed(final Phase phase) {
+        return elapsed[phase.ordinal()];
+    }
+
+    /**
+     * Get the response status
+     * @return the status code
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Get the response size
+     * @return the number of bytes in the response body, or -1 if there was no body
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    void write(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("time", time.toString());
+        generator.writeStringField("method", method);
+        generator.writeStringField("path", path);
+        if (nonNull(partition)) {
+            generator.writeStringField("partition", partition);
+        }
+        generator.writeNumberField("status", status);
+        if (bytes >= 0L) {
+            generator.writeNumberField("bytes", bytes);
+        }
+        generator.writeNumberField("duration", duration / NANOS_PER_MILLI);
+        generator.writeObjectFieldStart("phases");
+        for (final Phase phase : Phase.values()) {
+            generator.writeNumberField(phase.label, elapsed[phase.ordinal()] / NANOS_PER_MILLI);
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+}
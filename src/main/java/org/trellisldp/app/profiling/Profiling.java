@@ -0,0 +1,205 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.profiling;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+/**
+ * Entry points for recording Java Flight Recorder events around the phases of a request.
+ *
+ * <p>Each event carries the identifier and partition of the request that is being processed on the current
+ * thread (see {@link ProfilingFilter}). Events are only populated when JFR is recording them; otherwise, the
+ * cost of an instrumented call is a thread-local lookup and a check of the event's enabled flag. On a JVM
+ * without JFR support, nothing is recorded.
+ *
+ * @author acoburn
+ */
+public final class Profiling {
+
+    /**
+     * The kinds of event that are recorded
+     */
+    public enum Kind {
+        AUTHENTICATION, AUTHORIZATION, RESOURCE_READ, RESOURCE_WRITE, SERIALIZATION, BINARY_READ, BINARY_WRITE,
+        KAFKA_PUBLISH
+    }
+
+    /**
+     * An operation that is recorded as an event
+     * @param <T> the type of the result
+     * @param <E> the type of exception that may be thrown
+     */
+    @FunctionalInterface
+    public interface Operation<T, E extends Exception> {
+
+        /**
+         * Run the operation
+         * @return the result
+         * @throws E if the operation fails
+         */
+        T run() throws E;
+    }
+
+    /**
+     * An event that has been started
+     */
+    public interface Span {
+
+        /**
+         * Finish the event, committing it if it is being recorded
+         */
+        void finish();
+    }
+
+    /**
+     * Starts the events of a particular recording mechanism
+     */
+    interface Recorder {
+
+        /**
+         * Start an event
+         * @param kind the kind of event
+         * @param operation the operation being performed
+         * @param target the target of the operation, if any
+         * @param context the request being processed on the current thread, if any
+         * @return the started event, or null if the event is not being recorded
+         */
+        Span start(Kind kind, String operation, Object target, RequestContext context);
+    }
+
+    private static final Logger LOGGER = getLogger(Profiling.class);
+    private static final Span NOOP = () -> { };
+    private static final ThreadLocal<RequestContext> CONTEXT = new ThreadLocal<>();
+    private static final String PREFIX = Long.toHexString(ThreadLocalRandom.current().nextLong()) + "-";
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static final String JFR_RECORDER = "org.trellisldp.app.profiling.JfrEvents";
+    private static final Recorder RECORDER = detect();
+
+    /**
+     * Check whether Java Flight Recorder events are supported by this JVM
+     * @return true if events can be recorded; false otherwise
+     */
+    public static Boolean isAvailable() {
+        return nonNull(RECORDER);
+    }
+
+    /**
+     * Associate a request with the current thread
+     * @param requestId the request identifier supplied by the client, or null to generate one
+     * @param path the request path, relative to the application root
+     */
+    public static void begin(final String requestId, final String path) {
+        CONTEXT.set(new RequestContext(requestId, SEQUENCE.incrementAndGet(), path));
+    }
+
+    /**
+     * Disassociate the current request from the current thread
+     */
+    public static void end() {
+        CONTEXT.remove();
+    }
+
+    /**
+     * Start an event
+     * @param kind the kind of event
+     * @param operation the operation being performed
+     * @param target the target of the operation (e.g. a resource identifier), if any
+     * @return the started event, which must be finished
+     */
+    public static Span start(final Kind kind, final String operation, final Object target) {
+        if (isNull(RECORDER)) {
+            return NOOP;
+        }
+        final Span span = RECORDER.start(kind, operation, target, CONTEXT.get());
+        return isNull(span) ? NOOP : span;
+    }
+
+    /**
+     * Run an operation, recording it as an event
+     * @param kind the kind of event
+     * @param operation the operation being performed
+     * @param target the target of the operation (e.g. a resource identifier), if any
+     * @param op the operation
+     * @param <T> the type of the result
+     * @param <E> the type of exception that may be thrown
+     * @return the result of the operation
+     * @throws E if the operation fails
+     */
+    public static <T, E extends Exception> T record(final Kind kind, final String operation, final Object target,
+            final Operation<T, E> op) throws E {
+        final Span span = start(kind, operation, target);
+        try {
+            return op.run();
+        } finally {
+            span.finish();
+        }
+    }
+
+    private static Recorder detect() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            // The event types are only compiled where the JFR API is available
+            return Class.forName(JFR_RECORDER).asSubclass(Recorder.class).getDeclaredConstructor().newInstance();
+        } catch (final ReflectiveOperationException | LinkageError ex) {
+            LOGGER.info("Java Flight Recorder is not available; profiling events are disabled");
+            return null;
+        }
+    }
+
+    /**
+     * The request being processed on a thread; the identifier and partition are only computed when an event
+     * is recorded.
+     */
+    static final class RequestContext {
+        private final String requestId;
+        private final long sequence;
+        private final String path;
+
+        private String id;
+        private String partition;
+
+        private RequestContext(final String requestId, final long sequence, final String path) {
+            this.requestId = requestId;
+            this.sequence = sequence;
+            this.path = path;
+        }
+
+        String getId() {
+            if (isNull(id)) {
+                id = nonNull(requestId) ? requestId : PREFIX + Long.toHexString(sequence);
+            }
+            return id;
+        }
+
+        String getPartition() {
+            if (isNull(partition) && nonNull(path)) {
+                final int start = path.startsWith("/") ? 1 : 0;
+                final int end = path.indexOf('/', start);
+                partition = end < 0 ? path.substring(start) : path.substring(start, end);
+            }
+            return partition;
+        }
+    }
+
+    private Profiling() {
+        // prevent instantiation
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.profiling;
+
+import static org.trellisldp.app.profiling.Profiling.Kind.AUTHORIZATION;
+import static org.trellisldp.app.profiling.Profiling.record;
+
+import java.util.Set;
+
+import org.apache.commons.rdf.api.IRI;
+import org.trellisldp.api.AccessControlService;
+import org.trellisldp.api.Session;
+
+/**
+ * An access control service that records each WebAC evaluation as a profiling event.
+ *
+ * @author acoburn
+ */
+public class ProfilingAccessControlService implements AccessControlService {
+
+    private final AccessControlService service;
+
+    /**
+     * Create a profiling access control service
+     * @param service the underlying access control service
+     */
+    public ProfilingAccessControlService(final AccessControlService service) {
+        this.service = service;
+    }
+
+    @Override
+    public Set<IRI> getAccessModes(final IRI identifier, final Session session) {
+        return record(AUTHORIZATION, "getAccessModes", identifier, () -> service.getAccessModes(identifier, session));
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.profiling;
+
+import static org.trellisldp.app.profiling.Profiling.Kind.BINARY_READ;
+import static org.trellisldp.app.profiling.Profiling.Kind.BINARY_WRITE;
+import static org.trellisldp.app.profiling.Profiling.record;
+import static org.trellisldp.app.profiling.Profiling.start;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.trellisldp.api.BinaryService;
+import org.trellisldp.api.BinaryService.MultipartUpload;
+import org.trellisldp.api.BinaryService.Resolver;
+import org.trellisldp.app.profiling.Profiling.Span;
+
+/**
+ * A binary service that records binary reads and writes as profiling events.
+ *
+ * <p>A read event lasts from the moment the content is opened until its stream is closed, so that it covers
+ * the transfer of the content to the client. Resolvers obtained from this service are instrumented in the same
+ * way.
+ *
+ * @author acoburn
+ */
+public class ProfilingBinaryService implements BinaryService {
+
+    private final BinaryService service;
+
+    /**
+     * Create a profiling binary service
+     * @param service the underlying binary service
+     */
+    public ProfilingBinaryService(final BinaryService service) {
+        this.service = service;
+    }
+
+    @Override
+    public Optional<InputStream> getContent(final String partition, final IRI identifier) {
+        return open(identifier, () -> service.getContent(partition, identifier));
+    }
+
+    @Override
+    public Boolean exists(final String partition, final IRI identifier) {
+        return service.exists(partition, identifier);
+    }
+
+    @Override
+    public void setContent(final String partition, final IRI identifier, final InputStream stream) {
+        record(BINARY_WRITE, "setContent", identifier, () -> {
+            service.setContent(partition, identifier, stream);
+            return null;
+        });
+    }
+
+    @Override
+    public void setContent(final String partition, final IRI identifier, final InputStream stream,
+            final Map<String, String> metadata) {
+        record(BINARY_WRITE, "setContent", identifier, () -> {
+            service.setContent(partition, identifier, stream, metadata);
+            return null;
+        });
+    }
+
+    @Override
+    public void purgeContent(final String partition, final IRI identifier) {
+        record(BINARY_WRITE, "purgeContent", identifier, () -> {
+            service.purgeContent(partition, identifier);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<String> calculateDigest(final String partition, final IRI identifier, final String algorithm) {
+        return record(BINARY_READ, "calculateDigest", identifier,
+                () -> service.calculateDigest(partition, identifier, algorithm));
+    }
+
+    @Override
+    public Set<String> supportedAlgorithms() {
+        return service.supportedAlgorithms();
+    }
+
+    @Override
+    public Optional<Resolver> getResolver(final IRI identifier) {
+        return service.getResolver(identifier).map(ProfilingResolver::new);
+    }
+
+    @Override
+    public Optional<Resolver> getResolverForPartition(final String partition) {
+        return service.getResolverForPartition(partition).map(ProfilingResolver::new);
+    }
+
+    @Override
+    public Optional<String> digest(final String algorithm, final InputStream stream) {
+        return record(BINARY_READ, "digest", algorithm, () -> service.digest(algorithm, stream));
+    }
+
+    @Override
+    public Supplier<String> getIdentifierSupplier(final String partition) {
+        return service.getIdentifierSupplier(partition);
+    }
+
+    private static Optional<InputStream> open(final IRI identifier,
+            final Supplier<Optional<InputStream>> content) {
+        final Span span = start(BINARY_READ, "getContent", identifier);
+        final Optional<InputStream> stream;
+        try {
+            stream = content.get();
+        } catch (final RuntimeException ex) {
+            span.finish();
+            throw ex;
+        }
+        if (!stream.isPresent()) {
+            span.finish();
+        }
+        return stream.map(input -> new SpanInputStream(input, span));
+    }
+
+    /**
+     * A resolver that records binary reads and writes as profiling events.
+     */
+    private static class ProfilingResolver implements Resolver {
+
+        private final Resolver resolver;
+
+        public ProfilingResolver(final Resolver resolver) {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public List<String> getUriSchemes() {
+            return resolver.getUriSchemes();
+        }
+
+        @Override
+        public Optional<InputStream> getContent(final String partition, final IRI identifier) {
+            return open(identifier, () -> resolver.getContent(partition, identifier));
+        }
+
+        @Override
+        public Boolean exists(final String partition, final IRI identifier) {
+            return resolver.exists(partition, identifier);
+        }
+
+        @Override
+        public void setContent(final String partition, final IRI identifier, final InputStream stream) {
+            record(BINARY_WRITE, "setContent", identifier, () -> {
+                resolver.setContent(partition, identifier, stream);
+                return null;
+            });
+        }
+
+        @Override
+        public void setContent(final String partition, final IRI identifier, final InputStream stream,
+                final Map<String, String> metadata) {
+            record(BINARY_WRITE, "setContent", identifier, () -> {
+                resolver.setContent(partition, identifier, stream, metadata);
+                return null;
+            });
+        }
+
+        @Override
+        public void purgeContent(final String partition, final IRI identifier) {
+            record(BINARY_WRITE, "purgeContent", identifier, () -> {
+                resolver.purgeContent(partition, identifier);
+                return null;
+            });
+        }
+
+        @Override
+        public Boolean supportsMultipartUpload() {
+            return resolver.supportsMultipartUpload();
+        }
+
+        @Override
+        public String initiateUpload(final String partition, final IRI identifier, final String mimeType) {
+            return resolver.initiateUpload(partition, identifier, mimeType);
+        }
+
+        @Override
+        public String uploadPart(final String identifier, final Integer partNumber, final InputStream content) {
+            return record(BINARY_WRITE, "uploadPart", identifier,
+                    () -> resolver.uploadPart(identifier, partNumber, content));
+        }
+
+        @Override
+        public MultipartUpload completeUpload(final String identifier, final Map<Integer, String> partDigests) {
+            return record(BINARY_WRITE, "completeUpload", identifier,
+                    () -> resolver.completeUpload(identifier, partDigests));
+        }
+
+        @Override
+        public void abortUpload(final String identifier) {
+            resolver.abortUpload(identifier);
+        }
+
+        @Override
+        public Boolean uploadSessionExists(final String identifier) {
+            return resolver.uploadSessionExists(identifier);
+        }
+
+        @Override
+        public Stream<Map.Entry<Integer, String>> listParts(final String identifier) {
+            return resolver.listParts(identifier);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.profiling;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * A servlet filter that associates each request with the thread that handles it, so that profiling events
+ * carry the request identifier and partition.
+ *
+ * <p>The identifier is taken from the {@code X-Request-Id} header, if present; otherwise one is generated.
+ *
+ * @author acoburn
+ */
+public class ProfilingFilter implements Filter {
+
+    /** The header that carries a client-supplied request identifier */
+    public static final String REQUEST_ID = "X-Request-Id";
+
+    @Override
+    public void init(final FilterConfig config) {
+        // Nothing to initialize
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to destroy
+    }
+
+    @Override
+    public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain)
+            throws IOException, ServletException {
+        if (request instanceof HttpServletRequest) {
+            final HttpServletRequest req = (HttpServletRequest) request;
+            Profiling.begin(req.getHeader(REQUEST_ID), req.getRequestURI().substring(req.getContextPath().length()));
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Profiling.end();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.profiling;
+
+import static org.trellisldp.app.profiling.Profiling.Kind.SERIALIZATION;
+import static org.trellisldp.app.profiling.Profiling.record;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFSyntax;
+import org.apache.commons.rdf.api.Triple;
+import org.trellisldp.api.IOService;
+
+/**
+ * An I/O service that records each serialization, parse and update as a profiling event.
+ *
+ * <p>The target of each event is the RDF syntax (or, for updates, the base URL).
+ *
+ * @author acoburn
+ */
+public class ProfilingIOService implements IOService {
+
+    private final IOService service;
+
+    /**
+     * Create a profiling I/O service
+     * @param service the underlying I/O service
+     */
+    public ProfilingIOService(final IOService service) {
+        this.service = service;
+    }
+
+    @Override
+    public void write(final Stream<? extends Triple> triples, final OutputStream output, final RDFSyntax syntax,
+            final IRI... profiles) {
+        record(SERIALIZATION, "write", syntax, () -> {
+            service.write(triples, output, syntax, profiles);
+            return null;
+        });
+    }
+
+    @Override
+    public Stream<? extends Triple> read(final InputStream input, final String base, final RDFSyntax syntax) {
+        return record(SERIALIZATION, "read", syntax, () -> service.read(input, base, syntax));
+    }
+
+    @Override
+    public void update(final Graph graph, final String update, final String context) {
+        record(SERIALIZATION, "update", context, () -> {
+            service.update(graph, update, context);
+            return null;
+        });
+    }
+}
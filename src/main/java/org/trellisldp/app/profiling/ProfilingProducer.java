@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.profiling;
+
+import static java.util.Objects.nonNull;
+import static org.trellisldp.app.profiling.Profiling.Kind.KAFKA_PUBLISH;
+import static org.trellisldp.app.profiling.Profiling.start;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.trellisldp.app.profiling.Profiling.Span;
+
+/**
+ * A Kafka producer that records each published message as a profiling event.
+ *
+ * <p>An event lasts from the moment a message is sent until the broker acknowledges it (or the send fails).
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @author acoburn
+ */
+public class ProfilingProducer<K, V> implements Producer<K, V> {
+
+    private final Producer<K, V> producer;
+
+    /**
+     * Create a profiling producer
+     * @param producer the underlying producer
+     */
+    public ProfilingProducer(final Producer<K, V> producer) {
+        this.producer = producer;
+    }
+
+    @Override
+    public Future<RecordMetadata> send(final ProducerRecord<K, V> record) {
+        return send(record, null);
+    }
+
+    @Override
+    public Future<RecordMetadata> send(final ProducerRecord<K, V> record, final Callback callback) {
+        final Span span = start(KAFKA_PUBLISH, "send", record.topic());
+        try {
+            return producer.send(record, (metadata, ex) -> {
+                span.finish();
+                if (nonNull(callback)) {
+                    callback.onCompletion(metadata, ex);
+                }
+            });
+        } catch (final RuntimeException ex) {
+            span.finish();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void initTransactions() {
+        producer.initTransactions();
+    }
+
+    @Override
+    public void beginTransaction() {
+        producer.beginTransaction();
+    }
+
+    @Override
+    public void sendOffsetsToTransaction(final Map<TopicPartition, OffsetAndMetadata> offsets,
+            final String consumerGroupId) {
+        producer.sendOffsetsToTransaction(offsets, consumerGroupId);
+    }
+
+    @Override
+    public void commitTransaction() {
+        producer.commitTransaction();
+    }
+
+    @Override
+    public void abortTransaction() {
+        producer.abortTransaction();
+    }
+
+    @Override
+    public void flush() {
+        producer.flush();
+    }
+
+    @Override
+    public List<PartitionInfo> partitionsFor(final String topic) {
+        return producer.partitionsFor(topic);
+    }
+
+    @Override
+    public Map<MetricName, ? extends Metric> metrics() {
+        return producer.metrics();
+    }
+
+    @Override
+    public void close() {
+        producer.close();
+    }
+
+    @Override
+    public void close(final long timeout, final TimeUnit unit) {
+        producer.close(timeout, unit);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.profiling;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.trellisldp.app.profiling.Profiling.Span;
+
+/**
+ * An input stream that finishes a profiling event when it is closed.
+ *
+ * @author acoburn
+ */
+class SpanInputStream extends FilterInputStream {
+
+    private final Span span;
+    private Boolean finished = false;
+
+    /**
+     * Create an input stream that finishes an event when it is closed
+     * @param input the underlying input stream
+     * @param span the event
+     */
+    public SpanInputStream(final InputStream input, final Span span) {
+        super(input);
+        this.span = span;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            if (!finished) {
+                finished = true;
+                span.finish();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.resource;
+
+import static java.time.Instant.now;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Optional.empty;
+import static java.util.UUID.randomUUID;
+import static org.trellisldp.api.RDFUtils.TRELLIS_BNODE_PREFIX;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.Optional;
+
+import javax.ws.rs.core.SecurityContext;
+
+import org.apache.commons.rdf.api.IRI;
+import org.trellisldp.api.AgentService;
+import org.trellisldp.api.Session;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * A session for the agent making a request.
+ *
+ * @author acoburn
+ */
+final class AgentSession implements Session {
+
+    private final IRI identifier = getInstance().createIRI(TRELLIS_BNODE_PREFIX + randomUUID());
+    private final Instant created = now();
+    private final IRI agent;
+
+    /**
+     * Create a session
+     * @param agent the agent
+     */
+    AgentSession(final IRI agent) {
+        this.agent = agent;
+    }
+
+    /**
+     * Create a session from a request's security context
+     * @param security the security context, may be null
+     * @param agentService the agent service
+     * @return the session, for the anonymous user if there is no principal
+     */
+    static Session from(final SecurityContext security, final AgentService agentService) {
+        final Principal principal = isNull(security) ? null : security.getUserPrincipal();
+        return new AgentSession(nonNull(principal) ? agentService.asAgent(principal.getName())
+                : Trellis.AnonymousUser);
+    }
+
+    @Override
+    public IRI getIdentifier() {
+        return identifier;
+    }
+
+    @Override
+    public IRI getAgent() {
+        return agent;
+    }
+
+    @Override
+    public Optional<IRI> getDelegatedBy() {
+        return empty();
+    }
+
+    @Override
+    public Instant getCreated() {
+        return created;
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.resource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Optional.empty;
+import static java.util.Optional.ofNullable;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.stream.Collectors.toList;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
+import static javax.ws.rs.core.Response.Status.FORBIDDEN;
+import static javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.OK;
+import static javax.ws.rs.core.Response.Status.REQUEST_ENTITY_TOO_LARGE;
+import static javax.ws.rs.core.Response.ok;
+import static javax.ws.rs.core.Response.status;
+import static org.apache.commons.rdf.api.RDFSyntax.TURTLE;
+import static org.apache.jena.riot.RDFFormat.NQUADS;
+import static org.apache.jena.riot.system.StreamRDFWriter.getWriterStream;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.api.RDFUtils.TRELLIS_PREFIX;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.apache.jena.riot.system.StreamRDF;
+import org.slf4j.Logger;
+import org.trellisldp.api.AccessControlService;
+import org.trellisldp.api.AgentService;
+import org.trellisldp.api.IOService;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.api.Session;
+import org.trellisldp.vocabulary.ACL;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * A resource for reading many resources from a single partition in one request.
+ *
+ * <p>The request body is a plain-text list of resource paths (or full URLs), one per line. Resources are
+ * fetched, authorized and serialized in parallel; the response is streamed in request order, either as
+ * N-Quads (where each resource is a named graph) or as a {@code multipart/mixed} message with one Turtle
+ * part per resource. Missing and unauthorized resources, and resources that could not be read, are omitted
+ * from N-Quads responses and are represented by an empty part with a {@code Status} header in multipart
+ * responses.
+ *
+ * @author acoburn
+ */
+@Path("batch/{partition}")
+public class BatchResource {
+
+    /** The N-Quads media type */
+    public static final String APPLICATION_N_QUADS = "application/n-quads";
+
+    /** The multipart/mixed media type */
+    public static final String MULTIPART_MIXED = "multipart/mixed";
+
+    private static final Logger LOGGER = getLogger(BatchResource.class);
+
+    private static final JenaRDF rdf = new JenaRDF();
+
+    private final ResourceService resourceService;
+    private final IOService ioService;
+    private final AgentService agentService;
+    private final Optional<AccessControlService> accessService;
+    private final Map<String, String> partitionUrls;
+    private final ExecutorService executor;
+    private final Integer maxSize;
+
+    /**
+     * Create a batch resource, without authorization checks
+     * @param resourceService the resource service
+     * @param ioService the serialization service
+     * @param agentService the agent service
+     * @param partitionUrls the partition base URLs
+     * @param executor the executor used to fetch resources in parallel
+     * @param maxSize the maximum number of resources in a batch
+     */
+    public BatchResource(final ResourceService resourceService, final IOService ioService,
+            final AgentService agentService, final Map<String, String> partitionUrls, final ExecutorService executor,
+            final Integer maxSize) {
+        this(resourceService, ioService, agentService, null, partitionUrls, executor, maxSize);
+    }
+
+    /**
+     * Create a batch resource
+     * @param resourceService the resource service
+     * @param ioService the serialization service
+     * @param agentService the agent service
+     * @param accessService the access control service
+     * @param partitionUrls the partition base URLs
+     * @param executor the executor used to fetch resources in parallel
+     * @param maxSize the maximum number of resources in a batch
+     */
+    public BatchResource(final ResourceService resourceService, final IOService ioService,
+            final AgentService agentService, final AccessControlService accessService,
+            final Map<String, String> partitionUrls, final ExecutorService executor, final Integer maxSize) {
+        this.resourceService = resourceService;
+        this.ioService = ioService;
+        this.agentService = agentService;
+        this.accessService = ofNullable(accessService);
+        this.partitionUrls = partitionUrls;
+        this.executor = executor;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Fetch a batch of resources as N-Quads
+     * @param partition the partition
+     * @param security the security context
+     * @param body the resource paths, one per line
+     * @return the response
+     */
+    @POST
+    @Consumes(TEXT_PLAIN)
+    @Produces(APPLICATION_N_QUADS)
+    public Response getQuads(@PathParam("partition") final String partition,
+            @Context final SecurityContext security, final String body) {
+        return fetch(partition, security, body, this::writeQuads).map(futures -> ok((StreamingOutput) out -> {
+                for (final CompletableFuture<byte[]> future : futures) {
+                    out.write(future.join());
+                }
+            }, APPLICATION_N_QUADS).build()).orElseGet(() -> error(partition, body));
+    }
+
+    /**
+     * Fetch a batch of resources as a multipart message
+     * @param partition the partition
+     * @param security the security context
+     * @param body the resource paths, one per line
+     * @return the response
+     */
+    @POST
+    @Consumes(TEXT_PLAIN)
+    @Produces(MULTIPART_MIXED)
+    public Response getMultipart(@PathParam("partition") final String partition,
+            @Context final SecurityContext security, final String body) {
+        final String boundary = randomUUID().toString();
+        final byte[] delimiter = ("--" + boundary + "\r\n").getBytes(UTF_8);
+        return fetch(partition, security, body, this::writePart).map(futures -> ok((StreamingOutput) out -> {
+                for (final CompletableFuture<byte[]> future : futures) {
+                    out.write(delimiter);
+                    out.write(future.join());
+                }
+                out.write(("--" + boundary + "--\r\n").getBytes(UTF_8));
+            }, MULTIPART_MIXED + "; boundary=" + boundary).build()).orElseGet(() -> error(partition, body));
+    }
+
+    private Optional<List<CompletableFuture<byte[]>>> fetch(final String partition, final SecurityContext security,
+            final String body, final ChunkWriter writer) {
+        final String baseUrl = partitionUrls.get(partition);
+        final List<String> paths = getPaths(body, baseUrl, partition);
+        if (isNull(baseUrl) || paths.size() > maxSize) {
+            return empty();
+        }
+        final Session session = AgentSession.from(security, agentService);
+        return Optional.of(paths.stream()
+                .map(path -> rdf.createIRI(TRELLIS_PREFIX + partition + (path.isEmpty() ? "" : "/" + path)))
+                .map(identifier -> supplyAsync(() -> {
+                    if (!canRead(identifier, session)) {
+                        return writer.write(baseUrl, identifier, FORBIDDEN, empty());
+                    }
+                    final Optional<Resource> resource = resourceService.get(identifier)
+                        .filter(res -> !res.getTypes().contains(Trellis.DeletedResource));
+                    return writer.write(baseUrl, identifier, resource.isPresent() ? OK : NOT_FOUND, resource);
+                }, executor).exceptionally(ex -> {
+                    LOGGER.error("Error reading {} in batch request: {}", identifier.getIRIString(), ex.getMessage());
+                    return writer.write(baseUrl, identifier, INTERNAL_SERVER_ERROR, empty());
+                })).collect(toList()));
+    }
+
+    private Response error(final String partition, final String body) {
+        if (!partitionUrls.containsKey(partition)) {
+            return status(NOT_FOUND).build();
+        }
+        LOGGER.warn("Batch request exceeds the maximum size of {}", maxSize);
+        return status(REQUEST_ENTITY_TOO_LARGE).build();
+    }
+
+    private Boolean canRead(final IRI identifier, final Session session) {
+        return accessService.map(svc -> svc.getAccessModes(identifier, session).contains(ACL.Read)).orElse(true);
+    }
+
+    private byte[] writeQuads(final String baseUrl, final IRI identifier, final Response.Status status,
+            final Optional<Resource> resource) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        resource.ifPresent(res -> {
+            final IRI graphName = resourceService.toExternal(identifier, baseUrl);
+            final StreamRDF stream = getWriterStream(out, NQUADS);
+            stream.start();
+            getTriples(res, baseUrl).forEach(triple -> stream.quad(rdf.asJenaQuad(rdf.createQuad(graphName,
+                                triple.getSubject(), triple.getPredicate(), triple.getObject()))));
+            stream.finish();
+        });
+        return out.toByteArray();
+    }
+
+    private byte[] writePart(final String baseUrl, final IRI identifier, final Response.Status status,
+            final Optional<Resource> resource) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final StringBuilder headers = new StringBuilder("Content-Location: ")
+            .append(resourceService.toExternal(identifier, baseUrl).getIRIString()).append("\r\n");
+        if (resource.isPresent()) {
+            headers.append("Content-Type: text/turtle\r\n");
+        } else {
+            headers.append("Status: ").append(status.getStatusCode()).append("\r\n");
+        }
+        headers.append("\r\n");
+        try {
+            out.write(headers.toString().getBytes(UTF_8));
+            resource.ifPresent(res -> ioService.write(getTriples(res, baseUrl), out, TURTLE));
+            out.write("\r\n".getBytes(UTF_8));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    private Stream<Triple> getTriples(final Resource resource, final String baseUrl) {
+        return resource.stream(Trellis.PreferUserManaged).map(triple -> rdf.createTriple(
+                    (BlankNodeOrIRI) toExternal(triple.getSubject(), baseUrl), triple.getPredicate(),
+                    toExternal(triple.getObject(), baseUrl)));
+    }
+
+    private RDFTerm toExternal(final RDFTerm term, final String baseUrl) {
+        return resourceService.toExternal(resourceService.unskolemize(term), baseUrl);
+    }
+
+    private static List<String> getPaths(final String body, final String baseUrl, final String partition) {
+        final String prefix = baseUrl + partition;
+        return Stream.of(body.split("\n")).map(String::trim).filter(line -> !line.isEmpty())
+            .map(line -> nonNull(baseUrl) && line.startsWith(prefix) ? line.substring(prefix.length()) : line)
+            .map(path -> path.startsWith("/") ? path.substring(1) : path)
+            .collect(toList());
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        byte[] write(String baseUrl, IRI identifier, Response.Status status, Optional<Resource> resource);
+    }
+}
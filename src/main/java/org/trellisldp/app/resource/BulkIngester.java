@@ -0,0 +1,518 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.resource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Optional.empty;
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
+import static org.apache.jena.riot.Lang.NQUADS;
+import static org.apache.zookeeper.CreateMode.EPHEMERAL;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.api.RDFUtils.TRELLIS_PREFIX;
+import static org.trellisldp.rosid.common.RosidConstants.ZNODE_COORDINATION;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorOp;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RiotException;
+import org.apache.kafka.clients.producer.Producer;
+import org.slf4j.Logger;
+import org.trellisldp.api.AccessControlService;
+import org.trellisldp.api.AuditService;
+import org.trellisldp.api.ConstraintService;
+import org.trellisldp.api.ConstraintViolation;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.api.Session;
+import org.trellisldp.constraint.LdpConstraints;
+import org.trellisldp.vocabulary.ACL;
+import org.trellisldp.vocabulary.DC;
+import org.trellisldp.vocabulary.LDP;
+import org.trellisldp.vocabulary.RDF;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * Create many resources from a single, streamed N-Quads document.
+ *
+ * <p>Each graph in the document names a resource, and the quads for a resource must be contiguous. Resources
+ * are grouped into batches that are written in parallel through the {@link ResourceService}; the number of
+ * resources that are parsed but not yet written is bounded, so a fast client is slowed down to the rate at which
+ * resources can be stored. Once a batch is written, the Kafka producer is flushed so that the events for the
+ * whole batch are published together. A JSON object describing the outcome for each resource is written, one
+ * per line, as soon as that resource has been processed. If the document cannot be parsed, the resources before
+ * the error are still created, but the resource that was being parsed is rejected with a {@code 400} status.
+ *
+ * <p>Each resource is checked as an LDP {@code PUT} would be: the agent needs write access to the resource and
+ * write or append access to its parent, the interaction model must be one of the LDP RDF source or container
+ * types, the parent must be an existing container (or one created earlier in the same document) and the resource's
+ * triples must satisfy the LDP constraints. A resource is only created if it does not already exist. The resources
+ * of a batch are first claimed, together, with ephemeral zookeeper nodes, so that concurrent ingests on other nodes
+ * cannot both create the same resource.
+ *
+ * @author acoburn
+ */
+public class BulkIngester {
+
+    private static final Logger LOGGER = getLogger(BulkIngester.class);
+
+    private static final JenaRDF rdf = new JenaRDF();
+    private static final Set<IRI> CONTAINERS = Stream.of(LDP.Container, LDP.BasicContainer, LDP.DirectContainer,
+            LDP.IndirectContainer).collect(toSet());
+    private static final Set<IRI> INTERACTION_MODELS = Stream.concat(Stream.of(LDP.RDFSource), CONTAINERS.stream())
+        .collect(toSet());
+
+    private final ResourceService resourceService;
+    private final Optional<AccessControlService> accessService;
+    private final ConstraintService constraintService = new LdpConstraints();
+    private final AuditService auditService;
+    private final CuratorFramework curator;
+    private final Producer<String, String> producer;
+    private final ExecutorService executor;
+    private final Integer batchSize;
+    private final Integer maxPending;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Create a bulk ingester, without authorization checks
+     * @param resourceService the resource service
+     * @param auditService the audit service
+     * @param curator the zookeeper client
+     * @param producer the kafka producer used by the resource service
+     * @param executor the executor used to write batches in parallel
+     * @param batchSize the number of resources in each batch
+     * @param maxPending the maximum number of resources that have been read but not yet written
+     */
+    public BulkIngester(final ResourceService resourceService, final AuditService auditService,
+            final CuratorFramework curator, final Producer<String, String> producer, final ExecutorService executor,
+            final Integer batchSize, final Integer maxPending) {
+        this(resourceService, null, auditService, curator, producer, executor, batchSize, maxPending);
+    }
+
+    /**
+     * Create a bulk ingester
+     * @param resourceService the resource service
+     * @param accessService the access control service
+     * @param auditService the audit service
+     * @param curator the zookeeper client
+     * @param producer the kafka producer used by the resource service
+     * @param executor the executor used to write batches in parallel
+     * @param batchSize the number of resources in each batch
+     * @param maxPending the maximum number of resources that have been read but not yet written
+     */
+    public BulkIngester(final ResourceService resourceService, final AccessControlService accessService,
+            final AuditService auditService, final CuratorFramework curator, final Producer<String, String> producer,
+            final ExecutorService executor, final Integer batchSize, final Integer maxPending) {
+        this.resourceService = resourceService;
+        this.accessService = ofNullable(accessService);
+        this.auditService = auditService;
+        this.curator = curator;
+        this.producer = producer;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Ingest resources into a partition
+     * @param partition the partition
+     * @param baseUrl the base URL of the partition
+     * @param session the session
+     * @param input the N-Quads input
+     * @param output the output stream for per-resource results
+     */
+    public void ingest(final String partition, final String baseUrl, final Session session,
+            final InputStream input, final OutputStream output) {
+        final Ingestion ingestion = new Ingestion(partition, baseUrl, session, output);
+        try {
+            RDFDataMgr.parse(JenaRDF.streamJenaToQuad(rdf, ingestion::accept), input, NQUADS);
+        } catch (final RiotException ex) {
+            LOGGER.warn("Error parsing bulk ingest input: {}", ex.getMessage());
+            ingestion.error(ex.getMessage());
+        }
+        ingestion.finish();
+    }
+
+    private final class Ingestion {
+        private final String partition;
+        private final String baseUrl;
+        private final Session session;
+        private final OutputStream output;
+        private final Semaphore pending = new Semaphore(maxPending);
+        private final List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        private final Map<BlankNodeOrIRI, CompletableFuture<Optional<IRI>>> created = new ConcurrentHashMap<>();
+        private List<Entry> batch = new ArrayList<>();
+        private Entry current;
+
+        Ingestion(final String partition, final String baseUrl, final Session session, final OutputStream output) {
+            this.partition = partition;
+            this.baseUrl = baseUrl;
+            this.session = session;
+            this.output = output;
+        }
+
+        void accept(final Quad quad) {
+            final BlankNodeOrIRI graphName = quad.getGraphName().orElse(null);
+            if (isNull(current) || !current.graphName.equals(graphName)) {
+                next();
+                current = new Entry(graphName);
+            }
+            current.triples.add(quad.asTriple());
+        }
+
+        void error(final String message) {
+            final Map<String, Object> result = new LinkedHashMap<>();
+            if (nonNull(current)) {
+                // The resource that was being parsed may be incomplete, so it is rejected rather than written
+                result.put("resource", current.graphName instanceof IRI ? ((IRI) current.graphName).getIRIString()
+                        : isNull(current.graphName) ? null : current.graphName.ntriplesString());
+                current = null;
+            }
+            result.put("status", 400);
+            result.put("error", message);
+            write(singletonList(result));
+        }
+
+        void finish() {
+            next();
+            submit();
+            tasks.forEach(CompletableFuture::join);
+        }
+
+        private void next() {
+            if (nonNull(current)) {
+                // Block the parser while too many resources are waiting to be written
+                if (!pending.tryAcquire()) {
+                    submit();
+                    pending.acquireUninterruptibly();
+                }
+                batch.add(current);
+                if (current.graphName instanceof IRI) {
+                    final String iri = ((IRI) current.graphName).getIRIString();
+                    current.parent = created.get(rdf.createIRI(iri.substring(0, Math.max(iri.lastIndexOf('/'), 0))));
+                    created.putIfAbsent(current.graphName, current.created);
+                }
+                current = null;
+                if (batch.size() >= batchSize) {
+                    submit();
+                }
+            }
+        }
+
+        private void submit() {
+            if (!batch.isEmpty()) {
+                final List<Entry> entries = batch;
+                batch = new ArrayList<>();
+                tasks.add(runAsync(() -> {
+                    try {
+                        write(create(entries));
+                        producer.flush();
+                    } finally {
+                        pending.release(entries.size());
+                    }
+                }, executor));
+                tasks.removeIf(CompletableFuture::isDone);
+            }
+        }
+
+        private List<Map<String, Object>> create(final List<Entry> entries) {
+            try {
+                final List<Creation> creations = entries.stream().map(this::prepare).collect(toList());
+                // Any children of a rejected resource, later in this batch, must not wait for it
+                creations.stream().filter(c -> c.result.containsKey("status"))
+                    .forEach(c -> c.entry.created.complete(empty()));
+                final Set<IRI> claimed = claim(creations.stream().filter(c -> !c.result.containsKey("status"))
+                        .map(c -> c.identifier).collect(toSet()));
+                try {
+                    creations.stream().filter(c -> !c.result.containsKey("status")).forEach(c -> {
+                        if (claimed.contains(c.identifier)) {
+                            write(c);
+                        } else {
+                            error(c.result, 409, "Resource is being created by another request");
+                        }
+                        c.entry.created.complete(empty());
+                    });
+                } finally {
+                    release(claimed);
+                }
+                return creations.stream().map(c -> c.result).collect(toList());
+            } finally {
+                entries.forEach(entry -> {
+                    entry.triples.clear();
+                    entry.created.complete(empty());
+                });
+            }
+        }
+
+        private Creation prepare(final Entry entry) {
+            final Creation creation = new Creation(entry);
+            final Map<String, Object> result = creation.result;
+            if (!(entry.graphName instanceof IRI)) {
+                result.put("resource", isNull(entry.graphName) ? null : entry.graphName.ntriplesString());
+                error(result, 400, "Resource graphs must be named with an IRI");
+                return creation;
+            }
+            final IRI external = (IRI) entry.graphName;
+            result.put("resource", external.getIRIString());
+            if (!isInPartition(external.getIRIString())) {
+                error(result, 400, "Resource is not in the partition " + baseUrl + partition);
+                return creation;
+            }
+            try {
+                creation.identifier = resourceService.toInternal(external, baseUrl);
+                creation.parent = getParent(creation.identifier);
+                if (!canWrite(creation.identifier, creation.parent)) {
+                    result.put("status", 403);
+                    return creation;
+                }
+                creation.interactionModel = getInteractionModel(entry);
+                if (!INTERACTION_MODELS.contains(creation.interactionModel)) {
+                    error(result, 400, "Unsupported interaction model " + creation.interactionModel.getIRIString());
+                    return creation;
+                }
+                creation.dataset = toDataset(creation.identifier, creation.parent, creation.interactionModel, entry);
+                final Optional<ConstraintViolation> violation = constraintService.constrainedBy(
+                        creation.interactionModel, TRELLIS_PREFIX + partition,
+                        creation.dataset.getGraph(Trellis.PreferUserManaged).orElseGet(rdf::createGraph)).findFirst();
+                if (violation.isPresent()) {
+                    result.put("constrainedBy", violation.get().getConstraint().getIRIString());
+                    error(result, 400, violation.get().toString());
+                }
+            } catch (final RuntimeException ex) {
+                LOGGER.error("Error ingesting {}: {}", external, ex.getMessage());
+                error(result, 500, ex.getMessage());
+            }
+            return creation;
+        }
+
+        private void write(final Creation creation) {
+            try {
+                if (nonNull(creation.parent) && !isContainer(creation.entry, creation.parent)) {
+                    error(creation.result, 409, "Parent container does not exist");
+                } else if (exists(creation.identifier)) {
+                    creation.result.put("status", 409);
+                } else if (resourceService.put(creation.identifier, creation.dataset)) {
+                    creation.result.put("status", 201);
+                    creation.entry.created.complete(Optional.of(creation.interactionModel));
+                } else {
+                    creation.result.put("status", 500);
+                }
+            } catch (final RuntimeException ex) {
+                LOGGER.error("Error ingesting {}: {}", creation.identifier, ex.getMessage());
+                error(creation.result, 500, ex.getMessage());
+            }
+        }
+
+        private Map<String, Object> error(final Map<String, Object> result, final Integer status,
+                final String message) {
+            result.put("status", status);
+            result.put("error", message);
+            return result;
+        }
+
+        private IRI getParent(final IRI identifier) {
+            final String path = identifier.getIRIString();
+            if (path.equals(TRELLIS_PREFIX + partition)) {
+                return null;
+            }
+            return rdf.createIRI(path.substring(0, path.lastIndexOf('/')));
+        }
+
+        private Boolean canWrite(final IRI identifier, final IRI parent) {
+            return accessService.map(svc -> svc.getAccessModes(identifier, session).contains(ACL.Write)
+                    && (isNull(parent) || svc.getAccessModes(parent, session).stream()
+                        .anyMatch(mode -> mode.equals(ACL.Write) || mode.equals(ACL.Append)))).orElse(true);
+        }
+
+        private Boolean isContainer(final Entry entry, final IRI parent) {
+            // A parent that appears earlier in the document is written before its children are checked
+            final Optional<IRI> model = nonNull(entry.parent) ? entry.parent.join() : empty();
+            if (model.isPresent()) {
+                return CONTAINERS.contains(model.get());
+            }
+            return resourceService.get(parent).filter(res -> !res.getTypes().contains(Trellis.DeletedResource))
+                .map(Resource::getInteractionModel).filter(CONTAINERS::contains).isPresent();
+        }
+
+        private Boolean exists(final IRI identifier) {
+            return resourceService.get(identifier).filter(res -> !res.getTypes().contains(Trellis.DeletedResource))
+                .isPresent();
+        }
+
+        private Set<IRI> claim(final Set<IRI> identifiers) {
+            // A claim is an ephemeral node, so a claim held by a node that fails is released with its session
+            final Set<IRI> claimed = new HashSet<>();
+            if (identifiers.isEmpty()) {
+                return claimed;
+            }
+            try {
+                curator.createContainers(ZNODE_COORDINATION);
+                curator.transaction().forOperations(identifiers.stream().map(this::claimOperation).collect(toList()));
+                claimed.addAll(identifiers);
+            } catch (final Exception ex) {
+                // One of the resources is claimed elsewhere: claim the rest one at a time
+                for (final IRI identifier : identifiers) {
+                    try {
+                        curator.create().withMode(EPHEMERAL).forPath(getClaimPath(identifier));
+                        claimed.add(identifier);
+                    } catch (final Exception inner) {
+                        LOGGER.debug("Unable to claim {}: {}", identifier, inner.getMessage());
+                    }
+                }
+            }
+            return claimed;
+        }
+
+        private CuratorOp claimOperation(final IRI identifier) {
+            try {
+                return curator.transactionOp().create().withMode(EPHEMERAL).forPath(getClaimPath(identifier));
+            } catch (final Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        private void release(final Set<IRI> identifiers) {
+            if (!identifiers.isEmpty()) {
+                try {
+                    curator.transaction().inBackground().forOperations(identifiers.stream().map(identifier -> {
+                            try {
+                                return curator.transactionOp().delete().forPath(getClaimPath(identifier));
+                            } catch (final Exception ex) {
+                                throw new IllegalStateException(ex);
+                            }
+                        }).collect(toList()));
+                } catch (final Exception ex) {
+                    LOGGER.warn("Unable to release claims: {}", ex.getMessage());
+                }
+            }
+        }
+
+        private String getClaimPath(final IRI identifier) {
+            return ZNODE_COORDINATION + "/ingest-" + md5Hex(identifier.getIRIString());
+        }
+
+        private Boolean isInPartition(final String iri) {
+            final String prefix = baseUrl + partition;
+            return iri.equals(prefix) || iri.startsWith(prefix + "/");
+        }
+
+        private IRI getInteractionModel(final Entry entry) {
+            IRI interactionModel = LDP.RDFSource;
+            for (final Triple triple : entry.triples) {
+                if (isInteractionModel(entry, triple)) {
+                    interactionModel = (IRI) triple.getObject();
+                }
+            }
+            return interactionModel;
+        }
+
+        private Boolean isInteractionModel(final Entry entry, final Triple triple) {
+            return triple.getPredicate().equals(RDF.type) && triple.getObject() instanceof IRI
+                && ((IRI) triple.getObject()).getIRIString().startsWith(LDP.URI)
+                && entry.graphName.equals(triple.getSubject());
+        }
+
+        private Dataset toDataset(final IRI identifier, final IRI parent, final IRI interactionModel,
+                final Entry entry) {
+            final Dataset dataset = rdf.createDataset();
+            for (final Triple triple : entry.triples) {
+                if (!isInteractionModel(entry, triple)) {
+                    dataset.add(Trellis.PreferUserManaged, (BlankNodeOrIRI) toInternal(triple.getSubject()),
+                            triple.getPredicate(), toInternal(triple.getObject()));
+                }
+            }
+            dataset.add(Trellis.PreferServerManaged, identifier, RDF.type, interactionModel);
+            if (nonNull(parent)) {
+                dataset.add(Trellis.PreferServerManaged, identifier, DC.isPartOf, parent);
+            }
+            auditService.creation(identifier, session).forEach(dataset::add);
+            return dataset;
+        }
+
+        private RDFTerm toInternal(final RDFTerm term) {
+            return resourceService.skolemize(resourceService.toInternal(term, baseUrl));
+        }
+
+        private void write(final List<Map<String, Object>> results) {
+            try {
+                final StringBuilder lines = new StringBuilder();
+                for (final Map<String, Object> result : results) {
+                    lines.append(mapper.writeValueAsString(result)).append("\n");
+                }
+                synchronized (output) {
+                    output.write(lines.toString().getBytes(UTF_8));
+                    output.flush();
+                }
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    private static final class Creation {
+        private final Entry entry;
+        private final Map<String, Object> result = new LinkedHashMap<>();
+        private IRI identifier;
+        private IRI parent;
+        private IRI interactionModel;
+        private Dataset dataset;
+
+        Creation(final Entry entry) {
+            this.entry = entry;
+        }
+    }
+
+    private static final class Entry {
+        private final BlankNodeOrIRI graphName;
+        private final List<Triple> triples = new ArrayList<>();
+        private final CompletableFuture<Optional<IRI>> created = new CompletableFuture<>();
+        private CompletableFuture<Optional<IRI>> parent;
+
+        Entry(final BlankNodeOrIRI graphName) {
+            this.graphName = graphName;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.resource;
+
+import static java.util.Objects.isNull;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.ok;
+import static javax.ws.rs.core.Response.status;
+import static org.trellisldp.app.resource.BatchResource.APPLICATION_N_QUADS;
+
+import java.io.InputStream;
+import java.util.Map;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.trellisldp.api.AgentService;
+import org.trellisldp.api.Session;
+
+/**
+ * A resource for creating many resources in a partition from a single, streamed N-Quads request.
+ *
+ * <p>The response is a stream of newline-delimited JSON objects, one per resource, each with the resource URL
+ * and an HTTP-style status code.
+ *
+ * @author acoburn
+ */
+@Path("ingest/{partition}")
+public class IngestResource {
+
+    /** The newline-delimited JSON media type */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final BulkIngester ingester;
+    private final AgentService agentService;
+    private final Map<String, String> partitionUrls;
+
+    /**
+     * Create a bulk ingest resource
+     * @param ingester the bulk ingester
+     * @param agentService the agent service
+     * @param partitionUrls the partition base URLs
+     */
+    public IngestResource(final BulkIngester ingester, final AgentService agentService,
+            final Map<String, String> partitionUrls) {
+        this.ingester = ingester;
+        this.agentService = agentService;
+        this.partitionUrls = partitionUrls;
+    }
+
+    /**
+     * Ingest resources from an N-Quads stream
+     * @param partition the partition
+     * @param security the security context
+     * @param body the N-Quads input
+     * @return the response
+     */
+    @POST
+    @Consumes(APPLICATION_N_QUADS)
+    @Produces(APPLICATION_NDJSON)
+    public Response ingest(@PathParam("partition") final String partition,
+            @Context final SecurityContext security, final InputStream body) {
+        final String baseUrl = partitionUrls.get(partition);
+        if (isNull(baseUrl)) {
+            return status(NOT_FOUND).build();
+        }
+        final Session session = AgentSession.from(security, agentService);
+        return ok((StreamingOutput) out -> ingester.ingest(partition, baseUrl, session, body, out),
+                APPLICATION_NDJSON).build();
+    }
+}
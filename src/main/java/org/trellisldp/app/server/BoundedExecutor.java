@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.server;
+
+import static java.lang.System.nanoTime;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An executor that runs at most a fixed number of tasks at once on an underlying executor.
+ *
+ * <p>Tasks beyond the limit are queued, and each one is handed to the underlying executor as soon as an earlier
+ * task completes. This bounds an executor that would otherwise start a new thread for every task.
+ *
+ * <p>Once the executor is shut down, the queued tasks are still run, and the underlying executor is shut down
+ * only when the queue is empty and no task is running; {@link #shutdownNow} returns the queued tasks instead.
+ *
+ * @author acoburn
+ */
+class BoundedExecutor extends AbstractExecutorService {
+
+    private final ExecutorService executor;
+    private final int maxTasks;
+    private final Semaphore permits;
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final ReadWriteLock state = new ReentrantReadWriteLock();
+    private final CountDownLatch drained = new CountDownLatch(1);
+    private volatile boolean shutdown = false;
+
+    /**
+     * Create a bounded executor
+     * @param executor the underlying executor
+     * @param maxTasks the maximum number of tasks that run at once
+     */
+    public BoundedExecutor(final ExecutorService executor, final int maxTasks) {
+        this.executor = executor;
+        this.maxTasks = maxTasks;
+        this.permits = new Semaphore(maxTasks);
+    }
+
+    @Override
+    public void execute(final Runnable task) {
+        // Tasks are queued under the read lock, so that none is queued once shutdown has been observed
+        state.readLock().lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("The executor has been shut down");
+            }
+            pending.add(task);
+        } finally {
+            state.readLock().unlock();
+        }
+        dispatch();
+    }
+
+    @Override
+    public void shutdown() {
+        setShutdown();
+        terminateIfDrained();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        setShutdown();
+        final List<Runnable> tasks = new ArrayList<>();
+        for (Runnable task = pending.poll(); nonNull(task); task = pending.poll()) {
+            tasks.add(task);
+        }
+        drained.countDown();
+        tasks.addAll(executor.shutdownNow());
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return drained.getCount() == 0 && executor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = nanoTime() + unit.toNanos(timeout);
+        return drained.await(timeout, unit)
+            && executor.awaitTermination(deadline - nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private void setShutdown() {
+        state.writeLock().lock();
+        try {
+            shutdown = true;
+        } finally {
+            state.writeLock().unlock();
+        }
+    }
+
+    private void terminateIfDrained() {
+        // No task is queued after shutdown, and a dispatched task holds its permit until it completes
+        if (shutdown && pending.isEmpty() && permits.availablePermits() == maxTasks) {
+            drained.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private void dispatch() {
+        // A task that completes releases its permit before dispatching, so a task queued after another caller
+        // failed to acquire a permit is always picked up by one of them
+        while (!pending.isEmpty() && permits.tryAcquire()) {
+            final Runnable task = pending.poll();
+            if (isNull(task)) {
+                permits.release();
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                        dispatch();
+                        terminateIfDrained();
+                    }
+                });
+            } catch (final RejectedExecutionException ex) {
+                permits.release();
+                throw ex;
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.server;
+
+import static java.lang.Math.min;
+import static java.util.Objects.isNull;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+
+import io.dropwizard.server.DefaultServerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.validation.constraints.NotNull;
+
+import org.eclipse.jetty.util.thread.ExecutorThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.slf4j.Logger;
+
+/**
+ * A server factory that dispatches requests onto virtual threads.
+ *
+ * <p>This is enabled with {@code server: type: virtual} in the configuration file. Virtual threads
+ * require a JDK 21+ runtime; on older runtimes, this factory logs a warning and falls back to the
+ * standard, fixed-size thread pool.
+ *
+ * <p>A new virtual thread is started for each task, but no more than {@code maxVirtualThreads} tasks (including
+ * Jetty's acceptor and selector tasks) run at once; further requests are queued until a running one completes, as
+ * they would be by the standard thread pool. Since a virtual thread that blocks, e.g. on a slow client, does not
+ * hold a platform thread, this limit defaults to far more than {@code maxThreads}, which still sizes the standard
+ * thread pool on older runtimes; it bounds the load passed on to the storage layer.
+ *
+ * <p>Jetty waits for request content in {@code Object.wait}, which pins a virtual thread to its carrier thread, and
+ * the JDK adds carrier threads for pinned virtual threads only up to {@value #MAX_POOL_SIZE} (256 by default). Unless
+ * that property is set, this factory raises it to {@code maxVirtualThreads}, so that many clients that send their
+ * request bodies slowly cannot stall every other request.
+ *
+ * @author acoburn
+ */
+@JsonTypeName("virtual")
+public class VirtualThreadServerFactory extends DefaultServerFactory {
+
+    private static final Logger LOGGER = getLogger(VirtualThreadServerFactory.class);
+    private static final String MAX_POOL_SIZE = "jdk.virtualThreadScheduler.maxPoolSize";
+    private static final int MAX_CARRIER_THREADS = 32767;
+
+    @NotNull
+    private Integer maxVirtualThreads = 10000;
+
+    /**
+     * Get the maximum number of tasks that run on virtual threads at once
+     * @return the maximum number of tasks
+     */
+    @JsonProperty
+    public Integer getMaxVirtualThreads() {
+        return maxVirtualThreads;
+    }
+
+    /**
+     * Set the maximum number of tasks that run on virtual threads at once
+     * @param maxVirtualThreads the maximum number of tasks
+     */
+    @JsonProperty
+    public void setMaxVirtualThreads(final Integer maxVirtualThreads) {
+        this.maxVirtualThreads = maxVirtualThreads;
+    }
+
+    @Override
+    protected ThreadPool createThreadPool(final MetricRegistry metricRegistry) {
+        // This must precede the first virtual thread, when the JDK reads the property
+        if (isNull(System.getProperty(MAX_POOL_SIZE))) {
+            System.setProperty(MAX_POOL_SIZE, Integer.toString(min(maxVirtualThreads, MAX_CARRIER_THREADS)));
+        }
+        final Optional<ExecutorService> executor = newVirtualThreadExecutor();
+        if (executor.isPresent()) {
+            LOGGER.info("Dispatching requests onto virtual threads, at most {} at once", maxVirtualThreads);
+            return new ExecutorThreadPool(new BoundedExecutor(executor.get(), maxVirtualThreads));
+        }
+        LOGGER.warn("Virtual threads are not supported by this JVM, using a standard thread pool");
+        return super.createThreadPool(metricRegistry);
+    }
+
+    /**
+     * Create an executor that starts a new virtual thread for each task, if the JVM supports it
+     * @return the executor, if available
+     */
+    public static Optional<ExecutorService> newVirtualThreadExecutor() {
+        try {
+            return of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+        } catch (final ReflectiveOperationException ex) {
+            LOGGER.debug("Unable to create a virtual thread executor: {}", ex.getMessage());
+        }
+        return empty();
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.lang.Math.floorMod;
+import static java.lang.Math.max;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.app.storage.StorageUtils.getPartition;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+import io.dropwizard.lifecycle.Managed;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.ws.rs.ServiceUnavailableException;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.slf4j.Logger;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.app.config.AsyncWriteConfiguration;
+
+/**
+ * A resource service that applies writes on worker threads, through a bounded queue for each partition.
+ *
+ * <p>Each partition has a fixed number of worker threads, and each worker has its own share of the partition's
+ * queue. A write is routed to a worker by its resource identifier, so the writes to any one resource are
+ * applied in order. When a queue is full, a write waits for space for a limited time and is then rejected
+ * with a {@code 503 Service Unavailable} response, so that load is shed at admission. A write that is admitted
+ * is only acknowledged once the underlying service has applied it, and its result (or error) is returned to the
+ * caller. Each partition reports the {@code depth} of its queue, the {@code lag} (in milliseconds) of its oldest
+ * pending write and the number of {@code rejected} and {@code failed} writes.
+ *
+ * <p>On shutdown, the queued writes are drained for a limited time; any that remain are then rejected with a
+ * {@code 503 Service Unavailable} response. Writes for a partition without a queue, or made while the service is
+ * not running, are applied directly. Other operations are passed directly to the underlying service.
+ *
+ * @author acoburn
+ */
+public class AsyncResourceService implements ResourceService, Managed {
+
+    private static final Logger LOGGER = getLogger(AsyncResourceService.class);
+    private static final long IDLE_POLL = 100L;
+
+    private final ResourceService service;
+    private final Map<String, Lane[]> partitions = new HashMap<>();
+    private final Map<String, Meter> rejections = new HashMap<>();
+    private final Map<String, Meter> failures = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final long maxWait;
+    private final Long retryAfter;
+    private final long shutdownTimeout;
+    private volatile boolean running = false;
+
+    /**
+     * Create an asynchronous resource service
+     * @param service the underlying resource service
+     * @param partitions the partitions for which writes are queued
+     * @param config the async write configuration
+     * @param metrics the metric registry
+     */
+    public AsyncResourceService(final ResourceService service, final Collection<String> partitions,
+            final AsyncWriteConfiguration config, final MetricRegistry metrics) {
+        this.service = service;
+        this.maxWait = NANOSECONDS.convert(config.getMaxWaitMillis(), MILLISECONDS);
+        this.retryAfter = config.getRetryAfter();
+        this.shutdownTimeout = MILLISECONDS.convert(config.getShutdownTimeoutSeconds(), SECONDS);
+        final int capacity = max(1, config.getQueueSize() / config.getWorkers());
+        partitions.forEach(partition -> {
+            final Lane[] lanes = new Lane[config.getWorkers()];
+            for (int i = 0; i < lanes.length; ++i) {
+                lanes[i] = new Lane(partition, i, capacity);
+            }
+            this.partitions.put(partition, lanes);
+            rejections.put(partition, metrics.meter(name(AsyncResourceService.class, partition, "rejected")));
+            failures.put(partition, metrics.meter(name(AsyncResourceService.class, partition, "failed")));
+            metrics.register(name(AsyncResourceService.class, partition, "depth"),
+                    (Gauge<Integer>) () -> getDepth(lanes));
+            metrics.register(name(AsyncResourceService.class, partition, "lag"),
+                    (Gauge<Long>) () -> getLag(lanes));
+        });
+    }
+
+    @Override
+    public void start() {
+        lock.writeLock().lock();
+        try {
+            running = true;
+            partitions.values().forEach(lanes -> Stream.of(lanes).forEach(lane -> lane.thread.start()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        lock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        final long deadline = System.currentTimeMillis() + shutdownTimeout;
+        for (final Map.Entry<String, Lane[]> entry : partitions.entrySet()) {
+            for (final Lane lane : entry.getValue()) {
+                lane.thread.join(max(1L, deadline - System.currentTimeMillis()));
+            }
+            Stream.of(entry.getValue()).forEach(lane -> lane.thread.interrupt());
+            // The remaining writes have not been acknowledged, so their callers are told to retry
+            final List<Write> remaining = new ArrayList<>();
+            Stream.of(entry.getValue()).forEach(lane -> lane.queue.drainTo(remaining));
+            if (!remaining.isEmpty()) {
+                LOGGER.error("Rejecting {} queued writes for partition {}", remaining.size(), entry.getKey());
+                rejections.get(entry.getKey()).mark(remaining.size());
+                remaining.forEach(write -> write.result.completeExceptionally(
+                            new ServiceUnavailableException(retryAfter)));
+            }
+        }
+    }
+
+    @Override
+    public Boolean put(final IRI identifier, final Dataset dataset) {
+        final Write write = admit(identifier, dataset);
+        if (isNull(write)) {
+            return service.put(identifier, dataset);
+        }
+        try {
+            return write.result.join();
+        } catch (final CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private Write admit(final IRI identifier, final Dataset dataset) {
+        final String partition = getPartition(identifier);
+        final Lane[] lanes = isNull(partition) ? null : partitions.get(partition);
+        if (isNull(lanes)) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            if (!running) {
+                return null;
+            }
+            final Lane lane = lanes[floorMod(identifier.hashCode(), lanes.length)];
+            final Write write = new Write(identifier, dataset);
+            if (lane.queue.offer(write, maxWait, NANOSECONDS)) {
+                return write;
+            }
+            rejections.get(partition).mark();
+            throw new ServiceUnavailableException(retryAfter);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException(retryAfter);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier) {
+        return service.get(identifier);
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier, final Instant time) {
+        return service.get(identifier, time);
+    }
+
+    @Override
+    public Optional<IRI> getContainer(final IRI identifier) {
+        return service.getContainer(identifier);
+    }
+
+    @Override
+    public Stream<IRI> compact(final IRI identifier, final Instant from, final Instant until) {
+        return service.compact(identifier, from, until);
+    }
+
+    @Override
+    public Stream<IRI> purge(final IRI identifier) {
+        return service.purge(identifier);
+    }
+
+    @Override
+    public Stream<? extends Triple> scan(final String partition) {
+        return service.scan(partition);
+    }
+
+    @Override
+    public RDFTerm skolemize(final RDFTerm term) {
+        return service.skolemize(term);
+    }
+
+    @Override
+    public RDFTerm unskolemize(final RDFTerm term) {
+        return service.unskolemize(term);
+    }
+
+    @Override
+    public <T extends RDFTerm> T toInternal(final T term, final String baseUrl) {
+        return service.toInternal(term, baseUrl);
+    }
+
+    @Override
+    public <T extends RDFTerm> T toExternal(final T term, final String baseUrl) {
+        return service.toExternal(term, baseUrl);
+    }
+
+    @Override
+    public Stream<? extends Quad> export(final String partition, final Collection<IRI> graphNames) {
+        return service.export(partition, graphNames);
+    }
+
+    @Override
+    public Supplier<String> getIdentifierSupplier() {
+        return service.getIdentifierSupplier();
+    }
+
+    private static int getDepth(final Lane[] lanes) {
+        return Stream.of(lanes).mapToInt(lane -> lane.queue.size()).sum();
+    }
+
+    private static long getLag(final Lane[] lanes) {
+        final long now = System.nanoTime();
+        long lag = 0L;
+        for (final Lane lane : lanes) {
+            final Write current = lane.current;
+            final Write head = lane.queue.peek();
+            if (nonNull(current)) {
+                lag = max(lag, now - current.queued);
+            }
+            if (nonNull(head)) {
+                lag = max(lag, now - head.queued);
+            }
+        }
+        return MILLISECONDS.convert(lag, NANOSECONDS);
+    }
+
+    private static final class Write {
+        private final IRI identifier;
+        private final Dataset dataset;
+        private final long queued = System.nanoTime();
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private Write(final IRI identifier, final Dataset dataset) {
+            this.identifier = identifier;
+            this.dataset = dataset;
+        }
+    }
+
+    private final class Lane implements Runnable {
+        private final String partition;
+        private final BlockingQueue<Write> queue;
+        private final Thread thread;
+        private volatile Write current;
+
+        private Lane(final String partition, final int index, final int capacity) {
+            this.partition = partition;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this, "trellis-async-" + partition + "-" + index);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    final Write write = queue.poll(IDLE_POLL, MILLISECONDS);
+                    if (isNull(write)) {
+                        if (!running) {
+                            return;
+                        }
+                        continue;
+                    }
+                    current = write;
+                    apply(write);
+                    current = null;
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void apply(final Write write) {
+            try {
+                final Boolean result = service.put(write.identifier, write.dataset);
+                if (!result) {
+                    LOGGER.error("Unable to write {}", write.identifier);
+                    failures.get(partition).mark();
+                }
+                write.result.complete(result);
+            } catch (final RuntimeException ex) {
+                LOGGER.error("Error writing {}: {}", write.identifier, ex.getMessage());
+                failures.get(partition).mark();
+                write.result.completeExceptionally(ex);
+            }
+        }
+    }
+}
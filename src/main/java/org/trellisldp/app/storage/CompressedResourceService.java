@@ -0,0 +1,188 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.file.Files.isDirectory;
+import static java.util.Objects.isNull;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.app.storage.StorageUtils.getPartition;
+
+import com.google.common.util.concurrent.Striped;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.slf4j.Logger;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.vocabulary.LDP;
+
+/**
+ * A resource service that expands compressed resource journals before the resource store reads or changes them.
+ *
+ * <p>Journals are compressed, while the cluster is stopped, by the {@code compress} command, which saves space for
+ * the history of resources; the current state of a resource is read from its uncompressed cache either way. A
+ * journal is expanded when an earlier version of the resource is read or when the resource is changed, and stays
+ * expanded until the command next runs.
+ *
+ * <p>The event processor appends containment and membership without any lock, so the command leaves the journals
+ * of containers and membership resources uncompressed. Before a resource is changed, this service also expands the
+ * journals of its parent and of any membership resource that it names, so that the processor never appends to a
+ * compressed journal.
+ *
+ * <p>A journal is expanded, and then read or changed, under both a lock within this process and a file lock in the
+ * resource directory (see {@link JournalCompressor#lock}), since other nodes may expand or change the same journal
+ * at the same time. Resources are also changed under the file lock when their journal is not compressed.
+ *
+ * @author acoburn
+ */
+public class CompressedResourceService implements ResourceService {
+
+    private static final Logger LOGGER = getLogger(CompressedResourceService.class);
+    private static final int LOCK_STRIPES = 64;
+
+    private final ResourceService service;
+    private final ResourceLayout layout;
+    private final Map<String, JournalCompressor> compressors;
+    private final Striped<Lock> locks = Striped.lock(LOCK_STRIPES);
+
+    /**
+     * Create a resource service for compressed journals
+     * @param service the underlying resource service
+     * @param layout the layout of the resource store
+     * @param compressors the journal compressor for each partition with compressed journals
+     */
+    public CompressedResourceService(final ResourceService service, final ResourceLayout layout,
+            final Map<String, JournalCompressor> compressors) {
+        this.service = service;
+        this.layout = layout;
+        this.compressors = compressors;
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier) {
+        return service.get(identifier);
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier, final Instant time) {
+        return withJournal(identifier, false, () -> service.get(identifier, time));
+    }
+
+    @Override
+    public Boolean put(final IRI identifier, final Dataset dataset) {
+        // The event processor appends to the journals of the parent and of any membership resource, unlocked
+        service.getContainer(identifier).ifPresent(this::expand);
+        dataset.stream().filter(quad -> LDP.membershipResource.equals(quad.getPredicate())).map(Quad::getObject)
+            .filter(IRI.class::isInstance).map(IRI.class::cast).distinct().forEach(this::expand);
+        return withJournal(identifier, true, () -> service.put(identifier, dataset));
+    }
+
+    @Override
+    public Optional<IRI> getContainer(final IRI identifier) {
+        return service.getContainer(identifier);
+    }
+
+    @Override
+    public Stream<IRI> compact(final IRI identifier, final Instant from, final Instant until) {
+        return withJournal(identifier, true, () -> service.compact(identifier, from, until));
+    }
+
+    @Override
+    public Stream<IRI> purge(final IRI identifier) {
+        service.getContainer(identifier).ifPresent(this::expand);
+        return withJournal(identifier, true, () -> service.purge(identifier));
+    }
+
+    @Override
+    public Stream<? extends Triple> scan(final String partition) {
+        return service.scan(partition);
+    }
+
+    @Override
+    public RDFTerm skolemize(final RDFTerm term) {
+        return service.skolemize(term);
+    }
+
+    @Override
+    public RDFTerm unskolemize(final RDFTerm term) {
+        return service.unskolemize(term);
+    }
+
+    @Override
+    public <T extends RDFTerm> T toInternal(final T term, final String baseUrl) {
+        return service.toInternal(term, baseUrl);
+    }
+
+    @Override
+    public <T extends RDFTerm> T toExternal(final T term, final String baseUrl) {
+        return service.toExternal(term, baseUrl);
+    }
+
+    @Override
+    public Stream<? extends Quad> export(final String partition, final Collection<IRI> graphNames) {
+        return service.export(partition, graphNames);
+    }
+
+    @Override
+    public Supplier<String> getIdentifierSupplier() {
+        return service.getIdentifierSupplier();
+    }
+
+    private <T> T withJournal(final IRI identifier, final boolean write, final Supplier<T> action) {
+        final String partition = getPartition(identifier);
+        final JournalCompressor compressor = isNull(partition) ? null : compressors.get(partition);
+        final Optional<Path> directory = layout.getDirectory(identifier);
+        if (isNull(compressor) || !directory.isPresent() || !isDirectory(directory.get())
+                || !(write || JournalCompressor.isCompressed(directory.get()))) {
+            return action.get();
+        }
+        final Lock lock = locks.get(directory.get());
+        lock.lock();
+        try {
+            final Closeable fileLock = JournalCompressor.lock(directory.get());
+            try {
+                if (compressor.expand(directory.get())) {
+                    LOGGER.debug("Expanded the journal of {}", identifier);
+                }
+                return action.get();
+            } finally {
+                fileLock.close();
+            }
+        } catch (final IOException ex) {
+            LOGGER.error("Unable to expand the journal of {}: {}", identifier, ex.getMessage());
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void expand(final IRI identifier) {
+        withJournal(identifier, false, () -> null);
+    }
+}
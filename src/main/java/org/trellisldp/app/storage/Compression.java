@@ -0,0 +1,184 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.util.Arrays.stream;
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.joining;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+/**
+ * The codecs that may be used to compress stored resource data.
+ *
+ * <p>{@code LZ4} is fast, but compresses each file on its own. {@code DEFLATE} is slower, but reaches a higher
+ * compression ratio, especially for small files when it is given a preset dictionary of the strings that are
+ * common to a partition's data (see {@link JournalCompressor#train}). Compressed files are named with the
+ * codec's extension, so that they can be read whatever codec is currently configured.
+ *
+ * @author acoburn
+ */
+public enum Compression {
+
+    NONE(""),
+    LZ4(".lz4"),
+    DEFLATE(".deflate");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String extension;
+
+    Compression(final String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Get the file name extension of data compressed with this codec
+     * @return the extension, or an empty string for uncompressed data
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Compress the data written to a stream
+     * @param output the stream to which compressed data is written; it is closed when the returned stream is closed
+     * @param dictionary the preset dictionary (used only by {@code DEFLATE}), or null
+     * @return a stream to which the uncompressed data should be written
+     * @throws IOException if the stream could not be created
+     */
+    public OutputStream compress(final OutputStream output, final byte[] dictionary) throws IOException {
+        switch (this) {
+            case LZ4:
+                return new LZ4FrameOutputStream(output, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB);
+            case DEFLATE:
+                final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+                if (nonNull(dictionary)) {
+                    deflater.setDictionary(dictionary);
+                }
+                return new DeflaterOutputStream(output, deflater, BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            deflater.end();
+                        }
+                    }
+                };
+            default:
+                return output;
+        }
+    }
+
+    /**
+     * Decompress the data read from a stream
+     * @param input the stream of compressed data; it is closed when the returned stream is closed
+     * @param dictionary the preset dictionary that the data was compressed with, or null
+     * @return a stream of the uncompressed data
+     * @throws IOException if the stream could not be created
+     */
+    public InputStream decompress(final InputStream input, final byte[] dictionary) throws IOException {
+        switch (this) {
+            case LZ4:
+                return new LZ4FrameInputStream(input);
+            case DEFLATE:
+                return new DictionaryInflaterInputStream(input, dictionary);
+            default:
+                return input;
+        }
+    }
+
+    /**
+     * Get a codec by name
+     * @param name the name of the codec (e.g. {@code lz4}), in any case
+     * @return the codec
+     */
+    public static Compression fromName(final String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown compression codec: " + name + " (expected one of " +
+                    stream(values()).map(codec -> codec.name().toLowerCase(Locale.ROOT)).collect(joining(", ")) +
+                    ")", ex);
+        }
+    }
+
+    /**
+     * An inflater stream that supplies a preset dictionary when the compressed data asks for one.
+     */
+    private static final class DictionaryInflaterInputStream extends InflaterInputStream {
+
+        private final byte[] dictionary;
+
+        private DictionaryInflaterInputStream(final InputStream input, final byte[] dictionary) {
+            super(input, new Inflater(), BUFFER_SIZE);
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            try {
+                int read;
+                while ((read = inf.inflate(buffer, offset, length)) == 0) {
+                    if (inf.finished()) {
+                        return -1;
+                    } else if (inf.needsDictionary()) {
+                        inf.setDictionary(getDictionary(inf.getAdler()));
+                    } else if (inf.needsInput()) {
+                        fill();
+                    }
+                }
+                return read;
+            } catch (final DataFormatException ex) {
+                throw new IOException("Invalid compressed data", ex);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                inf.end();
+            }
+        }
+
+        private byte[] getDictionary(final int adler) throws IOException {
+            if (nonNull(dictionary)) {
+                final Adler32 checksum = new Adler32();
+                checksum.update(dictionary, 0, dictionary.length);
+                if ((int) checksum.getValue() == adler) {
+                    return dictionary;
+                }
+            }
+            throw new IOException("The data was compressed with a different dictionary");
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createLink;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.getAttribute;
+import static java.nio.file.Files.list;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Collections.emptyList;
+import static java.util.Objects.isNull;
+import static java.util.Optional.empty;
+import static java.util.UUID.randomUUID;
+import static java.util.stream.Collectors.toList;
+import static org.apache.commons.codec.binary.Hex.encodeHexString;
+import static org.apache.commons.codec.digest.DigestUtils.getSha256Digest;
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.slf4j.Logger;
+import org.trellisldp.api.BinaryService.MultipartUpload;
+import org.trellisldp.api.BinaryService.Resolver;
+
+/**
+ * A binary resolver that stores the content of each binary once, keyed by its SHA-256 digest.
+ *
+ * <p>Within a content-addressed partition, uploaded content is streamed to a temporary file while its digest is
+ * computed. If a blob with that digest is already stored, the upload is discarded and the binary becomes one
+ * more reference to the existing blob; otherwise the temporary file becomes the new blob. Identical uploads
+ * therefore cost a hash check and a metadata write rather than a second copy of the content.
+ *
+ * <p>References are hard links: each binary has a directory, named after a hash of its identifier, holding a
+ * single link to its blob, named after the blob's digest. The file system's link count serves as the
+ * reference count, so no separate count needs to be kept consistent, and a blob is deleted once its last
+ * reference is purged. Because a reference is a link to the content itself rather than a pointer to the blob's
+ * name, a reference remains readable even if the blob's name is removed by a concurrent purge. This requires a
+ * file system with hard links and link counts (i.e. a POSIX file system). If a blob cannot be linked, e.g. because
+ * it already has as many links as the file system allows, the upload is stored as a new copy under the blob's
+ * name, and later uploads of the same content share that copy.
+ *
+ * <p>Binaries in other partitions, and binaries that were stored before content addressing was enabled, are
+ * handled by the underlying resolver.
+ *
+ * @author acoburn
+ */
+public class ContentAddressedResolver implements Resolver {
+
+    private static final Logger LOGGER = getLogger(ContentAddressedResolver.class);
+
+    private static final String BLOBS = ".blobs";
+    private static final String REFS = ".refs";
+    private static final String TMP = ".tmp";
+    private static final int LENGTH = 2;
+    private static final int LEVELS = 2;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Resolver resolver;
+    private final Map<String, Path> partitions = new HashMap<>();
+
+    /**
+     * Create a content-addressed resolver
+     * @param resolver the underlying resolver
+     * @param partitions the binary storage paths of the content-addressed partitions
+     */
+    public ContentAddressedResolver(final Resolver resolver, final Map<String, String> partitions) {
+        this.resolver = resolver;
+        partitions.forEach((partition, path) -> this.partitions.put(partition, Paths.get(path)));
+    }
+
+    @Override
+    public List<String> getUriSchemes() {
+        return resolver.getUriSchemes();
+    }
+
+    @Override
+    public Optional<InputStream> getContent(final String partition, final IRI identifier) {
+        final Optional<Path> reference = getReference(partition, identifier);
+        if (reference.isPresent()) {
+            try {
+                return Optional.of(newInputStream(reference.get()));
+            } catch (final NoSuchFileException ex) {
+                return empty();
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return resolver.getContent(partition, identifier);
+    }
+
+    @Override
+    public Boolean exists(final String partition, final IRI identifier) {
+        return getReference(partition, identifier).isPresent() || resolver.exists(partition, identifier);
+    }
+
+    @Override
+    public void setContent(final String partition, final IRI identifier, final InputStream stream,
+            final Map<String, String> metadata) {
+        final Path base = partitions.get(partition);
+        if (isNull(base)) {
+            resolver.setContent(partition, identifier, stream, metadata);
+            return;
+        }
+        try {
+            createDirectories(base.resolve(TMP));
+            final Path tmp = createTempFile(base.resolve(TMP), "upload", null);
+            try {
+                final String digest = receive(stream, tmp);
+                final Path blob = getBlob(base, digest);
+                final Path directory = getDirectory(base, identifier);
+                createDirectories(directory);
+                if (!(Files.exists(blob) && link(directory.resolve(digest), blob))) {
+                    // Reference the new content before publishing it, so that a concurrent purge of another
+                    // reference to the same digest never sees a link count of one. If the stored blob could
+                    // not be linked, the new copy takes its name; existing references keep the old copy.
+                    if (!link(directory.resolve(digest), tmp)) {
+                        throw new IOException("Unable to reference the content of " + identifier);
+                    }
+                    createDirectories(blob.getParent());
+                    move(tmp, blob, ATOMIC_MOVE, REPLACE_EXISTING);
+                }
+                // Discard the reference to any earlier content of this binary
+                for (final Path previous : getLinks(directory)) {
+                    if (!previous.getFileName().toString().equals(digest)) {
+                        unlink(base, previous);
+                    }
+                }
+            } finally {
+                deleteIfExists(tmp);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void purgeContent(final String partition, final IRI identifier) {
+        final Path base = partitions.get(partition);
+        if (isNull(base)) {
+            resolver.purgeContent(partition, identifier);
+            return;
+        }
+        final Path directory = getDirectory(base, identifier);
+        try {
+            for (final Path reference : getLinks(directory)) {
+                unlink(base, reference);
+            }
+            deleteIfExists(directory);
+        } catch (final DirectoryNotEmptyException ex) {
+            LOGGER.debug("Binary {} is being stored concurrently, keeping its directory", identifier);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (resolver.exists(partition, identifier)) {
+            resolver.purgeContent(partition, identifier);
+        }
+    }
+
+    @Override
+    public Boolean supportsMultipartUpload() {
+        return resolver.supportsMultipartUpload();
+    }
+
+    @Override
+    public String initiateUpload(final String partition, final IRI identifier, final String mimeType) {
+        return resolver.initiateUpload(partition, identifier, mimeType);
+    }
+
+    @Override
+    public String uploadPart(final String identifier, final Integer partNumber, final InputStream content) {
+        return resolver.uploadPart(identifier, partNumber, content);
+    }
+
+    @Override
+    public MultipartUpload completeUpload(final String identifier, final Map<Integer, String> partDigests) {
+        return resolver.completeUpload(identifier, partDigests);
+    }
+
+    @Override
+    public void abortUpload(final String identifier) {
+        resolver.abortUpload(identifier);
+    }
+
+    @Override
+    public Boolean uploadSessionExists(final String identifier) {
+        return resolver.uploadSessionExists(identifier);
+    }
+
+    @Override
+    public Stream<Map.Entry<Integer, String>> listParts(final String identifier) {
+        return resolver.listParts(identifier);
+    }
+
+    /**
+     * Get the number of references to a stored blob
+     * @param partition the partition
+     * @param digest the hex-encoded SHA-256 digest of the content
+     * @return the number of binaries that share the blob, or 0 if no blob is stored for the digest
+     */
+    public Integer getReferenceCount(final String partition, final String digest) {
+        final Path base = partitions.get(partition);
+        if (isNull(base)) {
+            return 0;
+        }
+        try {
+            return getLinkCount(getBlob(base, digest)) - 1;
+        } catch (final NoSuchFileException ex) {
+            return 0;
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private Optional<Path> getReference(final String partition, final IRI identifier) {
+        final Path base = partitions.get(partition);
+        if (isNull(base)) {
+            return empty();
+        }
+        try {
+            return getLinks(getDirectory(base, identifier)).stream().findFirst();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String receive(final InputStream stream, final Path file) throws IOException {
+        final MessageDigest digest = getSha256Digest();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        try (final OutputStream output = newOutputStream(file)) {
+            int read;
+            while ((read = stream.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+                output.write(buffer, 0, read);
+            }
+        }
+        return encodeHexString(digest.digest());
+    }
+
+    private static Boolean link(final Path reference, final Path target) throws IOException {
+        final Path tmp = reference.resolveSibling(reference.getFileName() + "." + randomUUID() + TMP);
+        try {
+            try {
+                createLink(tmp, target);
+            } catch (final NoSuchFileException ex) {
+                if (!Files.exists(target)) {
+                    throw ex;
+                }
+                // A concurrent purge of this binary removed its (empty) directory
+                createDirectories(tmp.getParent());
+                createLink(tmp, target);
+            }
+            move(tmp, reference, ATOMIC_MOVE, REPLACE_EXISTING);
+            return true;
+        } catch (final FileSystemException ex) {
+            // E.g. the blob was purged after it was found, or it has as many links as the file system allows
+            LOGGER.debug("Unable to link {} to {}: {}", reference, target, ex.getMessage());
+            return false;
+        } finally {
+            // Renaming a link over another link to the same file leaves both in place
+            deleteIfExists(tmp);
+        }
+    }
+
+    private static void unlink(final Path base, final Path reference) throws IOException {
+        final Path blob = getBlob(base, reference.getFileName().toString());
+        deleteIfExists(reference);
+        try {
+            if (getLinkCount(blob) <= 1) {
+                deleteIfExists(blob);
+            }
+        } catch (final NoSuchFileException ex) {
+            LOGGER.debug("Blob {} already removed", blob);
+        }
+    }
+
+    private static List<Path> getLinks(final Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return emptyList();
+        }
+        try (final Stream<Path> links = list(directory)) {
+            return links.filter(path -> !path.getFileName().toString().endsWith(TMP)).collect(toList());
+        }
+    }
+
+    private static Integer getLinkCount(final Path file) throws IOException {
+        return (Integer) getAttribute(file, "unix:nlink");
+    }
+
+    private static Path getDirectory(final Path base, final IRI identifier) {
+        return nest(base.resolve(REFS), md5Hex(identifier.getIRIString()));
+    }
+
+    private static Path getBlob(final Path base, final String digest) {
+        return nest(base.resolve(BLOBS), digest);
+    }
+
+    private static Path nest(final Path root, final String hash) {
+        Path path = root;
+        for (int i = 0; i < LEVELS; ++i) {
+            path = path.resolve(hash.substring(i * LENGTH, (i + 1) * LENGTH));
+        }
+        return path.resolve(hash);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.lang.Integer.highestOneBit;
+import static org.apache.commons.codec.digest.DigestUtils.md5;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.StampedLock;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * A cuckoo filter of resource identifiers.
+ *
+ * <p>Each identifier is represented by a 16-bit fingerprint stored in one of two buckets of four slots, which
+ * gives a false positive rate of roughly 0.01% and, unlike a Bloom filter, allows identifiers to be removed.
+ * If an identifier cannot be placed because the filter is too full, the filter becomes saturated: from then on
+ * it reports that every identifier might be present, which is always safe.
+ *
+ * @author acoburn
+ */
+public class CuckooFilter {
+
+    private static final int SLOTS = 4;
+    private static final int MAX_KICKS = 500;
+
+    private final StampedLock lock = new StampedLock();
+    private final short[] table;
+    private final int mask;
+
+    private int size;
+    private boolean saturated;
+
+    /**
+     * Create a cuckoo filter
+     * @param capacity the expected number of identifiers
+     */
+    public CuckooFilter(final int capacity) {
+        this.table = new short[bucketCount(capacity) * SLOTS];
+        this.mask = table.length / SLOTS - 1;
+    }
+
+    /**
+     * Check whether an identifier might be in the filter
+     * @param identifier the identifier
+     * @return false if the identifier is definitely not in the filter; true otherwise
+     */
+    public Boolean mightContain(final IRI identifier) {
+        final long hash = hash(identifier);
+        final short fp = fingerprint(hash);
+        final int i1 = index(hash);
+        final int i2 = alternate(i1, fp);
+        long stamp = lock.tryOptimisticRead();
+        boolean found = saturated || contains(i1, fp) || contains(i2, fp);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                found = saturated || contains(i1, fp) || contains(i2, fp);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Add an identifier to the filter
+     * @param identifier the identifier
+     */
+    public void add(final IRI identifier) {
+        final long hash = hash(identifier);
+        short fp = fingerprint(hash);
+        int index = index(hash);
+        final long stamp = lock.writeLock();
+        try {
+            if (saturated) {
+                return;
+            }
+            if (insert(index, fp) || insert(alternate(index, fp), fp)) {
+                size += 1;
+                return;
+            }
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            index = random.nextBoolean() ? index : alternate(index, fp);
+            for (int kick = 0; kick < MAX_KICKS; ++kick) {
+                final int slot = index * SLOTS + random.nextInt(SLOTS);
+                final short evicted = table[slot];
+                table[slot] = fp;
+                fp = evicted;
+                index = alternate(index, fp);
+                if (insert(index, fp)) {
+                    size += 1;
+                    return;
+                }
+            }
+            saturated = true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove an identifier from the filter; this must only be called for an identifier that was added
+     * @param identifier the identifier
+     */
+    public void remove(final IRI identifier) {
+        final long hash = hash(identifier);
+        final short fp = fingerprint(hash);
+        final int i1 = index(hash);
+        final long stamp = lock.writeLock();
+        try {
+            if (!saturated && (delete(i1, fp) || delete(alternate(i1, fp), fp))) {
+                size -= 1;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Get the number of identifiers in the filter
+     * @return the number of identifiers
+     */
+    public int size() {
+        final long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Check whether the filter is saturated
+     * @return true if the filter can no longer exclude any identifier
+     */
+    public Boolean isSaturated() {
+        final long stamp = lock.readLock();
+        try {
+            return saturated;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private boolean contains(final int index, final short fp) {
+        final int start = index * SLOTS;
+        return table[start] == fp || table[start + 1] == fp || table[start + 2] == fp || table[start + 3] == fp;
+    }
+
+    private boolean insert(final int index, final short fp) {
+        final int start = index * SLOTS;
+        for (int i = start; i < start + SLOTS; ++i) {
+            if (table[i] == 0) {
+                table[i] = fp;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean delete(final int index, final short fp) {
+        final int start = index * SLOTS;
+        for (int i = start; i < start + SLOTS; ++i) {
+            if (table[i] == fp) {
+                table[i] = 0;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int index(final long hash) {
+        return (int) hash & mask;
+    }
+
+    private int alternate(final int index, final short fp) {
+        return (index ^ (fp * 0x5bd1e995)) & mask;
+    }
+
+    private static long hash(final IRI identifier) {
+        return ByteBuffer.wrap(md5(identifier.getIRIString())).getLong();
+    }
+
+    private static short fingerprint(final long hash) {
+        final short fp = (short) (hash >>> 48);
+        return fp == 0 ? 1 : fp;
+    }
+
+    private static int bucketCount(final int capacity) {
+        // Aim for a load factor of at most ~50%, which leaves headroom for growth beyond the expected capacity
+        final int buckets = capacity / SLOTS * 2;
+        return buckets <= 1 ? 1 : highestOneBit(buckets - 1) << 1;
+    }
+}
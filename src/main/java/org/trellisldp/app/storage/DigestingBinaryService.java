@@ -0,0 +1,400 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Collections.emptyMap;
+import static java.util.Objects.nonNull;
+import static java.util.Optional.ofNullable;
+import static java.util.stream.Collectors.toList;
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.trellisldp.api.BinaryService;
+import org.trellisldp.api.BinaryService.MultipartUpload;
+import org.trellisldp.api.BinaryService.Resolver;
+
+/**
+ * A binary service that computes digests while binaries are uploaded, and keeps them as binary metadata.
+ *
+ * <p>As the underlying service reads an upload, each buffer is fed to every configured digest algorithm, so
+ * all of the digests are computed in the same pass that writes the content to disk. The base64-encoded digests
+ * are saved alongside the binary (in a {@code .digests} directory under the partition's binary path), and a
+ * later request for one of them (e.g. through {@code Want-Digest}) is answered without reading the content
+ * again. A digest for any other algorithm is computed from the content on first request and then kept as well.
+ * Resolvers obtained from this service record digests in the same way.
+ *
+ * @author acoburn
+ */
+public class DigestingBinaryService implements BinaryService {
+
+    private static final String DIGESTS = ".digests";
+    private static final int LENGTH = 2;
+    private static final int LEVELS = 2;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final BinaryService service;
+    private final List<String> algorithms;
+    private final Map<String, Path> partitions = new HashMap<>();
+
+    /**
+     * Create a digesting binary service
+     * @param service the underlying binary service
+     * @param partitions the binary storage paths of each partition
+     * @param algorithms the digest algorithms to compute on upload
+     */
+    public DigestingBinaryService(final BinaryService service, final Map<String, String> partitions,
+            final Collection<String> algorithms) {
+        this.service = service;
+        this.algorithms = algorithms.stream().map(String::toUpperCase).distinct().collect(toList());
+        this.algorithms.forEach(DigestingBinaryService::getDigest);
+        partitions.forEach((partition, path) -> this.partitions.put(partition, Paths.get(path)));
+    }
+
+    @Override
+    public Optional<InputStream> getContent(final String partition, final IRI identifier) {
+        return service.getContent(partition, identifier);
+    }
+
+    @Override
+    public Boolean exists(final String partition, final IRI identifier) {
+        return service.exists(partition, identifier);
+    }
+
+    @Override
+    public void setContent(final String partition, final IRI identifier, final InputStream stream) {
+        upload(partition, identifier, stream, input -> service.setContent(partition, identifier, input));
+    }
+
+    @Override
+    public void setContent(final String partition, final IRI identifier, final InputStream stream,
+            final Map<String, String> metadata) {
+        upload(partition, identifier, stream, input -> service.setContent(partition, identifier, input, metadata));
+    }
+
+    @Override
+    public void purgeContent(final String partition, final IRI identifier) {
+        service.purgeContent(partition, identifier);
+        forget(partition, identifier);
+    }
+
+    @Override
+    public Optional<String> calculateDigest(final String partition, final IRI identifier, final String algorithm) {
+        final Map<String, String> digests = getDigests(partition, identifier);
+        final String value = digests.get(algorithm.toUpperCase());
+        if (nonNull(value)) {
+            return Optional.of(value);
+        }
+        final Optional<String> digest = service.calculateDigest(partition, identifier, algorithm);
+        digest.ifPresent(computed -> getFile(partition, identifier).ifPresent(file -> {
+            final Map<String, String> updated = new LinkedHashMap<>(digests);
+            updated.put(algorithm.toUpperCase(), computed);
+            save(file, updated);
+        }));
+        return digest;
+    }
+
+    @Override
+    public Set<String> supportedAlgorithms() {
+        return service.supportedAlgorithms();
+    }
+
+    @Override
+    public Optional<Resolver> getResolver(final IRI identifier) {
+        return service.getResolver(identifier).map(DigestingResolver::new);
+    }
+
+    @Override
+    public Optional<Resolver> getResolverForPartition(final String partition) {
+        return service.getResolverForPartition(partition).map(DigestingResolver::new);
+    }
+
+    @Override
+    public Optional<String> digest(final String algorithm, final InputStream stream) {
+        return service.digest(algorithm, stream);
+    }
+
+    @Override
+    public Supplier<String> getIdentifierSupplier(final String partition) {
+        return service.getIdentifierSupplier(partition);
+    }
+
+    /**
+     * Get the digests that are kept for a binary
+     * @param partition the partition
+     * @param identifier the binary identifier
+     * @return the base64-encoded digests, keyed by algorithm
+     */
+    public Map<String, String> getDigests(final String partition, final IRI identifier) {
+        return getFile(partition, identifier).map(DigestingBinaryService::load).orElse(emptyMap());
+    }
+
+    private void upload(final String partition, final IRI identifier, final InputStream stream,
+            final Consumer<InputStream> writer) {
+        final Optional<Path> file = getFile(partition, identifier);
+        if (!file.isPresent()) {
+            writer.accept(stream);
+            return;
+        }
+        // Any digests of earlier content no longer apply
+        forget(partition, identifier);
+        final DigestingInputStream input = new DigestingInputStream(stream, algorithms);
+        writer.accept(input);
+        if (input.isComplete()) {
+            save(file.get(), input.getDigests());
+        }
+    }
+
+    private void forget(final String partition, final IRI identifier) {
+        getFile(partition, identifier).ifPresent(file -> {
+            try {
+                deleteIfExists(file);
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    private Optional<Path> getFile(final String partition, final IRI identifier) {
+        return ofNullable(partitions.get(partition)).map(base -> {
+            final String hash = md5Hex(identifier.getIRIString());
+            Path path = base.resolve(DIGESTS);
+            for (int i = 0; i < LEVELS; ++i) {
+                path = path.resolve(hash.substring(i * LENGTH, (i + 1) * LENGTH));
+            }
+            return path.resolve(hash);
+        });
+    }
+
+    private static Map<String, String> load(final Path file) {
+        final Properties properties = new Properties();
+        try (final InputStream input = newInputStream(file)) {
+            properties.load(input);
+        } catch (final NoSuchFileException ex) {
+            return emptyMap();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        final Map<String, String> digests = new LinkedHashMap<>();
+        properties.stringPropertyNames().forEach(name -> digests.put(name, properties.getProperty(name)));
+        return digests;
+    }
+
+    private static void save(final Path file, final Map<String, String> digests) {
+        final Properties properties = new Properties();
+        properties.putAll(digests);
+        try {
+            createDirectories(file.getParent());
+            final Path tmp = createTempFile(file.getParent(), file.getFileName().toString(), null);
+            try {
+                try (final OutputStream output = newOutputStream(tmp)) {
+                    properties.store(output, null);
+                }
+                move(tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+            } finally {
+                deleteIfExists(tmp);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static MessageDigest getDigest(final String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalArgumentException("Unsupported digest algorithm: " + algorithm, ex);
+        }
+    }
+
+    /**
+     * An input stream that feeds everything read through it to several digest algorithms.
+     */
+    private static final class DigestingInputStream extends FilterInputStream {
+
+        private final Map<String, MessageDigest> digests = new LinkedHashMap<>();
+        private Boolean complete = false;
+
+        private DigestingInputStream(final InputStream stream, final List<String> algorithms) {
+            super(stream);
+            algorithms.forEach(algorithm -> digests.put(algorithm, getDigest(algorithm)));
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b < 0) {
+                complete = true;
+            } else {
+                digests.values().forEach(digest -> digest.update((byte) b));
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final int read = super.read(buffer, offset, length);
+            if (read < 0) {
+                complete = true;
+            } else {
+                digests.values().forEach(digest -> digest.update(buffer, offset, read));
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            // Skipped content must still be digested
+            final byte[] buffer = new byte[(int) Math.min(n, BUFFER_SIZE)];
+            final int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public synchronized void mark(final int limit) {
+            // marks are not supported
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+
+        private Boolean isComplete() {
+            return complete;
+        }
+
+        private Map<String, String> getDigests() {
+            final Map<String, String> values = new LinkedHashMap<>();
+            digests.forEach((algorithm, digest) -> values.put(algorithm,
+                        Base64.getEncoder().encodeToString(digest.digest())));
+            return values;
+        }
+    }
+
+    /**
+     * A resolver that computes digests while binaries are uploaded.
+     */
+    private final class DigestingResolver implements Resolver {
+
+        private final Resolver resolver;
+
+        private DigestingResolver(final Resolver resolver) {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public List<String> getUriSchemes() {
+            return resolver.getUriSchemes();
+        }
+
+        @Override
+        public Optional<InputStream> getContent(final String partition, final IRI identifier) {
+            return resolver.getContent(partition, identifier);
+        }
+
+        @Override
+        public Boolean exists(final String partition, final IRI identifier) {
+            return resolver.exists(partition, identifier);
+        }
+
+        @Override
+        public void setContent(final String partition, final IRI identifier, final InputStream stream) {
+            upload(partition, identifier, stream, input -> resolver.setContent(partition, identifier, input));
+        }
+
+        @Override
+        public void setContent(final String partition, final IRI identifier, final InputStream stream,
+                final Map<String, String> metadata) {
+            upload(partition, identifier, stream,
+                    input -> resolver.setContent(partition, identifier, input, metadata));
+        }
+
+        @Override
+        public void purgeContent(final String partition, final IRI identifier) {
+            resolver.purgeContent(partition, identifier);
+            forget(partition, identifier);
+        }
+
+        @Override
+        public Boolean supportsMultipartUpload() {
+            return resolver.supportsMultipartUpload();
+        }
+
+        @Override
+        public String initiateUpload(final String partition, final IRI identifier, final String mimeType) {
+            return resolver.initiateUpload(partition, identifier, mimeType);
+        }
+
+        @Override
+        public String uploadPart(final String identifier, final Integer partNumber, final InputStream content) {
+            return resolver.uploadPart(identifier, partNumber, content);
+        }
+
+        @Override
+        public MultipartUpload completeUpload(final String identifier, final Map<Integer, String> partDigests) {
+            return resolver.completeUpload(identifier, partDigests);
+        }
+
+        @Override
+        public void abortUpload(final String identifier) {
+            resolver.abortUpload(identifier);
+        }
+
+        @Override
+        public Boolean uploadSessionExists(final String identifier) {
+            return resolver.uploadSessionExists(identifier);
+        }
+
+        @Override
+        public Stream<Map.Entry<Integer, String>> listParts(final String identifier) {
+            return resolver.listParts(identifier);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Optional.empty;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.app.storage.StorageUtils.getPartition;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+
+import io.dropwizard.lifecycle.Managed;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.slf4j.Logger;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+
+/**
+ * A resource service that answers lookups for definitely-missing resources from an in-memory
+ * {@link CuckooFilter} of the identifiers in each configured partition.
+ *
+ * <p>The filter is updated on every write and purge that passes through this service, and on every event from
+ * another node. Since a node misses the writes that other nodes make while it is stopped, the filter is rebuilt
+ * from a scan of its partition every time the service starts. The scan only begins once this node is following
+ * the event stream, so that a resource created elsewhere is either found by the scan or reported by an event.
+ * Until the scan is complete, every lookup goes to the underlying service.
+ *
+ * <p>Every resource that exists holds its own entry in the filter, even if it shares a fingerprint with another
+ * resource, so that purging one of them cannot hide the other: a local write adds an entry unless the resource
+ * already existed, and a resource created elsewhere is added when its {@code Create} event arrives (see
+ * {@link #created}).
+ *
+ * <p>For each partition, the number of lookups answered by the filter ({@code filtered}), the number of lookups
+ * that passed the filter but found nothing ({@code falsePositives}) and the observed false positive rate
+ * ({@code falsePositiveRate}) are published as metrics.
+ *
+ * @author acoburn
+ */
+public class FilteredResourceService implements ResourceService, Managed {
+
+    private static final Logger LOGGER = getLogger(FilteredResourceService.class);
+
+    private final ResourceService service;
+    private final Map<String, Integer> capacities;
+    private final CompletionStage<?> following;
+    private final Map<String, Partition> partitions = new HashMap<>();
+    private final ExecutorService executor = newSingleThreadExecutor(r -> new Thread(r, "trellis-filter-rebuild"));
+
+    /**
+     * Create a filtered resource service
+     * @param service the underlying resource service
+     * @param capacities the expected number of resources in each filtered partition
+     * @param following a stage that completes once this node is following the event stream
+     * @param metrics the metric registry
+     */
+    public FilteredResourceService(final ResourceService service, final Map<String, Integer> capacities,
+            final CompletionStage<?> following, final MetricRegistry metrics) {
+        this.service = service;
+        this.capacities = capacities;
+        this.following = following;
+        capacities.keySet().forEach(partition -> {
+            final Partition p = new Partition(metrics.counter(name(FilteredResourceService.class, partition,
+                            "filtered")), metrics.counter(name(FilteredResourceService.class, partition,
+                            "falsePositives")));
+            partitions.put(partition, p);
+            metrics.register(name(FilteredResourceService.class, partition, "falsePositiveRate"), new RatioGauge() {
+                @Override
+                protected Ratio getRatio() {
+                    return Ratio.of(p.falsePositives.getCount(), p.falsePositives.getCount() + p.filtered.getCount());
+                }
+            });
+            metrics.register(name(FilteredResourceService.class, partition, "size"),
+                    (Gauge<Integer>) () -> isNull(p.filter) ? 0 : p.filter.size());
+        });
+    }
+
+    @Override
+    public void start() {
+        partitions.forEach((partition, p) -> {
+            p.ready = false;
+            p.filter = new CuckooFilter(capacities.get(partition));
+            following.thenRunAsync(() -> rebuild(partition), executor);
+        });
+    }
+
+    @Override
+    public void stop() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(30L, SECONDS);
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier) {
+        final Partition p = getFilteredPartition(identifier);
+        if (nonNull(p) && !p.filter.mightContain(identifier)) {
+            p.filtered.inc();
+            return empty();
+        }
+        final Optional<Resource> resource = service.get(identifier);
+        if (nonNull(p) && !resource.isPresent()) {
+            p.falsePositives.inc();
+        }
+        return resource;
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier, final Instant time) {
+        final Partition p = getFilteredPartition(identifier);
+        if (nonNull(p) && !p.filter.mightContain(identifier)) {
+            p.filtered.inc();
+            return empty();
+        }
+        return service.get(identifier, time);
+    }
+
+    @Override
+    public Boolean put(final IRI identifier, final Dataset dataset) {
+        final Partition p = getPartition(identifier);
+        // An identifier that passes the filter may only share a fingerprint with another resource; it is
+        // only known to be in the filter already if it exists
+        if (nonNull(p) && nonNull(p.filter) && (!p.filter.mightContain(identifier)
+                    || !service.get(identifier).isPresent())) {
+            p.filter.add(identifier);
+        }
+        return service.put(identifier, dataset);
+    }
+
+    @Override
+    public Optional<IRI> getContainer(final IRI identifier) {
+        return service.getContainer(identifier);
+    }
+
+    @Override
+    public Stream<IRI> compact(final IRI identifier, final Instant from, final Instant until) {
+        return service.compact(identifier, from, until);
+    }
+
+    @Override
+    public Stream<IRI> purge(final IRI identifier) {
+        final Stream<IRI> result = service.purge(identifier);
+        final Partition p = getFilteredPartition(identifier);
+        if (nonNull(p)) {
+            p.filter.remove(identifier);
+        }
+        return result;
+    }
+
+    /**
+     * Record that a resource was created elsewhere
+     * @param identifier the resource identifier
+     */
+    public void created(final IRI identifier) {
+        final Partition p = getPartition(identifier);
+        if (nonNull(p) && nonNull(p.filter)) {
+            p.filter.add(identifier);
+        }
+    }
+
+    /**
+     * Record that a resource was changed elsewhere
+     *
+     * <p>A resource that already existed holds its own entry, so an entry is only added if the filter does not
+     * contain the resource at all. Resources removed elsewhere are left in the filter, where they can only cause
+     * false positives.
+     *
+     * @param identifier the resource identifier
+     */
+    public void invalidate(final IRI identifier) {
+        final Partition p = getPartition(identifier);
+        if (nonNull(p) && nonNull(p.filter) && !p.filter.mightContain(identifier)) {
+            p.filter.add(identifier);
+        }
+    }
+
+    @Override
+    public Stream<? extends Triple> scan(final String partition) {
+        return service.scan(partition);
+    }
+
+    @Override
+    public RDFTerm skolemize(final RDFTerm term) {
+        return service.skolemize(term);
+    }
+
+    @Override
+    public RDFTerm unskolemize(final RDFTerm term) {
+        return service.unskolemize(term);
+    }
+
+    @Override
+    public <T extends RDFTerm> T toInternal(final T term, final String baseUrl) {
+        return service.toInternal(term, baseUrl);
+    }
+
+    @Override
+    public <T extends RDFTerm> T toExternal(final T term, final String baseUrl) {
+        return service.toExternal(term, baseUrl);
+    }
+
+    @Override
+    public Stream<? extends Quad> export(final String partition, final Collection<IRI> graphNames) {
+        return service.export(partition, graphNames);
+    }
+
+    @Override
+    public Supplier<String> getIdentifierSupplier() {
+        return service.getIdentifierSupplier();
+    }
+
+    private Partition getPartition(final IRI identifier) {
+        final String partition = StorageUtils.getPartition(identifier);
+        return isNull(partition) ? null : partitions.get(partition);
+    }
+
+    private Partition getFilteredPartition(final IRI identifier) {
+        final Partition p = getPartition(identifier);
+        return nonNull(p) && p.ready ? p : null;
+    }
+
+    private void rebuild(final String partition) {
+        LOGGER.info("Rebuilding the resource filter for partition {}", partition);
+        final Partition p = partitions.get(partition);
+        try (final Stream<? extends Triple> triples = service.scan(partition)) {
+            final Iterator<IRI> identifiers = triples.map(Triple::getSubject).filter(IRI.class::isInstance)
+                .map(IRI.class::cast).iterator();
+            while (identifiers.hasNext()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    LOGGER.info("Interrupted while rebuilding the resource filter for partition {}", partition);
+                    return;
+                }
+                p.filter.add(identifiers.next());
+            }
+        }
+        if (p.filter.isSaturated()) {
+            LOGGER.warn("The resource filter for partition {} is full; increase its capacity", partition);
+        }
+        p.ready = true;
+        LOGGER.info("Rebuilt the resource filter for partition {} with {} entries", partition, p.filter.size());
+    }
+
+    private static final class Partition {
+        private final Counter filtered;
+        private final Counter falsePositives;
+        private volatile CuckooFilter filter;
+        private volatile boolean ready;
+
+        private Partition(final Counter filtered, final Counter falsePositives) {
+            this.filtered = filtered;
+            this.falsePositives = falsePositives;
+        }
+    }
+}
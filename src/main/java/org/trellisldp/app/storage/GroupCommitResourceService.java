@@ -0,0 +1,378 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.file.Files.isDirectory;
+import static java.nio.file.Files.isRegularFile;
+import static java.nio.file.Files.walk;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Collections.singletonList;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.app.storage.StorageUtils.getPartition;
+
+import io.dropwizard.lifecycle.Managed;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.slf4j.Logger;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+
+/**
+ * A resource service that makes writes durable in groups.
+ *
+ * <p>Writes are applied concurrently, on the callers' threads; only the syncs that make them durable are grouped.
+ * Once its write is applied, a caller hands the directories to be synced to its partition's committer thread,
+ * which gathers any other requests that arrive within a short window (or until the batch is full) and forces
+ * their directories to disk together, so that a batch of writes costs a single round of syncs. A caller is
+ * released once the batch that holds its request is durable. With a window of zero, a batch holds whatever
+ * requests queued up while the previous batch was being synced.
+ *
+ * <p>For each write, the files in the resource's own directory are synced, along with the directory entries of
+ * its ancestors, so that a newly created directory survives a crash; the contents of the ancestors are not.
+ *
+ * <p>The underlying service publishes a message about each write before its {@code put} method returns, so the
+ * producer it publishes through must be a {@link GroupCommitProducer}: the first message sent by a thread that is
+ * storing a write waits until that write is durable, so that no other node acts on a write that could still be
+ * lost. This assumes the underlying service publishes on the caller's thread; a write that is not published is
+ * made durable before {@code put} returns.
+ *
+ * <p>Writes for a partition without a committer, or made while the service is not running, are synced
+ * immediately. Other operations are passed directly to the underlying service.
+ *
+ * @author acoburn
+ */
+public class GroupCommitResourceService implements ResourceService, Managed {
+
+    private static final Logger LOGGER = getLogger(GroupCommitResourceService.class);
+    private static final long IDLE_POLL = 100L;
+    private static final ThreadLocal<Barrier> pending = new ThreadLocal<>();
+
+    private final ResourceService service;
+    private final ResourceLayout layout;
+    private final long window;
+    private final int maxBatchSize;
+    private final Map<String, Committer> committers = new HashMap<>();
+
+    /**
+     * Create a group-commit resource service
+     * @param service the underlying resource service
+     * @param layout the layout of the resource store
+     * @param partitions the partitions for which writes are grouped
+     * @param windowMillis the time, in milliseconds, over which writes are gathered into a batch
+     * @param maxBatchSize the maximum number of writes in a batch
+     */
+    public GroupCommitResourceService(final ResourceService service, final ResourceLayout layout,
+            final Collection<String> partitions, final Long windowMillis, final Integer maxBatchSize) {
+        this.service = service;
+        this.layout = layout;
+        this.window = NANOSECONDS.convert(windowMillis, MILLISECONDS);
+        this.maxBatchSize = maxBatchSize;
+        partitions.forEach(partition -> committers.put(partition, new Committer(partition)));
+    }
+
+    @Override
+    public void start() {
+        committers.values().forEach(Committer::start);
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        committers.values().forEach(Committer::shutdown);
+        for (final Committer committer : committers.values()) {
+            committer.join();
+        }
+    }
+
+    /**
+     * Wait until the write that the current thread is storing, if any, is durable
+     *
+     * <p>This is called before a message is published, so that a write is never announced before it is durable.
+     */
+    public static void awaitDurable() {
+        final Barrier barrier = pending.get();
+        if (nonNull(barrier)) {
+            pending.remove();
+            barrier.await();
+        }
+    }
+
+    @Override
+    public Boolean put(final IRI identifier, final Dataset dataset) {
+        final Barrier barrier = new Barrier(getPartition(identifier), getDirectories(identifier));
+        final Boolean result;
+        pending.set(barrier);
+        try {
+            result = service.put(identifier, dataset);
+        } finally {
+            pending.remove();
+        }
+        if (result || barrier.submitted) {
+            barrier.await();
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier) {
+        return service.get(identifier);
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier, final Instant time) {
+        return service.get(identifier, time);
+    }
+
+    @Override
+    public Optional<IRI> getContainer(final IRI identifier) {
+        return service.getContainer(identifier);
+    }
+
+    @Override
+    public Stream<IRI> compact(final IRI identifier, final Instant from, final Instant until) {
+        return service.compact(identifier, from, until);
+    }
+
+    @Override
+    public Stream<IRI> purge(final IRI identifier) {
+        return service.purge(identifier);
+    }
+
+    @Override
+    public Stream<? extends Triple> scan(final String partition) {
+        return service.scan(partition);
+    }
+
+    @Override
+    public RDFTerm skolemize(final RDFTerm term) {
+        return service.skolemize(term);
+    }
+
+    @Override
+    public RDFTerm unskolemize(final RDFTerm term) {
+        return service.unskolemize(term);
+    }
+
+    @Override
+    public <T extends RDFTerm> T toInternal(final T term, final String baseUrl) {
+        return service.toInternal(term, baseUrl);
+    }
+
+    @Override
+    public <T extends RDFTerm> T toExternal(final T term, final String baseUrl) {
+        return service.toExternal(term, baseUrl);
+    }
+
+    @Override
+    public Stream<? extends Quad> export(final String partition, final Collection<IRI> graphNames) {
+        return service.export(partition, graphNames);
+    }
+
+    @Override
+    public Supplier<String> getIdentifierSupplier() {
+        return service.getIdentifierSupplier();
+    }
+
+    private Map<Path, Boolean> getDirectories(final IRI identifier) {
+        final Map<Path, Boolean> directories = new HashMap<>();
+        layout.getDirectory(identifier).ifPresent(directory -> {
+            // A new resource directory is only durable once the entry in each of its parents has been synced
+            final Path volume = layout.getVolume(identifier).get();
+            directories.put(directory, true);
+            for (Path path = directory.getParent(); nonNull(path) && path.startsWith(volume);
+                    path = path.getParent()) {
+                directories.put(path, false);
+            }
+        });
+        return directories;
+    }
+
+    private static void commit(final List<Barrier> batch) {
+        final Map<Path, Boolean> directories = new LinkedHashMap<>();
+        batch.forEach(barrier -> barrier.directories.forEach((directory, files) ->
+                    directories.merge(directory, files, Boolean::logicalOr)));
+        try {
+            for (final Map.Entry<Path, Boolean> directory : directories.entrySet()) {
+                sync(directory.getKey(), directory.getValue());
+            }
+        } catch (final IOException ex) {
+            LOGGER.error("Error syncing a batch of {} writes: {}", batch.size(), ex.getMessage());
+            batch.forEach(barrier -> barrier.future.completeExceptionally(new UncheckedIOException(ex)));
+            return;
+        }
+        batch.forEach(barrier -> barrier.future.complete(null));
+    }
+
+    private static void sync(final Path directory, final boolean files) throws IOException {
+        if (!isDirectory(directory)) {
+            // Nothing has been written here yet (e.g. the write is still being processed asynchronously)
+            return;
+        }
+        if (files) {
+            final List<Path> children;
+            try (final Stream<Path> paths = walk(directory, 1)) {
+                children = paths.filter(path -> isRegularFile(path)).collect(toList());
+            }
+            for (final Path file : children) {
+                force(file);
+            }
+        }
+        try {
+            force(directory);
+        } catch (final IOException ex) {
+            // Some platforms do not allow a directory to be opened
+            LOGGER.debug("Could not sync directory {}: {}", directory, ex.getMessage());
+        }
+    }
+
+    private static void force(final Path path) throws IOException {
+        try (final FileChannel channel = FileChannel.open(path, READ)) {
+            channel.force(true);
+        }
+    }
+
+    private final class Barrier {
+        private final String partition;
+        private final Map<Path, Boolean> directories;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private boolean submitted = false;
+
+        private Barrier(final String partition, final Map<Path, Boolean> directories) {
+            this.partition = partition;
+            this.directories = directories;
+        }
+
+        private void await() {
+            if (!submitted) {
+                submitted = true;
+                final Committer committer = isNull(partition) ? null : committers.get(partition);
+                if (isNull(committer) || !committer.submit(this)) {
+                    commit(singletonList(this));
+                }
+            }
+            try {
+                future.join();
+            } catch (final CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw ex;
+            }
+        }
+    }
+
+    private final class Committer implements Runnable {
+        private final BlockingQueue<Barrier> queue = new LinkedBlockingQueue<>();
+        private final Thread thread;
+        private boolean running = false;
+
+        private Committer(final String partition) {
+            this.thread = new Thread(this, "trellis-group-commit-" + partition);
+        }
+
+        private synchronized void start() {
+            running = true;
+            thread.start();
+        }
+
+        private synchronized void shutdown() {
+            running = false;
+        }
+
+        private synchronized boolean isRunning() {
+            return running;
+        }
+
+        private synchronized boolean submit(final Barrier barrier) {
+            return running && queue.add(barrier);
+        }
+
+        private void join() throws InterruptedException {
+            if (thread.isAlive()) {
+                thread.join();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    final Barrier first = queue.poll(IDLE_POLL, MILLISECONDS);
+                    if (isNull(first)) {
+                        if (!isRunning() && queue.isEmpty()) {
+                            return;
+                        }
+                        continue;
+                    }
+                    commit(gather(first));
+                }
+            } catch (final InterruptedException ex) {
+                LOGGER.warn("Group commit interrupted for {}; syncing {} queued writes directly",
+                        thread.getName(), queue.size());
+                shutdown();
+                final List<Barrier> remaining = new ArrayList<>();
+                queue.drainTo(remaining);
+                commit(remaining);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private List<Barrier> gather(final Barrier first) {
+            final List<Barrier> batch = new ArrayList<>();
+            batch.add(first);
+            final long deadline = System.nanoTime() + window;
+            try {
+                while (batch.size() < maxBatchSize) {
+                    final long remaining = deadline - System.nanoTime();
+                    final Barrier next = remaining > 0 ? queue.poll(remaining, NANOSECONDS) : queue.poll();
+                    if (isNull(next)) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (final InterruptedException ex) {
+                // Commit what has been gathered; the next poll will see the interrupt
+                Thread.currentThread().interrupt();
+            }
+            return batch;
+        }
+    }
+}
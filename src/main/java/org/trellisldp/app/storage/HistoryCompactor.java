@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.time.Instant.EPOCH;
+import static java.util.concurrent.ForkJoinTask.adapt;
+import static java.util.concurrent.ForkJoinTask.invokeAll;
+import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
+import org.slf4j.Logger;
+import org.trellisldp.api.BinaryService;
+import org.trellisldp.api.ResourceService;
+
+/**
+ * Compacts the history of every resource in a set of partitions.
+ *
+ * <p>The history of each resource before a cut-off time is folded into a checkpoint of the resource's state at that
+ * time, leaving the later changes as a tail, so that fewer changes need to be replayed when the resource is read.
+ * The partitions are compacted in parallel on a fork-join pool, and the resources of each partition are split
+ * recursively between the pool's workers. Each resource is compacted through the resource store; the store does not
+ * coordinate with the external event processor, so compaction runs while the cluster is stopped.
+ *
+ * @author acoburn
+ */
+public class HistoryCompactor {
+
+    private static final Logger LOGGER = getLogger(HistoryCompactor.class);
+    private static final int THRESHOLD = 64;
+
+    private final ResourceService service;
+    private final BinaryService binaryService;
+    private final ForkJoinPool pool;
+
+    /**
+     * Create a history compactor
+     * @param service the resource service
+     * @param binaryService the binary service, used to remove binaries that are no longer referenced
+     * @param pool the fork-join pool on which resources are compacted
+     */
+    public HistoryCompactor(final ResourceService service, final BinaryService binaryService,
+            final ForkJoinPool pool) {
+        this.service = service;
+        this.binaryService = binaryService;
+        this.pool = pool;
+    }
+
+    /**
+     * Compact the history of every resource in some partitions
+     * @param partitions the partition names
+     * @param until the end of the history to fold into each checkpoint
+     * @return the number of resources that were compacted in each partition
+     */
+    public Map<String, Long> compact(final Collection<String> partitions, final Instant until) {
+        final List<PartitionTask> tasks = partitions.stream().map(partition -> new PartitionTask(partition, until))
+            .collect(toList());
+        pool.invoke(adapt(() -> invokeAll(tasks)));
+        final Map<String, Long> results = new HashMap<>();
+        tasks.forEach(task -> results.put(task.partition, task.join()));
+        return results;
+    }
+
+    private long compactPartition(final String partition, final Instant until) {
+        final List<IRI> identifiers;
+        try (final Stream<? extends Triple> triples = service.scan(partition)) {
+            identifiers = triples.map(Triple::getSubject).filter(IRI.class::isInstance).map(IRI.class::cast)
+                .distinct().collect(toList());
+        }
+        LOGGER.info("Compacting {} resources in partition {}", identifiers.size(), partition);
+        final AtomicLong failures = new AtomicLong();
+        final long compacted = new CompactTask(partition, identifiers, until, failures).invoke();
+        if (failures.get() > 0) {
+            LOGGER.warn("Unable to compact {} resources in partition {}", failures.get(), partition);
+        }
+        return compacted;
+    }
+
+    private final class PartitionTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String partition;
+        private final Instant until;
+
+        private PartitionTask(final String partition, final Instant until) {
+            this.partition = partition;
+            this.until = until;
+        }
+
+        @Override
+        protected Long compute() {
+            return compactPartition(partition, until);
+        }
+    }
+
+    private final class CompactTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String partition;
+        private final transient List<IRI> identifiers;
+        private final Instant until;
+        private final AtomicLong failures;
+
+        private CompactTask(final String partition, final List<IRI> identifiers, final Instant until,
+                final AtomicLong failures) {
+            this.partition = partition;
+            this.identifiers = identifiers;
+            this.until = until;
+            this.failures = failures;
+        }
+
+        @Override
+        protected Long compute() {
+            if (identifiers.size() > THRESHOLD) {
+                final int middle = identifiers.size() / 2;
+                final CompactTask left = new CompactTask(partition, identifiers.subList(0, middle), until,
+                        failures);
+                final CompactTask right = new CompactTask(partition, identifiers.subList(middle,
+                            identifiers.size()), until, failures);
+                left.fork();
+                return right.compute() + left.join();
+            }
+            long compacted = 0L;
+            for (final IRI identifier : identifiers) {
+                try (final Stream<IRI> binaries = service.compact(identifier, EPOCH, until)) {
+                    // Binaries that were only referenced by the folded history are no longer needed
+                    binaries.forEach(binary -> binaryService.purgeContent(partition, binary));
+                    compacted += 1;
+                } catch (final RuntimeException ex) {
+                    LOGGER.warn("Unable to compact {}: {}", identifier, ex.getMessage());
+                    failures.incrementAndGet();
+                }
+            }
+            return compacted;
+        }
+    }
+}
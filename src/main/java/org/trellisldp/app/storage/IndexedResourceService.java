@@ -0,0 +1,257 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.time.Instant.now;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Optional.empty;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.app.storage.StorageUtils.getPartition;
+
+import com.google.common.util.concurrent.Striped;
+
+import io.dropwizard.lifecycle.Managed;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.slf4j.Logger;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.app.storage.ResourceIndex.State;
+
+/**
+ * A resource service that keeps a {@link ResourceIndex} for each configured partition, and answers lookups for
+ * resources that the index reports as absent without reading the resource store.
+ *
+ * <p>The index is updated on every write and purge that passes through this service, and on every successful
+ * read. Writes made by other nodes are reported through {@link #invalidate}, which marks the resource as present.
+ * A node does not see the writes that other nodes make while it is stopped, and the event stream only delivers
+ * the writes made after the node has joined it, so once this node is following the event stream, the entries
+ * for each partition are brought up to date, in the background, from a scan of the partition. Until then, every
+ * lookup goes to the underlying service; the persisted index only saves rewriting the entries that it holds.
+ *
+ * <p>An index that can grow no further stops adding entries, and resources that it does not hold are looked up
+ * in the underlying service. Writes never fail because of the index.
+ *
+ * @author acoburn
+ */
+public class IndexedResourceService implements ResourceService, Managed {
+
+    private static final Logger LOGGER = getLogger(IndexedResourceService.class);
+    private static final int LOCK_STRIPES = 64;
+
+    private final ResourceService service;
+    private final Map<String, String> indexFiles;
+    private final CompletionStage<?> following;
+    private final Map<String, ResourceIndex> indexes = new ConcurrentHashMap<>();
+    private final Set<String> ready = ConcurrentHashMap.newKeySet();
+    private final Striped<Lock> locks = Striped.lock(LOCK_STRIPES);
+    private final ExecutorService executor = newSingleThreadExecutor(r -> new Thread(r, "trellis-index-rebuild"));
+
+    /**
+     * Create an indexed resource service
+     * @param service the underlying resource service
+     * @param indexFiles the location of the index file for each indexed partition
+     * @param following a stage that completes once this node is following the event stream
+     */
+    public IndexedResourceService(final ResourceService service, final Map<String, String> indexFiles,
+            final CompletionStage<?> following) {
+        this.service = service;
+        this.indexFiles = indexFiles;
+        this.following = following;
+    }
+
+    @Override
+    public void start() throws IOException {
+        ready.clear();
+        for (final Map.Entry<String, String> entry : indexFiles.entrySet()) {
+            final ResourceIndex index = new ResourceIndex(Paths.get(entry.getValue()));
+            indexes.put(entry.getKey(), index);
+            following.thenRunAsync(() -> rebuild(entry.getKey(), index), executor);
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(30L, SECONDS);
+        ready.clear();
+        for (final ResourceIndex index : indexes.values()) {
+            index.close();
+        }
+        indexes.clear();
+    }
+
+    /**
+     * Mark a resource that was changed elsewhere as possibly present, with an unknown modification time
+     * @param identifier the resource identifier
+     */
+    public void invalidate(final IRI identifier) {
+        final ResourceIndex index = getIndex(identifier);
+        if (nonNull(index)) {
+            index.setPresent(identifier, null);
+        }
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier) {
+        final ResourceIndex index = getIndex(identifier);
+        if (nonNull(index) && ready.contains(getPartition(identifier))
+                && index.getState(identifier) == State.ABSENT) {
+            return empty();
+        }
+        final Optional<Resource> resource = service.get(identifier);
+        resource.ifPresent(res -> {
+            // This also backfills a resource that was created elsewhere while the index was not following events
+            if (nonNull(index)) {
+                index.setPresent(identifier, res.getModified());
+            }
+        });
+        return resource;
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier, final Instant time) {
+        return service.get(identifier, time);
+    }
+
+    @Override
+    public Boolean put(final IRI identifier, final Dataset dataset) {
+        final ResourceIndex index = getIndex(identifier);
+        if (isNull(index)) {
+            return service.put(identifier, dataset);
+        }
+        // Writes and purges of the same resource update the index in the order they were applied
+        final Lock lock = locks.get(identifier);
+        lock.lock();
+        try {
+            final Boolean result = service.put(identifier, dataset);
+            if (result) {
+                index.setPresent(identifier, now());
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<IRI> getContainer(final IRI identifier) {
+        return service.getContainer(identifier);
+    }
+
+    @Override
+    public Stream<IRI> compact(final IRI identifier, final Instant from, final Instant until) {
+        return service.compact(identifier, from, until);
+    }
+
+    @Override
+    public Stream<IRI> purge(final IRI identifier) {
+        final ResourceIndex index = getIndex(identifier);
+        if (isNull(index)) {
+            return service.purge(identifier);
+        }
+        final Lock lock = locks.get(identifier);
+        lock.lock();
+        try {
+            final Stream<IRI> result = service.purge(identifier);
+            index.setAbsent(identifier);
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Stream<? extends Triple> scan(final String partition) {
+        return service.scan(partition);
+    }
+
+    @Override
+    public RDFTerm skolemize(final RDFTerm term) {
+        return service.skolemize(term);
+    }
+
+    @Override
+    public RDFTerm unskolemize(final RDFTerm term) {
+        return service.unskolemize(term);
+    }
+
+    @Override
+    public <T extends RDFTerm> T toInternal(final T term, final String baseUrl) {
+        return service.toInternal(term, baseUrl);
+    }
+
+    @Override
+    public <T extends RDFTerm> T toExternal(final T term, final String baseUrl) {
+        return service.toExternal(term, baseUrl);
+    }
+
+    @Override
+    public Stream<? extends Quad> export(final String partition, final Collection<IRI> graphNames) {
+        return service.export(partition, graphNames);
+    }
+
+    @Override
+    public Supplier<String> getIdentifierSupplier() {
+        return service.getIdentifierSupplier();
+    }
+
+    private ResourceIndex getIndex(final IRI identifier) {
+        final String partition = getPartition(identifier);
+        return isNull(partition) ? null : indexes.get(partition);
+    }
+
+    private void rebuild(final String partition, final ResourceIndex index) {
+        LOGGER.info("Rebuilding the resource index for partition {}", partition);
+        try (final Stream<? extends Triple> triples = service.scan(partition)) {
+            final Iterator<IRI> identifiers = triples.map(Triple::getSubject).filter(IRI.class::isInstance)
+                .map(IRI.class::cast).iterator();
+            while (identifiers.hasNext()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    LOGGER.info("Interrupted while rebuilding the resource index for partition {}", partition);
+                    return;
+                }
+                index.markPresent(identifiers.next());
+            }
+        }
+        index.setComplete();
+        if (index.isFull()) {
+            LOGGER.warn("The resource index for partition {} is full; lookups will go to the store", partition);
+        }
+        ready.add(partition);
+        LOGGER.info("Rebuilt the resource index for partition {} with {} entries", partition, index.size());
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.delete;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.lines;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.Files.size;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Comparator.comparingLong;
+import static java.util.regex.Pattern.compile;
+import static java.util.regex.Pattern.quote;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.trellisldp.vocabulary.LDP;
+
+/**
+ * Compresses and expands the journal in a resource directory.
+ *
+ * <p>The journal holds the full history of a resource, and is only read to retrieve an earlier version of the
+ * resource or to change it; the current state of a resource is read from its separate cache. A compressed journal
+ * is written next to the original, under the codec's extension, and the original is removed once the compressed
+ * copy is in place. Expanding a journal reverses this, whichever codec was used, so that the resource store only
+ * ever sees an uncompressed journal.
+ *
+ * <p>The event processor appends containment and membership to a journal without taking any lock, so the journal
+ * of a container, or of a resource that a container names as its membership resource, is never compressed (see
+ * {@link #isContainer} and {@link #getMembershipResources}). A journal that becomes such a target once it has been
+ * compressed is expanded by the node that writes the container, before the processor can see the change. An
+ * uncompressed journal that already begins with the whole compressed history (e.g. one left behind by an
+ * interrupted run) is kept as it is.
+ *
+ * <p>Callers hold the lock from {@link #lock} while they compress or expand a journal, and while they write to a
+ * journal that they have just expanded, so that processes sharing the resource store do not overwrite each other's
+ * changes.
+ *
+ * @author acoburn
+ */
+public class JournalCompressor {
+
+    /** The name of the journal file in a resource directory */
+    public static final String JOURNAL = "resource.rdfp";
+
+    /** The name of the lock file in a resource directory */
+    public static final String LOCK = "journal.lock";
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final List<String> CONTAINER_TYPES = asList(LDP.Container, LDP.BasicContainer,
+            LDP.DirectContainer, LDP.IndirectContainer).stream().map(type -> "<" + type.getIRIString() + ">")
+        .collect(toList());
+    private static final Pattern MEMBERSHIP_RESOURCE = compile("<" + quote(LDP.membershipResource.getIRIString())
+            + ">\\s+<([^>]+)>");
+    private static final int MIN_TOKEN_LENGTH = 4;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Compression compression;
+    private final byte[] dictionary;
+
+    /**
+     * Create a journal compressor
+     * @param compression the codec used to compress journals
+     * @param dictionary the preset dictionary, or null
+     */
+    public JournalCompressor(final Compression compression, final byte[] dictionary) {
+        this.compression = compression;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Get the codec used to compress journals
+     * @return the codec
+     */
+    public Compression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Determine whether a resource directory holds a compressed journal
+     * @param directory the resource directory
+     * @return true if the journal is compressed; false otherwise
+     */
+    public static boolean isCompressed(final Path directory) {
+        for (final Compression codec : Compression.values()) {
+            if (codec != Compression.NONE && exists(directory.resolve(JOURNAL + codec.getExtension()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determine whether the journal in a resource directory has ever described a container
+     * @param directory the resource directory
+     * @return true if the uncompressed journal names one of the LDP container types; false otherwise
+     * @throws IOException if the journal could not be read
+     */
+    public static boolean isContainer(final Path directory) throws IOException {
+        final Path journal = directory.resolve(JOURNAL);
+        if (!exists(journal)) {
+            return false;
+        }
+        try (final Stream<String> lines = lines(journal, UTF_8)) {
+            return lines.anyMatch(line -> CONTAINER_TYPES.stream().anyMatch(line::contains));
+        }
+    }
+
+    /**
+     * Find the membership resources named in the journal in a resource directory
+     * @param directory the resource directory
+     * @return the internal identifiers of any membership resources, in the uncompressed journal
+     * @throws IOException if the journal could not be read
+     */
+    public static Set<String> getMembershipResources(final Path directory) throws IOException {
+        final Path journal = directory.resolve(JOURNAL);
+        if (!exists(journal)) {
+            return emptySet();
+        }
+        try (final Stream<String> lines = lines(journal, UTF_8)) {
+            return lines.map(MEMBERSHIP_RESOURCE::matcher).filter(Matcher::find).map(matcher -> matcher.group(1))
+                .collect(toSet());
+        }
+    }
+
+    /**
+     * Lock the journal in a resource directory against changes by other processes.
+     *
+     * <p>The lock is held by the process, not by the calling thread: threads within a process must also
+     * coordinate among themselves.
+     *
+     * @param directory the resource directory
+     * @return the lock, which is released when it is closed
+     * @throws IOException if the lock could not be acquired
+     */
+    public static Closeable lock(final Path directory) throws IOException {
+        final FileChannel channel = FileChannel.open(directory.resolve(LOCK), CREATE, WRITE);
+        try {
+            final FileLock lock = channel.lock();
+            return () -> {
+                try {
+                    lock.release();
+                } finally {
+                    channel.close();
+                }
+            };
+        } catch (final IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Compress the journal in a resource directory
+     * @param directory the resource directory
+     * @return true if the journal was compressed; false if there was nothing to compress
+     * @throws IOException if the journal could not be compressed
+     */
+    public boolean compress(final Path directory) throws IOException {
+        final Path journal = directory.resolve(JOURNAL);
+        if (compression == Compression.NONE || !exists(journal)) {
+            return false;
+        }
+        // Fold any earlier compressed history into the journal first
+        expand(directory);
+        final Path target = directory.resolve(JOURNAL + compression.getExtension());
+        final Path temporary = directory.resolve(target.getFileName() + TEMPORARY_SUFFIX);
+        try (final InputStream input = newInputStream(journal);
+                final OutputStream output = compression.compress(newOutputStream(temporary), dictionary)) {
+            copy(input, output);
+        }
+        move(temporary, target, ATOMIC_MOVE);
+        delete(journal);
+        return true;
+    }
+
+    /**
+     * Expand the journal in a resource directory, if it is compressed
+     * @param directory the resource directory
+     * @return true if the journal was expanded; false if it was not compressed
+     * @throws IOException if the journal could not be expanded
+     */
+    public boolean expand(final Path directory) throws IOException {
+        final Path journal = directory.resolve(JOURNAL);
+        for (final Compression codec : Compression.values()) {
+            final Path source = directory.resolve(JOURNAL + codec.getExtension());
+            if (codec != Compression.NONE && exists(source)) {
+                if (exists(journal) && startsWith(journal, codec, source)) {
+                    // The uncompressed journal already holds the whole history
+                    deleteIfExists(source);
+                    return true;
+                }
+                final Path temporary = createTempFile(directory, JOURNAL, TEMPORARY_SUFFIX);
+                try {
+                    long offset = 0L;
+                    try (final OutputStream output = newOutputStream(temporary);
+                            final InputStream input = codec.decompress(newInputStream(source), dictionary)) {
+                        copy(input, output);
+                        offset = append(journal, offset, output);
+                    } catch (final NoSuchFileException ex) {
+                        if (!exists(source)) {
+                            return false;
+                        }
+                        throw ex;
+                    }
+                    // Keep any lines already in an uncompressed journal, after the compressed history
+                    while (exists(journal) && size(journal) > offset) {
+                        try (final OutputStream output = newOutputStream(temporary, APPEND)) {
+                            offset = append(journal, offset, output);
+                        }
+                    }
+                    move(temporary, journal, ATOMIC_MOVE, REPLACE_EXISTING);
+                } finally {
+                    deleteIfExists(temporary);
+                }
+                deleteIfExists(source);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build a preset dictionary from a sample of journals.
+     *
+     * <p>The dictionary holds the tokens (IRIs, literals and keywords) that save the most space across the
+     * sample, with the most valuable tokens last, where they are cheapest to refer to.
+     *
+     * @param journals the sample journals
+     * @param size the maximum size of the dictionary, in bytes
+     * @return the dictionary
+     * @throws IOException if a journal could not be read
+     */
+    public static byte[] train(final Collection<Path> journals, final int size) throws IOException {
+        final Map<String, Long> savings = new HashMap<>();
+        for (final Path journal : journals) {
+            try (final Stream<String> lines = lines(journal, UTF_8)) {
+                lines.flatMap(line -> Stream.of(line.split("\\s+")))
+                    .filter(token -> token.length() >= MIN_TOKEN_LENGTH)
+                    .forEach(token -> savings.merge(token, token.length() + 1L, Long::sum));
+            }
+        }
+        final List<String> ranked = savings.entrySet().stream()
+            .filter(e -> e.getValue() > e.getKey().length() + 1L)
+            .sorted(comparingLong(Map.Entry<String, Long>::getValue).reversed())
+            .map(Map.Entry::getKey).collect(toList());
+
+        final Deque<byte[]> tokens = new ArrayDeque<>();
+        int length = 0;
+        for (final String token : ranked) {
+            final byte[] bytes = (token + " ").getBytes(UTF_8);
+            if (length + bytes.length > size) {
+                break;
+            }
+            tokens.addFirst(bytes);
+            length += bytes.length;
+        }
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(length);
+        for (final byte[] token : tokens) {
+            output.write(token, 0, token.length);
+        }
+        return output.toByteArray();
+    }
+
+    private static void copy(final InputStream input, final OutputStream output) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = input.read(buffer)) >= 0) {
+            output.write(buffer, 0, read);
+        }
+    }
+
+    private boolean startsWith(final Path journal, final Compression codec, final Path source) throws IOException {
+        try (final InputStream history = new BufferedInputStream(codec.decompress(newInputStream(source),
+                        dictionary));
+                final InputStream plain = new BufferedInputStream(newInputStream(journal))) {
+            int expected;
+            while ((expected = history.read()) >= 0) {
+                if (expected != plain.read()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static long append(final Path journal, final long offset, final OutputStream output)
+            throws IOException {
+        try (final InputStream input = newInputStream(journal)) {
+            long skipped = 0L;
+            while (skipped < offset) {
+                final long n = input.skip(offset - skipped);
+                if (n <= 0) {
+                    return offset;
+                }
+                skipped += n;
+            }
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            long position = offset;
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                output.write(buffer, 0, read);
+                position += read;
+            }
+            return position;
+        } catch (final NoSuchFileException ex) {
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.move;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.nonNull;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.apache.commons.codec.digest.DigestUtils.md5;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * A persistent, memory-mapped index of the resources in a partition.
+ *
+ * <p>The index is an open-addressing hash table, keyed by the MD5 digest of each identifier, that records
+ * whether a resource exists and when it was last modified. Lookups touch only the mapped file, so they need no
+ * directory traversal in the resource store.
+ *
+ * <p>The index is marked as open while it is in use. An index that was not closed cleanly (or that has an
+ * unrecognized format) is cleared when it is opened and must be rebuilt before it is marked as complete. Until
+ * then, a resource that is not in the index is {@link State#UNKNOWN}.
+ *
+ * <p>Once the index is complete, the entries for absent resources are dropped whenever the table is resized. An
+ * index that cannot grow any further stops adding entries and is marked as incomplete, so that resources that it
+ * does not hold are {@link State#UNKNOWN} rather than absent; entries that it already holds are still updated.
+ *
+ * @author acoburn
+ */
+public class ResourceIndex implements Closeable {
+
+    /**
+     * The state of a resource, according to the index
+     */
+    public enum State {
+        PRESENT, ABSENT, UNKNOWN
+    }
+
+    private static final int MAGIC = 0x54524958;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 32;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final int MAX_CAPACITY = 1 << 25;
+    private static final double LOAD_FACTOR = 0.7;
+
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 12;
+    private static final int FLAGS_OFFSET = 16;
+    private static final byte FLAG_COMPLETE = 1;
+    private static final byte FLAG_OPEN = 2;
+
+    private static final int MODIFIED_OFFSET = 16;
+    private static final int STATE_OFFSET = 24;
+    private static final byte EMPTY = 0;
+    private static final byte PRESENT = 1;
+    private static final byte ABSENT = 2;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Path file;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private final int maxCapacity;
+    private int capacity;
+    private int size;
+    private boolean full;
+
+    /**
+     * Open (or create) a resource index
+     * @param file the index file
+     * @throws IOException if the index could not be opened
+     */
+    public ResourceIndex(final Path file) throws IOException {
+        this(file, MAX_CAPACITY);
+    }
+
+    /**
+     * Open (or create) a resource index with a limited capacity
+     * @param file the index file
+     * @param maxCapacity the maximum number of slots in the index
+     * @throws IOException if the index could not be opened
+     */
+    ResourceIndex(final Path file, final int maxCapacity) throws IOException {
+        this.file = file;
+        this.maxCapacity = maxCapacity;
+        map(FileChannel.open(file, CREATE, READ, WRITE), INITIAL_CAPACITY);
+        if (buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION && (buffer.get(FLAGS_OFFSET) & FLAG_OPEN) == 0) {
+            final int stored = buffer.getInt(CAPACITY_OFFSET);
+            if (stored != capacity) {
+                map(channel, stored);
+            }
+            size = buffer.getInt(SIZE_OFFSET);
+        } else {
+            reset();
+        }
+        setFlag(FLAG_OPEN, true);
+        buffer.force();
+    }
+
+    /**
+     * Check whether the index holds every resource in the partition
+     * @return true if the index is complete; false otherwise
+     */
+    public Boolean isComplete() {
+        return withLock(lock.readLock(), () -> (buffer.get(FLAGS_OFFSET) & FLAG_COMPLETE) != 0);
+    }
+
+    /**
+     * Mark the index as holding every resource in the partition, unless it is full
+     */
+    public void setComplete() {
+        withLock(lock.writeLock(), () -> {
+            buffer.force();
+            setFlag(FLAG_COMPLETE, !full);
+            return null;
+        });
+    }
+
+    /**
+     * Check whether the index has stopped adding entries because it cannot grow any further
+     * @return true if the index is full; false otherwise
+     */
+    public Boolean isFull() {
+        return withLock(lock.readLock(), () -> full);
+    }
+
+    /**
+     * Remove every entry from the index and mark it as incomplete
+     */
+    public void clear() {
+        withLock(lock.writeLock(), () -> {
+            reset();
+            full = false;
+            setFlag(FLAG_OPEN, true);
+            return null;
+        });
+    }
+
+    /**
+     * Get the number of entries in the index, including absent resources
+     * @return the number of entries
+     */
+    public int size() {
+        return withLock(lock.readLock(), () -> size);
+    }
+
+    /**
+     * Get the state of a resource
+     * @param identifier the resource identifier
+     * @return the state of the resource
+     */
+    public State getState(final IRI identifier) {
+        final byte[] key = md5(identifier.getIRIString());
+        return withLock(lock.readLock(), () -> {
+            final int slot = find(key);
+            final byte state = buffer.get(slot + STATE_OFFSET);
+            if (state == PRESENT) {
+                return State.PRESENT;
+            } else if (state == ABSENT || (buffer.get(FLAGS_OFFSET) & FLAG_COMPLETE) != 0) {
+                return State.ABSENT;
+            }
+            return State.UNKNOWN;
+        });
+    }
+
+    /**
+     * Get the last-modified time of a resource, if it is known
+     * @param identifier the resource identifier
+     * @return the last-modified time, if the resource is present and its modification time is known
+     */
+    public Optional<Instant> getModified(final IRI identifier) {
+        final byte[] key = md5(identifier.getIRIString());
+        return withLock(lock.readLock(), () -> {
+            final int slot = find(key);
+            final long modified = buffer.getLong(slot + MODIFIED_OFFSET);
+            return buffer.get(slot + STATE_OFFSET) == PRESENT && modified > 0 ? of(Instant.ofEpochMilli(modified))
+                : empty();
+        });
+    }
+
+    /**
+     * Record that a resource exists
+     * @param identifier the resource identifier
+     * @param modified the last-modified time of the resource, or null if it is not known
+     */
+    public void setPresent(final IRI identifier, final Instant modified) {
+        set(identifier, PRESENT, nonNull(modified) ? modified.toEpochMilli() : 0L, true);
+    }
+
+    /**
+     * Record that a resource exists, keeping its last-modified time if it is already known to be present
+     * @param identifier the resource identifier
+     */
+    public void markPresent(final IRI identifier) {
+        set(identifier, PRESENT, 0L, false);
+    }
+
+    /**
+     * Record that a resource does not exist
+     * @param identifier the resource identifier
+     */
+    public void setAbsent(final IRI identifier) {
+        set(identifier, ABSENT, 0L, true);
+    }
+
+    /**
+     * Flush the index to disk and mark it as closed cleanly
+     */
+    @Override
+    public void close() throws IOException {
+        withLock(lock.writeLock(), () -> {
+            buffer.force();
+            setFlag(FLAG_OPEN, false);
+            buffer.force();
+            return null;
+        });
+        channel.close();
+    }
+
+    private void set(final IRI identifier, final byte state, final long modified, final boolean replace) {
+        final byte[] key = md5(identifier.getIRIString());
+        withLock(lock.writeLock(), () -> {
+            int slot = find(key);
+            final byte current = buffer.get(slot + STATE_OFFSET);
+            if (current == EMPTY) {
+                if (size + 1 > capacity * LOAD_FACTOR) {
+                    if (!grow()) {
+                        return null;
+                    }
+                    slot = find(key);
+                }
+                buffer.position(slot);
+                buffer.put(key);
+                size += 1;
+                buffer.putInt(SIZE_OFFSET, size);
+            } else if (!replace && current == PRESENT) {
+                return null;
+            }
+            buffer.putLong(slot + MODIFIED_OFFSET, modified);
+            buffer.put(slot + STATE_OFFSET, state);
+            return null;
+        });
+    }
+
+    private int find(final byte[] key) {
+        final ByteBuffer wrapped = ByteBuffer.wrap(key);
+        final long hi = wrapped.getLong();
+        final long lo = wrapped.getLong();
+        int index = (int) (lo & (capacity - 1));
+        while (true) {
+            final int slot = HEADER_SIZE + index * SLOT_SIZE;
+            if (buffer.get(slot + STATE_OFFSET) == EMPTY
+                    || (buffer.getLong(slot) == hi && buffer.getLong(slot + 8) == lo)) {
+                return slot;
+            }
+            index = (index + 1) & (capacity - 1);
+        }
+    }
+
+    private boolean grow() {
+        // Entries for absent resources are only needed while the index is incomplete
+        final boolean reclaim = (buffer.get(FLAGS_OFFSET) & FLAG_COMPLETE) != 0;
+        final int live = reclaim ? count(PRESENT) : size;
+        int newCapacity = live < size && (live + 1) * 2 <= capacity * LOAD_FACTOR ? capacity : capacity * 2;
+        while (live + 1 > newCapacity * LOAD_FACTOR) {
+            newCapacity *= 2;
+        }
+        if (newCapacity > maxCapacity) {
+            full = true;
+            setFlag(FLAG_COMPLETE, false);
+            return false;
+        }
+        resize(newCapacity, reclaim);
+        return true;
+    }
+
+    private int count(final byte state) {
+        int count = 0;
+        for (int i = 0; i < capacity; ++i) {
+            if (buffer.get(HEADER_SIZE + i * SLOT_SIZE + STATE_OFFSET) == state) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    private void resize(final int newCapacity, final boolean reclaim) {
+        final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            deleteIfExists(temporary);
+            final FileChannel tmpChannel = FileChannel.open(temporary, CREATE, READ, WRITE);
+            final MappedByteBuffer tmpBuffer = tmpChannel.map(READ_WRITE, 0,
+                    HEADER_SIZE + (long) newCapacity * SLOT_SIZE);
+            for (int i = 0; i < HEADER_SIZE; ++i) {
+                tmpBuffer.put(i, buffer.get(i));
+            }
+            tmpBuffer.putInt(CAPACITY_OFFSET, newCapacity);
+            final byte[] slotData = new byte[SLOT_SIZE];
+            int newSize = 0;
+            for (int i = 0; i < capacity; ++i) {
+                final int slot = HEADER_SIZE + i * SLOT_SIZE;
+                final byte state = buffer.get(slot + STATE_OFFSET);
+                if (state == PRESENT || (state == ABSENT && !reclaim)) {
+                    newSize += 1;
+                    buffer.position(slot);
+                    buffer.get(slotData);
+                    int index = (int) (ByteBuffer.wrap(slotData, 8, 8).getLong() & (newCapacity - 1));
+                    while (tmpBuffer.get(HEADER_SIZE + index * SLOT_SIZE + STATE_OFFSET) != EMPTY) {
+                        index = (index + 1) & (newCapacity - 1);
+                    }
+                    tmpBuffer.position(HEADER_SIZE + index * SLOT_SIZE);
+                    tmpBuffer.put(slotData);
+                }
+            }
+            tmpBuffer.putInt(SIZE_OFFSET, newSize);
+            tmpBuffer.force();
+            tmpChannel.close();
+            channel.close();
+            move(temporary, file, ATOMIC_MOVE, REPLACE_EXISTING);
+            map(FileChannel.open(file, READ, WRITE), newCapacity);
+            size = newSize;
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void reset() {
+        final byte[] zeros = new byte[SLOT_SIZE];
+        buffer.position(HEADER_SIZE);
+        for (int i = 0; i < capacity; ++i) {
+            buffer.put(zeros);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(SIZE_OFFSET, 0);
+        buffer.put(FLAGS_OFFSET, (byte) 0);
+        size = 0;
+    }
+
+    private void map(final FileChannel fileChannel, final int newCapacity) throws IOException {
+        this.channel = fileChannel;
+        this.capacity = newCapacity;
+        this.buffer = fileChannel.map(READ_WRITE, 0, HEADER_SIZE + (long) newCapacity * SLOT_SIZE);
+    }
+
+    private void setFlag(final byte flag, final boolean value) {
+        final byte flags = buffer.get(FLAGS_OFFSET);
+        buffer.put(FLAGS_OFFSET, (byte) (value ? flags | flag : flags & ~flag));
+    }
+
+    private static <T> T withLock(final Lock lock, final Supplier<T> supplier) {
+        lock.lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.isDirectory;
+import static java.nio.file.Files.walk;
+import static java.util.Objects.isNull;
+import static java.util.Optional.empty;
+import static java.util.Optional.ofNullable;
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
+import static org.trellisldp.app.storage.StorageUtils.getPartition;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * Locates the directory in which the file-based resource store keeps a resource.
+ *
+ * <p>A resource directory is named after the MD5 hash of the resource identifier and is nested beneath up to three
+ * intermediate directories, taken two characters at a time from the hexadecimal CRC32 checksum of the resource
+ * identifier. It lies on the volume (the resource path) of the resource's partition.
+ *
+ * @author acoburn
+ */
+public class ResourceLayout {
+
+    private static final Pattern RESOURCE_DIRECTORY = Pattern.compile("[0-9a-f]{32}");
+    private static final int LENGTH = 2;
+    private static final int MAX = 3;
+
+    private final Map<String, Path> volumes = new HashMap<>();
+
+    /**
+     * Create a resource layout
+     * @param volumes the resource path of each partition
+     */
+    public ResourceLayout(final Map<String, String> volumes) {
+        volumes.forEach((partition, path) -> this.volumes.put(partition, Paths.get(path)));
+    }
+
+    /**
+     * Get the directory of a resource
+     * @param identifier the resource identifier
+     * @return the directory, if the resource belongs to a known partition
+     */
+    public Optional<Path> getDirectory(final IRI identifier) {
+        return getVolume(identifier).map(volume -> volume.resolve(getRelativePath(identifier)));
+    }
+
+    /**
+     * Get the volume that holds a resource
+     * @param identifier the resource identifier
+     * @return the volume, if the resource belongs to a known partition
+     */
+    public Optional<Path> getVolume(final IRI identifier) {
+        final String partition = getPartition(identifier);
+        return isNull(partition) ? empty() : ofNullable(volumes.get(partition));
+    }
+
+    /**
+     * Get the location of a resource directory, relative to its volume
+     * @param identifier the resource identifier
+     * @return the relative path
+     */
+    public static String getRelativePath(final IRI identifier) {
+        final CRC32 hasher = new CRC32();
+        hasher.update(identifier.getIRIString().getBytes(UTF_8));
+        final String intermediate = Long.toHexString(hasher.getValue());
+        final StringBuilder path = new StringBuilder();
+        for (int i = 0; i < MAX && (i + 1) * LENGTH <= intermediate.length(); ++i) {
+            path.append(intermediate, i * LENGTH, (i + 1) * LENGTH).append('/');
+        }
+        return path.append(md5Hex(identifier.getIRIString())).toString();
+    }
+
+    /**
+     * List the resource directories on a volume
+     * @param volume the volume path
+     * @return the resource directories; the stream must be closed
+     * @throws IOException if the volume could not be read
+     */
+    public static Stream<Path> list(final Path volume) throws IOException {
+        if (!isDirectory(volume)) {
+            return Stream.empty();
+        }
+        return walk(volume).filter(path -> isDirectory(path))
+            .filter(path -> RESOURCE_DIRECTORY.matcher(path.getFileName().toString()).matches());
+    }
+}
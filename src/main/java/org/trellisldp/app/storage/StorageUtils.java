@@ -0,0 +1,45 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static org.trellisldp.api.RDFUtils.TRELLIS_PREFIX;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * Utilities for the storage layer.
+ *
+ * @author acoburn
+ */
+final class StorageUtils {
+
+    /**
+     * Get the partition of a resource
+     * @param identifier the resource identifier
+     * @return the partition name, or null if the identifier is not a Trellis identifier
+     */
+    static String getPartition(final IRI identifier) {
+        final String iri = identifier.getIRIString();
+        if (!iri.startsWith(TRELLIS_PREFIX)) {
+            return null;
+        }
+        final String path = iri.substring(TRELLIS_PREFIX.length());
+        final int idx = path.indexOf('/');
+        return idx < 0 ? path : path.substring(0, idx);
+    }
+
+    private StorageUtils() {
+        // prevent instantiation
+    }
+}
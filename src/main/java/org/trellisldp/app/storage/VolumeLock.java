@@ -0,0 +1,109 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.isNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import io.dropwizard.lifecycle.Managed;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.slf4j.Logger;
+
+/**
+ * Locks the volumes of the resource store, so that offline maintenance does not run alongside a live node.
+ *
+ * <p>Each running node holds a shared lock on {@code trellis.lock} in the volume of every partition that can be
+ * maintained (one with compression or compaction configured); a maintenance command (such as {@code compress}) takes
+ * an exclusive lock, and refuses to run while any node holds the shared lock. The external
+ * event processor does not take this lock, and must be stopped separately.
+ *
+ * @author acoburn
+ */
+public class VolumeLock implements Managed, AutoCloseable {
+
+    private static final Logger LOGGER = getLogger(VolumeLock.class);
+
+    /** The name of the lock file in a volume */
+    public static final String LOCK = "trellis.lock";
+
+    private final Collection<Path> volumes;
+    private final boolean shared;
+    private final List<FileChannel> channels = new ArrayList<>();
+
+    /**
+     * Create a volume lock
+     * @param volumes the volumes
+     * @param shared true for the shared lock held by a running node; false for an exclusive lock
+     */
+    public VolumeLock(final Collection<Path> volumes, final boolean shared) {
+        this.volumes = volumes;
+        this.shared = shared;
+    }
+
+    /**
+     * Acquire the lock on every volume, without waiting
+     * @throws IOException if a lock file could not be opened
+     * @throws IllegalStateException if a volume is locked by another process
+     */
+    public synchronized void acquire() throws IOException {
+        for (final Path volume : volumes) {
+            final FileChannel channel = FileChannel.open(volume.resolve(LOCK), CREATE, READ, WRITE);
+            channels.add(channel);
+            if (isNull(tryLock(channel))) {
+                close();
+                throw new IllegalStateException("The volume " + volume + " is in use by another process");
+            }
+            LOGGER.debug("Locked volume {}", volume);
+        }
+    }
+
+    private FileLock tryLock(final FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock(0L, Long.MAX_VALUE, shared);
+        } catch (final OverlappingFileLockException ex) {
+            // Already locked within this process
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (final FileChannel channel : channels) {
+            channel.close();
+        }
+        channels.clear();
+    }
+
+    @Override
+    public void start() throws IOException {
+        acquire();
+    }
+
+    @Override
+    public void stop() throws IOException {
+        close();
+    }
+}
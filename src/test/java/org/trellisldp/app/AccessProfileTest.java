@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app;
+
+import static java.nio.file.Files.createTempDirectory;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.nio.file.Path;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class AccessProfileTest {
+
+    private static final RDF rdf = getInstance();
+    private static final IRI ROOT = rdf.createIRI("trellis:repository");
+    private static final IRI RESOURCE = rdf.createIRI("trellis:repository/resource");
+    private static final IRI OTHER = rdf.createIRI("trellis:repository/other");
+
+    @Test
+    public void testIdentifiers() {
+        final AccessProfile profile = new AccessProfile(2);
+        profile.record(OTHER);
+        profile.record(RESOURCE);
+        profile.record(RESOURCE);
+        profile.record(ROOT);
+        profile.record(ROOT);
+        profile.record(ROOT);
+        assertEquals(asList(ROOT, RESOURCE), profile.getIdentifiers());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        final Path file = createTempDirectory("trellis-warmup").resolve("profile").resolve("warmup.profile");
+        final AccessProfile profile = new AccessProfile(10);
+        profile.record(OTHER);
+        profile.record(RESOURCE);
+        profile.record(RESOURCE);
+        profile.save(file);
+        assertEquals(asList(RESOURCE, OTHER), AccessProfile.load(file));
+
+        // Counts are halved on save, so a resource seen only once drops out
+        profile.save(file);
+        assertEquals(asList(RESOURCE), AccessProfile.load(file));
+    }
+
+    @Test
+    public void testLoadMissing() throws Exception {
+        final Path file = createTempDirectory("trellis-warmup").resolve("warmup.profile");
+        assertTrue(AccessProfile.load(file).isEmpty());
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app;
+
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.exists;
+import static java.util.Arrays.asList;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.nio.file.Path;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.AccessControlService;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.api.Session;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class CacheWarmerTest {
+
+    private static final RDF rdf = getInstance();
+    private static final IRI RESOURCE = rdf.createIRI("trellis:repository/resource");
+    private static final IRI MISSING = rdf.createIRI("trellis:repository/missing");
+
+    private final ScheduledExecutorService executor = newSingleThreadScheduledExecutor();
+
+    private Path file;
+
+    @Mock
+    private ResourceService mockResourceService;
+
+    @Mock
+    private AccessControlService mockAccessService;
+
+    @Mock
+    private Resource mockResource;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        initMocks(this);
+        when(mockResourceService.get(RESOURCE)).thenReturn(of(mockResource));
+        when(mockResourceService.get(MISSING)).thenReturn(empty());
+        file = createTempDirectory("trellis-warmup").resolve("warmup.profile");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testWarmup() throws Exception {
+        final AccessProfile saved = new AccessProfile(10);
+        saved.record(RESOURCE);
+        saved.record(RESOURCE);
+        saved.record(MISSING);
+        saved.save(file);
+
+        final CacheWarmer warmer = new CacheWarmer(mockResourceService, mockAccessService, new AccessProfile(10),
+                file, 1000, 300L, 300L, executor);
+        assertFalse(warmer.isReady());
+        warmer.start();
+        awaitCompletion(warmer);
+
+        assertTrue(warmer.isReady());
+        assertEquals((Integer) 2, warmer.getTotal());
+        assertEquals((Integer) 2, warmer.getWarmed());
+        verify(mockResourceService).get(RESOURCE);
+        verify(mockResourceService).get(MISSING);
+        verify(mockAccessService).getAccessModes(eq(RESOURCE), any(Session.class));
+        verify(mockAccessService, never()).getAccessModes(eq(MISSING), any(Session.class));
+
+        // The loaded profile is carried forward into the next save
+        warmer.stop();
+        assertEquals(2L, AccessProfile.load(file).size());
+    }
+
+    @Test
+    public void testAnonymousSession() throws Exception {
+        final AccessProfile saved = new AccessProfile(10);
+        saved.record(RESOURCE);
+        saved.save(file);
+
+        final CacheWarmer warmer = new CacheWarmer(mockResourceService, mockAccessService, new AccessProfile(10),
+                file, 1000, 300L, 300L, executor);
+        when(mockAccessService.getAccessModes(eq(RESOURCE), any(Session.class))).thenAnswer(inv -> {
+            assertEquals(Trellis.AnonymousUser, inv.<Session>getArgument(1).getAgent());
+            return null;
+        });
+        warmer.start();
+        awaitCompletion(warmer);
+        verify(mockAccessService).getAccessModes(eq(RESOURCE), any(Session.class));
+    }
+
+    @Test
+    public void testNoProfile() throws Exception {
+        final AccessProfile profile = new AccessProfile(10);
+        final CacheWarmer warmer = new CacheWarmer(mockResourceService, mockAccessService, profile, file, 1000,
+                300L, 300L, executor);
+        warmer.start();
+        awaitCompletion(warmer);
+        assertEquals((Integer) 0, warmer.getTotal());
+        verify(mockResourceService, never()).get(any(IRI.class));
+
+        profile.record(RESOURCE);
+        warmer.stop();
+        assertTrue(exists(file));
+        assertEquals(asList(RESOURCE), AccessProfile.load(file));
+    }
+
+    @Test
+    public void testMaxWait() throws Exception {
+        final CacheWarmer warmer = new CacheWarmer(mockResourceService, mockAccessService, new AccessProfile(10),
+                file, 1000, 300L, 0L, executor);
+        // Occupy the executor, so that warm-up cannot finish
+        executor.execute(() -> {
+            try {
+                Thread.sleep(1000L);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertFalse(warmer.isReady());
+        warmer.start();
+        assertFalse(warmer.isComplete());
+        assertTrue(warmer.isReady());
+    }
+
+    private static void awaitCompletion(final CacheWarmer warmer) throws InterruptedException {
+        for (int i = 0; i < 100 && !warmer.isComplete(); ++i) {
+            Thread.sleep(50L);
+        }
+        assertTrue(warmer.isComplete());
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app;
+
+import static java.util.Collections.singleton;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.AccessControlService;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.api.Session;
+import org.trellisldp.vocabulary.ACL;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class CachedAccessControlServiceTest {
+
+    private static final RDF rdf = getInstance();
+    private static final IRI ROOT = rdf.createIRI("trellis:repository");
+    private static final IRI CHILD = rdf.createIRI("trellis:repository/a");
+    private static final IRI GRANDCHILD = rdf.createIRI("trellis:repository/a/b");
+    private static final IRI OTHER = rdf.createIRI("trellis:repository/c");
+    private static final IRI AGENT = rdf.createIRI("https://example.org/agent");
+    private static final IRI OTHER_AGENT = rdf.createIRI("https://example.org/other");
+
+    @Mock
+    private AccessControlService mockAccessService;
+
+    @Mock
+    private ResourceService mockResourceService;
+
+    @Mock
+    private Resource mockRoot, mockChild, mockGrandchild, mockOther;
+
+    @Mock
+    private Session mockSession, mockOtherSession;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        when(mockRoot.hasAcl()).thenReturn(true);
+        when(mockChild.hasAcl()).thenReturn(false);
+        when(mockGrandchild.hasAcl()).thenReturn(false);
+        when(mockOther.hasAcl()).thenReturn(true);
+        when(mockResourceService.get(ROOT)).thenAnswer(inv -> of(mockRoot));
+        when(mockResourceService.get(CHILD)).thenAnswer(inv -> of(mockChild));
+        when(mockResourceService.get(GRANDCHILD)).thenAnswer(inv -> of(mockGrandchild));
+        when(mockResourceService.get(OTHER)).thenAnswer(inv -> of(mockOther));
+        when(mockResourceService.getContainer(ROOT)).thenReturn(empty());
+        when(mockResourceService.getContainer(CHILD)).thenReturn(of(ROOT));
+        when(mockResourceService.getContainer(GRANDCHILD)).thenReturn(of(CHILD));
+        when(mockResourceService.getContainer(OTHER)).thenReturn(of(ROOT));
+        when(mockSession.getAgent()).thenReturn(AGENT);
+        when(mockSession.getDelegatedBy()).thenReturn(empty());
+        when(mockOtherSession.getAgent()).thenReturn(OTHER_AGENT);
+        when(mockOtherSession.getDelegatedBy()).thenReturn(empty());
+        when(mockAccessService.getAccessModes(any(IRI.class), eq(mockSession))).thenReturn(singleton(ACL.Read));
+        when(mockAccessService.getAccessModes(any(IRI.class), eq(mockOtherSession)))
+            .thenReturn(singleton(ACL.Write));
+    }
+
+    @Test
+    public void testInheritedDecisions() {
+        final CachedAccessControlService svc = new CachedAccessControlService(mockAccessService,
+                mockResourceService, 100L, 60L);
+        assertEquals(singleton(ACL.Read), svc.getAccessModes(GRANDCHILD, mockSession));
+        assertEquals(singleton(ACL.Read), svc.getAccessModes(CHILD, mockSession));
+        assertEquals(singleton(ACL.Read), svc.getAccessModes(GRANDCHILD, mockSession));
+        assertEquals(singleton(ACL.Write), svc.getAccessModes(CHILD, mockOtherSession));
+
+        // Both resources inherit from the root ACL, so they share a decision for each agent
+        verify(mockAccessService, times(1)).getAccessModes(GRANDCHILD, mockSession);
+        verify(mockAccessService, times(0)).getAccessModes(CHILD, mockSession);
+        verify(mockAccessService, times(1)).getAccessModes(CHILD, mockOtherSession);
+        verify(mockResourceService, times(1)).get(ROOT);
+        verify(mockResourceService, times(1)).get(CHILD);
+    }
+
+    @Test
+    public void testDirectDecisions() {
+        final CachedAccessControlService svc = new CachedAccessControlService(mockAccessService,
+                mockResourceService, 100L, 60L);
+        svc.getAccessModes(ROOT, mockSession);
+        svc.getAccessModes(CHILD, mockSession);
+        svc.getAccessModes(OTHER, mockSession);
+        svc.getAccessModes(ROOT, mockSession);
+        svc.getAccessModes(OTHER, mockSession);
+
+        verify(mockAccessService, times(1)).getAccessModes(ROOT, mockSession);
+        verify(mockAccessService, times(1)).getAccessModes(CHILD, mockSession);
+        verify(mockAccessService, times(1)).getAccessModes(OTHER, mockSession);
+    }
+
+    @Test
+    public void testInvalidateAncestor() {
+        final CachedAccessControlService svc = new CachedAccessControlService(mockAccessService,
+                mockResourceService, 100L, 60L);
+        svc.getAccessModes(GRANDCHILD, mockSession);
+        svc.getAccessModes(OTHER, mockSession);
+
+        // An ACL is added to the intermediate container
+        when(mockChild.hasAcl()).thenReturn(true);
+        svc.invalidate(CHILD);
+        svc.getAccessModes(GRANDCHILD, mockSession);
+        svc.getAccessModes(OTHER, mockSession);
+
+        verify(mockAccessService, times(2)).getAccessModes(GRANDCHILD, mockSession);
+        verify(mockAccessService, times(1)).getAccessModes(OTHER, mockSession);
+        verify(mockResourceService, times(1)).get(ROOT);
+        verify(mockResourceService, times(2)).get(CHILD);
+    }
+
+    @Test
+    public void testInvalidateAcl() {
+        final CachedAccessControlService svc = new CachedAccessControlService(mockAccessService,
+                mockResourceService, 100L, 60L);
+        svc.getAccessModes(GRANDCHILD, mockSession);
+        svc.getAccessModes(OTHER, mockSession);
+
+        svc.invalidate(ROOT);
+        svc.getAccessModes(GRANDCHILD, mockSession);
+        svc.getAccessModes(OTHER, mockSession);
+
+        // The other resource has its own ACL, so its decision does not depend on the root
+        verify(mockAccessService, times(2)).getAccessModes(GRANDCHILD, mockSession);
+        verify(mockAccessService, times(1)).getAccessModes(OTHER, mockSession);
+    }
+
+    @Test
+    public void testInvalidateSibling() {
+        final CachedAccessControlService svc = new CachedAccessControlService(mockAccessService,
+                mockResourceService, 100L, 60L);
+        svc.getAccessModes(GRANDCHILD, mockSession);
+        svc.getAccessModes(OTHER, mockSession);
+
+        svc.invalidate(rdf.createIRI("trellis:repository/a/bc"));
+        svc.invalidate(OTHER);
+        svc.getAccessModes(GRANDCHILD, mockSession);
+        svc.getAccessModes(OTHER, mockSession);
+
+        verify(mockAccessService, times(1)).getAccessModes(GRANDCHILD, mockSession);
+        verify(mockAccessService, times(2)).getAccessModes(OTHER, mockSession);
+    }
+
+    @Test
+    public void testInvalidateDuringDecision() {
+        final CachedAccessControlService svc = new CachedAccessControlService(mockAccessService,
+                mockResourceService, 100L, 60L);
+        // The ACL changes while a decision is being made
+        when(mockAccessService.getAccessModes(GRANDCHILD, mockSession)).thenAnswer(inv -> {
+            svc.invalidate(ROOT);
+            return singleton(ACL.Read);
+        });
+        svc.getAccessModes(GRANDCHILD, mockSession);
+        svc.getAccessModes(GRANDCHILD, mockSession);
+
+        verify(mockAccessService, times(2)).getAccessModes(GRANDCHILD, mockSession);
+    }
+
+    @Test
+    public void testInvalidateDuringResolution() {
+        final CachedAccessControlService svc = new CachedAccessControlService(mockAccessService,
+                mockResourceService, 100L, 60L);
+        // An ACL is added to the intermediate container while the effective ACL is being resolved
+        final AtomicBoolean added = new AtomicBoolean(false);
+        when(mockChild.hasAcl()).thenAnswer(inv -> added.get());
+        when(mockResourceService.get(ROOT)).thenAnswer(inv -> {
+            added.set(true);
+            svc.invalidate(CHILD);
+            return of(mockRoot);
+        });
+        svc.getAccessModes(GRANDCHILD, mockSession);
+        when(mockResourceService.get(ROOT)).thenAnswer(inv -> of(mockRoot));
+        svc.getAccessModes(GRANDCHILD, mockSession);
+
+        verify(mockResourceService, times(2)).get(CHILD);
+        verify(mockAccessService, times(2)).getAccessModes(GRANDCHILD, mockSession);
+    }
+
+    @Test
+    public void testUnrelatedChangeDuringDecision() {
+        final CachedAccessControlService svc = new CachedAccessControlService(mockAccessService,
+                mockResourceService, 100L, 60L);
+        // A resource that the decision does not depend on changes while it is being made
+        when(mockAccessService.getAccessModes(GRANDCHILD, mockSession)).thenAnswer(inv -> {
+            svc.invalidate(OTHER);
+            return singleton(ACL.Read);
+        });
+        svc.getAccessModes(GRANDCHILD, mockSession);
+        svc.getAccessModes(GRANDCHILD, mockSession);
+        svc.getAccessModes(CHILD, mockSession);
+
+        verify(mockAccessService, times(1)).getAccessModes(GRANDCHILD, mockSession);
+        verify(mockResourceService, times(1)).get(GRANDCHILD);
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        final CachedAccessControlService svc = new CachedAccessControlService(mockAccessService,
+                mockResourceService, 100L, 60L);
+        svc.getAccessModes(GRANDCHILD, mockSession);
+        svc.getAccessModes(OTHER, mockSession);
+
+        svc.invalidateAll();
+        svc.getAccessModes(GRANDCHILD, mockSession);
+        svc.getAccessModes(OTHER, mockSession);
+
+        verify(mockAccessService, times(2)).getAccessModes(GRANDCHILD, mockSession);
+        verify(mockAccessService, times(2)).getAccessModes(OTHER, mockSession);
+        verify(mockResourceService, times(2)).get(ROOT);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app;
+
+import static java.util.Optional.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.NamespaceService;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class CachedNamespaceServiceTest {
+
+    private static final String DC = "http://purl.org/dc/terms/";
+    private static final String LDP = "http://www.w3.org/ns/ldp#";
+
+    private final Map<String, String> namespaces = new HashMap<>();
+
+    @Mock
+    private NamespaceService mockService;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        namespaces.clear();
+        namespaces.put("dc", DC);
+        when(mockService.getNamespaces()).thenReturn(namespaces);
+        when(mockService.setPrefix("ldp", LDP)).thenAnswer(inv -> {
+            namespaces.put("ldp", LDP);
+            return true;
+        });
+    }
+
+    @Test
+    public void testLookups() {
+        final NamespaceService svc = new CachedNamespaceService(mockService);
+        assertEquals(of("dc"), svc.getPrefix(DC));
+        assertEquals(of(DC), svc.getNamespace("dc"));
+        assertFalse(svc.getPrefix(LDP).isPresent());
+        assertFalse(svc.getNamespace("ldp").isPresent());
+        assertEquals(1L, svc.getNamespaces().size());
+
+        verify(mockService, times(1)).getNamespaces();
+        verify(mockService, never()).getPrefix(DC);
+    }
+
+    @Test
+    public void testSetPrefix() {
+        final NamespaceService svc = new CachedNamespaceService(mockService);
+        assertTrue(svc.setPrefix("ldp", LDP));
+        assertEquals(of("ldp"), svc.getPrefix(LDP));
+        assertEquals(of(LDP), svc.getNamespace("ldp"));
+        assertEquals(2L, svc.getNamespaces().size());
+    }
+
+    @Test
+    public void testRefresh() {
+        final CachedNamespaceService svc = new CachedNamespaceService(mockService);
+        namespaces.put("ldp", LDP);
+        assertFalse(svc.getPrefix(LDP).isPresent());
+
+        svc.refresh();
+        assertEquals(of("ldp"), svc.getPrefix(LDP));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app;
+
+import static java.util.Arrays.asList;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class RequestScopedResourceServiceTest {
+
+    private static final RDF rdf = getInstance();
+    private static final IRI RESOURCE = rdf.createIRI("trellis:repository/resource");
+    private static final IRI PARENT = rdf.createIRI("trellis:repository");
+    private static final IRI MISSING = rdf.createIRI("trellis:repository/missing");
+
+    @Mock
+    private ResourceService mockService;
+
+    @Mock
+    private Resource mockResource;
+
+    @Mock
+    private Resource mockParent;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        when(mockService.get(RESOURCE)).thenAnswer(inv -> of(mockResource));
+        when(mockService.get(PARENT)).thenAnswer(inv -> of(mockParent));
+        when(mockService.get(MISSING)).thenReturn(empty());
+        when(mockService.put(any(IRI.class), any(Dataset.class))).thenReturn(true);
+    }
+
+    @Test
+    public void testRequestScope() {
+        final RequestScopedResourceService svc = new RequestScopedResourceService(mockService);
+        svc.open();
+        try {
+            // Authorization: the resource and its ACL chain
+            assertEquals(of(mockResource), svc.get(RESOURCE));
+            assertEquals(of(mockParent), svc.get(PARENT));
+            assertFalse(svc.get(MISSING).isPresent());
+            // Resource handler
+            assertEquals(of(mockResource), svc.get(RESOURCE));
+            assertFalse(svc.get(MISSING).isPresent());
+        } finally {
+            svc.close();
+        }
+        verify(mockService, times(1)).get(RESOURCE);
+        verify(mockService, times(1)).get(PARENT);
+        verify(mockService, times(1)).get(MISSING);
+    }
+
+    @Test
+    public void testWriteInvalidates() {
+        final RequestScopedResourceService svc = new RequestScopedResourceService(mockService);
+        svc.open();
+        try {
+            svc.get(RESOURCE);
+            svc.get(PARENT);
+            assertTrue(svc.put(RESOURCE, mock(Dataset.class)));
+            svc.get(RESOURCE);
+            svc.get(PARENT);
+            svc.purge(PARENT);
+            svc.get(PARENT);
+        } finally {
+            svc.close();
+        }
+        verify(mockService, times(2)).get(RESOURCE);
+        verify(mockService, times(2)).get(PARENT);
+    }
+
+    @Test
+    public void testListeners() {
+        final List<IRI> changed = new ArrayList<>();
+        final RequestScopedResourceService svc = new RequestScopedResourceService(mockService);
+        svc.addListener(changed::add);
+        svc.get(RESOURCE);
+        svc.put(RESOURCE, mock(Dataset.class));
+        svc.compact(PARENT, Instant.now(), Instant.now());
+        svc.purge(PARENT);
+        assertEquals(asList(RESOURCE, PARENT), changed);
+    }
+
+    @Test
+    public void testReadListeners() {
+        final List<IRI> read = new ArrayList<>();
+        final RequestScopedResourceService svc = new RequestScopedResourceService(mockService);
+        svc.addReadListener(read::add);
+        svc.get(PARENT);
+        svc.open();
+        try {
+            svc.get(RESOURCE);
+            svc.get(RESOURCE);
+        } finally {
+            svc.close();
+        }
+        assertEquals(asList(RESOURCE, RESOURCE), read);
+    }
+
+    @Test
+    public void testNoScope() {
+        final RequestScopedResourceService svc = new RequestScopedResourceService(mockService);
+        svc.get(RESOURCE);
+        svc.get(RESOURCE);
+        verify(mockService, times(2)).get(RESOURCE);
+
+        svc.open();
+        svc.get(RESOURCE);
+        svc.close();
+        svc.get(RESOURCE);
+        verify(mockService, times(4)).get(RESOURCE);
+    }
+
+    @Test
+    public void testVersionsNotMemoized() {
+        final Instant time = Instant.now();
+        when(mockService.get(RESOURCE, time)).thenAnswer(inv -> of(mockResource));
+        final RequestScopedResourceService svc = new RequestScopedResourceService(mockService);
+        svc.open();
+        svc.get(RESOURCE, time);
+        svc.get(RESOURCE, time);
+        svc.close();
+        verify(mockService, times(2)).get(RESOURCE, time);
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        final RequestScopedResourceService svc = new RequestScopedResourceService(mockService);
+        final RequestScopeFilter filter = new RequestScopeFilter(svc);
+        filter.doFilter(mock(ServletRequest.class), mock(ServletResponse.class), (req, res) -> {
+            svc.get(RESOURCE);
+            svc.get(RESOURCE);
+        });
+        verify(mockService, times(1)).get(RESOURCE);
+
+        // The scope is closed once the request completes
+        svc.get(RESOURCE);
+        verify(mockService, times(2)).get(RESOURCE);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static java.util.Optional.of;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class ResourceEventListenerTest {
+
+    private static final RDF rdf = getInstance();
+    private static final String TOPIC = "events";
+    private static final Map<String, String> partitionUrls = new HashMap<>();
+
+    static {
+        partitionUrls.put("repository", "http://localhost:8080/");
+        partitionUrls.put("other", "https://example.org/");
+    }
+
+    private static String event(final String target) {
+        return event(target, "Update");
+    }
+
+    private static String event(final String target, final String type) {
+        return "{\"@context\":\"https://www.w3.org/ns/activitystreams\",\"id\":\"urn:uuid:1\","
+            + "\"type\":[\"" + type + "\"],\"object\":{\"id\":\"" + target + "\",\"type\":[]}}";
+    }
+
+    @Test
+    public void testGetTarget() {
+        final ResourceEventListener listener = new ResourceEventListener(new MockConsumer<>(OffsetResetStrategy.LATEST),
+                TOPIC, partitionUrls, iri -> { });
+        assertEquals(of(rdf.createIRI("trellis:repository/resource")),
+                listener.getTarget(event("http://localhost:8080/repository/resource")));
+        assertEquals(of(rdf.createIRI("trellis:repository/container")),
+                listener.getTarget(event("http://localhost:8080/repository/container/")));
+        assertEquals(of(rdf.createIRI("trellis:repository")),
+                listener.getTarget(event("http://localhost:8080/repository")));
+        assertEquals(of(rdf.createIRI("trellis:other/resource")),
+                listener.getTarget(event("https://example.org/other/resource")));
+        assertFalse(listener.getTarget(event("http://localhost:8080/repositoryx/resource")).isPresent());
+        assertFalse(listener.getTarget(event("http://localhost:8080/other/resource")).isPresent());
+        assertFalse(listener.getTarget("{\"id\":\"urn:uuid:1\"}").isPresent());
+        assertFalse(listener.getTarget("not json").isPresent());
+    }
+
+    @Test
+    public void testIsCreation() {
+        assertTrue(ResourceEventListener.isCreation(event("http://localhost:8080/repository/resource", "Create")));
+        assertTrue(ResourceEventListener.isCreation(event("http://localhost:8080/repository/resource",
+                        "https://www.w3.org/ns/activitystreams#Create")));
+        assertTrue(ResourceEventListener.isCreation("{\"type\":\"Create\"}"));
+        assertFalse(ResourceEventListener.isCreation(event("http://localhost:8080/repository/resource")));
+        assertFalse(ResourceEventListener.isCreation("not json"));
+    }
+
+    @Test
+    public void testListenCreations() throws Exception {
+        final MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.LATEST);
+        final TopicPartition partition = new TopicPartition(TOPIC, 0);
+        final List<IRI> changed = new ArrayList<>();
+        final List<IRI> created = new ArrayList<>();
+        final ResourceEventListener listener = new ResourceEventListener(consumer, TOPIC,
+                singletonMap("repository", "http://localhost:8080/"), changed::add, created::add);
+
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(singletonList(partition));
+            consumer.updateBeginningOffsets(singletonMap(partition, 0L));
+            consumer.seek(partition, 0L);
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 0L, null,
+                        event("http://localhost:8080/repository/created", "Create")));
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 1L, null,
+                        event("http://localhost:8080/repository/resource")));
+        });
+        listener.start();
+        while (changed.size() < 2) {
+            Thread.sleep(10L);
+        }
+        listener.stop();
+
+        assertEquals(asList(rdf.createIRI("trellis:repository/created"), rdf.createIRI("trellis:repository/resource")),
+                changed);
+        assertEquals(singletonList(rdf.createIRI("trellis:repository/created")), created);
+    }
+
+    @Test
+    public void testListenerError() throws Exception {
+        final MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.LATEST);
+        final TopicPartition partition = new TopicPartition(TOPIC, 0);
+        final List<IRI> changed = new ArrayList<>();
+        final ResourceEventListener listener = new ResourceEventListener(consumer, TOPIC,
+                singletonMap("repository", "http://localhost:8080/"), identifier -> {
+                    if (identifier.getIRIString().endsWith("failing")) {
+                        throw new IllegalStateException("Expected");
+                    }
+                    changed.add(identifier);
+                });
+
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(singletonList(partition));
+            consumer.updateBeginningOffsets(singletonMap(partition, 0L));
+            consumer.seek(partition, 0L);
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 0L, null,
+                        event("http://localhost:8080/repository/failing")));
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 1L, null,
+                        event("http://localhost:8080/repository/resource")));
+        });
+        consumer.schedulePollTask(() -> consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 2L, null,
+                        event("http://localhost:8080/repository/later"))));
+        listener.start();
+        while (changed.size() < 2) {
+            Thread.sleep(10L);
+        }
+        listener.stop();
+
+        assertEquals(asList(rdf.createIRI("trellis:repository/resource"), rdf.createIRI("trellis:repository/later")),
+                changed);
+    }
+
+    @Test
+    public void testListen() throws Exception {
+        final MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.LATEST);
+        final TopicPartition partition = new TopicPartition(TOPIC, 0);
+        final List<IRI> changed = new ArrayList<>();
+        final ResourceEventListener listener = new ResourceEventListener(consumer, TOPIC,
+                singletonMap("repository", "http://localhost:8080/"), changed::add);
+
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(singletonList(partition));
+            consumer.updateBeginningOffsets(singletonMap(partition, 0L));
+            consumer.seek(partition, 0L);
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 0L, null,
+                        event("http://localhost:8080/repository/resource")));
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 1L, null, event("https://example.org/resource")));
+        });
+        listener.start();
+        while (changed.isEmpty()) {
+            Thread.sleep(10L);
+        }
+        listener.stop();
+
+        assertEquals(singletonList(rdf.createIRI("trellis:repository/resource")), changed);
+        assertTrue(consumer.closed());
+    }
+
+    @Test
+    public void testFollowing() throws Exception {
+        final AtomicReference<ConsumerRebalanceListener> rebalance = new AtomicReference<>();
+        final MockConsumer<String, String> consumer = new MockConsumer<String, String>(OffsetResetStrategy.LATEST) {
+            @Override
+            public void subscribe(final Collection<String> topics, final ConsumerRebalanceListener callback) {
+                rebalance.set(callback);
+                super.subscribe(topics, callback);
+            }
+        };
+        final TopicPartition partition = new TopicPartition(TOPIC, 0);
+        final ResourceEventListener listener = new ResourceEventListener(consumer, TOPIC, partitionUrls, iri -> { });
+
+        // The mock consumer does not call the rebalance listener itself
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(singletonList(partition));
+            consumer.updateEndOffsets(singletonMap(partition, 5L));
+            rebalance.get().onPartitionsAssigned(singletonList(partition));
+        });
+        assertFalse(listener.getFollowing().toCompletableFuture().isDone());
+        listener.start();
+        listener.getFollowing().toCompletableFuture().get(5L, SECONDS);
+        assertEquals(5L, consumer.position(partition));
+        listener.stop();
+    }
+}
@@ -13,6 +13,7 @@
  */
 package org.trellisldp.app;
 
+import static java.util.Arrays.asList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -21,6 +22,7 @@ import io.dropwizard.auth.AuthFilter;
 import io.dropwizard.configuration.YamlConfigurationFactory;
 import io.dropwizard.jackson.Jackson;
 import io.dropwizard.jersey.validation.Validators;
+import io.dropwizard.server.DefaultServerFactory;
 
 import java.io.File;
 import java.util.List;
@@ -35,6 +37,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.platform.runner.JUnitPlatform;
 import org.junit.runner.RunWith;
 import org.trellisldp.app.config.TrellisConfiguration;
+import org.trellisldp.app.storage.Compression;
 
 /**
  * @author acoburn
@@ -58,6 +61,19 @@ public class TrellisUtilsTest {
         assertTrue(resourcePaths.containsKey(partition));
         assertEquals("/tmp/trellisData/resources", resourcePaths.get(partition));
 
+        final Map<String, String> indexFiles = TrellisUtils.getResourceIndexFiles(partitions);
+        assertEquals(1L, indexFiles.size());
+        assertEquals("/tmp/trellisData/resources/trellis.index", indexFiles.get(partition));
+
+        assertEquals((Integer) 5000, TrellisUtils.getResourceFilterCapacities(partitions).get(partition));
+
+        assertEquals("/tmp/trellisData/resources/trellis.dictionary",
+                TrellisUtils.getResourceCompressionDictionaries(partitions).get(partition));
+        assertEquals(Compression.DEFLATE, TrellisUtils.getResourceCompressors(partitions).get(partition)
+                .getCompression());
+        assertTrue(TrellisUtils.getCompressedPartitions(partitions).containsKey(partition));
+        assertTrue(TrellisUtils.getCompactedPartitions(partitions).containsKey(partition));
+
         final Map<String, String> baseUrls = TrellisUtils.getPartitionBaseUrls(partitions);
         assertEquals(1L, baseUrls.size());
         assertTrue(baseUrls.containsKey(partition));
@@ -67,6 +83,15 @@ public class TrellisUtilsTest {
         assertEquals(1L, binaryPaths.size());
         assertTrue(binaryPaths.containsKey(partition));
         assertEquals("/tmp/trellisData/binaries", binaryPaths.get(partition));
+        assertEquals(binaryPaths, TrellisUtils.getContentAddressedBinaryPaths(partitions));
+
+        partitions.get(partition).setProperty(TrellisUtils.BINARY_CONTENT_ADDRESSED, "false");
+        assertTrue(TrellisUtils.getContentAddressedBinaryPaths(partitions).isEmpty());
+
+        partitions.get(partition).setProperty(TrellisUtils.RESOURCE_COMPRESSION, "none");
+        partitions.get(partition).setProperty(TrellisUtils.RESOURCE_COMPACTION, "false");
+        assertTrue(TrellisUtils.getCompressedPartitions(partitions).isEmpty());
+        assertTrue(TrellisUtils.getCompactedPartitions(partitions).isEmpty());
     }
 
     @Test
@@ -84,6 +109,26 @@ public class TrellisUtilsTest {
                 assets.get("js"));
     }
 
+    @Test
+    public void testGetBundledAssetConfigurations() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        config.getAssets().setIcon("trellis.png");
+        config.getAssets().setCss(asList("trellis.css", "http://example.org/styles1.css"));
+        config.getAssets().setJs(asList("http://example.org/scripts1.js"));
+
+        final Map<String, String> assets = TrellisUtils.getAssetConfiguration(config);
+        assertEquals(3L, assets.size());
+        assertTrue(assets.get("icon").matches("/assets/trellis\\.[0-9a-f]{12}\\.png"));
+        assertTrue(assets.get("css").matches("/assets/trellis\\.[0-9a-f]{12}\\.css,http://example.org/styles1.css"));
+        assertEquals("http://example.org/scripts1.js", assets.get("js"));
+
+        ((DefaultServerFactory) config.getServerFactory()).setApplicationContextPath("/trellis/");
+        assertEquals("/trellis/assets/", TrellisUtils.getAssetPath(config));
+    }
+
     @Test
     public void testGetKafkaProperties() throws Exception {
         final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
@@ -135,6 +180,111 @@ public class TrellisUtilsTest {
         assertFalse(TrellisUtils.getCorsConfiguration(config).isPresent());
     }
 
+    @Test
+    public void testGetAdmissionConfig() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+
+        assertTrue(TrellisUtils.getAdmissionConfiguration(config).isPresent());
+
+        config.getAdmission().setEnabled(false);
+
+        assertFalse(TrellisUtils.getAdmissionConfiguration(config).isPresent());
+    }
+
+    @Test
+    public void testGetBatchConfig() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertTrue(TrellisUtils.getBatchConfiguration(config).isPresent());
+
+        config.getBatch().setEnabled(false);
+
+        assertFalse(TrellisUtils.getBatchConfiguration(config).isPresent());
+    }
+
+    @Test
+    public void testGetIngestConfig() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertTrue(TrellisUtils.getIngestConfiguration(config).isPresent());
+
+        config.getIngest().setEnabled(false);
+
+        assertFalse(TrellisUtils.getIngestConfiguration(config).isPresent());
+    }
+
+    @Test
+    public void testGetCoalescingConfig() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertTrue(TrellisUtils.getCoalescingConfiguration(config).isPresent());
+
+        config.getCoalescing().setEnabled(false);
+
+        assertFalse(TrellisUtils.getCoalescingConfiguration(config).isPresent());
+    }
+
+    @Test
+    public void testGetAccessLogConfig() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertTrue(TrellisUtils.getAccessLogConfiguration(config).isPresent());
+
+        config.getAccessLog().setEnabled(false);
+
+        assertFalse(TrellisUtils.getAccessLogConfiguration(config).isPresent());
+    }
+
+    @Test
+    public void testGetGroupCommitConfig() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertTrue(TrellisUtils.getGroupCommitConfiguration(config).isPresent());
+
+        config.getGroupCommit().setEnabled(false);
+
+        assertFalse(TrellisUtils.getGroupCommitConfiguration(config).isPresent());
+    }
+
+    @Test
+    public void testGetWarmupConfig() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertTrue(TrellisUtils.getWarmupConfiguration(config).isPresent());
+
+        config.getWarmup().setEnabled(false);
+
+        assertFalse(TrellisUtils.getWarmupConfiguration(config).isPresent());
+    }
+
+    @Test
+    public void testGetDigestsConfig() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertTrue(TrellisUtils.getDigestConfiguration(config).isPresent());
+
+        config.getDigests().setEnabled(false);
+
+        assertFalse(TrellisUtils.getDigestConfiguration(config).isPresent());
+    }
+
     @Test
     public void testGetCurator() throws Exception {
         final TestingServer zk = new TestingServer(true);
@@ -0,0 +1,188 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.assets;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class AssetServletTest {
+
+    private static final byte[] CSS = "body { color: #000; } body { color: #000; } body { color: #000; }"
+        .getBytes(UTF_8);
+
+    private final Asset asset = new Asset("test.css", "text/css", CSS);
+
+    private final AssetServlet servlet = new AssetServlet(asList(asset));
+
+    @Test
+    public void testFingerprint() {
+        assertEquals("test.css", asset.getName());
+        assertTrue(asset.getPath().matches("test\\.[0-9a-f]{12}\\.css"));
+        assertNotEquals(asset.getPath(), new Asset("test.css", "text/css", "body {}".getBytes(UTF_8)).getPath());
+        assertEquals("\"" + asset.getPath().split("\\.")[1] + "\"", asset.getEtag());
+    }
+
+    @Test
+    public void testBundledAssets() {
+        assertTrue(BundledAssets.getAsset("trellis.css").isPresent());
+        assertTrue(BundledAssets.getAsset("trellis.png").isPresent());
+        assertEquals("image/png", BundledAssets.getAsset("trellis.png").get().getMediaType());
+        assertFalse(BundledAssets.getAsset("other.css").isPresent());
+    }
+
+    @Test
+    public void testGet() throws IOException {
+        final HttpServletRequest req = mockRequest("/" + asset.getPath());
+        final HttpServletResponse res = mock(HttpServletResponse.class);
+        final ByteArrayOutputStream body = mockBody(res);
+
+        servlet.doGet(req, res);
+        verify(res).setHeader("Cache-Control", "public, max-age=31536000, immutable");
+        verify(res).setHeader("ETag", asset.getEtag());
+        verify(res).setContentType("text/css");
+        verify(res, never()).setHeader("Content-Encoding", "gzip");
+        assertArrayEquals(CSS, body.toByteArray());
+    }
+
+    @Test
+    public void testGetGzip() throws IOException {
+        final HttpServletRequest req = mockRequest("/" + asset.getPath());
+        when(req.getHeader("Accept-Encoding")).thenReturn("gzip, deflate");
+        final HttpServletResponse res = mock(HttpServletResponse.class);
+        final ByteArrayOutputStream body = mockBody(res);
+
+        servlet.doGet(req, res);
+        verify(res).setHeader("Content-Encoding", "gzip");
+        verify(res).setContentLength(asset.getGzipped().length);
+
+        final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        try (final GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+            final byte[] buffer = new byte[1024];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                decompressed.write(buffer, 0, read);
+            }
+        }
+        assertArrayEquals(CSS, decompressed.toByteArray());
+    }
+
+    @Test
+    public void testGetGzipRefused() throws IOException {
+        final HttpServletRequest req = mockRequest("/" + asset.getPath());
+        when(req.getHeader("Accept-Encoding")).thenReturn("gzip;q=0, deflate");
+        final HttpServletResponse res = mock(HttpServletResponse.class);
+        final ByteArrayOutputStream body = mockBody(res);
+
+        servlet.doGet(req, res);
+        verify(res, never()).setHeader("Content-Encoding", "gzip");
+        assertArrayEquals(CSS, body.toByteArray());
+    }
+
+    @Test
+    public void testAcceptsGzip() {
+        assertTrue(AssetServlet.acceptsGzip("gzip"));
+        assertTrue(AssetServlet.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(AssetServlet.acceptsGzip("x-gzip"));
+        assertTrue(AssetServlet.acceptsGzip("*"));
+        assertTrue(AssetServlet.acceptsGzip("br, *;q=0.1"));
+        assertFalse(AssetServlet.acceptsGzip(null));
+        assertFalse(AssetServlet.acceptsGzip(""));
+        assertFalse(AssetServlet.acceptsGzip("deflate, br"));
+        assertFalse(AssetServlet.acceptsGzip("gzip;q=0"));
+        assertFalse(AssetServlet.acceptsGzip("gzip; q=0.000"));
+        assertFalse(AssetServlet.acceptsGzip("gzip;q=0, *"));
+        assertFalse(AssetServlet.acceptsGzip("*;q=0"));
+        assertFalse(AssetServlet.acceptsGzip("gzip;q=invalid"));
+        assertFalse(AssetServlet.acceptsGzip("gzipped"));
+    }
+
+    @Test
+    public void testNotModified() throws IOException {
+        final HttpServletRequest req = mockRequest("/" + asset.getPath());
+        when(req.getHeader("If-None-Match")).thenReturn(asset.getEtag());
+        final HttpServletResponse res = mock(HttpServletResponse.class);
+
+        servlet.doGet(req, res);
+        verify(res).setStatus(SC_NOT_MODIFIED);
+        verify(res, never()).getOutputStream();
+    }
+
+    @Test
+    public void testNotFound() throws IOException {
+        final HttpServletResponse res = mock(HttpServletResponse.class);
+        servlet.doGet(mockRequest("/test.css"), res);
+        verify(res).sendError(SC_NOT_FOUND);
+
+        final HttpServletResponse res2 = mock(HttpServletResponse.class);
+        servlet.doGet(mockRequest(null), res2);
+        verify(res2).sendError(SC_NOT_FOUND);
+    }
+
+    private static HttpServletRequest mockRequest(final String path) {
+        final HttpServletRequest req = mock(HttpServletRequest.class);
+        when(req.getPathInfo()).thenReturn(path);
+        return req;
+    }
+
+    private static ByteArrayOutputStream mockBody(final HttpServletResponse res) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final ServletOutputStream output = new ServletOutputStream() {
+            @Override
+            public void write(final int b) {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(final WriteListener listener) {
+                // not used
+            }
+        };
+        when(res.getOutputStream()).thenReturn(output);
+        return body;
+    }
+}
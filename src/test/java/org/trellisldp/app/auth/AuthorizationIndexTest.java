@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.auth;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.HashSet;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.trellisldp.vocabulary.ACL;
+import org.trellisldp.vocabulary.FOAF;
+import org.trellisldp.vocabulary.RDF;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class AuthorizationIndexTest {
+
+    private static final org.apache.commons.rdf.api.RDF rdf = getInstance();
+    private static final IRI RESOURCE = rdf.createIRI("trellis:repository/resource");
+    private static final IRI OTHER = rdf.createIRI("trellis:repository/other");
+    private static final IRI AGENT = rdf.createIRI("https://example.org/agent");
+    private static final IRI EDITOR = rdf.createIRI("https://example.org/editor");
+    private static final IRI STRANGER = rdf.createIRI("https://example.org/stranger");
+    private static final IRI GROUP = rdf.createIRI("trellis:repository/groups#editors");
+
+    private static Stream<Triple> authorization(final BlankNode auth, final IRI property, final IRI agent,
+            final IRI target, final IRI... modes) {
+        final Stream.Builder<Triple> builder = Stream.builder();
+        builder.add(rdf.createTriple(auth, RDF.type, ACL.Authorization));
+        builder.add(rdf.createTriple(auth, property, agent));
+        builder.add(rdf.createTriple(auth, target, RESOURCE));
+        Stream.of(modes).forEach(mode -> builder.add(rdf.createTriple(auth, ACL.mode, mode)));
+        return builder.build();
+    }
+
+    private static Stream<Triple> getAcl() {
+        return Stream.of(
+                authorization(rdf.createBlankNode(), ACL.agent, AGENT, ACL.accessTo, ACL.Read, ACL.Control),
+                authorization(rdf.createBlankNode(), ACL.agent, AGENT, ACL.default_, ACL.Read),
+                authorization(rdf.createBlankNode(), ACL.agentGroup, GROUP, ACL.accessTo, ACL.Write),
+                authorization(rdf.createBlankNode(), ACL.agentClass, FOAF.Agent, ACL.accessTo, ACL.Read),
+                authorization(rdf.createBlankNode(), ACL.agent, STRANGER, ACL.accessTo, ACL.Read),
+                Stream.of(rdf.createTriple(rdf.createBlankNode(), ACL.accessTo, OTHER)))
+            .flatMap(s -> s);
+    }
+
+    @Test
+    public void testDirect() {
+        final AuthorizationIndex index = AuthorizationIndex.compile(RESOURCE, getAcl());
+        assertEquals(new HashSet<>(asList(ACL.Read, ACL.Control)), index.getModes(AGENT, emptySet(), false));
+        assertEquals(singleton(ACL.Read), index.getModes(EDITOR, emptySet(), false));
+        assertEquals(new HashSet<>(asList(ACL.Read, ACL.Write, ACL.Append)),
+                index.getModes(EDITOR, singleton(GROUP), false));
+    }
+
+    @Test
+    public void testInherited() {
+        final AuthorizationIndex index = AuthorizationIndex.compile(RESOURCE, getAcl());
+        assertEquals(singleton(ACL.Read), index.getModes(AGENT, emptySet(), true));
+        assertTrue(index.getModes(EDITOR, singleton(GROUP), true).isEmpty());
+        assertTrue(index.getModes(STRANGER, emptySet(), true).isEmpty());
+    }
+
+    @Test
+    public void testOtherResource() {
+        final AuthorizationIndex index = AuthorizationIndex.compile(OTHER, getAcl());
+        assertTrue(index.getModes(AGENT, singleton(GROUP), false).isEmpty());
+        assertTrue(index.getGroups().isEmpty());
+    }
+
+    @Test
+    public void testGroups() {
+        assertEquals(singleton(GROUP), AuthorizationIndex.compile(RESOURCE, getAcl()).getGroups());
+    }
+}
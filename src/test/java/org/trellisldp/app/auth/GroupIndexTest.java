@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.auth;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.vocabulary.Trellis;
+import org.trellisldp.vocabulary.VCARD;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class GroupIndexTest {
+
+    private static final RDF rdf = getInstance();
+    private static final IRI DOCUMENT = rdf.createIRI("trellis:repository/groups");
+    private static final IRI EDITORS = rdf.createIRI("trellis:repository/groups#editors");
+    private static final IRI ADMINS = rdf.createIRI("trellis:repository/groups#admins");
+    private static final IRI MISSING = rdf.createIRI("trellis:repository/missing#group");
+    private static final IRI AGENT1 = rdf.createIRI("https://example.org/agent1");
+    private static final IRI AGENT2 = rdf.createIRI("https://example.org/agent2");
+
+    private final List<Triple> triples = new ArrayList<>();
+
+    @Mock
+    private ResourceService mockResourceService;
+
+    @Mock
+    private Resource mockResource;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        triples.clear();
+        triples.add(rdf.createTriple(EDITORS, VCARD.hasMember, AGENT1));
+        triples.add(rdf.createTriple(EDITORS, VCARD.hasMember, AGENT2));
+        triples.add(rdf.createTriple(ADMINS, VCARD.hasMember, AGENT1));
+        triples.add(rdf.createTriple(ADMINS, VCARD.hasMember, rdf.createLiteral("not an agent")));
+        when(mockResourceService.get(DOCUMENT)).thenAnswer(inv -> of(mockResource));
+        when(mockResourceService.get(rdf.createIRI("trellis:repository/missing"))).thenReturn(empty());
+        when(mockResource.stream(Trellis.PreferUserManaged)).thenAnswer(inv -> new ArrayList<>(triples).stream());
+    }
+
+    @Test
+    public void testRegister() {
+        final GroupIndex index = new GroupIndex(mockResourceService);
+        assertTrue(index.getGroups(AGENT1).isEmpty());
+
+        index.register(asList(EDITORS, ADMINS, MISSING));
+        assertEquals(new HashSet<>(asList(EDITORS, ADMINS)), index.getGroups(AGENT1));
+        assertEquals(singleton(EDITORS), index.getGroups(AGENT2));
+
+        index.register(asList(EDITORS, ADMINS));
+        verify(mockResourceService, times(2)).get(DOCUMENT);
+    }
+
+    @Test
+    public void testRefresh() {
+        final GroupIndex index = new GroupIndex(mockResourceService);
+        index.register(asList(EDITORS, ADMINS));
+        triples.add(rdf.createTriple(ADMINS, VCARD.hasMember, AGENT2));
+        assertEquals(singleton(EDITORS), index.getGroups(AGENT2));
+
+        index.refresh();
+        assertEquals(new HashSet<>(asList(EDITORS, ADMINS)), index.getGroups(AGENT2));
+    }
+
+    @Test
+    public void testInvalidate() {
+        final GroupIndex index = new GroupIndex(mockResourceService);
+        index.register(asList(EDITORS));
+        triples.remove(0);
+
+        index.invalidate(rdf.createIRI("trellis:repository/other"));
+        assertEquals(singleton(EDITORS), index.getGroups(AGENT1));
+
+        index.invalidate(DOCUMENT);
+        assertTrue(index.getGroups(AGENT1).isEmpty());
+        assertEquals(singleton(EDITORS), index.getGroups(AGENT2));
+    }
+}
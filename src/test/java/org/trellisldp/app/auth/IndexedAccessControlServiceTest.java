@@ -0,0 +1,177 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.auth;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.api.Session;
+import org.trellisldp.vocabulary.ACL;
+import org.trellisldp.vocabulary.Trellis;
+import org.trellisldp.vocabulary.VCARD;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class IndexedAccessControlServiceTest {
+
+    private static final RDF rdf = getInstance();
+    private static final IRI ROOT = rdf.createIRI("trellis:repository");
+    private static final IRI CHILD = rdf.createIRI("trellis:repository/child");
+    private static final IRI GROUPS = rdf.createIRI("trellis:repository/groups");
+    private static final IRI EDITORS = rdf.createIRI("trellis:repository/groups#editors");
+    private static final IRI AGENT = rdf.createIRI("https://example.org/agent");
+    private static final IRI EDITOR = rdf.createIRI("https://example.org/editor");
+
+    @Mock
+    private ResourceService mockResourceService;
+
+    @Mock
+    private Resource mockRoot, mockChild, mockGroups;
+
+    @Mock
+    private Session mockSession;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        final BlankNode auth1 = rdf.createBlankNode();
+        final BlankNode auth2 = rdf.createBlankNode();
+        when(mockRoot.hasAcl()).thenReturn(true);
+        when(mockRoot.stream(Trellis.PreferAccessControl)).thenAnswer(inv -> Stream.of(
+                    rdf.createTriple(auth1, ACL.agent, AGENT),
+                    rdf.createTriple(auth1, ACL.accessTo, ROOT),
+                    rdf.createTriple(auth1, ACL.default_, ROOT),
+                    rdf.createTriple(auth1, ACL.mode, ACL.Read),
+                    rdf.createTriple(auth2, ACL.agentGroup, EDITORS),
+                    rdf.createTriple(auth2, ACL.default_, ROOT),
+                    rdf.createTriple(auth2, ACL.mode, ACL.Write)));
+        when(mockChild.hasAcl()).thenReturn(false);
+        when(mockGroups.hasAcl()).thenReturn(false);
+        when(mockGroups.stream(Trellis.PreferUserManaged)).thenAnswer(inv -> Stream.of(
+                    rdf.createTriple(EDITORS, VCARD.hasMember, EDITOR),
+                    rdf.createTriple(EDITORS, VCARD.hasMember, AGENT)));
+        when(mockResourceService.get(ROOT)).thenAnswer(inv -> of(mockRoot));
+        when(mockResourceService.get(CHILD)).thenAnswer(inv -> of(mockChild));
+        when(mockResourceService.get(GROUPS)).thenAnswer(inv -> of(mockGroups));
+        when(mockResourceService.getContainer(ROOT)).thenReturn(empty());
+        when(mockResourceService.getContainer(CHILD)).thenReturn(of(ROOT));
+        when(mockSession.getAgent()).thenReturn(AGENT);
+        when(mockSession.getDelegatedBy()).thenReturn(empty());
+    }
+
+    @Test
+    public void testAccessModes() {
+        final IndexedAccessControlService svc = new IndexedAccessControlService(mockResourceService,
+                new GroupIndex(mockResourceService), 100L, 60L);
+        assertEquals(singleton(ACL.Read), svc.getAccessModes(ROOT, mockSession));
+        assertEquals(new HashSet<>(asList(ACL.Read, ACL.Write, ACL.Append)),
+                svc.getAccessModes(CHILD, mockSession));
+
+        when(mockSession.getAgent()).thenReturn(EDITOR);
+        assertTrue(svc.getAccessModes(ROOT, mockSession).isEmpty());
+        assertEquals(new HashSet<>(asList(ACL.Write, ACL.Append)), svc.getAccessModes(CHILD, mockSession));
+
+        verify(mockRoot, times(1)).stream(Trellis.PreferAccessControl);
+        verify(mockResourceService, times(1)).get(GROUPS);
+    }
+
+    @Test
+    public void testDelegation() {
+        final IndexedAccessControlService svc = new IndexedAccessControlService(mockResourceService,
+                new GroupIndex(mockResourceService), 100L, 60L);
+        when(mockSession.getAgent()).thenReturn(EDITOR);
+        when(mockSession.getDelegatedBy()).thenReturn(of(AGENT));
+        assertEquals(new HashSet<>(asList(ACL.Write, ACL.Append)), svc.getAccessModes(CHILD, mockSession));
+        assertTrue(svc.getAccessModes(ROOT, mockSession).isEmpty());
+    }
+
+    @Test
+    public void testAdministrator() {
+        final IndexedAccessControlService svc = new IndexedAccessControlService(mockResourceService,
+                new GroupIndex(mockResourceService), 100L, 60L);
+        when(mockSession.getAgent()).thenReturn(Trellis.RepositoryAdministrator);
+        assertEquals(new HashSet<>(asList(ACL.Read, ACL.Write, ACL.Append, ACL.Control)),
+                svc.getAccessModes(CHILD, mockSession));
+    }
+
+    @Test
+    public void testInvalidate() {
+        final IndexedAccessControlService svc = new IndexedAccessControlService(mockResourceService,
+                new GroupIndex(mockResourceService), 100L, 60L);
+        svc.getAccessModes(CHILD, mockSession);
+        svc.getAccessModes(ROOT, mockSession);
+        svc.invalidate(CHILD);
+        svc.getAccessModes(ROOT, mockSession);
+        verify(mockRoot, times(1)).stream(Trellis.PreferAccessControl);
+
+        svc.invalidate(ROOT);
+        svc.getAccessModes(ROOT, mockSession);
+        verify(mockRoot, times(2)).stream(Trellis.PreferAccessControl);
+
+        svc.invalidate(GROUPS);
+        verify(mockResourceService, times(2)).get(GROUPS);
+    }
+
+    @Test
+    public void testInvalidateDuringCompile() {
+        final IndexedAccessControlService svc = new IndexedAccessControlService(mockResourceService,
+                new GroupIndex(mockResourceService), 100L, 60L);
+        // The ACL changes after the resource was read, but before the compiled ACL is stored
+        final AtomicBoolean changed = new AtomicBoolean(false);
+        when(mockRoot.stream(Trellis.PreferAccessControl)).thenAnswer(inv -> {
+            if (!changed.getAndSet(true)) {
+                svc.invalidate(ROOT);
+            }
+            return Stream.of(rdf.createTriple(rdf.createBlankNode(), ACL.agent, AGENT));
+        });
+        svc.getAccessModes(ROOT, mockSession);
+        svc.getAccessModes(ROOT, mockSession);
+        svc.getAccessModes(ROOT, mockSession);
+        verify(mockRoot, times(2)).stream(Trellis.PreferAccessControl);
+    }
+
+    @Test
+    public void testExpiry() {
+        final IndexedAccessControlService svc = new IndexedAccessControlService(mockResourceService,
+                new GroupIndex(mockResourceService), 100L, 0L);
+        svc.getAccessModes(ROOT, mockSession);
+        svc.getAccessModes(ROOT, mockSession);
+        verify(mockRoot, times(2)).stream(Trellis.PreferAccessControl);
+    }
+}
@@ -13,6 +13,7 @@
  */
 package org.trellisldp.app.config;
 
+import static java.util.Arrays.asList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -45,6 +46,31 @@ public class TrellisConfigurationTest {
         assertEquals((Integer) 86400, config.getCacheMaxAge());
     }
 
+    @Test
+    public void testConfigurationCacheRules1() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertEquals(4L, config.getCacheRules().size());
+        final CacheRuleConfiguration memento = config.getCacheRules().get(0);
+        assertTrue(memento.getMemento());
+        assertTrue(memento.getImmutable());
+        assertEquals((Integer) 31536000, memento.getMaxAge());
+
+        final CacheRuleConfiguration binary = config.getCacheRules().get(1);
+        assertEquals("repository", binary.getPartition());
+        assertEquals("NonRDFSource", binary.getInteractionModel());
+        assertEquals("image/*", binary.getMediaType());
+        assertEquals((Integer) 3600, binary.getMaxAge());
+        assertEquals((Integer) 86400, binary.getSMaxAge());
+        assertEquals((Integer) 60, binary.getStaleWhileRevalidate());
+        assertFalse(binary.getImmutable());
+
+        assertEquals("repository/private/.*", config.getCacheRules().get(2).getPath());
+        assertEquals("acl", config.getCacheRules().get(3).getExt());
+    }
+
 
     @Test
     public void testConfigurationAssets1() throws Exception {
@@ -67,9 +93,17 @@ public class TrellisConfigurationTest {
         assertEquals("repository", config.getPartitions().get(0).getId());
         assertEquals("/tmp/trellisData/binaries", config.getPartitions().get(0).getBinaries().getPath());
         assertEquals("/tmp/trellisData/resources", config.getPartitions().get(0).getResources().getPath());
+        assertTrue(config.getPartitions().get(0).getResources().getIndex());
+        assertTrue(config.getPartitions().get(0).getResources().getFilter());
+        assertEquals((Integer) 5000, config.getPartitions().get(0).getResources().getFilterCapacity());
+        assertEquals("deflate", config.getPartitions().get(0).getResources().getCompression());
+        assertTrue(config.getPartitions().get(0).getResources().getCompaction());
+        assertEquals("/tmp/trellisData/resources/trellis.dictionary",
+                config.getPartitions().get(0).getResources().getCompressionDictionary());
         assertEquals("http://localhost:8080/", config.getPartitions().get(0).getBaseUrl());
         assertEquals((Integer) 4, config.getPartitions().get(0).getBinaries().getLevels());
         assertEquals((Integer) 2, config.getPartitions().get(0).getBinaries().getLength());
+        assertTrue(config.getPartitions().get(0).getBinaries().getContentAddressed());
     }
 
     @Test
@@ -79,6 +113,10 @@ public class TrellisConfigurationTest {
             .build(new File(getClass().getResource("/config1.yml").toURI()));
 
         assertFalse(config.getAuth().getWebac().getEnabled());
+        assertEquals((Long) 500L, config.getAuth().getWebac().getCacheSize());
+        assertEquals((Long) 30L, config.getAuth().getWebac().getCacheExpireSeconds());
+        assertTrue(config.getAuth().getWebac().getIndexed());
+        assertEquals((Long) 60L, config.getAuth().getWebac().getGroupRefreshSeconds());
         assertTrue(config.getAuth().getAnon().getEnabled());
         assertTrue(config.getAuth().getBasic().getEnabled());
         assertEquals("users.auth", config.getAuth().getBasic().getUsersFile());
@@ -137,4 +175,115 @@ public class TrellisConfigurationTest {
         assertEquals("16384", props.getProperty("batch.size"));
         assertEquals("otherValue", props.getProperty("otherProperty"));
     }
+
+    @Test
+    public void testConfigurationAdmission1() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertTrue(config.getAdmission().getEnabled());
+        assertTrue(config.getAdmission().getAdaptive());
+        assertEquals((Integer) 10, config.getAdmission().getInitialLimit());
+        assertEquals((Integer) 2, config.getAdmission().getMinLimit());
+        assertEquals((Integer) 50, config.getAdmission().getMaxLimit());
+        assertEquals((Long) 250L, config.getAdmission().getLatencyThreshold());
+        assertEquals((Double) 0.8, config.getAdmission().getBackoffRatio());
+        assertEquals((Integer) 5, config.getAdmission().getRetryAfter());
+    }
+
+    @Test
+    public void testConfigurationBatch1() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertTrue(config.getBatch().getEnabled());
+        assertEquals((Integer) 500, config.getBatch().getMaxSize());
+        assertEquals((Integer) 4, config.getBatch().getThreads());
+    }
+
+    @Test
+    public void testConfigurationIngest1() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertTrue(config.getIngest().getEnabled());
+        assertEquals((Integer) 50, config.getIngest().getBatchSize());
+        assertEquals((Integer) 200, config.getIngest().getMaxPending());
+        assertEquals((Integer) 4, config.getIngest().getThreads());
+    }
+
+    @Test
+    public void testConfigurationCoalescing1() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertTrue(config.getCoalescing().getEnabled());
+        assertEquals((Integer) 65536, config.getCoalescing().getMaxSize());
+        assertEquals((Long) 2000L, config.getCoalescing().getMaxWait());
+    }
+
+    @Test
+    public void testConfigurationAccessLog1() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertTrue(config.getAccessLog().getEnabled());
+        assertEquals("/tmp/trellisData/log/access.log", config.getAccessLog().getFile());
+        assertEquals((Integer) 1024, config.getAccessLog().getBufferSize());
+        assertEquals((Long) 1048576L, config.getAccessLog().getMaxFileSize());
+        assertEquals((Integer) 3, config.getAccessLog().getArchivedFileCount());
+    }
+
+    @Test
+    public void testConfigurationGroupCommit1() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertTrue(config.getGroupCommit().getEnabled());
+        assertEquals((Long) 5L, config.getGroupCommit().getWindowMillis());
+        assertEquals((Integer) 64, config.getGroupCommit().getMaxBatchSize());
+    }
+
+    @Test
+    public void testConfigurationAsyncWrites1() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertEquals((Integer) 2000, config.getAsyncWrites().getQueueSize());
+        assertEquals((Integer) 2, config.getAsyncWrites().getWorkers());
+        assertEquals((Long) 250L, config.getAsyncWrites().getMaxWaitMillis());
+        assertEquals((Long) 3L, config.getAsyncWrites().getRetryAfter());
+        assertEquals((Long) 10L, config.getAsyncWrites().getShutdownTimeoutSeconds());
+    }
+
+    @Test
+    public void testConfigurationWarmup1() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertTrue(config.getWarmup().getEnabled());
+        assertEquals("/tmp/trellisData/warmup.profile", config.getWarmup().getFile());
+        assertEquals((Integer) 500, config.getWarmup().getSize());
+        assertEquals((Long) 60L, config.getWarmup().getSaveIntervalSeconds());
+        assertEquals((Integer) 50, config.getWarmup().getRate());
+        assertEquals((Long) 30L, config.getWarmup().getMaxWaitSeconds());
+    }
+
+    @Test
+    public void testConfigurationDigests1() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config1.yml").toURI()));
+
+        assertTrue(config.getDigests().getEnabled());
+        assertEquals(asList("SHA-256", "SHA-1", "MD5"), config.getDigests().getAlgorithms());
+    }
 }
@@ -0,0 +1,164 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.filter;
+
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.trellisldp.app.logging.AccessLogEntry.Phase.AUTH;
+import static org.trellisldp.app.logging.AccessLogEntry.Phase.SERIALIZATION;
+import static org.trellisldp.app.logging.AccessLogEntry.Phase.WEBAC;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.trellisldp.app.logging.AccessLog;
+import org.trellisldp.app.logging.AccessLogEntry;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class AccessLogFilterTest {
+
+    private AccessLog mockLog;
+    private ContainerRequestContext mockRequest;
+    private ContainerResponseContext mockResponse;
+
+    @BeforeEach
+    public void setUp() {
+        AccessLogEntry.clear();
+        mockLog = mock(AccessLog.class);
+        mockRequest = mock(ContainerRequestContext.class);
+        mockResponse = mock(ContainerResponseContext.class);
+        final UriInfo mockUriInfo = mock(UriInfo.class);
+        when(mockUriInfo.getPath()).thenReturn("repository/resource");
+        when(mockRequest.getUriInfo()).thenReturn(mockUriInfo);
+        when(mockRequest.getMethod()).thenReturn("GET");
+        when(mockResponse.getStatus()).thenReturn(200);
+        when(mockLog.log(any())).thenReturn(true);
+    }
+
+    @Test
+    public void testNoEntity() throws Exception {
+        final AccessLogFilter filter = new AccessLogFilter(mockLog);
+        when(mockResponse.hasEntity()).thenReturn(false);
+        when(mockResponse.getStatus()).thenReturn(401);
+
+        filter.filter(mockRequest);
+        new AccessLogFilter.AuthenticationStart().filter(mockRequest);
+        Thread.sleep(1L);
+        assertTrue(AccessLogEntry.current().isPresent());
+        filter.filter(mockRequest, mockResponse);
+
+        final ArgumentCaptor<AccessLogEntry> captor = ArgumentCaptor.forClass(AccessLogEntry.class);
+        verify(mockLog).log(captor.capture());
+        assertEquals(401, captor.getValue().getStatus());
+        assertEquals(-1L, captor.getValue().getBytes());
+        assertTrue(captor.getValue().getElapsed(AUTH) > 0L);
+        assertFalse(AccessLogEntry.current().isPresent());
+    }
+
+    @Test
+    public void testWithEntity() throws Exception {
+        final AccessLogFilter filter = new AccessLogFilter(mockLog);
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final WriterInterceptorContext mockWriter = mock(WriterInterceptorContext.class);
+        final OutputStream[] stream = new OutputStream[] {body};
+        when(mockWriter.getOutputStream()).thenAnswer(inv -> stream[0]);
+        doAnswer(inv -> {
+            stream[0] = inv.getArgument(0);
+            return null;
+        }).when(mockWriter).setOutputStream(any());
+        doAnswer(inv -> {
+            stream[0].write("<> a <#thing> .".getBytes("UTF-8"));
+            stream[0].write('\n');
+            Thread.sleep(1L);
+            return null;
+        }).when(mockWriter).proceed();
+        when(mockResponse.hasEntity()).thenReturn(true);
+
+        filter.filter(mockRequest);
+        new AccessLogFilter.AuthenticationStart().filter(mockRequest);
+        Thread.sleep(1L);
+        new AccessLogFilter.AuthorizationStart().filter(mockRequest);
+        Thread.sleep(1L);
+        new AccessLogFilter.AuthorizationEnd().filter(mockRequest);
+        filter.filter(mockRequest, mockResponse);
+        verify(mockLog, never()).log(any());
+
+        filter.aroundWriteTo(mockWriter);
+        final ArgumentCaptor<AccessLogEntry> captor = ArgumentCaptor.forClass(AccessLogEntry.class);
+        verify(mockLog).log(captor.capture());
+        final AccessLogEntry entry = captor.getValue();
+        assertEquals(200, entry.getStatus());
+        assertEquals(16L, entry.getBytes());
+        assertEquals(16L, body.size());
+        assertTrue(entry.getElapsed(AUTH) > 0L);
+        assertTrue(entry.getElapsed(WEBAC) > 0L);
+        assertTrue(entry.getElapsed(SERIALIZATION) > 0L);
+        assertFalse(AccessLogEntry.current().isPresent());
+    }
+
+    @Test
+    public void testCoalesced() {
+        final AccessLogFilter filter = new AccessLogFilter(mockLog);
+        filter.coalesced("GET", "repository/resource", 200, emptyList(), 2000000L, 16L);
+
+        final ArgumentCaptor<AccessLogEntry> captor = ArgumentCaptor.forClass(AccessLogEntry.class);
+        verify(mockLog).log(captor.capture());
+        assertEquals(200, captor.getValue().getStatus());
+        assertEquals(16L, captor.getValue().getBytes());
+        assertFalse(AccessLogEntry.current().isPresent());
+    }
+
+    @Test
+    public void testHead() {
+        final AccessLogFilter filter = new AccessLogFilter(mockLog);
+        when(mockRequest.getMethod()).thenReturn("HEAD");
+        when(mockResponse.hasEntity()).thenReturn(true);
+        filter.filter(mockRequest);
+        filter.filter(mockRequest, mockResponse);
+        verify(mockLog).log(any());
+    }
+
+    @Test
+    public void testWithoutEntry() throws Exception {
+        final AccessLogFilter filter = new AccessLogFilter(mockLog);
+        final WriterInterceptorContext mockWriter = mock(WriterInterceptorContext.class);
+        new AccessLogFilter.AuthorizationStart().filter(mockRequest);
+        filter.filter(mockRequest, mockResponse);
+        filter.aroundWriteTo(mockWriter);
+        verify(mockWriter).proceed();
+        verify(mockWriter, never()).setOutputStream(any());
+        verify(mockLog, never()).log(any());
+    }
+}
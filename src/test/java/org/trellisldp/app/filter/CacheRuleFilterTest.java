@@ -0,0 +1,172 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.filter;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static javax.ws.rs.core.HttpHeaders.CACHE_CONTROL;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.OK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.trellisldp.app.config.CacheRuleConfiguration;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class CacheRuleFilterTest {
+
+    private static final String LDP = "http://www.w3.org/ns/ldp#";
+
+    private final List<CacheRuleConfiguration> rules = asList(
+            rule(null, null, null, null, true, 31536000, null, null, true),
+            rule("repository", "NonRDFSource", "image/*", null, null, 3600, 86400, 60, false),
+            rule(null, null, null, "repository/private/.*", null, 0, null, null, false),
+            acl(60));
+
+    @Test
+    public void testDefault() {
+        final CacheRuleFilter filter = new CacheRuleFilter(rules, 86400);
+        final ContainerResponseContext res = mockResponse(OK, TEXT_PLAIN_TYPE, LDP + "RDFSource");
+        filter.filter(mockRequest("GET", "repository/resource"), res);
+        assertEquals("max-age=86400", res.getHeaders().getFirst(CACHE_CONTROL));
+    }
+
+    @Test
+    public void testMemento() {
+        final CacheRuleFilter filter = new CacheRuleFilter(rules, 86400);
+        final ContainerResponseContext res = mockResponse(OK, TEXT_PLAIN_TYPE, LDP + "RDFSource");
+        res.getHeaders().putSingle("Memento-Datetime", "Thu, 01 Jan 2015 00:00:00 GMT");
+        filter.filter(mockRequest("GET", "repository/private/resource"), res);
+        assertEquals("max-age=31536000, immutable", res.getHeaders().getFirst(CACHE_CONTROL));
+        verify(res, never()).getLinks();
+    }
+
+    @Test
+    public void testInteractionModelAndMediaType() {
+        final CacheRuleFilter filter = new CacheRuleFilter(rules, 86400);
+        final ContainerResponseContext res = mockResponse(OK, MediaType.valueOf("image/png"),
+                LDP + "NonRDFSource");
+        filter.filter(mockRequest("HEAD", "repository/image.png"), res);
+        assertEquals("max-age=3600, s-maxage=86400, stale-while-revalidate=60",
+                res.getHeaders().getFirst(CACHE_CONTROL));
+
+        final ContainerResponseContext other = mockResponse(OK, MediaType.valueOf("image/png"),
+                LDP + "NonRDFSource");
+        filter.filter(mockRequest("GET", "other/image.png"), other);
+        assertEquals("max-age=86400", other.getHeaders().getFirst(CACHE_CONTROL));
+    }
+
+    @Test
+    public void testPath() {
+        final CacheRuleFilter filter = new CacheRuleFilter(rules, 86400);
+        final ContainerResponseContext res = mockResponse(OK, MediaType.valueOf("image/png"), LDP + "RDFSource");
+        filter.filter(mockRequest("GET", "repository/private/image"), res);
+        assertEquals("max-age=0", res.getHeaders().getFirst(CACHE_CONTROL));
+    }
+
+    @Test
+    public void testExt() {
+        final CacheRuleFilter filter = new CacheRuleFilter(rules, 86400);
+        final ContainerResponseContext res = mockResponse(OK, TEXT_PLAIN_TYPE, LDP + "RDFSource");
+        final ContainerRequestContext req = mockRequest("GET", "repository/resource");
+        req.getUriInfo().getQueryParameters().putSingle("ext", "acl");
+        filter.filter(req, res);
+        assertEquals("max-age=60", res.getHeaders().getFirst(CACHE_CONTROL));
+
+        final ContainerResponseContext description = mockResponse(OK, TEXT_PLAIN_TYPE, LDP + "RDFSource");
+        final ContainerRequestContext other = mockRequest("GET", "repository/resource");
+        other.getUriInfo().getQueryParameters().putSingle("ext", "description");
+        filter.filter(other, description);
+        assertEquals("max-age=86400", description.getHeaders().getFirst(CACHE_CONTROL));
+    }
+
+    @Test
+    public void testIgnored() {
+        final CacheRuleFilter filter = new CacheRuleFilter(rules, 86400);
+        final ContainerResponseContext post = mockResponse(OK, TEXT_PLAIN_TYPE, LDP + "RDFSource");
+        filter.filter(mockRequest("POST", "repository/resource"), post);
+        assertFalse(post.getHeaders().containsKey(CACHE_CONTROL));
+
+        final ContainerResponseContext missing = mockResponse(NOT_FOUND, TEXT_PLAIN_TYPE, LDP + "RDFSource");
+        filter.filter(mockRequest("GET", "repository/resource"), missing);
+        assertFalse(missing.getHeaders().containsKey(CACHE_CONTROL));
+    }
+
+    private static ContainerRequestContext mockRequest(final String method, final String path) {
+        final ContainerRequestContext req = mock(ContainerRequestContext.class);
+        final UriInfo uriInfo = mock(UriInfo.class);
+        when(uriInfo.getPath()).thenReturn(path);
+        when(uriInfo.getQueryParameters()).thenReturn(new MultivaluedHashMap<>());
+        when(req.getUriInfo()).thenReturn(uriInfo);
+        when(req.getMethod()).thenReturn(method);
+        return req;
+    }
+
+    private static ContainerResponseContext mockResponse(final Response.Status status, final MediaType mediaType,
+            final String type) {
+        final ContainerResponseContext res = mock(ContainerResponseContext.class);
+        final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        when(res.getStatusInfo()).thenReturn(status);
+        when(res.getHeaders()).thenReturn(headers);
+        when(res.getMediaType()).thenReturn(mediaType);
+        when(res.getLinks()).thenReturn(type == null ? emptySet() : singleton(Link.fromUri(type).rel("type").build()));
+        return res;
+    }
+
+    private static CacheRuleConfiguration rule(final String partition, final String interactionModel,
+            final String mediaType, final String path, final Boolean memento, final Integer maxAge,
+            final Integer sMaxAge, final Integer staleWhileRevalidate, final Boolean immutable) {
+        final CacheRuleConfiguration rule = new CacheRuleConfiguration();
+        rule.setPartition(partition);
+        rule.setInteractionModel(interactionModel);
+        rule.setMediaType(mediaType);
+        rule.setPath(path);
+        rule.setMemento(memento);
+        rule.setMaxAge(maxAge);
+        rule.setSMaxAge(sMaxAge);
+        rule.setStaleWhileRevalidate(staleWhileRevalidate);
+        rule.setImmutable(immutable);
+        return rule;
+    }
+
+    private static CacheRuleConfiguration acl(final Integer maxAge) {
+        final CacheRuleConfiguration rule = new CacheRuleConfiguration();
+        rule.setExt("acl");
+        rule.setMaxAge(maxAge);
+        return rule;
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.filter;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.trellisldp.app.config.CoalescingConfiguration;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class CoalescingFilterTest {
+
+    private static final int BURST = 500;
+    private static final String LINK = "<http://www.w3.org/ns/ldp#RDFSource>; rel=\"type\"";
+    private static final String BODY = "<> <http://purl.org/dc/terms/title> \"A viral resource\" .";
+
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private MetricRegistry metrics;
+
+    private CoalescingConfiguration config;
+
+    @BeforeEach
+    public void setUp() {
+        reads.set(0);
+        metrics = new MetricRegistry();
+        config = new CoalescingConfiguration();
+        config.setMaxWait(30000L);
+    }
+
+    @Test
+    public void testBurst() throws Exception {
+        final CoalescingFilter filter = new CoalescingFilter(config, metrics);
+        final FilterChain chain = slowChain(filter, BURST - 1);
+
+        final List<HttpServletRequest> requests = new ArrayList<>();
+        final List<HttpServletResponse> responses = new ArrayList<>();
+        final List<ByteArrayOutputStream> bodies = new ArrayList<>();
+        for (int i = 0; i < BURST; ++i) {
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            requests.add(mockRequest("GET", null));
+            responses.add(mockResponse(body));
+            bodies.add(body);
+        }
+
+        final ExecutorService executor = newFixedThreadPool(BURST);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < BURST; ++i) {
+                final int idx = i;
+                futures.add(executor.submit(() -> {
+                    filter.doFilter(requests.get(idx), responses.get(idx), chain);
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get(60, SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, reads.get());
+        assertEquals(BURST - 1, metrics.getMeters().get(name(CoalescingFilter.class, "coalesced")).getCount());
+        for (int i = 0; i < BURST; ++i) {
+            assertEquals(BODY, new String(bodies.get(i).toByteArray(), UTF_8));
+        }
+        assertEquals(0, filter.getWaiting().intValue());
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        final List<String> recorded = new CopyOnWriteArrayList<>();
+        final CoalescingFilter filter = new CoalescingFilter(config, metrics, singletonList(
+                    (method, path, status, links, duration, bytes) -> recorded.add(method + " " + path + " " + status
+                        + " " + links + " " + bytes)));
+        final HttpServletResponse res1 = mockResponse(new ByteArrayOutputStream());
+        final HttpServletResponse res2 = mockResponse(new ByteArrayOutputStream());
+        final List<ServletResponse> leaders = new CopyOnWriteArrayList<>();
+        final FilterChain slow = slowChain(filter, 1);
+        final FilterChain chain = (req, res) -> {
+            leaders.add(((ServletResponseWrapper) res).getResponse());
+            slow.doFilter(req, res);
+        };
+        final ExecutorService executor = newFixedThreadPool(2);
+        try {
+            final Future<?> first = executor.submit(() -> {
+                filter.doFilter(mockRequest("GET", null), res1, chain);
+                return null;
+            });
+            final Future<?> second = executor.submit(() -> {
+                filter.doFilter(mockRequest("GET", null), res2, chain);
+                return null;
+            });
+            first.get(30, SECONDS);
+            second.get(30, SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, reads.get());
+        final HttpServletResponse replayed = leaders.contains(res1) ? res2 : res1;
+        verify(replayed).setStatus(200);
+        verify(replayed).addHeader("ETag", "\"1234\"");
+        verify(replayed, never()).addHeader(eq("Date"), any());
+        verify(replayed).setContentType("text/turtle");
+        verify(replayed).setContentLength(BODY.length());
+        // The coalesced request is still recorded, since it bypasses the JAX-RS filters
+        assertEquals(singletonList("GET repository/resource 200 [" + LINK + "] " + BODY.length()), recorded);
+    }
+
+    @Test
+    public void testWantDigest() throws Exception {
+        final CoalescingFilter filter = new CoalescingFilter(config, metrics);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final FilterChain chain = (req, res) -> {
+            if (reads.incrementAndGet() == 1) {
+                started.countDown();
+                try {
+                    release.await(5L, SECONDS);
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            res.getOutputStream().write(BODY.getBytes(UTF_8));
+        };
+        final HttpServletRequest req = mockRequest("GET", null);
+        when(req.getHeader("Want-Digest")).thenReturn("SHA-256");
+        final ExecutorService executor = newFixedThreadPool(1);
+        try {
+            final Future<?> first = executor.submit(() -> {
+                filter.doFilter(mockRequest("GET", null), mockResponse(new ByteArrayOutputStream()), chain);
+                return null;
+            });
+            started.await(5L, SECONDS);
+            // A request for a digest must not receive a response computed without one
+            filter.doFilter(req, mockResponse(new ByteArrayOutputStream()), chain);
+            release.countDown();
+            first.get(30, SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(2, reads.get());
+        assertEquals(0L, metrics.getMeters().get(name(CoalescingFilter.class, "coalesced")).getCount());
+    }
+
+    @Test
+    public void testNotCoalesced() throws Exception {
+        final CoalescingFilter filter = new CoalescingFilter(config, metrics);
+        final FilterChain chain = (req, res) -> {
+            reads.incrementAndGet();
+            res.getOutputStream().write(BODY.getBytes(UTF_8));
+        };
+        filter.doFilter(mockRequest("PUT", null), mockResponse(new ByteArrayOutputStream()), chain);
+        filter.doFilter(mockRequest("GET", "\"1234\""), mockResponse(new ByteArrayOutputStream()), chain);
+        filter.doFilter(mockRequest("GET", null), mockResponse(new ByteArrayOutputStream()), chain);
+        assertEquals(3, reads.get());
+        assertEquals(0L, metrics.getMeters().get(name(CoalescingFilter.class, "coalesced")).getCount());
+    }
+
+    @Test
+    public void testOversized() throws Exception {
+        config.setMaxSize(10);
+        final CoalescingFilter filter = new CoalescingFilter(config, metrics);
+        final FilterChain chain = slowChain(filter, 1);
+        final ExecutorService executor = newFixedThreadPool(2);
+        final ByteArrayOutputStream body1 = new ByteArrayOutputStream();
+        final ByteArrayOutputStream body2 = new ByteArrayOutputStream();
+        try {
+            final Future<?> first = executor.submit(() -> {
+                filter.doFilter(mockRequest("GET", null), mockResponse(body1), chain);
+                return null;
+            });
+            final Future<?> second = executor.submit(() -> {
+                filter.doFilter(mockRequest("GET", null), mockResponse(body2), chain);
+                return null;
+            });
+            first.get(30, SECONDS);
+            second.get(30, SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        // The response is too large to share, so the waiting request is processed on its own
+        assertEquals(2, reads.get());
+        assertEquals(BODY, new String(body1.toByteArray(), UTF_8));
+        assertEquals(BODY, new String(body2.toByteArray(), UTF_8));
+    }
+
+    private FilterChain slowChain(final CoalescingFilter filter, final int waiters) {
+        return (req, res) -> {
+            // Only the first read waits for the other requests to queue up behind it
+            if (reads.incrementAndGet() == 1) {
+                final long deadline = System.currentTimeMillis() + 30000L;
+                while (filter.getWaiting() < waiters && System.currentTimeMillis() < deadline) {
+                    Thread.yield();
+                }
+            }
+            res.getOutputStream().write(BODY.getBytes(UTF_8));
+        };
+    }
+
+    private static HttpServletRequest mockRequest(final String method, final String ifNoneMatch) {
+        final HttpServletRequest req = mock(HttpServletRequest.class);
+        when(req.getMethod()).thenReturn(method);
+        when(req.getRequestURI()).thenReturn("/repository/resource");
+        when(req.getServletPath()).thenReturn("");
+        when(req.getPathInfo()).thenReturn("/repository/resource");
+        when(req.getHeader("Accept")).thenReturn("text/turtle");
+        when(req.getHeader("If-None-Match")).thenReturn(ifNoneMatch);
+        return req;
+    }
+
+    private static HttpServletResponse mockResponse(final ByteArrayOutputStream body) throws Exception {
+        final HttpServletResponse res = mock(HttpServletResponse.class);
+        when(res.getStatus()).thenReturn(200);
+        when(res.getContentType()).thenReturn("text/turtle");
+        when(res.getHeaderNames()).thenReturn(asList("ETag", "Content-Type", "Date", "Link"));
+        when(res.getHeaders("ETag")).thenReturn(singletonList("\"1234\""));
+        when(res.getHeaders("Link")).thenReturn(singletonList(LINK));
+        when(res.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(final int b) {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(final WriteListener listener) {
+                // not used
+            }
+        });
+        return res;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.filter;
+
+import static java.util.Arrays.asList;
+import static javax.ws.rs.core.Response.Status.NO_CONTENT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.trellisldp.app.config.CORSConfiguration;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class CrossOriginFilterTest {
+
+    private static final String ORIGIN = "https://app.example.org";
+
+    private CORSConfiguration config;
+
+    @BeforeEach
+    public void setUp() {
+        config = new CORSConfiguration();
+        config.setAllowOrigin(asList("https://example.com", "https://*.example.org"));
+        config.setAllowMethods(asList("GET", "PUT", "PATCH"));
+        config.setAllowHeaders(asList("Content-Type", "Link"));
+        config.setExposeHeaders(asList("Link", "Location"));
+        config.setMaxAge(600);
+    }
+
+    @Test
+    public void testPreflight() {
+        final CrossOriginFilter filter = new CrossOriginFilter(config);
+        final ContainerRequestContext req = mockRequest("OPTIONS", ORIGIN);
+        when(req.getHeaderString("Access-Control-Request-Method")).thenReturn("PATCH");
+        when(req.getHeaderString("Access-Control-Request-Headers")).thenReturn("content-type, Link");
+
+        filter.filter(req);
+        final ArgumentCaptor<Response> res = ArgumentCaptor.forClass(Response.class);
+        verify(req).abortWith(res.capture());
+        assertEquals(NO_CONTENT.getStatusCode(), res.getValue().getStatus());
+        assertEquals(ORIGIN, res.getValue().getHeaderString("Access-Control-Allow-Origin"));
+        assertEquals("GET,PUT,PATCH", res.getValue().getHeaderString("Access-Control-Allow-Methods"));
+        assertEquals("Content-Type,Link", res.getValue().getHeaderString("Access-Control-Allow-Headers"));
+        assertEquals("600", res.getValue().getHeaderString("Access-Control-Max-Age"));
+        assertEquals("true", res.getValue().getHeaderString("Access-Control-Allow-Credentials"));
+    }
+
+    @Test
+    public void testPreflightRejected() {
+        final CrossOriginFilter filter = new CrossOriginFilter(config);
+        final ContainerRequestContext req1 = mockRequest("OPTIONS", "https://example.org.evil.com");
+        when(req1.getHeaderString("Access-Control-Request-Method")).thenReturn("PUT");
+        final ContainerRequestContext req2 = mockRequest("OPTIONS", "https://example.com");
+        when(req2.getHeaderString("Access-Control-Request-Method")).thenReturn("DELETE");
+        final ContainerRequestContext req3 = mockRequest("OPTIONS", "https://example.com");
+        when(req3.getHeaderString("Access-Control-Request-Method")).thenReturn("PUT");
+        when(req3.getHeaderString("Access-Control-Request-Headers")).thenReturn("Slug");
+
+        for (final ContainerRequestContext req : asList(req1, req2, req3)) {
+            filter.filter(req);
+            final ArgumentCaptor<Response> res = ArgumentCaptor.forClass(Response.class);
+            verify(req).abortWith(res.capture());
+            assertEquals(NO_CONTENT.getStatusCode(), res.getValue().getStatus());
+            assertNull(res.getValue().getHeaderString("Access-Control-Allow-Origin"));
+        }
+    }
+
+    @Test
+    public void testNotPreflight() {
+        final CrossOriginFilter filter = new CrossOriginFilter(config);
+        final ContainerRequestContext req1 = mockRequest("OPTIONS", ORIGIN);
+        final ContainerRequestContext req2 = mockRequest("GET", ORIGIN);
+        filter.filter(req1);
+        filter.filter(req2);
+        verify(req1, never()).abortWith(any());
+        verify(req2, never()).abortWith(any());
+    }
+
+    @Test
+    public void testSimpleRequest() {
+        final CrossOriginFilter filter = new CrossOriginFilter(config);
+        final ContainerResponseContext res = mockResponse();
+        filter.filter(mockRequest("GET", "https://example.com"), res);
+        assertEquals("https://example.com", res.getHeaders().getFirst("Access-Control-Allow-Origin"));
+        assertEquals("true", res.getHeaders().getFirst("Access-Control-Allow-Credentials"));
+        assertEquals("Link,Location", res.getHeaders().getFirst("Access-Control-Expose-Headers"));
+        assertEquals("Origin", res.getHeaders().getFirst("Vary"));
+    }
+
+    @Test
+    public void testSimpleRequestRejected() {
+        config.setAllowCredentials(false);
+        final CrossOriginFilter filter = new CrossOriginFilter(config);
+        final ContainerResponseContext res1 = mockResponse();
+        filter.filter(mockRequest("GET", "https://example.net"), res1);
+        assertFalse(res1.getHeaders().containsKey("Access-Control-Allow-Origin"));
+
+        final ContainerResponseContext res2 = mockResponse();
+        filter.filter(mockRequest("GET", null), res2);
+        assertFalse(res2.getHeaders().containsKey("Access-Control-Allow-Origin"));
+    }
+
+    @Test
+    public void testAnyOrigin() {
+        config.setAllowOrigin(asList("*"));
+        config.setAllowCredentials(false);
+        final CrossOriginFilter filter = new CrossOriginFilter(config);
+        final ContainerResponseContext res = mockResponse();
+        filter.filter(mockRequest("GET", "https://example.net"), res);
+        assertEquals("https://example.net", res.getHeaders().getFirst("Access-Control-Allow-Origin"));
+        assertFalse(res.getHeaders().containsKey("Access-Control-Allow-Credentials"));
+    }
+
+    private static ContainerRequestContext mockRequest(final String method, final String origin) {
+        final ContainerRequestContext req = mock(ContainerRequestContext.class);
+        when(req.getMethod()).thenReturn(method);
+        when(req.getHeaderString("Origin")).thenReturn(origin);
+        return req;
+    }
+
+    private static ContainerResponseContext mockResponse() {
+        final ContainerResponseContext res = mock(ContainerResponseContext.class);
+        final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        when(res.getHeaders()).thenReturn(headers);
+        return res;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.filter;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.util.Arrays.asList;
+import static javax.ws.rs.core.HttpHeaders.RETRY_AFTER;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.core.Response;
+
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.trellisldp.app.config.AdmissionConfiguration;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class PartitionAdmissionFilterTest {
+
+    private MetricRegistry metrics;
+
+    private AdmissionConfiguration config;
+
+    @BeforeEach
+    public void setUp() {
+        metrics = new MetricRegistry();
+        config = new AdmissionConfiguration();
+        config.setAdaptive(false);
+        config.setMaxLimit(1);
+        config.setRetryAfter(3);
+    }
+
+    @Test
+    public void testGetPartition() {
+        assertEquals("repository", FilterUtils.getPartition("repository/foo/bar"));
+        assertEquals("repository", FilterUtils.getPartition("/repository/foo"));
+        assertEquals("repository", FilterUtils.getPartition("repository"));
+        assertEquals("", FilterUtils.getPartition(""));
+    }
+
+    @Test
+    public void testAdmission() {
+        final PartitionAdmissionFilter filter = new PartitionAdmissionFilter(asList("repo1", "repo2"), config,
+                metrics);
+
+        final ContainerRequest req1 = mockRequest("repo1/resource");
+        final ContainerRequest req2 = mockRequest("repo1/other");
+        final ContainerRequest req3 = mockRequest("repo2/resource");
+
+        filter.filter(req1);
+        verify(req1, never()).abortWith(any());
+        assertEquals(1, metrics.getGauges().get(name(PartitionAdmissionFilter.class, "repo1", "inflight"))
+                .getValue());
+
+        filter.filter(req2);
+        final ArgumentCaptor<Response> res = ArgumentCaptor.forClass(Response.class);
+        verify(req2).abortWith(res.capture());
+        assertEquals(SERVICE_UNAVAILABLE.getStatusCode(), res.getValue().getStatus());
+        assertEquals("3", res.getValue().getHeaderString(RETRY_AFTER));
+        assertEquals(1L, metrics.getMeters().get(name(PartitionAdmissionFilter.class, "repo1", "rejected"))
+                .getCount());
+
+        // A different partition is unaffected
+        filter.filter(req3);
+        verify(req3, never()).abortWith(any());
+
+        // The rejected request must not release a slot
+        finish(filter, req2);
+        assertEquals(1, metrics.getGauges().get(name(PartitionAdmissionFilter.class, "repo1", "inflight"))
+                .getValue());
+
+        finish(filter, req1);
+        assertEquals(0, metrics.getGauges().get(name(PartitionAdmissionFilter.class, "repo1", "inflight"))
+                .getValue());
+        assertEquals(1L, metrics.getTimers().get(name(PartitionAdmissionFilter.class, "repo1", "requests"))
+                .getCount());
+    }
+
+    @Test
+    public void testReleaseOnFinish() {
+        final PartitionAdmissionFilter filter = new PartitionAdmissionFilter(asList("repo1"), config, metrics);
+        final ContainerRequest req = mockRequest("repo1/resource");
+        filter.filter(req);
+        final RequestEventListener listener = filter.onRequest(event(RequestEvent.Type.START, req));
+
+        // The slot is held while the request is processed and its body is written, or until it fails
+        listener.onEvent(event(RequestEvent.Type.RESP_FILTERS_FINISHED, req));
+        listener.onEvent(event(RequestEvent.Type.ON_EXCEPTION, req));
+        assertEquals(1, metrics.getGauges().get(name(PartitionAdmissionFilter.class, "repo1", "inflight"))
+                .getValue());
+
+        listener.onEvent(event(RequestEvent.Type.FINISHED, req));
+        assertEquals(0, metrics.getGauges().get(name(PartitionAdmissionFilter.class, "repo1", "inflight"))
+                .getValue());
+
+        // A slot is only released once
+        listener.onEvent(event(RequestEvent.Type.FINISHED, req));
+        assertEquals(0, metrics.getGauges().get(name(PartitionAdmissionFilter.class, "repo1", "inflight"))
+                .getValue());
+        assertEquals(1L, metrics.getTimers().get(name(PartitionAdmissionFilter.class, "repo1", "requests"))
+                .getCount());
+    }
+
+    @Test
+    public void testUnknownPartition() {
+        final PartitionAdmissionFilter filter = new PartitionAdmissionFilter(asList("repo1"), config, metrics);
+        final ContainerRequest req = mockRequest("other/resource");
+        filter.filter(req);
+        filter.filter(req);
+        verify(req, never()).abortWith(any());
+    }
+
+    @Test
+    public void testAdaptiveLimit() {
+        final ConcurrencyLimit limit = new ConcurrencyLimit(10, 2, 12, 100L, 0.5, true);
+        assertEquals(10, limit.getLimit());
+
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire());
+        assertEquals(10, limit.getInflight());
+
+        // Fast responses increase the limit
+        for (int i = 0; i < 10; ++i) {
+            limit.release(50L);
+        }
+        assertTrue(limit.tryAcquire());
+        limit.release(50L);
+        assertEquals(11, limit.getLimit());
+
+        // Slow responses decrease the limit
+        assertTrue(limit.tryAcquire());
+        limit.release(200L);
+        assertEquals(5, limit.getLimit());
+
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(limit.tryAcquire());
+            limit.release(200L);
+        }
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    public void testFixedLimit() {
+        final ConcurrencyLimit limit = new ConcurrencyLimit(10, 2, 12, 100L, 0.5, false);
+        assertEquals(12, limit.getLimit());
+        assertTrue(limit.tryAcquire());
+        limit.release(200L);
+        assertEquals(12, limit.getLimit());
+    }
+
+    private static ContainerRequest mockRequest(final String path) {
+        final Map<String, Object> props = new HashMap<>();
+        final ContainerRequest req = mock(ContainerRequest.class);
+        final ExtendedUriInfo uriInfo = mock(ExtendedUriInfo.class);
+        when(uriInfo.getPath()).thenReturn(path);
+        when(req.getUriInfo()).thenReturn(uriInfo);
+        doAnswer(inv -> props.put(inv.getArgument(0), inv.getArgument(1)))
+            .when(req).setProperty(any(), any());
+        doAnswer(inv -> props.remove(inv.<String>getArgument(0)))
+            .when(req).removeProperty(any());
+        when(req.getProperty(any())).thenAnswer(inv -> props.get(inv.<String>getArgument(0)));
+        return req;
+    }
+
+    private static RequestEvent event(final RequestEvent.Type type, final ContainerRequest req) {
+        final RequestEvent event = mock(RequestEvent.class);
+        when(event.getType()).thenReturn(type);
+        when(event.getContainerRequest()).thenReturn(req);
+        return event;
+    }
+
+    private static void finish(final PartitionAdmissionFilter filter, final ContainerRequest req) {
+        final RequestEvent event = event(RequestEvent.Type.FINISHED, req);
+        filter.onRequest(event).onEvent(event);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.filter;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static javax.ws.rs.core.HttpHeaders.LINK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class RequestMetricsFilterTest {
+
+    private static final String LDP = "http://www.w3.org/ns/ldp#";
+
+    private final Map<String, Object> properties = new HashMap<>();
+    private final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+
+    private MetricRegistry metrics;
+    private RequestMetricsFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        properties.clear();
+        headers.clear();
+        metrics = new MetricRegistry();
+        filter = new RequestMetricsFilter(asList("repository", "other"), metrics);
+    }
+
+    private static String metric(final String partition, final String method, final String model,
+            final String status, final String type) {
+        return name(RequestMetricsFilter.class, partition, method, model, status, type);
+    }
+
+    private ContainerRequestContext mockRequest(final String method, final String path) {
+        final ContainerRequestContext req = mock(ContainerRequestContext.class);
+        final UriInfo uriInfo = mock(UriInfo.class);
+        when(uriInfo.getPath()).thenReturn(path);
+        when(req.getUriInfo()).thenReturn(uriInfo);
+        when(req.getMethod()).thenReturn(method);
+        when(req.getProperty(anyString())).thenAnswer(inv -> properties.get(inv.getArgument(0)));
+        doAnswer(inv -> properties.put(inv.getArgument(0), inv.getArgument(1))).when(req)
+            .setProperty(anyString(), any());
+        doAnswer(inv -> properties.remove(inv.getArgument(0))).when(req).removeProperty(anyString());
+        return req;
+    }
+
+    private ContainerResponseContext mockResponse(final int status, final Boolean hasEntity) {
+        final ContainerResponseContext res = mock(ContainerResponseContext.class);
+        when(res.getStatus()).thenReturn(status);
+        when(res.hasEntity()).thenReturn(hasEntity);
+        when(res.getHeaders()).thenReturn(headers);
+        return res;
+    }
+
+    private WriterInterceptorContext mockWriter(final byte[] body) throws Exception {
+        final WriterInterceptorContext ctx = mock(WriterInterceptorContext.class);
+        final List<OutputStream> stream = new ArrayList<>(singletonList(new ByteArrayOutputStream()));
+        when(ctx.getProperty(anyString())).thenAnswer(inv -> properties.get(inv.getArgument(0)));
+        doAnswer(inv -> properties.remove(inv.getArgument(0))).when(ctx).removeProperty(anyString());
+        when(ctx.getOutputStream()).thenAnswer(inv -> stream.get(0));
+        doAnswer(inv -> stream.set(0, inv.getArgument(0))).when(ctx).setOutputStream(any());
+        doAnswer(inv -> {
+            stream.get(0).write(body);
+            return null;
+        }).when(ctx).proceed();
+        return ctx;
+    }
+
+    @Test
+    public void testPrecreated() {
+        assertEquals(2 * 8 * 7 * 5, metrics.getTimers().size());
+        assertEquals(2 * 8 * 7 * 5, metrics.getHistograms().size());
+        assertTrue(metrics.getTimers().containsKey(metric("other", "PATCH", "NonRDFSource", "4xx", "requests")));
+        assertTrue(metrics.getHistograms().containsKey(metric("repository", "GET", "Unknown", "2xx", "size")));
+    }
+
+    @Test
+    public void testGetContainer() throws Exception {
+        final ContainerRequestContext req = mockRequest("GET", "repository/container/");
+        headers.add(LINK, Link.fromUri(LDP + "Resource").rel("type").build());
+        headers.add(LINK, Link.fromUri(LDP + "RDFSource").rel("type").build());
+        headers.add(LINK, Link.fromUri(LDP + "Container").rel("type").build());
+        headers.add(LINK, Link.fromUri(LDP + "BasicContainer").rel("type").build());
+        headers.add(LINK, Link.fromUri(LDP + "DirectContainer").rel("describedby").build());
+
+        filter.filter(req);
+        filter.filter(req, mockResponse(200, true));
+        assertEquals(0L, metrics.timer(metric("repository", "GET", "BasicContainer", "2xx", "requests"))
+                .getCount());
+
+        final WriterInterceptorContext writer = mockWriter(new byte[1234]);
+        filter.aroundWriteTo(writer);
+        verify(writer).proceed();
+        assertEquals(1L, metrics.timer(metric("repository", "GET", "BasicContainer", "2xx", "requests"))
+                .getCount());
+        assertEquals(1234L, metrics.histogram(metric("repository", "GET", "BasicContainer", "2xx", "size"))
+                .getSnapshot().getMax());
+        assertTrue(properties.isEmpty());
+    }
+
+    @Test
+    public void testCoalesced() {
+        filter.coalesced("GET", "repository/container/", 200, asList(
+                    Link.fromUri(LDP + "RDFSource").rel("type").build().toString(),
+                    Link.fromUri(LDP + "BasicContainer").rel("type").build().toString()), 1000000L, 321L);
+        filter.coalesced("GET", "unknown/resource", 200, asList(), 1000000L, 321L);
+        assertEquals(1L, metrics.timer(metric("repository", "GET", "BasicContainer", "2xx", "requests"))
+                .getCount());
+        assertEquals(321L, metrics.histogram(metric("repository", "GET", "BasicContainer", "2xx", "size"))
+                .getSnapshot().getMax());
+    }
+
+    @Test
+    public void testNoEntity() {
+        final ContainerRequestContext req = mockRequest("PATCH", "/other/binary");
+        headers.add(LINK, "<" + LDP + "NonRDFSource>; rel=\"type\"");
+
+        filter.filter(req);
+        filter.filter(req, mockResponse(412, false));
+        assertEquals(1L, metrics.timer(metric("other", "PATCH", "NonRDFSource", "4xx", "requests")).getCount());
+        assertEquals(0L, metrics.histogram(metric("other", "PATCH", "NonRDFSource", "4xx", "size"))
+                .getSnapshot().getMax());
+        assertTrue(properties.isEmpty());
+    }
+
+    @Test
+    public void testHeadAndOther() {
+        final ContainerRequestContext head = mockRequest("HEAD", "repository");
+        filter.filter(head);
+        filter.filter(head, mockResponse(200, true));
+        assertEquals(1L, metrics.timer(metric("repository", "HEAD", "Unknown", "2xx", "requests")).getCount());
+
+        final ContainerRequestContext other = mockRequest("PROPFIND", "repository/resource");
+        filter.filter(other);
+        filter.filter(other, mockResponse(503, false));
+        assertEquals(1L, metrics.timer(metric("repository", "OTHER", "Unknown", "5xx", "requests")).getCount());
+    }
+
+    @Test
+    public void testUnknownPartition() throws Exception {
+        final ContainerRequestContext req = mockRequest("GET", "repositoryx/resource");
+        filter.filter(req);
+        filter.filter(req, mockResponse(200, true));
+        final WriterInterceptorContext writer = mockWriter(new byte[10]);
+        filter.aroundWriteTo(writer);
+        verify(writer).proceed();
+        assertTrue(properties.isEmpty());
+        assertTrue(metrics.getTimers().values().stream().allMatch(timer -> timer.getCount() == 0L));
+    }
+}
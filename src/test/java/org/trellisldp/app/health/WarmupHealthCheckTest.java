@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.health;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import com.codahale.metrics.health.HealthCheck;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.app.CacheWarmer;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class WarmupHealthCheckTest {
+
+    @Mock
+    private CacheWarmer mockWarmer;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        when(mockWarmer.getWarmed()).thenReturn(5);
+        when(mockWarmer.getTotal()).thenReturn(10);
+    }
+
+    @Test
+    public void testComplete() {
+        when(mockWarmer.isComplete()).thenReturn(true);
+        when(mockWarmer.isReady()).thenReturn(true);
+        assertTrue(new WarmupHealthCheck(mockWarmer).execute().isHealthy());
+    }
+
+    @Test
+    public void testMaxWait() {
+        when(mockWarmer.isComplete()).thenReturn(false);
+        when(mockWarmer.isReady()).thenReturn(true);
+        final HealthCheck.Result result = new WarmupHealthCheck(mockWarmer).execute();
+        assertTrue(result.isHealthy());
+        assertTrue(result.getMessage().contains("5 of 10"));
+    }
+
+    @Test
+    public void testInProgress() {
+        when(mockWarmer.isComplete()).thenReturn(false);
+        when(mockWarmer.isReady()).thenReturn(false);
+        assertFalse(new WarmupHealthCheck(mockWarmer).execute().isHealthy());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.logging;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.trellisldp.app.logging.AccessLogEntry.Phase.AUTH;
+import static org.trellisldp.app.logging.AccessLogEntry.Phase.BACKEND;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class AccessLogTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private Path dir;
+    private MetricRegistry metrics;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("trellis-access-log");
+        metrics = new MetricRegistry();
+    }
+
+    private static AccessLogEntry entry(final String path) {
+        final AccessLogEntry entry = new AccessLogEntry("GET", path, "repository");
+        entry.complete(200, 1024L);
+        return entry;
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        final Path file = dir.resolve("logs/access.log");
+        final AccessLog log = new AccessLog(file.toString(), 16, 1048576L, 2, metrics);
+        log.start();
+
+        final AccessLogEntry entry = AccessLogEntry.begin("PUT", "repository/resource", "repository");
+        entry.start(AUTH);
+        entry.stop(AUTH);
+        assertEquals("value", AccessLogEntry.time(BACKEND, () -> {
+            parkNanos(1000000L);
+            return "value";
+        }));
+        AccessLogEntry.clear();
+        entry.complete(204, -1L);
+        assertTrue(log.log(entry));
+        assertTrue(log.log(entry("repository/other")));
+        log.stop();
+
+        final List<String> lines = Files.readAllLines(file, UTF_8);
+        assertEquals(2L, lines.size());
+        final JsonNode first = MAPPER.readTree(lines.get(0));
+        assertEquals("PUT", first.get("method").asText());
+        assertEquals("repository/resource", first.get("path").asText());
+        assertEquals("repository", first.get("partition").asText());
+        assertEquals(204, first.get("status").asInt());
+        assertFalse(first.has("bytes"));
+        assertTrue(first.get("duration").isNumber());
+        assertTrue(first.get("phases").get("auth").isNumber());
+        assertTrue(first.get("phases").get("backend").asDouble() > 0.0);
+        assertEquals(0.0, first.get("phases").get("serialization").asDouble());
+        assertEquals(1024L, MAPPER.readTree(lines.get(1)).get("bytes").asLong());
+    }
+
+    @Test
+    public void testDropWhenFull() {
+        final AccessLog log = new AccessLog(dir.resolve("access.log").toString(), 2, 1048576L, 2, metrics);
+        assertTrue(log.log(entry("repository/1")));
+        assertTrue(log.log(entry("repository/2")));
+        assertFalse(log.log(entry("repository/3")));
+        assertFalse(log.log(entry("repository/4")));
+        assertEquals(2L, log.getDropped());
+        assertEquals(2L, metrics.counter(name(AccessLog.class, "dropped")).getCount());
+        assertEquals(2, metrics.getGauges().get(name(AccessLog.class, "buffered")).getValue());
+    }
+
+    @Test
+    public void testRoll() throws Exception {
+        final Path file = dir.resolve("access.log");
+        final AccessLog log = new AccessLog(file.toString(), 64, 400L, 2, metrics);
+        log.start();
+        for (int i = 0; i < 20; ++i) {
+            log.log(entry("repository/" + i));
+        }
+        log.stop();
+
+        assertTrue(Files.exists(file));
+        assertTrue(Files.exists(dir.resolve("access.log.1")));
+        assertTrue(Files.exists(dir.resolve("access.log.2")));
+        assertFalse(Files.exists(dir.resolve("access.log.3")));
+        assertTrue(Files.size(file) <= 400L);
+        assertTrue(Files.readAllLines(file, UTF_8).get(0).startsWith("{"));
+    }
+
+    @Test
+    public void testTimeWithoutEntry() {
+        AccessLogEntry.clear();
+        assertFalse(AccessLogEntry.current().isPresent());
+        assertEquals("value", AccessLogEntry.time(BACKEND, () -> "value"));
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.profiling;
+
+import static java.util.Collections.singleton;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+import static org.trellisldp.app.profiling.ProfilingTest.recordEvents;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import jdk.jfr.consumer.RecordedEvent;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.api.RDFSyntax;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.AccessControlService;
+import org.trellisldp.api.BinaryService;
+import org.trellisldp.api.BinaryService.Resolver;
+import org.trellisldp.api.IOService;
+import org.trellisldp.api.Session;
+import org.trellisldp.vocabulary.ACL;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class ProfilingServicesTest {
+
+    private static final RDF rdf = getInstance();
+    private static final IRI RESOURCE = rdf.createIRI("trellis:repository/resource");
+    private static final IRI BINARY = rdf.createIRI("file:binary");
+
+    @Mock
+    private AccessControlService mockAccessService;
+
+    @Mock
+    private IOService mockIoService;
+
+    @Mock
+    private BinaryService mockBinaryService;
+
+    @Mock
+    private Resolver mockResolver;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Graph mockGraph;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        when(mockAccessService.getAccessModes(RESOURCE, mockSession)).thenReturn(singleton(ACL.Read));
+        when(mockBinaryService.getContent("repository", BINARY))
+            .thenAnswer(inv -> of(new ByteArrayInputStream("content".getBytes())));
+        when(mockBinaryService.getResolver(BINARY)).thenReturn(of(mockResolver));
+        when(mockResolver.getContent("repository", BINARY)).thenReturn(empty());
+        Profiling.begin("request-1", "/repository/resource");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Profiling.end();
+    }
+
+    @Test
+    public void testAccessControlService() throws IOException {
+        final AccessControlService svc = new ProfilingAccessControlService(mockAccessService);
+        final List<RecordedEvent> events = recordEvents(() ->
+                assertTrue(svc.getAccessModes(RESOURCE, mockSession).contains(ACL.Read)));
+        assertEquals(1L, events.size());
+        assertEquals("org.trellisldp.Authorization", events.get(0).getEventType().getName());
+        assertEquals("request-1", events.get(0).getString("requestId"));
+        assertEquals("repository", events.get(0).getString("partition"));
+        assertEquals(RESOURCE.toString(), events.get(0).getString("target"));
+    }
+
+    @Test
+    public void testIOService() throws IOException {
+        final IOService svc = new ProfilingIOService(mockIoService);
+        final List<RecordedEvent> events = recordEvents(() -> {
+            svc.write(Stream.empty(), new ByteArrayOutputStream(), RDFSyntax.TURTLE);
+            svc.read(new ByteArrayInputStream(new byte[0]), null, RDFSyntax.TURTLE);
+            svc.update(mockGraph, "INSERT DATA {}", "trellis:repository/");
+        });
+        verify(mockIoService).write(any(), any(), eq(RDFSyntax.TURTLE));
+        verify(mockIoService).update(mockGraph, "INSERT DATA {}", "trellis:repository/");
+        assertEquals(3L, events.size());
+        assertEquals(Stream.of("write", "read", "update").collect(toList()),
+                events.stream().map(event -> event.getString("operation")).collect(toList()));
+        assertTrue(events.stream().allMatch(event ->
+                    event.getEventType().getName().equals("org.trellisldp.Serialization")));
+    }
+
+    @Test
+    public void testBinaryService() throws IOException {
+        final BinaryService svc = new ProfilingBinaryService(mockBinaryService);
+        final List<RecordedEvent> events = recordEvents(() -> {
+            final Optional<InputStream> content = svc.getContent("repository", BINARY);
+            assertTrue(content.isPresent());
+            try (final InputStream input = content.get()) {
+                assertEquals('c', input.read());
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            assertFalse(svc.getResolver(BINARY).flatMap(r -> r.getContent("repository", BINARY)).isPresent());
+            svc.setContent("repository", BINARY, new ByteArrayInputStream(new byte[0]));
+            svc.purgeContent("repository", BINARY);
+        });
+        verify(mockBinaryService).purgeContent("repository", BINARY);
+        assertEquals(4L, events.size());
+        assertEquals("org.trellisldp.BinaryRead", events.get(0).getEventType().getName());
+        assertEquals("org.trellisldp.BinaryRead", events.get(1).getEventType().getName());
+        assertEquals("org.trellisldp.BinaryWrite", events.get(2).getEventType().getName());
+        assertEquals("purgeContent", events.get(3).getString("operation"));
+        assertEquals(BINARY.toString(), events.get(0).getString("target"));
+    }
+
+    @Test
+    public void testProducer() throws IOException {
+        final MockProducer<String, String> mockProducer = new MockProducer<>(false, new StringSerializer(),
+                new StringSerializer());
+        final ProfilingProducer<String, String> producer = new ProfilingProducer<>(mockProducer);
+        final List<RecordedEvent> events = recordEvents(() -> {
+            producer.send(new ProducerRecord<>("trellis", "key", "value"), (metadata, ex) ->
+                    assertTrue(Profiling.isAvailable()));
+            producer.send(new ProducerRecord<>("trellis", "key", "value"));
+            mockProducer.completeNext();
+            mockProducer.errorNext(new RuntimeException("Expected"));
+        });
+        assertEquals(2L, mockProducer.history().size());
+        assertEquals(2L, events.size());
+        assertTrue(events.stream().allMatch(event -> "trellis".equals(event.getString("target"))));
+        assertEquals("request-1", events.get(0).getString("requestId"));
+        producer.flush();
+        producer.close();
+    }
+}
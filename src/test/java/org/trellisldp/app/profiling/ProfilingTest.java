@@ -0,0 +1,168 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.profiling;
+
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.delete;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.trellisldp.app.profiling.Profiling.Kind.AUTHENTICATION;
+import static org.trellisldp.app.profiling.Profiling.Kind.RESOURCE_READ;
+import static org.trellisldp.app.profiling.Profiling.Kind.RESOURCE_WRITE;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class ProfilingTest {
+
+    static final String[] EVENTS = {"org.trellisldp.Authentication", "org.trellisldp.Authorization",
+        "org.trellisldp.ResourceRead", "org.trellisldp.ResourceWrite", "org.trellisldp.Serialization",
+        "org.trellisldp.BinaryRead", "org.trellisldp.BinaryWrite", "org.trellisldp.KafkaPublish"};
+
+    @AfterEach
+    public void tearDown() {
+        Profiling.end();
+    }
+
+    @Test
+    public void testAvailable() {
+        assertTrue(Profiling.isAvailable());
+    }
+
+    @Test
+    public void testRecordRequest() throws IOException {
+        final List<RecordedEvent> events = recordEvents(() -> {
+            Profiling.begin("abc123", "/repository/resource");
+            assertEquals("value", Profiling.record(RESOURCE_READ, "get", "trellis:repository/resource",
+                        () -> "value"));
+        });
+        assertEquals(1L, events.size());
+        final RecordedEvent event = events.get(0);
+        assertEquals("org.trellisldp.ResourceRead", event.getEventType().getName());
+        assertEquals("abc123", event.getString("requestId"));
+        assertEquals("repository", event.getString("partition"));
+        assertEquals("get", event.getString("operation"));
+        assertEquals("trellis:repository/resource", event.getString("target"));
+    }
+
+    @Test
+    public void testGeneratedRequestId() throws IOException {
+        final List<RecordedEvent> events = recordEvents(() -> {
+            Profiling.begin(null, "/repository");
+            Profiling.start(RESOURCE_WRITE, "put", null).finish();
+            Profiling.start(RESOURCE_WRITE, "put", null).finish();
+            Profiling.begin(null, "/other/resource");
+            Profiling.start(RESOURCE_WRITE, "put", null).finish();
+        });
+        assertEquals(3L, events.size());
+        assertNotNull(events.get(0).getString("requestId"));
+        assertEquals(events.get(0).getString("requestId"), events.get(1).getString("requestId"));
+        assertFalse(events.get(0).getString("requestId").equals(events.get(2).getString("requestId")));
+        assertEquals("repository", events.get(0).getString("partition"));
+        assertEquals("other", events.get(2).getString("partition"));
+        assertNull(events.get(0).getString("target"));
+    }
+
+    @Test
+    public void testNoRequest() throws IOException {
+        final List<RecordedEvent> events = recordEvents(() ->
+            Profiling.record(AUTHENTICATION, "basic", "user", () -> true));
+        assertEquals(1L, events.size());
+        assertNull(events.get(0).getString("requestId"));
+        assertNull(events.get(0).getString("partition"));
+    }
+
+    @Test
+    public void testException() throws IOException {
+        final List<RecordedEvent> events = recordEvents(() ->
+            assertThrows(IOException.class, () -> Profiling.record(RESOURCE_READ, "get", null, () -> {
+                throw new IOException("Expected");
+            })));
+        assertEquals(1L, events.size());
+    }
+
+    @Test
+    public void testNotRecording() {
+        Profiling.begin("abc123", "/repository");
+        assertEquals("value", Profiling.record(RESOURCE_READ, "get", null, () -> "value"));
+        Profiling.start(RESOURCE_WRITE, "put", null).finish();
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        final HttpServletRequest mockRequest = mock(HttpServletRequest.class);
+        when(mockRequest.getHeader(ProfilingFilter.REQUEST_ID)).thenReturn("request-1");
+        when(mockRequest.getContextPath()).thenReturn("/trellis");
+        when(mockRequest.getRequestURI()).thenReturn("/trellis/repository/resource");
+
+        final ProfilingFilter filter = new ProfilingFilter();
+        filter.init(null);
+        final List<RecordedEvent> events = recordEvents(() -> {
+            try {
+                filter.doFilter(mockRequest, mock(HttpServletResponse.class), (req, res) ->
+                        Profiling.start(RESOURCE_READ, "get", null).finish());
+            } catch (final Exception ex) {
+                throw new AssertionError(ex);
+            }
+            Profiling.start(RESOURCE_READ, "get", null).finish();
+        });
+        filter.destroy();
+
+        assertEquals(2L, events.size());
+        assertEquals("request-1", events.get(0).getString("requestId"));
+        assertEquals("repository", events.get(0).getString("partition"));
+        assertNull(events.get(1).getString("requestId"));
+    }
+
+    static List<RecordedEvent> recordEvents(final Runnable runnable) throws IOException {
+        final Path file = createTempFile("trellis", ".jfr");
+        try (final Recording recording = new Recording()) {
+            Stream.of(EVENTS).forEach(recording::enable);
+            recording.start();
+            runnable.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().startsWith("org.trellisldp."))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime())).collect(toList());
+        } finally {
+            delete(file);
+        }
+    }
+}
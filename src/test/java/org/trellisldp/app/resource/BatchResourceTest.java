@@ -0,0 +1,250 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.resource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.OK;
+import static javax.ws.rs.core.Response.Status.REQUEST_ENTITY_TOO_LARGE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.AccessControlService;
+import org.trellisldp.api.AgentService;
+import org.trellisldp.api.IOService;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.vocabulary.ACL;
+import org.trellisldp.vocabulary.DC;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class BatchResourceTest {
+
+    private static final RDF rdf = getInstance();
+    private static final String BASE_URL = "http://localhost:8080/";
+    private static final IRI AGENT = rdf.createIRI("info:user/agent");
+    private static final IRI RESOURCE1 = rdf.createIRI("trellis:repository/resource1");
+    private static final IRI RESOURCE2 = rdf.createIRI("trellis:repository/resource2");
+    private static final IRI SECRET = rdf.createIRI("trellis:repository/secret");
+
+    private final Map<String, String> partitionUrls = singletonMap("repository", BASE_URL);
+
+    private ExecutorService executor;
+
+    @Mock
+    private ResourceService mockResourceService;
+
+    @Mock
+    private IOService mockIoService;
+
+    @Mock
+    private AgentService mockAgentService;
+
+    @Mock
+    private AccessControlService mockAccessService;
+
+    @Mock
+    private SecurityContext mockSecurityContext;
+
+    @Mock
+    private Principal mockPrincipal;
+
+    @Mock
+    private Resource mockResource1;
+
+    @Mock
+    private Resource mockResource2;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        executor = newFixedThreadPool(2);
+        when(mockSecurityContext.getUserPrincipal()).thenReturn(mockPrincipal);
+        when(mockPrincipal.getName()).thenReturn("agent");
+        when(mockAgentService.asAgent("agent")).thenReturn(AGENT);
+        when(mockResourceService.get(any(IRI.class))).thenReturn(empty());
+        when(mockResourceService.get(RESOURCE1)).thenAnswer(inv -> of(mockResource1));
+        when(mockResourceService.get(RESOURCE2)).thenAnswer(inv -> of(mockResource2));
+        when(mockResourceService.get(SECRET)).thenAnswer(inv -> of(mockResource1));
+        when(mockResourceService.unskolemize(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(mockResourceService.toExternal(any(), eq(BASE_URL))).thenAnswer(inv -> {
+            final RDFTerm term = inv.getArgument(0);
+            if (term instanceof IRI && ((IRI) term).getIRIString().startsWith("trellis:")) {
+                return rdf.createIRI(BASE_URL + ((IRI) term).getIRIString().substring("trellis:".length()));
+            }
+            return term;
+        });
+        when(mockResource1.getTypes()).thenReturn(emptySet());
+        when(mockResource1.stream(Trellis.PreferUserManaged)).thenAnswer(inv -> Stream.of(
+                    rdf.createTriple(RESOURCE1, DC.title, rdf.createLiteral("Resource 1"))));
+        when(mockResource2.getTypes()).thenReturn(emptySet());
+        when(mockResource2.stream(Trellis.PreferUserManaged)).thenAnswer(inv -> Stream.of(
+                    rdf.createTriple(RESOURCE2, DC.title, rdf.createLiteral("Resource 2"))));
+        when(mockAccessService.getAccessModes(any(IRI.class), any())).thenAnswer(inv ->
+                SECRET.equals(inv.getArgument(0)) ? emptySet() : singleton(ACL.Read));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testQuads() throws Exception {
+        final BatchResource resource = new BatchResource(mockResourceService, mockIoService, mockAgentService,
+                mockAccessService, partitionUrls, executor, 10);
+        final Response res = resource.getQuads("repository", mockSecurityContext,
+                "resource1\n/resource2\n\nhttp://localhost:8080/repository/secret\nmissing\n");
+        assertEquals(OK.getStatusCode(), res.getStatus());
+
+        final String body = write(res);
+        final String[] lines = body.split("\n");
+        assertEquals(2L, lines.length);
+        assertEquals("<http://localhost:8080/repository/resource1> <http://purl.org/dc/terms/title> "
+                + "\"Resource 1\" <http://localhost:8080/repository/resource1> .", lines[0].trim());
+        assertTrue(lines[1].contains("\"Resource 2\" <http://localhost:8080/repository/resource2>"));
+        assertFalse(body.contains("secret"));
+    }
+
+    @Test
+    public void testMultipart() throws Exception {
+        doAnswer(inv -> {
+            final OutputStream out = inv.getArgument(1);
+            inv.<Stream<? extends Triple>>getArgument(0)
+                .forEach(triple -> write(out, triple.getObject().ntriplesString() + "\n"));
+            return null;
+        }).when(mockIoService).write(any(), any(), any());
+
+        final BatchResource resource = new BatchResource(mockResourceService, mockIoService, mockAgentService,
+                mockAccessService, partitionUrls, executor, 10);
+        final Response res = resource.getMultipart("repository", mockSecurityContext,
+                "resource1\nsecret\nmissing\nresource2");
+        assertEquals(OK.getStatusCode(), res.getStatus());
+        final String contentType = res.getMediaType().toString();
+        assertTrue(contentType.startsWith("multipart/mixed"));
+        final String boundary = res.getMediaType().getParameters().get("boundary");
+
+        final String[] parts = write(res).split("--" + boundary);
+        assertEquals(6L, parts.length);
+        assertTrue(parts[1].contains("Content-Location: http://localhost:8080/repository/resource1\r\n"));
+        assertTrue(parts[1].contains("Content-Type: text/turtle\r\n\r\n\"Resource 1\""));
+        assertTrue(parts[2].contains("Content-Location: http://localhost:8080/repository/secret\r\n"));
+        assertTrue(parts[2].contains("Status: 403\r\n"));
+        assertTrue(parts[3].contains("Status: 404\r\n"));
+        assertTrue(parts[4].contains("\"Resource 2\""));
+        assertEquals("--\r\n", parts[5]);
+    }
+
+    @Test
+    public void testNoAccessControl() throws Exception {
+        final BatchResource resource = new BatchResource(mockResourceService, mockIoService, mockAgentService,
+                partitionUrls, executor, 10);
+        final String body = write(resource.getQuads("repository", mockSecurityContext, "secret"));
+        assertTrue(body.contains("<http://localhost:8080/repository/secret>"));
+    }
+
+    @Test
+    public void testDeleted() throws Exception {
+        when(mockResource2.getTypes()).thenReturn(singleton(Trellis.DeletedResource));
+        final BatchResource resource = new BatchResource(mockResourceService, mockIoService, mockAgentService,
+                partitionUrls, executor, 10);
+        assertEquals("", write(resource.getQuads("repository", null, "resource2")));
+    }
+
+    @Test
+    public void testFailedResource() throws Exception {
+        when(mockResourceService.get(RESOURCE2)).thenThrow(new RuntimeException("Expected exception"));
+        doAnswer(inv -> {
+            write(inv.getArgument(1), "\"Resource 1\"");
+            return null;
+        }).when(mockIoService).write(any(), any(), any());
+
+        final BatchResource resource = new BatchResource(mockResourceService, mockIoService, mockAgentService,
+                partitionUrls, executor, 10);
+        final String quads = write(resource.getQuads("repository", mockSecurityContext, "resource2\nresource1"));
+        assertTrue(quads.contains("\"Resource 1\" <http://localhost:8080/repository/resource1>"));
+        assertFalse(quads.contains("resource2"));
+
+        final Response res = resource.getMultipart("repository", mockSecurityContext, "resource2\nresource1");
+        final String body = write(res);
+        assertTrue(body.contains("Content-Location: http://localhost:8080/repository/resource2\r\n"
+                    + "Status: 500\r\n"));
+        assertTrue(body.contains("\"Resource 1\""));
+        assertTrue(body.endsWith("--\r\n"));
+    }
+
+    @Test
+    public void testErrors() {
+        final BatchResource resource = new BatchResource(mockResourceService, mockIoService, mockAgentService,
+                partitionUrls, executor, 2);
+        assertEquals(NOT_FOUND.getStatusCode(), resource.getQuads("other", mockSecurityContext, "resource1")
+                .getStatus());
+        assertEquals(REQUEST_ENTITY_TOO_LARGE.getStatusCode(), resource.getMultipart("repository",
+                    mockSecurityContext, "resource1\nresource2\nmissing").getStatus());
+    }
+
+    private static String write(final Response res) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) res.getEntity()).write(out);
+        return new String(out.toByteArray(), UTF_8);
+    }
+
+    private static void write(final OutputStream out, final String value) {
+        try {
+            out.write(value.getBytes(UTF_8));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.resource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
+import static org.apache.curator.framework.CuratorFrameworkFactory.newClient;
+import static org.apache.zookeeper.CreateMode.EPHEMERAL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+import static org.trellisldp.rosid.common.RosidConstants.ZNODE_COORDINATION;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.apache.kafka.clients.producer.Producer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.AccessControlService;
+import org.trellisldp.api.AuditService;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.api.Session;
+import org.trellisldp.vocabulary.ACL;
+import org.trellisldp.vocabulary.DC;
+import org.trellisldp.vocabulary.LDP;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class BulkIngesterTest {
+
+    private static final RDF rdf = getInstance();
+    private static final String BASE_URL = "http://localhost:8080/";
+    private static final IRI ROOT = rdf.createIRI("trellis:repository");
+    private static final IRI EXISTING = rdf.createIRI("trellis:repository/existing");
+
+    private static TestingServer zk;
+    private static CuratorFramework curator;
+
+    private final Map<IRI, Dataset> stored = new ConcurrentHashMap<>();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private ExecutorService executor;
+
+    @Mock
+    private ResourceService mockResourceService;
+
+    @Mock
+    private AuditService mockAuditService;
+
+    @Mock
+    private Producer<String, String> mockProducer;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Resource mockResource;
+
+    @Mock
+    private Resource mockRoot;
+
+    @Mock
+    private AccessControlService mockAccessService;
+
+    @BeforeAll
+    public static void setUpZookeeper() throws Exception {
+        zk = new TestingServer(true);
+        curator = newClient(zk.getConnectString(), new RetryOneTime(100));
+        curator.start();
+    }
+
+    @AfterAll
+    public static void tearDownZookeeper() throws Exception {
+        curator.close();
+        zk.close();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        stored.clear();
+        executor = newFixedThreadPool(4);
+        when(mockResourceService.get(any(IRI.class))).thenReturn(empty());
+        when(mockResourceService.get(EXISTING)).thenAnswer(inv -> of(mockResource));
+        when(mockResourceService.get(ROOT)).thenAnswer(inv -> of(mockRoot));
+        when(mockResource.getTypes()).thenReturn(emptySet());
+        when(mockResource.getInteractionModel()).thenReturn(LDP.RDFSource);
+        when(mockRoot.getTypes()).thenReturn(emptySet());
+        when(mockRoot.getInteractionModel()).thenReturn(LDP.BasicContainer);
+        when(mockResourceService.skolemize(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(mockResourceService.toInternal(any(), eq(BASE_URL))).thenAnswer(inv -> {
+            final RDFTerm term = inv.getArgument(0);
+            if (term instanceof IRI && ((IRI) term).getIRIString().startsWith(BASE_URL)) {
+                return rdf.createIRI("trellis:" + ((IRI) term).getIRIString().substring(BASE_URL.length()));
+            }
+            return term;
+        });
+        when(mockResourceService.put(any(IRI.class), any(Dataset.class))).thenAnswer(inv -> {
+            stored.put(inv.getArgument(0), inv.getArgument(1));
+            return true;
+        });
+        when(mockAuditService.creation(any(IRI.class), eq(mockSession))).thenReturn(emptyList());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testIngest() throws Exception {
+        final BulkIngester ingester = new BulkIngester(mockResourceService, mockAuditService, curator, mockProducer,
+                executor, 2, 10);
+        final String input = "<http://localhost:8080/repository/container> "
+            + "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://www.w3.org/ns/ldp#BasicContainer> "
+            + "<http://localhost:8080/repository/container> .\n"
+            + "<http://localhost:8080/repository/container> <http://purl.org/dc/terms/title> \"A container\" "
+            + "<http://localhost:8080/repository/container> .\n"
+            + "<http://localhost:8080/repository/container/child> <http://purl.org/dc/terms/title> \"A child\" "
+            + "<http://localhost:8080/repository/container/child> .\n"
+            + "<http://localhost:8080/repository/container/child> <http://purl.org/dc/terms/relation> "
+            + "<http://localhost:8080/repository/container> <http://localhost:8080/repository/container/child> .\n"
+            + "<http://localhost:8080/repository/existing> <http://purl.org/dc/terms/title> \"Existing\" "
+            + "<http://localhost:8080/repository/existing> .\n"
+            + "<http://example.org/other> <http://purl.org/dc/terms/title> \"Other\" <http://example.org/other> .\n";
+
+        final List<Map<String, Object>> results = ingest(ingester, input);
+        assertEquals(4L, results.size());
+        final Map<String, Object> statuses = new HashMap<>();
+        results.forEach(result -> statuses.put((String) result.get("resource"), result.get("status")));
+        assertEquals(201, statuses.get("http://localhost:8080/repository/container"));
+        assertEquals(201, statuses.get("http://localhost:8080/repository/container/child"));
+        assertEquals(409, statuses.get("http://localhost:8080/repository/existing"));
+        assertEquals(400, statuses.get("http://example.org/other"));
+
+        final IRI container = rdf.createIRI("trellis:repository/container");
+        final IRI child = rdf.createIRI("trellis:repository/container/child");
+        assertEquals(2L, stored.size());
+        assertTrue(stored.get(container).contains(of(Trellis.PreferServerManaged), container,
+                    org.trellisldp.vocabulary.RDF.type, LDP.BasicContainer));
+        assertTrue(stored.get(container).contains(of(Trellis.PreferServerManaged), container, DC.isPartOf,
+                    rdf.createIRI("trellis:repository")));
+        assertFalse(stored.get(container).contains(of(Trellis.PreferUserManaged), null,
+                    org.trellisldp.vocabulary.RDF.type, null));
+        assertTrue(stored.get(container).contains(of(Trellis.PreferUserManaged), container, DC.title,
+                    rdf.createLiteral("A container")));
+        assertTrue(stored.get(child).contains(of(Trellis.PreferServerManaged), child,
+                    org.trellisldp.vocabulary.RDF.type, LDP.RDFSource));
+        assertTrue(stored.get(child).contains(of(Trellis.PreferServerManaged), child, DC.isPartOf, container));
+        assertTrue(stored.get(child).contains(of(Trellis.PreferUserManaged), child, DC.relation, container));
+        verify(mockProducer, times(2)).flush();
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        final BulkIngester ingester = new BulkIngester(mockResourceService, mockAuditService, curator, mockProducer,
+                executor, 10, 5);
+        final String input = IntStream.range(0, 100).mapToObj(i -> "<http://localhost:8080/repository/r" + i
+                + "> <http://purl.org/dc/terms/title> \"Resource " + i + "\" <http://localhost:8080/repository/r"
+                + i + "> .\n").reduce("", String::concat);
+        final List<Map<String, Object>> results = ingest(ingester, input);
+        assertEquals(100L, results.size());
+        assertTrue(results.stream().allMatch(result -> result.get("status").equals(201)));
+        assertEquals(100L, stored.size());
+    }
+
+    @Test
+    public void testParseError() throws Exception {
+        final BulkIngester ingester = new BulkIngester(mockResourceService, mockAuditService, curator, mockProducer,
+                executor, 10, 10);
+        final List<Map<String, Object>> results = ingest(ingester, "<http://localhost:8080/repository/r1> "
+                + "<http://purl.org/dc/terms/title> \"Resource\" <http://localhost:8080/repository/r1> .\n"
+                + "<http://localhost:8080/repository/r2> "
+                + "<http://purl.org/dc/terms/title> \"Resource\" <http://localhost:8080/repository/r2> .\n"
+                + "this is not n-quads\n");
+        assertEquals(2L, results.size());
+        final Map<String, Map<String, Object>> byResource = new HashMap<>();
+        results.forEach(result -> byResource.put((String) result.get("resource"), result));
+        assertEquals(201, byResource.get("http://localhost:8080/repository/r1").get("status"));
+        // The resource that was being parsed when the error occurred may be incomplete, so it is not written
+        assertEquals(400, byResource.get("http://localhost:8080/repository/r2").get("status"));
+        assertTrue(byResource.get("http://localhost:8080/repository/r2").containsKey("error"));
+        assertEquals(singleton(rdf.createIRI("trellis:repository/r1")), stored.keySet());
+    }
+
+    @Test
+    public void testAuthorization() throws Exception {
+        final IRI open = rdf.createIRI("trellis:repository/open");
+        final IRI closed = rdf.createIRI("trellis:repository/closed");
+        when(mockAccessService.getAccessModes(any(IRI.class), eq(mockSession))).thenReturn(emptySet());
+        when(mockAccessService.getAccessModes(ROOT, mockSession)).thenReturn(Stream.of(ACL.Read, ACL.Append)
+                .collect(toSet()));
+        when(mockAccessService.getAccessModes(open, mockSession)).thenReturn(Stream.of(ACL.Read, ACL.Write)
+                .collect(toSet()));
+        when(mockAccessService.getAccessModes(closed, mockSession)).thenReturn(Stream.of(ACL.Read)
+                .collect(toSet()));
+        final BulkIngester ingester = new BulkIngester(mockResourceService, mockAccessService, mockAuditService,
+                curator, mockProducer, executor, 10, 10);
+        final List<Map<String, Object>> results = ingest(ingester, "<http://localhost:8080/repository/open> "
+                + "<http://purl.org/dc/terms/title> \"Open\" <http://localhost:8080/repository/open> .\n"
+                + "<http://localhost:8080/repository/closed> <http://purl.org/dc/terms/title> \"Closed\" "
+                + "<http://localhost:8080/repository/closed> .\n");
+        final Map<String, Object> statuses = new HashMap<>();
+        results.forEach(result -> statuses.put((String) result.get("resource"), result.get("status")));
+        assertEquals(201, statuses.get("http://localhost:8080/repository/open"));
+        assertEquals(403, statuses.get("http://localhost:8080/repository/closed"));
+        assertEquals(1L, stored.size());
+        assertTrue(stored.containsKey(open));
+    }
+
+    @Test
+    public void testLdpChecks() throws Exception {
+        final BulkIngester ingester = new BulkIngester(mockResourceService, mockAuditService, curator,
+                mockProducer, executor, 1, 10);
+        final String input = "<http://localhost:8080/repository/binary> "
+            + "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://www.w3.org/ns/ldp#NonRDFSource> "
+            + "<http://localhost:8080/repository/binary> .\n"
+            + "<http://localhost:8080/repository/missing/child> <http://purl.org/dc/terms/title> \"Orphan\" "
+            + "<http://localhost:8080/repository/missing/child> .\n"
+            + "<http://localhost:8080/repository/existing/child> <http://purl.org/dc/terms/title> \"Child\" "
+            + "<http://localhost:8080/repository/existing/child> .\n"
+            + "<http://localhost:8080/repository/contains> <http://www.w3.org/ns/ldp#contains> "
+            + "<http://localhost:8080/repository/other> <http://localhost:8080/repository/contains> .\n"
+            + "<http://localhost:8080/repository/direct> "
+            + "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://www.w3.org/ns/ldp#DirectContainer> "
+            + "<http://localhost:8080/repository/direct> .\n";
+
+        final List<Map<String, Object>> results = ingest(ingester, input);
+        assertEquals(5L, results.size());
+        final Map<String, Map<String, Object>> byResource = new HashMap<>();
+        results.forEach(result -> byResource.put((String) result.get("resource"), result));
+        assertEquals(400, byResource.get("http://localhost:8080/repository/binary").get("status"));
+        assertEquals(409, byResource.get("http://localhost:8080/repository/missing/child").get("status"));
+        assertEquals(409, byResource.get("http://localhost:8080/repository/existing/child").get("status"));
+        assertEquals(400, byResource.get("http://localhost:8080/repository/contains").get("status"));
+        assertEquals(Trellis.InvalidProperty.getIRIString(),
+                byResource.get("http://localhost:8080/repository/contains").get("constrainedBy"));
+        assertEquals(400, byResource.get("http://localhost:8080/repository/direct").get("status"));
+        assertEquals(Trellis.InvalidCardinality.getIRIString(),
+                byResource.get("http://localhost:8080/repository/direct").get("constrainedBy"));
+        assertTrue(stored.isEmpty());
+    }
+
+    @Test
+    public void testDuplicateInDocument() throws Exception {
+        when(mockResourceService.get(rdf.createIRI("trellis:repository/twice"))).thenAnswer(inv ->
+                stored.containsKey(inv.getArgument(0)) ? of(mockResource) : empty());
+        final BulkIngester ingester = new BulkIngester(mockResourceService, mockAuditService, curator,
+                mockProducer, executor, 1, 10);
+        final List<Map<String, Object>> results = ingest(ingester, "<http://localhost:8080/repository/twice> "
+                + "<http://purl.org/dc/terms/title> \"First\" <http://localhost:8080/repository/twice> .\n"
+                + "<http://localhost:8080/repository/other> <http://purl.org/dc/terms/title> \"Other\" "
+                + "<http://localhost:8080/repository/other> .\n"
+                + "<http://localhost:8080/repository/twice> <http://purl.org/dc/terms/title> \"Second\" "
+                + "<http://localhost:8080/repository/twice> .\n");
+        assertEquals(3L, results.size());
+        assertEquals(1L, results.stream().filter(result -> result.get("status").equals(409)).count());
+        assertEquals(2L, stored.size());
+    }
+
+    @Test
+    public void testClaimedElsewhere() throws Exception {
+        final String claim = ZNODE_COORDINATION + "/ingest-" + md5Hex("trellis:repository/claimed");
+        curator.create().creatingParentContainersIfNeeded().withMode(EPHEMERAL).forPath(claim);
+        try {
+            final BulkIngester ingester = new BulkIngester(mockResourceService, mockAuditService, curator,
+                    mockProducer, executor, 10, 10);
+            final List<Map<String, Object>> results = ingest(ingester, "<http://localhost:8080/repository/claimed> "
+                    + "<http://purl.org/dc/terms/title> \"Claimed\" <http://localhost:8080/repository/claimed> .\n"
+                    + "<http://localhost:8080/repository/free> <http://purl.org/dc/terms/title> \"Free\" "
+                    + "<http://localhost:8080/repository/free> .\n");
+            final Map<String, Object> statuses = new HashMap<>();
+            results.forEach(result -> statuses.put((String) result.get("resource"), result.get("status")));
+            assertEquals(409, statuses.get("http://localhost:8080/repository/claimed"));
+            assertEquals(201, statuses.get("http://localhost:8080/repository/free"));
+            assertEquals(1L, stored.size());
+        } finally {
+            curator.delete().forPath(claim);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> ingest(final BulkIngester ingester, final String input) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ingester.ingest("repository", BASE_URL, mockSession, new ByteArrayInputStream(input.getBytes(UTF_8)),
+                out);
+        return Stream.of(new String(out.toByteArray(), UTF_8).split("\n")).filter(line -> !line.isEmpty())
+            .map(line -> {
+                try {
+                    return (Map<String, Object>) mapper.readValue(line, Map.class);
+                } catch (final Exception ex) {
+                    throw new AssertionError(ex);
+                }
+            }).collect(toList());
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.resource;
+
+import static java.util.Collections.singletonMap;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.OK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.security.Principal;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.commons.rdf.api.IRI;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.trellisldp.api.AgentService;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class IngestResourceTest {
+
+    private static final String BASE_URL = "http://localhost:8080/";
+
+    @Test
+    public void testIngest() throws Exception {
+        final BulkIngester mockIngester = mock(BulkIngester.class);
+        final AgentService mockAgentService = mock(AgentService.class);
+        final SecurityContext mockSecurityContext = mock(SecurityContext.class);
+        final Principal mockPrincipal = mock(Principal.class);
+        final IRI mockAgent = mock(IRI.class);
+        when(mockSecurityContext.getUserPrincipal()).thenReturn(mockPrincipal);
+        when(mockPrincipal.getName()).thenReturn("user");
+        when(mockAgentService.asAgent("user")).thenReturn(mockAgent);
+
+        final IngestResource resource = new IngestResource(mockIngester, mockAgentService,
+                singletonMap("repository", BASE_URL));
+        final InputStream input = new ByteArrayInputStream(new byte[0]);
+
+        assertEquals(NOT_FOUND.getStatusCode(), resource.ingest("other", mockSecurityContext, input).getStatus());
+
+        final Response res = resource.ingest("repository", mockSecurityContext, input);
+        assertEquals(OK.getStatusCode(), res.getStatus());
+        assertEquals(IngestResource.APPLICATION_NDJSON, res.getMediaType().toString());
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingOutput) res.getEntity()).write(output);
+        verify(mockIngester).ingest(eq("repository"), eq(BASE_URL),
+                argThat(session -> mockAgent.equals(session.getAgent())), eq(input), any());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.server;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class BoundedExecutorTest {
+
+    @Test
+    public void testBound() throws Exception {
+        final ExecutorService executor = new BoundedExecutor(newFixedThreadPool(10), 2);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Future<Integer>> tasks = IntStream.range(0, 10).mapToObj(i -> executor.submit(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            release.await(5L, SECONDS);
+            running.decrementAndGet();
+            return i;
+        })).collect(toList());
+
+        Thread.sleep(100L);
+        assertEquals(2, running.get());
+        release.countDown();
+        for (int i = 0; i < tasks.size(); ++i) {
+            assertEquals((Integer) i, tasks.get(i).get(5L, SECONDS));
+        }
+        assertEquals(2, maxRunning.get());
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5L, SECONDS));
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+    }
+
+    @Test
+    public void testShutdownRunsQueuedTasks() throws Exception {
+        final ExecutorService executor = new BoundedExecutor(newFixedThreadPool(10), 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger completed = new AtomicInteger();
+        executor.execute(() -> {
+            try {
+                release.await(5L, SECONDS);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            completed.incrementAndGet();
+        });
+        executor.execute(completed::incrementAndGet);
+        executor.execute(completed::incrementAndGet);
+
+        executor.shutdown();
+        assertTrue(executor.isShutdown());
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        assertFalse(executor.awaitTermination(100L, MILLISECONDS));
+        assertFalse(executor.isTerminated());
+
+        release.countDown();
+        assertTrue(executor.awaitTermination(5L, SECONDS));
+        assertTrue(executor.isTerminated());
+        assertEquals(3, completed.get());
+    }
+
+    @Test
+    public void testShutdownNow() throws Exception {
+        final ExecutorService executor = new BoundedExecutor(newFixedThreadPool(10), 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await(5L, SECONDS);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(() -> { });
+        executor.execute(() -> { });
+
+        // The queued tasks were never handed to the underlying executor
+        assertEquals(2, executor.shutdownNow().size());
+        assertTrue(executor.isShutdown());
+    }
+}
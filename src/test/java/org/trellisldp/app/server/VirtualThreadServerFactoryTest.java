@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.dropwizard.configuration.YamlConfigurationFactory;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.validation.Validators;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.eclipse.jetty.util.thread.ExecutorThreadPool;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.trellisldp.app.config.TrellisConfiguration;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class VirtualThreadServerFactoryTest {
+
+    private static final Boolean VIRTUAL = VirtualThreadServerFactory.newVirtualThreadExecutor().isPresent();
+
+    @Test
+    public void testConfiguration() throws Exception {
+        final TrellisConfiguration config = new YamlConfigurationFactory<>(TrellisConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "")
+            .build(new File(getClass().getResource("/config2.yml").toURI()));
+
+        assertTrue(config.getServerFactory() instanceof VirtualThreadServerFactory);
+        assertEquals((Integer) 5000, ((VirtualThreadServerFactory) config.getServerFactory()).getMaxVirtualThreads());
+        assertEquals((Integer) 10000, new VirtualThreadServerFactory().getMaxVirtualThreads());
+    }
+
+    @Test
+    public void testThreadPool() {
+        final ThreadPool pool = new VirtualThreadServerFactory().createThreadPool(new MetricRegistry());
+        assertNotNull(System.getProperty("jdk.virtualThreadScheduler.maxPoolSize"));
+        if (VIRTUAL) {
+            assertTrue(pool instanceof ExecutorThreadPool);
+        } else {
+            assertTrue(pool instanceof QueuedThreadPool);
+        }
+    }
+
+    @Test
+    public void testExecutor() throws Exception {
+        final ExecutorService executor = VirtualThreadServerFactory.newVirtualThreadExecutor().orElse(null);
+        if (VIRTUAL) {
+            final Future<String> name = executor.submit(() -> Thread.currentThread().toString());
+            assertTrue(name.get().startsWith("VirtualThread"));
+            executor.shutdown();
+        } else {
+            assertEquals(null, executor);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.ws.rs.ServiceUnavailableException;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.app.config.AsyncWriteConfiguration;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class AsyncResourceServiceTest {
+
+    private static final RDF rdf = getInstance();
+    private static final IRI RESOURCE = rdf.createIRI("trellis:repository/resource");
+    private static final IRI OTHER = rdf.createIRI("trellis:other/resource");
+
+    @Mock
+    private ResourceService mockService;
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private final AsyncWriteConfiguration config = new AsyncWriteConfiguration();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService executor = newCachedThreadPool();
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        config.setQueueSize(1);
+        config.setWorkers(1);
+        config.setMaxWaitMillis(10L);
+        when(mockService.put(any(IRI.class), any(Dataset.class))).thenAnswer(inv ->
+                awaitUninterruptibly(release, 5L, SECONDS));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testQueuedWrites() throws Exception {
+        config.setQueueSize(10);
+        final AsyncResourceService svc = new AsyncResourceService(mockService, singletonList("repository"), config,
+                metrics);
+        svc.start();
+        final List<Future<Boolean>> writes = new ArrayList<>();
+        for (int i = 0; i < 3; ++i) {
+            writes.add(executor.submit(() -> svc.put(RESOURCE, rdf.createDataset())));
+        }
+        waitForDepth(2);
+        Thread.sleep(20L);
+        assertTrue(getLag() >= 20L);
+        // A write is only acknowledged once it has been applied
+        assertFalse(writes.stream().anyMatch(Future::isDone));
+
+        release.countDown();
+        for (final Future<Boolean> write : writes) {
+            assertTrue(write.get(5L, SECONDS));
+        }
+        svc.stop();
+        verify(mockService, times(3)).put(eq(RESOURCE), any(Dataset.class));
+        assertEquals((Integer) 0, getDepth());
+        assertEquals((Long) 0L, getLag());
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        final AsyncResourceService svc = new AsyncResourceService(mockService, singletonList("repository"), config,
+                metrics);
+        svc.start();
+        final Future<Boolean> first = executor.submit(() -> svc.put(RESOURCE, rdf.createDataset()));
+        waitForLag();
+        final Future<Boolean> second = executor.submit(() -> svc.put(RESOURCE, rdf.createDataset()));
+        waitForDepth(1);
+
+        final ServiceUnavailableException ex = assertThrows(ServiceUnavailableException.class, () ->
+                svc.put(RESOURCE, rdf.createDataset()));
+        assertEquals("1", ex.getResponse().getHeaderString("Retry-After"));
+        assertEquals(1L, metrics.meter(name(AsyncResourceService.class, "repository", "rejected")).getCount());
+
+        release.countDown();
+        assertTrue(first.get(5L, SECONDS));
+        assertTrue(second.get(5L, SECONDS));
+        svc.stop();
+        verify(mockService, times(2)).put(eq(RESOURCE), any(Dataset.class));
+    }
+
+    @Test
+    public void testShutdownRejectsQueuedWrites() throws Exception {
+        config.setQueueSize(10);
+        config.setShutdownTimeoutSeconds(0L);
+        final AsyncResourceService svc = new AsyncResourceService(mockService, singletonList("repository"), config,
+                metrics);
+        svc.start();
+        final Future<Boolean> first = executor.submit(() -> svc.put(RESOURCE, rdf.createDataset()));
+        waitForLag();
+        final Future<Boolean> second = executor.submit(() -> svc.put(RESOURCE, rdf.createDataset()));
+        waitForDepth(1);
+
+        svc.stop();
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> second.get(5L, SECONDS));
+        assertTrue(ex.getCause() instanceof ServiceUnavailableException);
+        assertEquals(1L, metrics.meter(name(AsyncResourceService.class, "repository", "rejected")).getCount());
+        release.countDown();
+        assertTrue(first.get(5L, SECONDS));
+    }
+
+    @Test
+    public void testFailures() throws Exception {
+        release.countDown();
+        when(mockService.put(eq(RESOURCE), any(Dataset.class))).thenReturn(false)
+            .thenThrow(new IllegalStateException("Expected"));
+        config.setQueueSize(10);
+        final AsyncResourceService svc = new AsyncResourceService(mockService, singletonList("repository"), config,
+                metrics);
+        svc.start();
+        assertFalse(svc.put(RESOURCE, rdf.createDataset()));
+        assertThrows(IllegalStateException.class, () -> svc.put(RESOURCE, rdf.createDataset()));
+        svc.stop();
+        assertEquals(2L, metrics.meter(name(AsyncResourceService.class, "repository", "failed")).getCount());
+    }
+
+    @Test
+    public void testDirectWrites() throws Exception {
+        release.countDown();
+        when(mockService.put(eq(OTHER), any(Dataset.class))).thenReturn(false);
+        final AsyncResourceService svc = new AsyncResourceService(mockService, singletonList("repository"), config,
+                metrics);
+        assertTrue(svc.put(RESOURCE, rdf.createDataset()));
+        verify(mockService).put(eq(RESOURCE), any(Dataset.class));
+
+        svc.start();
+        assertFalse(svc.put(OTHER, rdf.createDataset()));
+        svc.get(RESOURCE);
+        verify(mockService).get(RESOURCE);
+        svc.stop();
+    }
+
+    private Integer getDepth() {
+        return (Integer) metrics.getGauges().get(name(AsyncResourceService.class, "repository", "depth")).getValue();
+    }
+
+    private Long getLag() {
+        return (Long) metrics.getGauges().get(name(AsyncResourceService.class, "repository", "lag")).getValue();
+    }
+
+    private void waitForLag() throws InterruptedException {
+        for (int i = 0; i < 100 && getLag() == 0L; ++i) {
+            Thread.sleep(10L);
+        }
+        assertTrue(getLag() > 0L);
+    }
+
+    private void waitForDepth(final Integer depth) throws InterruptedException {
+        for (int i = 0; i < 100 && !depth.equals(getDepth()); ++i) {
+            Thread.sleep(10L);
+        }
+        assertEquals(depth, getDepth());
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.write;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.time.Instant.now;
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+import static org.trellisldp.app.storage.JournalCompressor.JOURNAL;
+
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.vocabulary.LDP;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class CompressedResourceServiceTest {
+
+    private static final RDF rdf = getInstance();
+    private static final IRI RESOURCE = rdf.createIRI("trellis:repository/resource");
+    private static final byte[] DATA = "<trellis:repository/resource> <http://purl.org/dc/terms/title> \"A title\" ."
+        .getBytes(UTF_8);
+
+    @Mock
+    private ResourceService mockService;
+
+    private final JournalCompressor compressor = new JournalCompressor(Compression.LZ4, null);
+
+    private ResourceLayout layout;
+    private Path directory;
+    private CompressedResourceService svc;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        initMocks(this);
+        when(mockService.put(any(IRI.class), any(Dataset.class))).thenReturn(true);
+        layout = new ResourceLayout(singletonMap("repository",
+                    createTempDirectory("trellis-compressed").toString()));
+        directory = layout.getDirectory(RESOURCE).get();
+        createDirectories(directory);
+        write(directory.resolve(JOURNAL), DATA);
+        compressor.compress(directory);
+        svc = new CompressedResourceService(mockService, layout, singletonMap("repository", compressor));
+    }
+
+    @Test
+    public void testRead() {
+        svc.get(RESOURCE);
+        verify(mockService).get(RESOURCE);
+        assertTrue(JournalCompressor.isCompressed(directory));
+
+        final Instant time = now();
+        svc.get(RESOURCE, time);
+        verify(mockService).get(RESOURCE, time);
+        assertFalse(JournalCompressor.isCompressed(directory));
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        assertTrue(svc.put(RESOURCE, rdf.createDataset()));
+        assertFalse(JournalCompressor.isCompressed(directory));
+        assertArrayEquals(DATA, readAllBytes(directory.resolve(JOURNAL)));
+    }
+
+    @Test
+    public void testWriteLocked() throws Exception {
+        when(mockService.put(any(IRI.class), any(Dataset.class))).thenAnswer(inv -> {
+            // The file lock is held by this process while the resource is changed
+            try (final FileChannel channel = FileChannel.open(directory.resolve(JournalCompressor.LOCK), WRITE)) {
+                assertThrows(OverlappingFileLockException.class, channel::tryLock);
+            }
+            return true;
+        });
+        assertTrue(svc.put(RESOURCE, rdf.createDataset()));
+        // And again, once the journal has been expanded
+        assertTrue(svc.put(RESOURCE, rdf.createDataset()));
+        verify(mockService, times(2)).put(any(IRI.class), any(Dataset.class));
+        try (final FileChannel channel = FileChannel.open(directory.resolve(JournalCompressor.LOCK), WRITE)) {
+            assertNotNull(channel.tryLock());
+        }
+    }
+
+    @Test
+    public void testPurge() {
+        svc.purge(RESOURCE);
+        verify(mockService).purge(RESOURCE);
+        assertFalse(JournalCompressor.isCompressed(directory));
+    }
+
+    @Test
+    public void testExpandProcessorTargets() throws Exception {
+        final IRI child = rdf.createIRI("trellis:repository/child");
+        final IRI container = rdf.createIRI("trellis:repository/container");
+        when(mockService.getContainer(child)).thenReturn(Optional.of(RESOURCE));
+        when(mockService.getContainer(container)).thenReturn(Optional.of(rdf.createIRI("trellis:repository")));
+
+        // The parent's journal is expanded before a child is added or removed
+        assertTrue(svc.put(child, rdf.createDataset()));
+        assertFalse(JournalCompressor.isCompressed(directory));
+        compressor.compress(directory);
+        svc.purge(child);
+        assertFalse(JournalCompressor.isCompressed(directory));
+
+        // And so is the journal of a membership resource
+        compressor.compress(directory);
+        final Dataset dataset = rdf.createDataset();
+        dataset.add(null, container, LDP.membershipResource, RESOURCE);
+        assertTrue(svc.put(container, dataset));
+        assertFalse(JournalCompressor.isCompressed(directory));
+        assertArrayEquals(DATA, readAllBytes(directory.resolve(JOURNAL)));
+    }
+
+    @Test
+    public void testOtherPartition() {
+        svc = new CompressedResourceService(mockService, layout, singletonMap("other", compressor));
+        assertTrue(svc.put(RESOURCE, rdf.createDataset()));
+        assertTrue(JournalCompressor.isCompressed(directory));
+    }
+
+    @Test
+    public void testCorruptJournal() throws Exception {
+        write(directory.resolve(JOURNAL + Compression.LZ4.getExtension()), DATA);
+        assertThrows(UncheckedIOException.class, () -> svc.put(RESOURCE, rdf.createDataset()));
+        verify(mockService, never()).put(any(IRI.class), any(Dataset.class));
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createFile;
+import static java.nio.file.Files.createLink;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.exists;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+import static java.util.Optional.of;
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Path;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.BinaryService.Resolver;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class ContentAddressedResolverTest {
+
+    private static final RDF rdf = getInstance();
+    private static final String PARTITION = "repository";
+    private static final IRI FIRST = rdf.createIRI("file:repository/first");
+    private static final IRI SECOND = rdf.createIRI("file:repository/second");
+    private static final byte[] CONTENT = "Some binary content".getBytes(UTF_8);
+    private static final byte[] OTHER = "Some other content".getBytes(UTF_8);
+    private static final int MAX_LINKS = 100000;
+
+    private Path base;
+    private ContentAddressedResolver resolver;
+
+    @Mock
+    private Resolver mockResolver;
+
+    @Mock
+    private InputStream mockStream;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        initMocks(this);
+        base = createTempDirectory("trellis-binaries");
+        resolver = new ContentAddressedResolver(mockResolver, singletonMap(PARTITION, base.toString()));
+    }
+
+    @Test
+    public void testDeduplication() throws Exception {
+        resolver.setContent(PARTITION, FIRST, new ByteArrayInputStream(CONTENT), emptyMap());
+        resolver.setContent(PARTITION, SECOND, new ByteArrayInputStream(CONTENT), emptyMap());
+
+        assertEquals((Integer) 2, resolver.getReferenceCount(PARTITION, sha256Hex(CONTENT)));
+        assertTrue(resolver.exists(PARTITION, FIRST));
+        assertArrayEquals(CONTENT, read(FIRST));
+        assertArrayEquals(CONTENT, read(SECOND));
+        verify(mockResolver, never()).setContent(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testPurge() throws Exception {
+        resolver.setContent(PARTITION, FIRST, new ByteArrayInputStream(CONTENT), emptyMap());
+        resolver.setContent(PARTITION, SECOND, new ByteArrayInputStream(CONTENT), emptyMap());
+
+        resolver.purgeContent(PARTITION, FIRST);
+        assertFalse(resolver.exists(PARTITION, FIRST));
+        assertEquals((Integer) 1, resolver.getReferenceCount(PARTITION, sha256Hex(CONTENT)));
+        assertArrayEquals(CONTENT, read(SECOND));
+
+        resolver.purgeContent(PARTITION, SECOND);
+        assertFalse(resolver.exists(PARTITION, SECOND));
+        assertEquals((Integer) 0, resolver.getReferenceCount(PARTITION, sha256Hex(CONTENT)));
+    }
+
+    @Test
+    public void testReplace() throws Exception {
+        resolver.setContent(PARTITION, FIRST, new ByteArrayInputStream(CONTENT), emptyMap());
+        resolver.setContent(PARTITION, FIRST, new ByteArrayInputStream(CONTENT), emptyMap());
+        assertEquals((Integer) 1, resolver.getReferenceCount(PARTITION, sha256Hex(CONTENT)));
+
+        resolver.setContent(PARTITION, FIRST, new ByteArrayInputStream(OTHER), emptyMap());
+        assertArrayEquals(OTHER, read(FIRST));
+        assertEquals((Integer) 1, resolver.getReferenceCount(PARTITION, sha256Hex(OTHER)));
+        assertEquals((Integer) 0, resolver.getReferenceCount(PARTITION, sha256Hex(CONTENT)));
+    }
+
+    @Test
+    public void testTooManyLinks() throws Exception {
+        resolver.setContent(PARTITION, FIRST, new ByteArrayInputStream(CONTENT), emptyMap());
+        final Path blob = nest(base.resolve(".blobs"), sha256Hex(CONTENT));
+        final Path links = createDirectories(base.resolve("links"));
+        int count = 0;
+        try {
+            for (; count < MAX_LINKS; ++count) {
+                createLink(links.resolve(Integer.toString(count)), blob);
+            }
+        } catch (final FileSystemException ex) {
+            // The blob has as many links as the file system allows
+        }
+        try {
+            assumeTrue(count < MAX_LINKS, "The file system does not limit the number of links");
+
+            resolver.setContent(PARTITION, SECOND, new ByteArrayInputStream(CONTENT), emptyMap());
+            assertArrayEquals(CONTENT, read(SECOND));
+            assertArrayEquals(CONTENT, read(FIRST));
+            // The new copy took the blob's name
+            assertEquals((Integer) 1, resolver.getReferenceCount(PARTITION, sha256Hex(CONTENT)));
+        } finally {
+            for (int i = 0; i < count; ++i) {
+                deleteIfExists(links.resolve(Integer.toString(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testPurgeDuringUpload() throws Exception {
+        resolver.setContent(PARTITION, FIRST, new ByteArrayInputStream(CONTENT), emptyMap());
+        // A concurrent upload of the same binary is about to move its new reference into place
+        final Path pending = createFile(nest(base.resolve(".refs"), md5Hex(FIRST.getIRIString()))
+                .resolve(sha256Hex(OTHER) + ".pending.tmp"));
+
+        resolver.purgeContent(PARTITION, FIRST);
+        assertFalse(resolver.exists(PARTITION, FIRST));
+        assertTrue(exists(pending));
+        assertEquals((Integer) 0, resolver.getReferenceCount(PARTITION, sha256Hex(CONTENT)));
+
+        deleteIfExists(pending);
+        resolver.purgeContent(PARTITION, FIRST);
+        resolver.setContent(PARTITION, FIRST, new ByteArrayInputStream(OTHER), emptyMap());
+        assertArrayEquals(OTHER, read(FIRST));
+    }
+
+    @Test
+    public void testUnderlyingResolver() {
+        when(mockResolver.exists(PARTITION, FIRST)).thenReturn(true);
+        when(mockResolver.getContent(PARTITION, FIRST)).thenReturn(of(mockStream));
+        assertTrue(resolver.exists(PARTITION, FIRST));
+        assertEquals(of(mockStream), resolver.getContent(PARTITION, FIRST));
+
+        resolver.purgeContent(PARTITION, FIRST);
+        verify(mockResolver).purgeContent(PARTITION, FIRST);
+    }
+
+    @Test
+    public void testOtherPartition() {
+        final InputStream stream = new ByteArrayInputStream(CONTENT);
+        resolver.setContent("other", FIRST, stream, emptyMap());
+        verify(mockResolver).setContent("other", FIRST, stream, emptyMap());
+        assertEquals((Integer) 0, resolver.getReferenceCount("other", sha256Hex(CONTENT)));
+
+        resolver.purgeContent("other", FIRST);
+        verify(mockResolver).purgeContent("other", FIRST);
+    }
+
+    private static Path nest(final Path root, final String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private byte[] read(final IRI identifier) throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (final InputStream stream = resolver.getContent(PARTITION, identifier).get()) {
+            int read;
+            while ((read = stream.read()) >= 0) {
+                output.write(read);
+            }
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.util.stream.IntStream.range;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class CuckooFilterTest {
+
+    private static final RDF rdf = getInstance();
+    private static final int COUNT = 10000;
+
+    @Test
+    public void testAddRemove() {
+        final CuckooFilter filter = new CuckooFilter(COUNT);
+        range(0, COUNT).forEach(i -> filter.add(identifier(i)));
+        assertEquals(COUNT, filter.size());
+        assertFalse(filter.isSaturated());
+        range(0, COUNT).forEach(i -> assertTrue(filter.mightContain(identifier(i))));
+
+        final long falsePositives = range(COUNT, 2 * COUNT).filter(i -> filter.mightContain(identifier(i))).count();
+        assertTrue(falsePositives < COUNT / 100, "Too many false positives: " + falsePositives);
+
+        range(0, COUNT / 2).forEach(i -> filter.remove(identifier(i)));
+        assertEquals(COUNT / 2, filter.size());
+        range(COUNT / 2, COUNT).forEach(i -> assertTrue(filter.mightContain(identifier(i))));
+        assertTrue(range(0, COUNT / 2).filter(i -> filter.mightContain(identifier(i))).count() < COUNT / 100);
+    }
+
+    @Test
+    public void testSaturation() {
+        final CuckooFilter filter = new CuckooFilter(1);
+        range(0, 100).forEach(i -> filter.add(identifier(i)));
+        assertTrue(filter.isSaturated());
+        assertTrue(filter.mightContain(identifier(COUNT)));
+        filter.remove(identifier(0));
+        assertTrue(filter.mightContain(identifier(0)));
+    }
+
+    private static IRI identifier(final int i) {
+        return rdf.createIRI("trellis:repository/resource" + i);
+    }
+}
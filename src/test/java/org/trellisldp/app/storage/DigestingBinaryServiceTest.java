@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempDirectory;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+import static java.util.Optional.of;
+import static org.apache.commons.codec.digest.DigestUtils.md5;
+import static org.apache.commons.codec.digest.DigestUtils.sha256;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Map;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.stubbing.Answer;
+import org.trellisldp.api.BinaryService;
+import org.trellisldp.api.BinaryService.Resolver;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class DigestingBinaryServiceTest {
+
+    private static final RDF rdf = getInstance();
+    private static final String PARTITION = "repository";
+    private static final IRI BINARY = rdf.createIRI("file:repository/binary");
+    private static final byte[] CONTENT = "Some binary content".getBytes(UTF_8);
+    private static final String SHA256 = Base64.getEncoder().encodeToString(sha256(CONTENT));
+    private static final String MD5 = Base64.getEncoder().encodeToString(md5(CONTENT));
+
+    private Path base;
+    private DigestingBinaryService service;
+
+    @Mock
+    private BinaryService mockService;
+
+    @Mock
+    private Resolver mockResolver;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        initMocks(this);
+        base = createTempDirectory("trellis-digests");
+        service = new DigestingBinaryService(mockService, singletonMap(PARTITION, base.toString()),
+                asList("sha-256", "MD5"));
+        final Answer<Void> consume = inv -> {
+            drain(inv.getArgument(2));
+            return null;
+        };
+        doAnswer(consume).when(mockService).setContent(eq(PARTITION), eq(BINARY), any(InputStream.class), any());
+        doAnswer(consume).when(mockResolver).setContent(eq(PARTITION), eq(BINARY), any(InputStream.class), any());
+        when(mockService.getResolver(BINARY)).thenReturn(of(mockResolver));
+    }
+
+    @Test
+    public void testDigestOnUpload() {
+        service.setContent(PARTITION, BINARY, new ByteArrayInputStream(CONTENT), singletonMap("a", "b"));
+
+        final Map<String, String> digests = service.getDigests(PARTITION, BINARY);
+        assertEquals(SHA256, digests.get("SHA-256"));
+        assertEquals(MD5, digests.get("MD5"));
+        assertEquals(of(SHA256), service.calculateDigest(PARTITION, BINARY, "SHA-256"));
+        assertEquals(of(MD5), service.calculateDigest(PARTITION, BINARY, "md5"));
+        verify(mockService, never()).calculateDigest(anyString(), any(IRI.class), anyString());
+    }
+
+    @Test
+    public void testDigestOnRead() {
+        service.setContent(PARTITION, BINARY, new ByteArrayInputStream(CONTENT), singletonMap("a", "b"));
+        when(mockService.calculateDigest(PARTITION, BINARY, "SHA-512")).thenReturn(of("sha512"));
+
+        assertEquals(of("sha512"), service.calculateDigest(PARTITION, BINARY, "SHA-512"));
+        assertEquals(of("sha512"), service.calculateDigest(PARTITION, BINARY, "SHA-512"));
+        assertEquals(SHA256, service.getDigests(PARTITION, BINARY).get("SHA-256"));
+        verify(mockService, times(1)).calculateDigest(PARTITION, BINARY, "SHA-512");
+    }
+
+    @Test
+    public void testIncompleteUpload() {
+        doAnswer(inv -> {
+            inv.<InputStream>getArgument(2).read();
+            return null;
+        }).when(mockService).setContent(eq(PARTITION), eq(BINARY), any(InputStream.class), any());
+        service.setContent(PARTITION, BINARY, new ByteArrayInputStream(CONTENT), singletonMap("a", "b"));
+        assertTrue(service.getDigests(PARTITION, BINARY).isEmpty());
+    }
+
+    @Test
+    public void testPurge() {
+        service.setContent(PARTITION, BINARY, new ByteArrayInputStream(CONTENT), singletonMap("a", "b"));
+        service.purgeContent(PARTITION, BINARY);
+        verify(mockService).purgeContent(PARTITION, BINARY);
+        assertTrue(service.getDigests(PARTITION, BINARY).isEmpty());
+    }
+
+    @Test
+    public void testResolver() {
+        final Resolver resolver = service.getResolver(BINARY).get();
+        resolver.setContent(PARTITION, BINARY, new ByteArrayInputStream(CONTENT), singletonMap("a", "b"));
+        assertEquals(SHA256, service.getDigests(PARTITION, BINARY).get("SHA-256"));
+
+        resolver.purgeContent(PARTITION, BINARY);
+        verify(mockResolver).purgeContent(PARTITION, BINARY);
+        assertFalse(service.getDigests(PARTITION, BINARY).containsKey("SHA-256"));
+    }
+
+    @Test
+    public void testOtherPartition() {
+        final InputStream stream = new ByteArrayInputStream(CONTENT);
+        service.setContent("other", BINARY, stream, singletonMap("a", "b"));
+        verify(mockService).setContent("other", BINARY, stream, singletonMap("a", "b"));
+        assertTrue(service.getDigests("other", BINARY).isEmpty());
+    }
+
+    @Test
+    public void testUnsupportedAlgorithm() {
+        assertThrows(IllegalArgumentException.class, () -> new DigestingBinaryService(mockService,
+                    singletonMap(PARTITION, base.toString()), asList("NOT-A-DIGEST")));
+    }
+
+    private static void drain(final InputStream stream) {
+        final byte[] buffer = new byte[4];
+        try {
+            while (stream.read(buffer, 0, buffer.length) >= 0) {
+                // consume the content
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
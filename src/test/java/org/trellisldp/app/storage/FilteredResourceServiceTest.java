@@ -0,0 +1,195 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.time.Instant.now;
+import static java.util.Collections.singletonMap;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.vocabulary.LDP;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class FilteredResourceServiceTest {
+
+    private static final RDF rdf = getInstance();
+    private static final IRI RESOURCE = rdf.createIRI("trellis:repository/resource");
+    private static final IRI MISSING = rdf.createIRI("trellis:repository/missing");
+    private static final IRI CREATED = rdf.createIRI("trellis:repository/created");
+    private static final IRI OTHER = rdf.createIRI("trellis:other/resource");
+
+    @Mock
+    private ResourceService mockService;
+
+    @Mock
+    private Resource mockResource;
+
+    private final MetricRegistry metrics = new MetricRegistry();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        initMocks(this);
+        when(mockService.scan("repository")).thenAnswer(inv -> Stream.of(
+                    rdf.createTriple(RESOURCE, org.trellisldp.vocabulary.RDF.type, LDP.RDFSource)));
+        when(mockService.get(RESOURCE)).thenAnswer(inv -> of(mockResource));
+        when(mockService.get(any(IRI.class), any())).thenAnswer(inv -> of(mockResource));
+        when(mockService.get(MISSING)).thenReturn(empty());
+        when(mockService.get(CREATED)).thenReturn(empty());
+        when(mockService.put(any(IRI.class), any(Dataset.class))).thenReturn(true);
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        final FilteredResourceService svc = create();
+        svc.start();
+        waitForFilter();
+
+        assertTrue(svc.get(RESOURCE).isPresent());
+        assertFalse(svc.get(MISSING).isPresent());
+        assertFalse(svc.get(MISSING, now()).isPresent());
+        verify(mockService, never()).get(MISSING);
+        assertEquals(2L, metrics.counter(name(FilteredResourceService.class, "repository", "filtered")).getCount());
+
+        assertTrue(svc.put(CREATED, rdf.createDataset()));
+        assertFalse(svc.get(CREATED).isPresent());
+        verify(mockService).get(CREATED);
+        assertEquals(1L, metrics.counter(name(FilteredResourceService.class, "repository", "falsePositives"))
+                .getCount());
+        assertEquals(1.0 / 3, (Double) metrics.getGauges()
+                .get(name(FilteredResourceService.class, "repository", "falsePositiveRate")).getValue(), 0.001);
+        assertEquals((Integer) 2, getSize());
+
+        svc.purge(RESOURCE);
+        verify(mockService).purge(RESOURCE);
+        assertFalse(svc.get(RESOURCE).isPresent());
+        verify(mockService).get(RESOURCE);
+
+        svc.invalidate(RESOURCE);
+        assertTrue(svc.get(RESOURCE).isPresent());
+
+        svc.get(OTHER);
+        verify(mockService).get(OTHER);
+        svc.stop();
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        final FilteredResourceService svc = create();
+        svc.start();
+        waitForFilter();
+
+        // An update of an existing resource does not add it to the filter again
+        assertTrue(svc.put(RESOURCE, rdf.createDataset()));
+        assertEquals((Integer) 1, getSize());
+        svc.purge(RESOURCE);
+        assertEquals((Integer) 0, getSize());
+        svc.stop();
+    }
+
+    @Test
+    public void testCreatedElsewhere() throws Exception {
+        final FilteredResourceService svc = create();
+        svc.start();
+        waitForFilter();
+
+        // A resource created elsewhere holds its own entry, even if the filter might already contain it
+        when(mockService.get(CREATED)).thenAnswer(inv -> of(mockResource));
+        svc.created(CREATED);
+        svc.invalidate(CREATED);
+        assertEquals((Integer) 2, getSize());
+        svc.created(RESOURCE);
+        assertEquals((Integer) 3, getSize());
+        svc.purge(RESOURCE);
+        assertTrue(svc.get(RESOURCE).isPresent());
+        assertTrue(svc.get(CREATED).isPresent());
+        svc.stop();
+    }
+
+    @Test
+    public void testRebuild() throws Exception {
+        final FilteredResourceService svc = create();
+        svc.start();
+        waitForFilter();
+        svc.put(CREATED, rdf.createDataset());
+        svc.stop();
+
+        // The filter is rebuilt on each start, once events are followed; until then lookups go to the store
+        final CompletableFuture<Void> following = new CompletableFuture<>();
+        final MetricRegistry registry = new MetricRegistry();
+        final FilteredResourceService svc2 = new FilteredResourceService(mockService,
+                singletonMap("repository", 100), following, registry);
+        svc2.start();
+        assertFalse(svc2.get(MISSING).isPresent());
+        verify(mockService).get(MISSING);
+        verify(mockService, times(1)).scan("repository");
+
+        following.complete(null);
+        for (int i = 0; i < 500 && registry.getGauges().get(name(FilteredResourceService.class, "repository",
+                        "size")).getValue().equals(0); ++i) {
+            Thread.sleep(10L);
+        }
+        Thread.sleep(10L);
+        verify(mockService, times(2)).scan("repository");
+        assertFalse(svc2.get(MISSING).isPresent());
+        verify(mockService, times(1)).get(MISSING);
+        svc2.stop();
+    }
+
+    private FilteredResourceService create() {
+        return new FilteredResourceService(mockService, singletonMap("repository", 100), completedFuture(null),
+                metrics);
+    }
+
+    private Integer getSize() {
+        return (Integer) metrics.getGauges().get(name(FilteredResourceService.class, "repository", "size"))
+            .getValue();
+    }
+
+    private void waitForFilter() throws InterruptedException {
+        for (int i = 0; i < 500 && getSize().equals(0); ++i) {
+            Thread.sleep(10L);
+        }
+        Thread.sleep(10L);
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.write;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.ResourceService;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class GroupCommitResourceServiceTest {
+
+    private static final RDF rdf = getInstance();
+    private static final IRI RESOURCE = rdf.createIRI("trellis:repository/resource");
+    private static final IRI FAILURE = rdf.createIRI("trellis:repository/failure");
+    private static final IRI OTHER = rdf.createIRI("trellis:other/resource");
+
+    @Mock
+    private ResourceService mockService;
+
+    @Mock
+    private Producer<String, String> mockProducer;
+
+    private final List<String> events = new CopyOnWriteArrayList<>();
+
+    private ResourceLayout layout;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        initMocks(this);
+        events.clear();
+        layout = new ResourceLayout(singletonMap("repository",
+                    createTempDirectory("trellis-group-commit").toString()));
+        when(mockService.put(any(IRI.class), any(Dataset.class))).thenAnswer(inv -> {
+            final IRI identifier = inv.getArgument(0);
+            final Optional<Path> directory = layout.getDirectory(identifier);
+            if (directory.isPresent()) {
+                createDirectories(directory.get());
+                write(directory.get().resolve("resource.rdfp"), new byte[]{1});
+            }
+            events.add("put " + Thread.currentThread().getName());
+            return true;
+        });
+        when(mockService.put(eq(FAILURE), any(Dataset.class))).thenThrow(new IllegalStateException("Expected"));
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        final GroupCommitResourceService svc = new GroupCommitResourceService(mockService, layout,
+                singletonList("repository"), 5000L, 4);
+        svc.start();
+        final ExecutorService executor = newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> results = IntStream.range(0, 4).mapToObj(i -> executor.submit(() -> {
+                final Boolean result = svc.put(rdf.createIRI("trellis:repository/resource" + i),
+                        rdf.createDataset());
+                events.add("done");
+                return result;
+            })).collect(toList());
+            for (final Future<Boolean> result : results) {
+                assertTrue(result.get(5L, SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+            svc.stop();
+        }
+        // Writes are applied by the callers, and no caller is released until the whole batch has been synced
+        assertEquals(8L, events.size());
+        assertTrue(events.subList(0, 4).stream().allMatch(event -> event.startsWith("put pool-")));
+        assertEquals(asList("done", "done", "done", "done"), events.subList(4, 8));
+    }
+
+    @Test
+    public void testPublishAfterSync() throws Exception {
+        final CountDownLatch sent = new CountDownLatch(1);
+        when(mockProducer.send(any())).thenAnswer(inv -> {
+            events.add("send");
+            sent.countDown();
+            return null;
+        });
+        final GroupCommitProducer<String, String> producer = new GroupCommitProducer<>(mockProducer);
+        when(mockService.put(any(IRI.class), any(Dataset.class))).thenAnswer(inv -> {
+            events.add("put");
+            producer.send(new ProducerRecord<>("trellis", "message"));
+            return true;
+        });
+        final GroupCommitResourceService svc = new GroupCommitResourceService(mockService, layout,
+                singletonList("repository"), 5000L, 2);
+        svc.start();
+        final ExecutorService executor = newFixedThreadPool(2);
+        try {
+            final Future<Boolean> first = executor.submit(() -> svc.put(RESOURCE, rdf.createDataset()));
+            // The message waits for the batch holding its write to be synced
+            assertFalse(sent.await(500L, MILLISECONDS));
+            final Future<Boolean> second = executor.submit(() -> svc.put(rdf.createIRI("trellis:repository/other"),
+                        rdf.createDataset()));
+            assertTrue(first.get(5L, SECONDS));
+            assertTrue(second.get(5L, SECONDS));
+        } finally {
+            executor.shutdownNow();
+            svc.stop();
+        }
+        assertEquals(asList("put", "put", "send", "send"), events);
+    }
+
+    @Test
+    public void testConcurrentWrites() throws Exception {
+        final CountDownLatch applying = new CountDownLatch(4);
+        when(mockService.put(any(IRI.class), any(Dataset.class))).thenAnswer(inv -> {
+            applying.countDown();
+            return applying.await(5L, SECONDS);
+        });
+        final GroupCommitResourceService svc = new GroupCommitResourceService(mockService, layout,
+                singletonList("repository"), 0L, 10);
+        svc.start();
+        final ExecutorService executor = newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> results = IntStream.range(0, 4).mapToObj(i -> executor.submit(() ->
+                        svc.put(rdf.createIRI("trellis:repository/resource" + i), rdf.createDataset())))
+                .collect(toList());
+            // Every write is being applied at the same time
+            for (final Future<Boolean> result : results) {
+                assertTrue(result.get(10L, SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+            svc.stop();
+        }
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final GroupCommitResourceService svc = new GroupCommitResourceService(mockService, layout,
+                singletonList("repository"), 0L, 10);
+        svc.start();
+        try {
+            assertThrows(IllegalStateException.class, () -> svc.put(FAILURE, rdf.createDataset()));
+            assertTrue(svc.put(RESOURCE, rdf.createDataset()));
+        } finally {
+            svc.stop();
+        }
+        assertEquals(singletonList("put " + Thread.currentThread().getName()), events);
+    }
+
+    @Test
+    public void testDirectWrites() throws Exception {
+        final GroupCommitResourceService svc = new GroupCommitResourceService(mockService, layout,
+                singletonList("repository"), 0L, 10);
+        final String caller = "put " + Thread.currentThread().getName();
+
+        assertTrue(svc.put(RESOURCE, rdf.createDataset()));
+        svc.start();
+        assertTrue(svc.put(OTHER, rdf.createDataset()));
+        svc.stop();
+        assertTrue(svc.put(RESOURCE, rdf.createDataset()));
+        assertEquals(asList(caller, caller, caller), events);
+        assertFalse(layout.getDirectory(OTHER).isPresent());
+    }
+
+    @Test
+    public void testPassThrough() {
+        final GroupCommitResourceService svc = new GroupCommitResourceService(mockService, layout,
+                singletonList("repository"), 0L, 10);
+        svc.get(RESOURCE);
+        verify(mockService).get(RESOURCE);
+        svc.purge(RESOURCE);
+        verify(mockService).purge(RESOURCE);
+        svc.scan("repository");
+        verify(mockService).scan("repository");
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.time.Instant.EPOCH;
+import static java.time.Instant.now;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.BinaryService;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.vocabulary.LDP;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class HistoryCompactorTest {
+
+    private static final RDF rdf = getInstance();
+    private static final IRI RESOURCE = rdf.createIRI("trellis:repository/resource");
+    private static final IRI FAILURE = rdf.createIRI("trellis:repository/failure");
+    private static final IRI BINARY = rdf.createIRI("file:repository/binary");
+
+    @Mock
+    private ResourceService mockService;
+
+    @Mock
+    private BinaryService mockBinaryService;
+
+    @BeforeEach
+    public void setUp() {
+        initMocks(this);
+        when(mockService.scan("repository")).thenAnswer(inv -> Stream.concat(Stream.of(RESOURCE, FAILURE),
+                    IntStream.range(0, 500).mapToObj(i -> rdf.createIRI("trellis:repository/resource" + i)))
+                .flatMap(identifier -> Stream.of(
+                        rdf.createTriple(identifier, org.trellisldp.vocabulary.RDF.type, LDP.RDFSource),
+                        rdf.createTriple(identifier, org.trellisldp.vocabulary.RDF.type, LDP.Resource))));
+        when(mockService.scan("other")).thenAnswer(inv -> Stream.of(rdf.createTriple(
+                        rdf.createIRI("trellis:other/resource"), org.trellisldp.vocabulary.RDF.type,
+                        LDP.RDFSource)));
+        when(mockService.compact(any(IRI.class), any(Instant.class), any(Instant.class)))
+            .thenAnswer(inv -> Stream.empty());
+        when(mockService.compact(eq(RESOURCE), any(Instant.class), any(Instant.class)))
+            .thenAnswer(inv -> Stream.of(BINARY));
+        when(mockService.compact(eq(FAILURE), any(Instant.class), any(Instant.class)))
+            .thenThrow(new IllegalStateException("Expected"));
+    }
+
+    @Test
+    public void testCompact() {
+        final Instant until = now();
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Map<String, Long> results = new HistoryCompactor(mockService, mockBinaryService, pool)
+                .compact(asList("repository", "other"), until);
+            assertEquals((Long) 501L, results.get("repository"));
+            assertEquals((Long) 1L, results.get("other"));
+        } finally {
+            pool.shutdown();
+        }
+        verify(mockService).compact(RESOURCE, EPOCH, until);
+        verify(mockService).compact(FAILURE, EPOCH, until);
+        verify(mockService, times(503)).compact(any(IRI.class), eq(EPOCH), eq(until));
+        verify(mockBinaryService).purgeContent("repository", BINARY);
+    }
+}
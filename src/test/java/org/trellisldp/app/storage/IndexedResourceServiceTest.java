@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.file.Files.createTempDirectory;
+import static java.time.Instant.now;
+import static java.util.Collections.singletonMap;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.vocabulary.LDP;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class IndexedResourceServiceTest {
+
+    private static final RDF rdf = getInstance();
+    private static final IRI ROOT = rdf.createIRI("trellis:repository");
+    private static final IRI RESOURCE = rdf.createIRI("trellis:repository/resource");
+    private static final IRI MISSING = rdf.createIRI("trellis:repository/missing");
+    private static final IRI OTHER = rdf.createIRI("trellis:other/resource");
+    private static final Instant MODIFIED = Instant.ofEpochMilli(1500000000000L);
+
+    @Mock
+    private ResourceService mockService;
+
+    @Mock
+    private Resource mockResource;
+
+    private String indexFile;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        initMocks(this);
+        indexFile = createTempDirectory("trellis-index").resolve("trellis.index").toString();
+        when(mockService.scan("repository")).thenAnswer(inv -> Stream.of(
+                    rdf.createTriple(ROOT, org.trellisldp.vocabulary.RDF.type, LDP.BasicContainer),
+                    rdf.createTriple(RESOURCE, org.trellisldp.vocabulary.RDF.type, LDP.RDFSource)));
+        when(mockService.get(RESOURCE)).thenAnswer(inv -> of(mockResource));
+        when(mockService.get(MISSING)).thenReturn(empty());
+        when(mockService.put(any(IRI.class), any(Dataset.class))).thenReturn(true);
+        when(mockResource.getModified()).thenReturn(MODIFIED);
+    }
+
+    @Test
+    public void testRebuild() throws Exception {
+        final CompletableFuture<Void> following = new CompletableFuture<>();
+        final IndexedResourceService svc = new IndexedResourceService(mockService,
+                singletonMap("repository", indexFile), following);
+        svc.start();
+        // Until this node follows the event stream, every lookup goes to the store
+        assertFalse(svc.get(MISSING).isPresent());
+        verify(mockService).get(MISSING);
+        verify(mockService, never()).scan("repository");
+
+        following.complete(null);
+        verify(mockService, timeout(5000)).scan("repository");
+        waitForIndex(svc);
+        assertFalse(svc.get(MISSING).isPresent());
+        assertFalse(svc.get(MISSING, now()).isPresent());
+        verify(mockService, never()).get(MISSING);
+        verify(mockService).get(eq(MISSING), any(Instant.class));
+        assertTrue(svc.get(RESOURCE).isPresent());
+        assertFalse(svc.get(OTHER).isPresent());
+        verify(mockService).get(OTHER);
+        svc.stop();
+
+        // A reopened index is brought up to date again, since other nodes may have written in the meantime
+        when(mockService.scan("repository")).thenAnswer(inv -> Stream.of(
+                    rdf.createTriple(MISSING, org.trellisldp.vocabulary.RDF.type, LDP.RDFSource)));
+        when(mockService.get(MISSING)).thenAnswer(inv -> of(mockResource));
+        final IndexedResourceService svc2 = new IndexedResourceService(mockService,
+                singletonMap("repository", indexFile), following);
+        clearInvocations(mockService);
+        svc2.start();
+        verify(mockService, timeout(5000)).scan("repository");
+        for (int i = 0; i < 500 && !svc2.get(MISSING).isPresent(); ++i) {
+            Thread.sleep(10L);
+        }
+        assertTrue(svc2.get(MISSING).isPresent());
+        svc2.stop();
+    }
+
+    @Test
+    public void testWrites() throws Exception {
+        final IndexedResourceService svc = new IndexedResourceService(mockService,
+                singletonMap("repository", indexFile), completedFuture(null));
+        svc.start();
+        waitForIndex(svc);
+
+        assertTrue(svc.put(MISSING, rdf.createDataset()));
+        when(mockService.get(MISSING)).thenAnswer(inv -> of(mockResource));
+        assertTrue(svc.get(MISSING).isPresent());
+
+        svc.purge(RESOURCE);
+        verify(mockService).purge(RESOURCE);
+        clearInvocations(mockService);
+        assertFalse(svc.get(RESOURCE).isPresent());
+        verify(mockService, never()).get(RESOURCE);
+
+        // A resource created elsewhere is looked up again once its event arrives
+        svc.invalidate(RESOURCE);
+        assertTrue(svc.get(RESOURCE).isPresent());
+        verify(mockService).get(RESOURCE);
+
+        // A failed write leaves the index unchanged
+        svc.purge(RESOURCE);
+        when(mockService.put(eq(RESOURCE), any(Dataset.class))).thenReturn(false);
+        assertFalse(svc.put(RESOURCE, rdf.createDataset()));
+        assertFalse(svc.get(RESOURCE).isPresent());
+        verify(mockService).get(RESOURCE);
+
+        assertTrue(svc.put(OTHER, rdf.createDataset()));
+        svc.purge(OTHER);
+        assertFalse(svc.get(OTHER).isPresent());
+        verify(mockService).get(OTHER);
+        svc.stop();
+    }
+
+    private void waitForIndex(final IndexedResourceService svc) throws InterruptedException {
+        for (int i = 0; i < 500; ++i) {
+            clearInvocations(mockService);
+            svc.get(MISSING);
+            if (mockingDetails(mockService).getInvocations().isEmpty()) {
+                return;
+            }
+            Thread.sleep(10L);
+        }
+    }
+}
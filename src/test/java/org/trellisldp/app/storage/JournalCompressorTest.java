@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.size;
+import static java.nio.file.Files.write;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.trellisldp.app.storage.JournalCompressor.JOURNAL;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class JournalCompressorTest {
+
+    private static final String TITLE = "<http://purl.org/dc/terms/title>";
+    private static final String GRAPH = "<http://www.trellisldp.org/ns/trellis#PreferUserManaged>";
+
+    private Path directory;
+    private byte[] journal;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = createTempDirectory("trellis-journal");
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 200; ++i) {
+            builder.append("<trellis:repository/resource> ").append(TITLE).append(" \"Title ").append(i)
+                .append("\" ").append(GRAPH).append(" .\n");
+        }
+        journal = builder.toString().getBytes(UTF_8);
+        write(directory.resolve(JOURNAL), journal);
+    }
+
+    @Test
+    public void testLz4() throws IOException {
+        assertRoundTrip(new JournalCompressor(Compression.LZ4, null), ".lz4");
+    }
+
+    @Test
+    public void testDeflate() throws IOException {
+        assertRoundTrip(new JournalCompressor(Compression.DEFLATE, null), ".deflate");
+    }
+
+    @Test
+    public void testDictionary() throws IOException {
+        final byte[] dictionary = JournalCompressor.train(singletonList(directory.resolve(JOURNAL)), 1024);
+        final String tokens = new String(dictionary, UTF_8);
+        assertTrue(tokens.endsWith(GRAPH + " ") || tokens.endsWith(TITLE + " "));
+        assertTrue(tokens.contains("\"Title "));
+        assertFalse(tokens.contains("123\""));
+
+        assertTrue(new JournalCompressor(Compression.DEFLATE, dictionary).compress(directory));
+        assertThrows(IOException.class, () -> new JournalCompressor(Compression.DEFLATE, null).expand(directory));
+        assertThrows(IOException.class, () -> new JournalCompressor(Compression.DEFLATE, new byte[]{1, 2, 3})
+                .expand(directory));
+        assertTrue(new JournalCompressor(Compression.LZ4, dictionary).expand(directory));
+        assertArrayEquals(journal, readAllBytes(directory.resolve(JOURNAL)));
+    }
+
+    @Test
+    public void testNone() throws IOException {
+        final JournalCompressor compressor = new JournalCompressor(Compression.NONE, null);
+        assertFalse(compressor.compress(directory));
+        assertFalse(compressor.expand(directory));
+        assertFalse(JournalCompressor.isCompressed(directory));
+        assertFalse(new JournalCompressor(Compression.LZ4, null).compress(directory.resolve("missing")));
+    }
+
+    @Test
+    public void testInterrupted() throws IOException {
+        final JournalCompressor compressor = new JournalCompressor(Compression.LZ4, null);
+        assertTrue(compressor.compress(directory));
+        // A journal left behind by an interrupted run holds the same data as the compressed copy
+        write(directory.resolve(JOURNAL), journal);
+        assertTrue(compressor.expand(directory));
+        assertFalse(JournalCompressor.isCompressed(directory));
+        assertArrayEquals(journal, readAllBytes(directory.resolve(JOURNAL)));
+    }
+
+    @Test
+    public void testAppendedTail() throws IOException {
+        final JournalCompressor compressor = new JournalCompressor(Compression.DEFLATE, null);
+        assertTrue(compressor.compress(directory));
+        // Lines in an uncompressed journal beside the compressed copy are kept after the compressed history
+        final byte[] tail = ("<trellis:repository/resource> " + TITLE + " \"Appended\" " + GRAPH + " .\n")
+            .getBytes(UTF_8);
+        write(directory.resolve(JOURNAL), tail);
+        assertTrue(compressor.compress(directory));
+        assertFalse(exists(directory.resolve(JOURNAL)));
+        assertTrue(compressor.expand(directory));
+
+        final byte[] expected = new byte[journal.length + tail.length];
+        System.arraycopy(journal, 0, expected, 0, journal.length);
+        System.arraycopy(tail, 0, expected, journal.length, tail.length);
+        assertArrayEquals(expected, readAllBytes(directory.resolve(JOURNAL)));
+    }
+
+    @Test
+    public void testProcessorTargets() throws IOException {
+        assertFalse(JournalCompressor.isContainer(directory));
+        assertTrue(JournalCompressor.getMembershipResources(directory).isEmpty());
+        assertFalse(JournalCompressor.isContainer(directory.resolve("missing")));
+        assertTrue(JournalCompressor.getMembershipResources(directory.resolve("missing")).isEmpty());
+
+        write(directory.resolve(JOURNAL), ("<trellis:repository/resource> "
+                    + "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://www.w3.org/ns/ldp#DirectContainer> "
+                    + GRAPH + " .\n<trellis:repository/resource> <http://www.w3.org/ns/ldp#membershipResource> "
+                    + "<trellis:repository/member> " + GRAPH + " .\n").getBytes(UTF_8), APPEND);
+        assertTrue(JournalCompressor.isContainer(directory));
+        assertEquals(singleton("trellis:repository/member"), JournalCompressor.getMembershipResources(directory));
+    }
+
+    @Test
+    public void testUnknownCodec() {
+        assertThrows(IllegalArgumentException.class, () -> Compression.fromName("zstd"));
+        assertTrue(Compression.LZ4 == Compression.fromName("LZ4"));
+    }
+
+    private void assertRoundTrip(final JournalCompressor compressor, final String extension) throws IOException {
+        assertTrue(compressor.compress(directory));
+        assertTrue(JournalCompressor.isCompressed(directory));
+        assertFalse(exists(directory.resolve(JOURNAL)));
+        assertTrue(size(directory.resolve(JOURNAL + extension)) < journal.length / 4);
+        assertFalse(compressor.compress(directory));
+
+        assertTrue(new JournalCompressor(Compression.NONE, null).expand(directory));
+        assertFalse(JournalCompressor.isCompressed(directory));
+        assertArrayEquals(journal, readAllBytes(directory.resolve(JOURNAL)));
+        assertFalse(compressor.expand(directory));
+    }
+}
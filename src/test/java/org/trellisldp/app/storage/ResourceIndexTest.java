@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.file.Files.createTempDirectory;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.stream.IntStream.range;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.trellisldp.app.storage.ResourceIndex.State;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class ResourceIndexTest {
+
+    private static final RDF rdf = getInstance();
+    private static final IRI RESOURCE = rdf.createIRI("trellis:repository/resource");
+    private static final IRI OTHER = rdf.createIRI("trellis:repository/other");
+    private static final Instant MODIFIED = Instant.ofEpochMilli(1500000000000L);
+
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = createTempDirectory("trellis-index").resolve("trellis.index");
+    }
+
+    @Test
+    public void testStates() throws IOException {
+        try (final ResourceIndex index = new ResourceIndex(file)) {
+            assertFalse(index.isComplete());
+            assertEquals(State.UNKNOWN, index.getState(RESOURCE));
+
+            index.setPresent(RESOURCE, MODIFIED);
+            assertEquals(State.PRESENT, index.getState(RESOURCE));
+            assertEquals(of(MODIFIED), index.getModified(RESOURCE));
+
+            index.setComplete();
+            assertTrue(index.isComplete());
+            assertEquals(State.ABSENT, index.getState(OTHER));
+
+            index.markPresent(RESOURCE);
+            assertEquals(of(MODIFIED), index.getModified(RESOURCE));
+            index.setPresent(RESOURCE, null);
+            assertEquals(empty(), index.getModified(RESOURCE));
+
+            index.setAbsent(RESOURCE);
+            assertEquals(State.ABSENT, index.getState(RESOURCE));
+            assertEquals(empty(), index.getModified(RESOURCE));
+            assertEquals(1, index.size());
+            index.markPresent(RESOURCE);
+            assertEquals(State.PRESENT, index.getState(RESOURCE));
+            index.setAbsent(RESOURCE);
+
+            index.clear();
+            assertFalse(index.isComplete());
+            assertEquals(0, index.size());
+            assertEquals(State.UNKNOWN, index.getState(RESOURCE));
+        }
+    }
+
+    @Test
+    public void testResizeAndReopen() throws IOException {
+        final int count = 10000;
+        try (final ResourceIndex index = new ResourceIndex(file)) {
+            range(0, count).forEach(i -> index.setPresent(identifier(i), MODIFIED.plusMillis(i)));
+            index.setAbsent(identifier(0));
+            index.setComplete();
+            assertEquals(count, index.size());
+        }
+        try (final ResourceIndex index = new ResourceIndex(file)) {
+            assertTrue(index.isComplete());
+            assertEquals(count, index.size());
+            assertEquals(State.ABSENT, index.getState(identifier(0)));
+            range(1, count).forEach(i -> {
+                assertEquals(State.PRESENT, index.getState(identifier(i)));
+                assertEquals(of(MODIFIED.plusMillis(i)), index.getModified(identifier(i)));
+            });
+            assertEquals(State.ABSENT, index.getState(RESOURCE));
+        }
+    }
+
+    @Test
+    public void testReclaimAbsent() throws IOException {
+        try (final ResourceIndex index = new ResourceIndex(file, 4096)) {
+            index.setComplete();
+            // Far more resources than the index can hold come and go, one at a time
+            range(0, 10000).forEach(i -> {
+                index.setPresent(identifier(i), MODIFIED);
+                index.setAbsent(identifier(i));
+            });
+            index.setPresent(RESOURCE, MODIFIED);
+            assertFalse(index.isFull());
+            assertTrue(index.isComplete());
+            assertTrue(index.size() < 4096);
+            assertEquals(State.PRESENT, index.getState(RESOURCE));
+            assertEquals(State.ABSENT, index.getState(identifier(9999)));
+        }
+    }
+
+    @Test
+    public void testFull() throws IOException {
+        try (final ResourceIndex index = new ResourceIndex(file, 4096)) {
+            index.setPresent(RESOURCE, MODIFIED);
+            index.setComplete();
+            range(0, 5000).forEach(i -> index.setPresent(identifier(i), MODIFIED));
+            assertTrue(index.isFull());
+            // Resources that the index could not add are no longer reported as absent
+            assertFalse(index.isComplete());
+            assertEquals(State.UNKNOWN, index.getState(identifier(4999)));
+            index.setComplete();
+            assertFalse(index.isComplete());
+
+            // Entries that the index already holds are still updated
+            index.setAbsent(RESOURCE);
+            assertEquals(State.ABSENT, index.getState(RESOURCE));
+            assertEquals(State.PRESENT, index.getState(identifier(0)));
+        }
+    }
+
+    @Test
+    public void testUncleanShutdown() throws IOException {
+        final ResourceIndex index = new ResourceIndex(file);
+        index.setPresent(RESOURCE, MODIFIED);
+        index.setComplete();
+
+        // The first index is never closed
+        try (final ResourceIndex reopened = new ResourceIndex(file)) {
+            assertFalse(reopened.isComplete());
+            assertEquals(0, reopened.size());
+            assertEquals(State.UNKNOWN, reopened.getState(RESOURCE));
+        }
+    }
+
+    private static IRI identifier(final int i) {
+        return rdf.createIRI("trellis:repository/resource" + i);
+    }
+}
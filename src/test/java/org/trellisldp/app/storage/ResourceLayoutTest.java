@@ -0,0 +1,58 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.file.Paths.get;
+import static java.util.Collections.singletonMap;
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.nio.file.Path;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class ResourceLayoutTest {
+
+    private static final RDF rdf = getInstance();
+    private static final IRI RESOURCE = rdf.createIRI("trellis:repository/resource");
+
+    private final ResourceLayout layout = new ResourceLayout(singletonMap("repository", "/data/volume1"));
+
+    @Test
+    public void testRelativePath() {
+        final String path = ResourceLayout.getRelativePath(RESOURCE);
+        assertTrue(path.matches("([0-9a-f]{2}/){3}[0-9a-f]{32}"));
+        assertTrue(path.endsWith("/" + md5Hex(RESOURCE.getIRIString())));
+    }
+
+    @Test
+    public void testDirectory() {
+        final Path volume = layout.getVolume(RESOURCE).get();
+        assertEquals(get("/data/volume1"), volume);
+        assertEquals(volume.resolve(ResourceLayout.getRelativePath(RESOURCE)), layout.getDirectory(RESOURCE).get());
+        assertFalse(layout.getDirectory(rdf.createIRI("trellis:other/resource")).isPresent());
+        assertFalse(layout.getDirectory(rdf.createIRI("http://example.org/resource")).isPresent());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.app.storage;
+
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.exists;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class VolumeLockTest {
+
+    private Path volume1;
+    private Path volume2;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        volume1 = createTempDirectory("trellis-volume");
+        volume2 = createTempDirectory("trellis-volume");
+    }
+
+    @Test
+    public void testLockAndRelease() throws Exception {
+        final VolumeLock lock = new VolumeLock(asList(volume1, volume2), false);
+        lock.start();
+        assertTrue(exists(volume1.resolve(VolumeLock.LOCK)));
+        assertTrue(exists(volume2.resolve(VolumeLock.LOCK)));
+        lock.stop();
+
+        try (final FileChannel channel = FileChannel.open(volume2.resolve(VolumeLock.LOCK), CREATE, READ, WRITE);
+                final FileLock other = channel.tryLock()) {
+            assertNotNull(other);
+        }
+    }
+
+    @Test
+    public void testLockedElsewhere() throws Exception {
+        // File locks are held per process, so a lock held within this process is reported as an overlap
+        try (final FileChannel channel = FileChannel.open(volume2.resolve(VolumeLock.LOCK), CREATE, READ, WRITE);
+                final FileLock other = channel.lock()) {
+            final VolumeLock lock = new VolumeLock(asList(volume1, volume2), true);
+            assertThrows(IllegalStateException.class, lock::acquire);
+            assertFalse(other.isShared());
+        }
+        // The lock on the first volume was released when the second could not be locked
+        try (final FileChannel channel = FileChannel.open(volume1.resolve(VolumeLock.LOCK), CREATE, READ, WRITE);
+                final FileLock other = channel.tryLock()) {
+            assertNotNull(other);
+        }
+    }
+}